@@ -0,0 +1,53 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 生成 CatalogOptions 的源代码, 由 generate-sources 阶段以单文件源码方式运行:
+ * <pre>
+ * java CatalogOptionsGenerator.java &lt;输出目录&gt; &lt;配置项数量&gt;
+ * </pre>
+ * 生成的类声明指定数量的静态配置项, 用于对比反射扫描和编译期生成的配置项目录
+ */
+public final class CatalogOptionsGenerator {
+
+    private static final String PACKAGE = "org.meteorcat.fusion.benchmark";
+
+    private static final String CLASS_NAME = "CatalogOptions";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: CatalogOptionsGenerator <output-directory> <option-count>");
+        }
+        final Path output = Path.of(args[0]).resolve(PACKAGE.replace('.', '/')).resolve(CLASS_NAME + ".java");
+        final int count = Integer.parseInt(args[1]);
+
+        final StringBuilder out = new StringBuilder()
+                .append("package ").append(PACKAGE).append(";\n\n")
+                .append("import org.meteorcat.fusion.configuration.ConfigOption;\n")
+                .append("import org.meteorcat.fusion.configuration.ConfigOptions;\n\n")
+                .append("/**\n")
+                .append(" * ").append(count).append(" 个静态配置项, 用于对比反射扫描和编译期生成的配置项目录\n")
+                .append(" * 由 ").append(CatalogOptionsGenerator.class.getSimpleName()).append(" 生成, 不要手动修改\n")
+                .append(" */\n")
+                .append("public final class ").append(CLASS_NAME).append(" {\n");
+        for (int i = 0; i < count; i++) {
+            out.append('\n')
+                    .append("    public static final ConfigOption<Integer> OPTION_").append(i)
+                    .append(" = ConfigOptions.key(\"catalog.option-").append(i).append("\")\n")
+                    .append("            .intType()\n")
+                    .append("            .defaultValue(").append(i).append(");\n");
+        }
+        out.append("}\n");
+
+        // 内容没有变化时不重写, 避免每次构建都触发重新编译
+        final byte[] content = out.toString().getBytes(StandardCharsets.UTF_8);
+        if (Files.exists(output) && Arrays.equals(Files.readAllBytes(output), content)) {
+            return;
+        }
+        Files.createDirectories(output.getParent());
+        Files.write(output, content);
+    }
+}
@@ -0,0 +1,194 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * 按照线程数量依次运行基准测试, 并把结果写入以提交命名的文件, 方便不同提交之间对比
+ * <pre>
+ * // 除了下面的参数, 其余参数原样交给 JMH, 例如 -p keyCount=10,1000 -prof gc -prof stack
+ * java -cp fusion-benchmarks/target/benchmarks.jar org.meteorcat.fusion.benchmark.BenchmarkRunner \
+ *     --threads 1,4,16 --baseline 4f83b40 ConfigurationHotPathBenchmark -prof gc
+ * </pre>
+ * 参数:
+ * 1. --threads 逗号分隔的线程数量, 默认按照 JMH 参数或者 1 个线程
+ * 2. --results-dir 结果目录, 默认 target/jmh-results
+ * 3. --label 结果文件名, 默认当前 git 提交的短哈希, 不在 git 仓库之中时为 local
+ * 4. --baseline 对比的结果文件名, 运行结束之后输出每项结果相对该文件的变化
+ * 每个线程数量输出一份 JMH JSON 结果 (label-tN.json), 所有结果再汇总成一份 label.csv
+ */
+public final class BenchmarkRunner {
+
+    private static final String CSV_HEADER = "benchmark,params,threads,score,error,unit";
+
+    /**
+     * 不允许实例化
+     */
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * 解析参数之后按照线程数量依次运行
+     */
+    public static void main(String[] args) throws Exception {
+        int[] threads = null;
+        Path resultsDir = Paths.get("target", "jmh-results");
+        String label = null;
+        String baseline = null;
+        final List<String> jmhArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Arrays.stream(requireValue(args, ++i).split(","))
+                        .map(String::trim)
+                        .mapToInt(Integer::parseInt)
+                        .toArray();
+                case "--results-dir" -> resultsDir = Paths.get(requireValue(args, ++i));
+                case "--label" -> label = requireValue(args, ++i);
+                case "--baseline" -> baseline = requireValue(args, ++i);
+                default -> jmhArgs.add(args[i]);
+            }
+        }
+        if (label == null) {
+            label = gitRevision();
+        }
+
+        final CommandLineOptions commandLine;
+        try {
+            commandLine = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+        } catch (CommandLineOptionException e) {
+            System.err.println("Invalid JMH options: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (threads == null) {
+            threads = new int[]{commandLine.getThreads().orElse(1)};
+        }
+
+        Files.createDirectories(resultsDir);
+        final List<String> rows = new ArrayList<>();
+        rows.add(CSV_HEADER);
+        for (int threadCount : threads) {
+            final Path jsonFile = resultsDir.resolve(label + "-t" + threadCount + ".json");
+            final Options options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threadCount)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(jsonFile.toString())
+                    .build();
+            for (RunResult result : new Runner(options).run()) {
+                addRows(rows, result, threadCount);
+            }
+        }
+
+        final Path csvFile = resultsDir.resolve(label + ".csv");
+        Files.write(csvFile, rows, StandardCharsets.UTF_8);
+        System.out.println("Results written to " + csvFile.toAbsolutePath());
+
+        if (baseline != null) {
+            compare(resultsDir.resolve(baseline + ".csv"), rows);
+        }
+    }
+
+    /**
+     * 把主结果以及 profiler 的附加结果 (例如 gc.alloc.rate.norm) 转成 CSV 行
+     */
+    private static void addRows(List<String> rows, RunResult result, int threads) {
+        final String benchmark = result.getParams().getBenchmark();
+        final StringJoiner params = new StringJoiner(" ");
+        for (String key : result.getParams().getParamsKeys()) {
+            params.add(key + "=" + result.getParams().getParam(key));
+        }
+        rows.add(row(benchmark, params.toString(), threads, result.getPrimaryResult()));
+        for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+            rows.add(row(benchmark + ":" + secondary.getKey(), params.toString(), threads, secondary.getValue()));
+        }
+    }
+
+    /**
+     * 单行 CSV, 参数之间用空格分隔避免和列分隔符冲突
+     */
+    private static String row(String benchmark, String params, int threads, Result<?> result) {
+        return String.join(",", benchmark, params, Integer.toString(threads),
+                Double.toString(result.getScore()), Double.toString(result.getScoreError()), result.getScoreUnit());
+    }
+
+    /**
+     * 输出本次结果相对基准文件的变化, 两边都存在的结果才对比
+     */
+    private static void compare(Path baselineFile, List<String> rows) throws IOException {
+        if (!Files.exists(baselineFile)) {
+            System.err.println("Baseline not found: " + baselineFile.toAbsolutePath());
+            return;
+        }
+        final Map<String, Double> baseline = new HashMap<>();
+        for (String line : Files.readAllLines(baselineFile, StandardCharsets.UTF_8)) {
+            final String[] columns = line.split(",", -1);
+            if (!line.equals(CSV_HEADER) && columns.length == 6) {
+                baseline.put(columns[0] + "," + columns[1] + "," + columns[2], Double.parseDouble(columns[3]));
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-70s %14s %14s %9s%n", "Benchmark (params, threads)", "baseline", "current", "change");
+        for (String line : rows.subList(1, rows.size())) {
+            final String[] columns = line.split(",", -1);
+            final Double before = baseline.get(columns[0] + "," + columns[1] + "," + columns[2]);
+            if (before == null) {
+                continue;
+            }
+            final double after = Double.parseDouble(columns[3]);
+            final String name = columns[0].replace(BenchmarkRunner.class.getPackageName() + ".", "")
+                    + " (" + columns[1] + (columns[1].isEmpty() ? "" : ", ") + "t=" + columns[2] + ")";
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%% %s%n",
+                    name, before, after, (after - before) * 100.0 / before, columns[5]);
+        }
+    }
+
+    /**
+     * 当前 git 提交的短哈希
+     */
+    private static String gitRevision() {
+        try {
+            final Process process = new ProcessBuilder("git", "rev-parse", "--short", "HEAD")
+                    .redirectErrorStream(true)
+                    .start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                final String revision = reader.readLine();
+                if (process.waitFor() == 0 && revision != null && !revision.isBlank()) {
+                    return revision.trim();
+                }
+            }
+        } catch (IOException e) {
+            // 没有安装 git, 使用默认名称
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "local";
+    }
+
+    /**
+     * 获取参数值, 缺失时抛出 IllegalArgumentException
+     */
+    private static String requireValue(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        }
+        return args[index];
+    }
+}
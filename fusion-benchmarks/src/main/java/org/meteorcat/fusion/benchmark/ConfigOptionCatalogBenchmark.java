@@ -0,0 +1,75 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptionRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动时列出所有配置项的开销: 反射读取声明类的静态字段, 对比加载 fusion-processor 编译期生成的目录
+ * 两种方式都建立 KEY -> 配置项的索引并查找一次; 关心的是冷启动, 所以每次测量都在新的 JVM 之中只执行一次
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar ConfigOptionCatalogBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class ConfigOptionCatalogBenchmark {
+
+    private static final String KEY = "catalog.option-250";
+
+    /**
+     * 反射扫描静态字段
+     */
+    @Benchmark
+    public ConfigOption<?> reflectiveScan() throws IllegalAccessException {
+        final Map<String, ConfigOption<?>> index = new HashMap<>();
+        for (Field field : CatalogOptions.class.getDeclaredFields()) {
+            final int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) && ConfigOption.class.isAssignableFrom(field.getType())) {
+                final ConfigOption<?> option = (ConfigOption<?>) field.get(null);
+                index.put(option.key(), option);
+            }
+        }
+        return index.get(KEY);
+    }
+
+    /**
+     * 通过 ServiceLoader 加载生成的目录
+     */
+    @Benchmark
+    public ConfigOption<?> generatedRegistry() {
+        final List<ConfigOptionRegistry> registries = ConfigOptionRegistry.load(
+                ConfigOptionCatalogBenchmark.class.getClassLoader());
+        for (ConfigOptionRegistry registry : registries) {
+            final ConfigOption<?> option = registry.option(KEY);
+            if (option != null) {
+                return option;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 只读取元数据(例如生成文档), 不需要初始化声明配置项的类
+     */
+    @Benchmark
+    public int generatedDescriptors() {
+        int count = 0;
+        for (ConfigOptionRegistry registry : ConfigOptionRegistry.load(
+                ConfigOptionCatalogBenchmark.class.getClassLoader())) {
+            count += registry.descriptors().size();
+        }
+        return count;
+    }
+}
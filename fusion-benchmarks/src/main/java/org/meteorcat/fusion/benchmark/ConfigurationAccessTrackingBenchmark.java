@@ -0,0 +1,76 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 开启读取跟踪对读取吞吐的影响, 以及生成未读取KEY报告的耗时
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar ConfigurationAccessTrackingBenchmark -t 4
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationAccessTrackingBenchmark {
+
+    private static final int KEY_COUNT = 1000;
+
+    private static final ConfigOption<Integer> PARALLELISM = ConfigOptions.key("fusion.benchmark.parallelism")
+            .intType()
+            .defaultValue(1)
+            .withDeprecatedKeys("parallelism");
+
+    @Param({"false", "true"})
+    public boolean tracking;
+
+    private String[] keys;
+
+    private Configuration configuration;
+
+    @Setup
+    public void setup() {
+        keys = new String[KEY_COUNT];
+        configuration = new Configuration();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "fusion.benchmark.key-" + i;
+            configuration.setString(keys[i], "value-" + i);
+        }
+        configuration.setString("parallelism", "8");
+        if (tracking) {
+            configuration.enableAccessTracking();
+        }
+    }
+
+    @Benchmark
+    public Optional<Object> getRawValue() {
+        return configuration.getRawValue(keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)]);
+    }
+
+    /**
+     * 通过过时KEY命中的配置项读取
+     */
+    @Benchmark
+    public int getIntOption() {
+        return configuration.getInt(PARALLELISM);
+    }
+
+    /**
+     * 按照当前快照生成未读取KEY报告, 只在开启跟踪时有意义
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public SortedSet<String> unreadKeys() {
+        return tracking ? configuration.accessTracker().unreadKeys() : null;
+    }
+}
@@ -0,0 +1,66 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在已有配置上批量写入: 逐个 setString 对比一次 edit 事务
+ * 逐个写入每次都要加锁并发布快照, 事务之内的节点原地修改, 只发布一次
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar ConfigurationBatchBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationBatchBenchmark {
+
+    /**
+     * 基础配置数量
+     */
+    private static final int BASE_KEYS = 10_000;
+
+    /**
+     * 每次批量写入的配置数量
+     */
+    @Param({"10", "1000"})
+    public int batchSize;
+
+    private Configuration base;
+
+    private String[] keys;
+
+    @Setup
+    public void setup() {
+        base = ConfigurationCodecBenchmark.createConfiguration(BASE_KEYS);
+        keys = new String[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            keys[i] = "pipeline.batch-" + i;
+        }
+    }
+
+    @Benchmark
+    public Configuration setStringLoop() {
+        final Configuration config = base.clone();
+        for (String key : keys) {
+            config.setString(key, key);
+        }
+        return config;
+    }
+
+    @Benchmark
+    public Configuration editTransaction() {
+        final Configuration config = base.clone();
+        config.edit(tx -> {
+            for (String key : keys) {
+                tx.setString(key, key);
+            }
+        });
+        return config;
+    }
+}
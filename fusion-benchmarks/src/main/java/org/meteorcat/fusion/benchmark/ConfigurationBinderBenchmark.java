@@ -0,0 +1,213 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.ConfigKey;
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.ConfigurationBinder;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 绑定 50 个字段的 record: 手写 50 次类型读取对比 ConfigurationBinder
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar ConfigurationBinderBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationBinderBenchmark {
+
+    private static final ConfigOption<Integer> OPTION_0 = ConfigOptions.key("settings.group0.field0").intType().defaultValue(0);
+    private static final ConfigOption<Long> OPTION_1 = ConfigOptions.key("settings.group0.field1").longType().defaultValue(0L);
+    private static final ConfigOption<String> OPTION_2 = ConfigOptions.key("settings.group0.field2").stringType().defaultValue("");
+    private static final ConfigOption<Duration> OPTION_3 = ConfigOptions.key("settings.group0.field3").durationType().defaultValue(Duration.ZERO);
+    private static final ConfigOption<Boolean> OPTION_4 = ConfigOptions.key("settings.group0.field4").booleanType().defaultValue(false);
+    private static final ConfigOption<Integer> OPTION_5 = ConfigOptions.key("settings.group0.field5").intType().defaultValue(0);
+    private static final ConfigOption<Long> OPTION_6 = ConfigOptions.key("settings.group0.field6").longType().defaultValue(0L);
+    private static final ConfigOption<String> OPTION_7 = ConfigOptions.key("settings.group0.field7").stringType().defaultValue("");
+    private static final ConfigOption<Duration> OPTION_8 = ConfigOptions.key("settings.group0.field8").durationType().defaultValue(Duration.ZERO);
+    private static final ConfigOption<Boolean> OPTION_9 = ConfigOptions.key("settings.group0.field9").booleanType().defaultValue(false);
+    private static final ConfigOption<Integer> OPTION_10 = ConfigOptions.key("settings.group1.field10").intType().defaultValue(0);
+    private static final ConfigOption<Long> OPTION_11 = ConfigOptions.key("settings.group1.field11").longType().defaultValue(0L);
+    private static final ConfigOption<String> OPTION_12 = ConfigOptions.key("settings.group1.field12").stringType().defaultValue("");
+    private static final ConfigOption<Duration> OPTION_13 = ConfigOptions.key("settings.group1.field13").durationType().defaultValue(Duration.ZERO);
+    private static final ConfigOption<Boolean> OPTION_14 = ConfigOptions.key("settings.group1.field14").booleanType().defaultValue(false);
+    private static final ConfigOption<Integer> OPTION_15 = ConfigOptions.key("settings.group1.field15").intType().defaultValue(0);
+    private static final ConfigOption<Long> OPTION_16 = ConfigOptions.key("settings.group1.field16").longType().defaultValue(0L);
+    private static final ConfigOption<String> OPTION_17 = ConfigOptions.key("settings.group1.field17").stringType().defaultValue("");
+    private static final ConfigOption<Duration> OPTION_18 = ConfigOptions.key("settings.group1.field18").durationType().defaultValue(Duration.ZERO);
+    private static final ConfigOption<Boolean> OPTION_19 = ConfigOptions.key("settings.group1.field19").booleanType().defaultValue(false);
+    private static final ConfigOption<Integer> OPTION_20 = ConfigOptions.key("settings.group2.field20").intType().defaultValue(0);
+    private static final ConfigOption<Long> OPTION_21 = ConfigOptions.key("settings.group2.field21").longType().defaultValue(0L);
+    private static final ConfigOption<String> OPTION_22 = ConfigOptions.key("settings.group2.field22").stringType().defaultValue("");
+    private static final ConfigOption<Duration> OPTION_23 = ConfigOptions.key("settings.group2.field23").durationType().defaultValue(Duration.ZERO);
+    private static final ConfigOption<Boolean> OPTION_24 = ConfigOptions.key("settings.group2.field24").booleanType().defaultValue(false);
+    private static final ConfigOption<Integer> OPTION_25 = ConfigOptions.key("settings.group2.field25").intType().defaultValue(0);
+    private static final ConfigOption<Long> OPTION_26 = ConfigOptions.key("settings.group2.field26").longType().defaultValue(0L);
+    private static final ConfigOption<String> OPTION_27 = ConfigOptions.key("settings.group2.field27").stringType().defaultValue("");
+    private static final ConfigOption<Duration> OPTION_28 = ConfigOptions.key("settings.group2.field28").durationType().defaultValue(Duration.ZERO);
+    private static final ConfigOption<Boolean> OPTION_29 = ConfigOptions.key("settings.group2.field29").booleanType().defaultValue(false);
+    private static final ConfigOption<Integer> OPTION_30 = ConfigOptions.key("settings.group3.field30").intType().defaultValue(0);
+    private static final ConfigOption<Long> OPTION_31 = ConfigOptions.key("settings.group3.field31").longType().defaultValue(0L);
+    private static final ConfigOption<String> OPTION_32 = ConfigOptions.key("settings.group3.field32").stringType().defaultValue("");
+    private static final ConfigOption<Duration> OPTION_33 = ConfigOptions.key("settings.group3.field33").durationType().defaultValue(Duration.ZERO);
+    private static final ConfigOption<Boolean> OPTION_34 = ConfigOptions.key("settings.group3.field34").booleanType().defaultValue(false);
+    private static final ConfigOption<Integer> OPTION_35 = ConfigOptions.key("settings.group3.field35").intType().defaultValue(0);
+    private static final ConfigOption<Long> OPTION_36 = ConfigOptions.key("settings.group3.field36").longType().defaultValue(0L);
+    private static final ConfigOption<String> OPTION_37 = ConfigOptions.key("settings.group3.field37").stringType().defaultValue("");
+    private static final ConfigOption<Duration> OPTION_38 = ConfigOptions.key("settings.group3.field38").durationType().defaultValue(Duration.ZERO);
+    private static final ConfigOption<Boolean> OPTION_39 = ConfigOptions.key("settings.group3.field39").booleanType().defaultValue(false);
+    private static final ConfigOption<Integer> OPTION_40 = ConfigOptions.key("settings.group4.field40").intType().defaultValue(0);
+    private static final ConfigOption<Long> OPTION_41 = ConfigOptions.key("settings.group4.field41").longType().defaultValue(0L);
+    private static final ConfigOption<String> OPTION_42 = ConfigOptions.key("settings.group4.field42").stringType().defaultValue("");
+    private static final ConfigOption<Duration> OPTION_43 = ConfigOptions.key("settings.group4.field43").durationType().defaultValue(Duration.ZERO);
+    private static final ConfigOption<Boolean> OPTION_44 = ConfigOptions.key("settings.group4.field44").booleanType().defaultValue(false);
+    private static final ConfigOption<Integer> OPTION_45 = ConfigOptions.key("settings.group4.field45").intType().defaultValue(0);
+    private static final ConfigOption<Long> OPTION_46 = ConfigOptions.key("settings.group4.field46").longType().defaultValue(0L);
+    private static final ConfigOption<String> OPTION_47 = ConfigOptions.key("settings.group4.field47").stringType().defaultValue("");
+    private static final ConfigOption<Duration> OPTION_48 = ConfigOptions.key("settings.group4.field48").durationType().defaultValue(Duration.ZERO);
+    private static final ConfigOption<Boolean> OPTION_49 = ConfigOptions.key("settings.group4.field49").booleanType().defaultValue(false);
+
+    /**
+     * 50 个字段的配置对象, 类型依次是 int|long|String|Duration|boolean
+     */
+    public record Settings(
+            @ConfigKey("settings.group0.field0") int field0,
+            @ConfigKey("settings.group0.field1") long field1,
+            @ConfigKey("settings.group0.field2") String field2,
+            @ConfigKey("settings.group0.field3") Duration field3,
+            @ConfigKey("settings.group0.field4") boolean field4,
+            @ConfigKey("settings.group0.field5") int field5,
+            @ConfigKey("settings.group0.field6") long field6,
+            @ConfigKey("settings.group0.field7") String field7,
+            @ConfigKey("settings.group0.field8") Duration field8,
+            @ConfigKey("settings.group0.field9") boolean field9,
+            @ConfigKey("settings.group1.field10") int field10,
+            @ConfigKey("settings.group1.field11") long field11,
+            @ConfigKey("settings.group1.field12") String field12,
+            @ConfigKey("settings.group1.field13") Duration field13,
+            @ConfigKey("settings.group1.field14") boolean field14,
+            @ConfigKey("settings.group1.field15") int field15,
+            @ConfigKey("settings.group1.field16") long field16,
+            @ConfigKey("settings.group1.field17") String field17,
+            @ConfigKey("settings.group1.field18") Duration field18,
+            @ConfigKey("settings.group1.field19") boolean field19,
+            @ConfigKey("settings.group2.field20") int field20,
+            @ConfigKey("settings.group2.field21") long field21,
+            @ConfigKey("settings.group2.field22") String field22,
+            @ConfigKey("settings.group2.field23") Duration field23,
+            @ConfigKey("settings.group2.field24") boolean field24,
+            @ConfigKey("settings.group2.field25") int field25,
+            @ConfigKey("settings.group2.field26") long field26,
+            @ConfigKey("settings.group2.field27") String field27,
+            @ConfigKey("settings.group2.field28") Duration field28,
+            @ConfigKey("settings.group2.field29") boolean field29,
+            @ConfigKey("settings.group3.field30") int field30,
+            @ConfigKey("settings.group3.field31") long field31,
+            @ConfigKey("settings.group3.field32") String field32,
+            @ConfigKey("settings.group3.field33") Duration field33,
+            @ConfigKey("settings.group3.field34") boolean field34,
+            @ConfigKey("settings.group3.field35") int field35,
+            @ConfigKey("settings.group3.field36") long field36,
+            @ConfigKey("settings.group3.field37") String field37,
+            @ConfigKey("settings.group3.field38") Duration field38,
+            @ConfigKey("settings.group3.field39") boolean field39,
+            @ConfigKey("settings.group4.field40") int field40,
+            @ConfigKey("settings.group4.field41") long field41,
+            @ConfigKey("settings.group4.field42") String field42,
+            @ConfigKey("settings.group4.field43") Duration field43,
+            @ConfigKey("settings.group4.field44") boolean field44,
+            @ConfigKey("settings.group4.field45") int field45,
+            @ConfigKey("settings.group4.field46") long field46,
+            @ConfigKey("settings.group4.field47") String field47,
+            @ConfigKey("settings.group4.field48") Duration field48,
+            @ConfigKey("settings.group4.field49") boolean field49) {
+    }
+
+    private Configuration config;
+
+    @Setup
+    public void setup() {
+        config = new Configuration();
+        for (int i = 0; i < 50; i++) {
+            final String key = "settings.group" + (i / 10) + ".field" + i;
+            switch (i % 5) {
+                case 0 -> config.setString(key, String.valueOf(i));
+                case 1 -> config.setString(key, String.valueOf(i * 1000L));
+                case 2 -> config.setString(key, "value-" + i);
+                case 3 -> config.setString(key, i + " s");
+                default -> config.setString(key, String.valueOf(i % 2 == 0));
+            }
+        }
+    }
+
+    /**
+     * 手写的逐个读取
+     */
+    @Benchmark
+    public Settings directReads() {
+        return new Settings(
+                config.get(OPTION_0),
+                config.get(OPTION_1),
+                config.get(OPTION_2),
+                config.get(OPTION_3),
+                config.get(OPTION_4),
+                config.get(OPTION_5),
+                config.get(OPTION_6),
+                config.get(OPTION_7),
+                config.get(OPTION_8),
+                config.get(OPTION_9),
+                config.get(OPTION_10),
+                config.get(OPTION_11),
+                config.get(OPTION_12),
+                config.get(OPTION_13),
+                config.get(OPTION_14),
+                config.get(OPTION_15),
+                config.get(OPTION_16),
+                config.get(OPTION_17),
+                config.get(OPTION_18),
+                config.get(OPTION_19),
+                config.get(OPTION_20),
+                config.get(OPTION_21),
+                config.get(OPTION_22),
+                config.get(OPTION_23),
+                config.get(OPTION_24),
+                config.get(OPTION_25),
+                config.get(OPTION_26),
+                config.get(OPTION_27),
+                config.get(OPTION_28),
+                config.get(OPTION_29),
+                config.get(OPTION_30),
+                config.get(OPTION_31),
+                config.get(OPTION_32),
+                config.get(OPTION_33),
+                config.get(OPTION_34),
+                config.get(OPTION_35),
+                config.get(OPTION_36),
+                config.get(OPTION_37),
+                config.get(OPTION_38),
+                config.get(OPTION_39),
+                config.get(OPTION_40),
+                config.get(OPTION_41),
+                config.get(OPTION_42),
+                config.get(OPTION_43),
+                config.get(OPTION_44),
+                config.get(OPTION_45),
+                config.get(OPTION_46),
+                config.get(OPTION_47),
+                config.get(OPTION_48),
+                config.get(OPTION_49));
+    }
+
+    @Benchmark
+    public Settings binder() {
+        return ConfigurationBinder.bind(config, Settings.class);
+    }
+}
@@ -0,0 +1,92 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.ConfigurationCodec;
+import org.meteorcat.fusion.util.ConfigurationUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二进制编码和 Java 默认序列化(ObjectOutputStream)的编解码速度对比
+ * 编码之后的字节数在 Setup 阶段打印
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar ConfigurationCodecBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationCodecBenchmark {
+
+    /**
+     * 配置数量
+     */
+    @Param({"100", "10000"})
+    public int keyCount;
+
+    private Configuration configuration;
+
+    private byte[] codecBytes;
+
+    private byte[] javaBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        configuration = createConfiguration(keyCount);
+        codecBytes = ConfigurationCodec.toBytes(configuration);
+        javaBytes = javaSerialize(configuration);
+        System.out.printf("%nkeys=%d codec=%d bytes, java=%d bytes%n", keyCount, codecBytes.length, javaBytes.length);
+    }
+
+    /**
+     * 模拟常见的配置: 多层级共享前缀的KEY, 字符串|数值|布尔值混合
+     */
+    static Configuration createConfiguration(int keyCount) {
+        final String[] groups = {"taskmanager.memory", "jobmanager.rpc", "state.backend.rocksdb", "pipeline"};
+        final Configuration config = new Configuration(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            final String key = groups[i % groups.length] + ".option-" + i;
+            switch (i % 3) {
+                case 0 -> config.setString(key, "value-" + i);
+                case 1 -> config.set(ConfigurationUtils.getIntegerConfigOption(key), i);
+                default -> config.set(ConfigurationUtils.getBooleanConfigOption(key), i % 2 == 0);
+            }
+        }
+        return config;
+    }
+
+    @Benchmark
+    public byte[] codecEncode() {
+        return ConfigurationCodec.toBytes(configuration);
+    }
+
+    @Benchmark
+    public Configuration codecDecode() {
+        return ConfigurationCodec.fromBytes(codecBytes);
+    }
+
+    @Benchmark
+    public byte[] javaEncode() throws IOException {
+        return javaSerialize(configuration);
+    }
+
+    @Benchmark
+    public Object javaDecode() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(javaBytes))) {
+            return in.readObject();
+        }
+    }
+
+    private static byte[] javaSerialize(Configuration configuration) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(configuration);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,80 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把 Configuration 当作缓存KEY时 hashCode|equals 的开销
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar ConfigurationEqualityBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationEqualityBenchmark {
+
+    @Param({"100", "10000"})
+    public int keyCount;
+
+    private Configuration config;
+
+    /**
+     * 单独构建的相同内容配置, 不共享快照
+     */
+    private Configuration sameContent;
+
+    /**
+     * 只有一个配置值不同
+     */
+    private Configuration oneValueChanged;
+
+    /**
+     * 缓存之中已有的编译计划
+     */
+    private Map<Configuration, String> plans;
+
+    @Setup
+    public void setup() {
+        config = ConfigurationCodecBenchmark.createConfiguration(keyCount);
+        sameContent = ConfigurationCodecBenchmark.createConfiguration(keyCount);
+        oneValueChanged = ConfigurationCodecBenchmark.createConfiguration(keyCount);
+        oneValueChanged.setString("pipeline.option-3", "changed");
+        plans = new HashMap<>();
+        for (int i = 0; i < 16; i++) {
+            final Configuration job = ConfigurationCodecBenchmark.createConfiguration(keyCount);
+            job.setString("pipeline.name", "job-" + i);
+            plans.put(job, "plan-" + i);
+        }
+    }
+
+    @Benchmark
+    public int hashCodeOnly() {
+        return config.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsSameContent() {
+        return config.equals(sameContent);
+    }
+
+    @Benchmark
+    public boolean equalsOneValueChanged() {
+        return config.equals(oneValueChanged);
+    }
+
+    /**
+     * 缓存未命中: 计算哈希并和哈希桶内的配置比较
+     */
+    @Benchmark
+    public String planCacheMiss() {
+        return plans.get(oneValueChanged);
+    }
+}
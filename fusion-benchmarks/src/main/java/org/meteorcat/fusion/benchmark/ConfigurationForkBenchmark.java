@@ -0,0 +1,78 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 从同一份基础配置复制出大量作业配置的开销: 每个作业 clone 之后写入一个配置
+ * Setup 阶段打印 1000 个复制同时存活时, 每个复制实际占用的堆内存
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar ConfigurationForkBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationForkBenchmark {
+
+    /**
+     * 同时存活的复制数量
+     */
+    private static final int FORKS = 1000;
+
+    /**
+     * 基础配置数量
+     */
+    @Param({"10000"})
+    public int keyCount;
+
+    private Configuration base;
+
+    @Setup
+    public void setup() {
+        base = ConfigurationCodecBenchmark.createConfiguration(keyCount);
+        final long before = usedMemory();
+        final Configuration[] forks = new Configuration[FORKS];
+        for (int i = 0; i < FORKS; i++) {
+            forks[i] = fork(base, i);
+        }
+        final long after = usedMemory();
+        System.out.printf("%nkeys=%d forks=%d retained=%d bytes/fork (%d)%n",
+                keyCount, FORKS, (after - before) / FORKS, forks.length);
+    }
+
+    /**
+     * 复制基础配置并写入作业自己的配置
+     */
+    private static Configuration fork(Configuration base, int job) {
+        final Configuration config = base.clone();
+        config.setString("pipeline.name", "job-" + job);
+        return config;
+    }
+
+    /**
+     * 多次 GC 之后的已用堆内存
+     */
+    private static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public Configuration forkAndSet() {
+        return fork(base, 1);
+    }
+
+    @Benchmark
+    public Configuration copyConstructor() {
+        return new Configuration(base);
+    }
+}
@@ -0,0 +1,136 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration 热点路径按照配置数量的开销: getRawValue 命中|未命中, mapType 配置项写入, clone, addAll
+ * <pre>
+ * // 按照线程数量依次运行并写入结果文件, 见 BenchmarkRunner
+ * java -cp fusion-benchmarks/target/benchmarks.jar org.meteorcat.fusion.benchmark.BenchmarkRunner \
+ *     --threads 1,4 ConfigurationHotPathBenchmark -p keyCount=10,100000 -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationHotPathBenchmark {
+
+    private static final ConfigOption<Map<String, String>> PROPERTIES = ConfigOptions.key("fusion.benchmark.properties")
+            .mapType()
+            .noDefaultValue();
+
+    /**
+     * 配置数量
+     */
+    @Param({"10", "1000", "100000", "1000000"})
+    public int keyCount;
+
+    /**
+     * 已写入的配置KEY
+     */
+    private String[] keys;
+
+    private Configuration configuration;
+
+    /**
+     * mapType 配置项写入的值, 每次写入都会替换 fusion.benchmark.properties.* 下的全部KEY
+     */
+    private Map<String, String> properties;
+
+    @Setup
+    public void setup() {
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "fusion.benchmark.group-" + (i & 63) + ".key-" + i;
+        }
+        configuration = new Configuration(keyCount);
+        configuration.edit(transaction -> {
+            for (int i = 0; i < keyCount; i++) {
+                transaction.setString(keys[i], "value-" + i);
+            }
+        });
+
+        properties = new HashMap<>();
+        for (int i = 0; i < 16; i++) {
+            properties.put("property-" + i, "value-" + i);
+        }
+        configuration.set(PROPERTIES, properties);
+    }
+
+    /**
+     * 按照命中率生成的查找KEY, 只有 getRawValue 使用, 避免其他测试按照命中率重复运行
+     */
+    @State(Scope.Benchmark)
+    public static class Probes {
+
+        /**
+         * 查找KEY的数量, 2 的幂方便取模
+         */
+        private static final int PROBE_COUNT = 1 << 12;
+
+        /**
+         * 命中率, 0.0 表示全部未命中
+         */
+        @Param({"1.0", "0.5", "0.0"})
+        public double hitRatio;
+
+        private String[] probes;
+
+        @Setup
+        public void setup(ConfigurationHotPathBenchmark benchmark) {
+            final SplittableRandom random = new SplittableRandom(42);
+            probes = new String[PROBE_COUNT];
+            for (int i = 0; i < PROBE_COUNT; i++) {
+                final int index = random.nextInt(benchmark.keyCount);
+                probes[i] = random.nextDouble() < hitRatio
+                        ? benchmark.keys[index]
+                        : "fusion.benchmark.group-" + (index & 63) + ".missing-" + index;
+            }
+        }
+
+        String next() {
+            return probes[ThreadLocalRandom.current().nextInt() & (PROBE_COUNT - 1)];
+        }
+    }
+
+    @Benchmark
+    public Optional<Object> getRawValue(Probes probes) {
+        return configuration.getRawValue(probes.next());
+    }
+
+    /**
+     * mapType 配置项写入, 需要删除旧的前缀KEY再写入新的KEY
+     */
+    @Benchmark
+    public Configuration setPrefixMap() {
+        return configuration.set(PROPERTIES, properties);
+    }
+
+    @Benchmark
+    public Configuration cloneConfiguration() {
+        return configuration.clone();
+    }
+
+    /**
+     * 合并到空配置
+     */
+    @Benchmark
+    public Configuration addAll() {
+        final Configuration target = new Configuration();
+        target.addAll(configuration);
+        return target;
+    }
+}
@@ -0,0 +1,71 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ${var} 模板读取的开销: 普通配置值, 缓存之后的模板, 以及每次写入之后重新渲染的模板
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar ConfigurationInterpolationBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationInterpolationBenchmark {
+
+    /**
+     * 配置数量
+     */
+    @Param({"1000"})
+    public int size;
+
+    private Configuration config;
+
+    private int counter;
+
+    @Setup
+    public void setup() {
+        config = new Configuration();
+        for (int i = 0; i < size; i++) {
+            config.setString("key-" + i, "value-" + i);
+        }
+        config.setString("plain.dir", "/data/checkpoints");
+        config.setString("base.dir", "/data");
+        config.setString("state.dir", "${base.dir}/state");
+        config.setString("checkpoint.dir", "${state.dir}/checkpoints");
+    }
+
+    @Benchmark
+    public String plainRead() {
+        return config.getString("plain.dir", null);
+    }
+
+    @Benchmark
+    public String cachedTemplateRead() {
+        return config.getString("checkpoint.dir", null);
+    }
+
+    /**
+     * 写入被引用的KEY之后读取, 需要重新渲染整条引用链
+     */
+    @Benchmark
+    public String writeThenTemplateRead() {
+        config.setString("base.dir", (counter++ & 1) == 0 ? "/data" : "/mnt");
+        return config.getString("checkpoint.dir", null);
+    }
+
+    /**
+     * 写入无关的KEY之后读取, 模板缓存不受影响
+     */
+    @Benchmark
+    public String unrelatedWriteThenTemplateRead() {
+        config.setString("key-0", (counter++ & 1) == 0 ? "a" : "b");
+        return config.getString("checkpoint.dir", null);
+    }
+}
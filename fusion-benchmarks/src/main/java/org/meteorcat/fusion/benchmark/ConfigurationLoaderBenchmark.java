@@ -0,0 +1,110 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.ConfigurationLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 100 MB 配置文件的加载吞吐量
+ * 对比流式加载和 先读取到 Properties 再 Configuration.fromMap 的传统方式, 吞吐量 = 文件大小 / 单次耗时
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar ConfigurationLoaderBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+public class ConfigurationLoaderBenchmark {
+
+    /**
+     * 生成的文件大小
+     */
+    private static final long FILE_SIZE = 100L * 1024 * 1024;
+
+    private Path properties;
+
+    private Path yaml;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        properties = Files.createTempFile("fusion-loader", ".properties");
+        yaml = Files.createTempFile("fusion-loader", ".yaml");
+        writeProperties(properties);
+        writeYaml(yaml);
+        System.out.printf("%nproperties=%d bytes, yaml=%d bytes%n", Files.size(properties), Files.size(yaml));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(properties);
+        Files.deleteIfExists(yaml);
+    }
+
+    /**
+     * 扁平的 properties: 多层级共享前缀的KEY
+     */
+    private static void writeProperties(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            long written = 0;
+            for (int i = 0; written < FILE_SIZE; i++) {
+                final String line = "taskmanager.group-" + (i / 100) + ".option-" + i + " = value-" + i + "\n";
+                writer.write(line);
+                written += line.length();
+            }
+        }
+    }
+
+    /**
+     * 嵌套的 YAML: 每个分组 100 个配置
+     */
+    private static void writeYaml(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            long written = 0;
+            for (int group = 0; written < FILE_SIZE; group++) {
+                final StringBuilder block = new StringBuilder("taskmanager:\n  group-").append(group).append(":\n");
+                for (int i = 0; i < 100; i++) {
+                    block.append("    option-").append(group * 100 + i).append(": value-").append(i).append('\n');
+                }
+                writer.append(block);
+                written += block.length();
+            }
+        }
+    }
+
+    @Benchmark
+    public Configuration streamProperties() throws IOException {
+        return ConfigurationLoader.load(properties);
+    }
+
+    @Benchmark
+    public Configuration streamYaml() throws IOException {
+        return ConfigurationLoader.load(yaml);
+    }
+
+    @Benchmark
+    public Configuration propertiesThenFromMap() throws IOException {
+        final Properties loaded = new Properties();
+        try (Reader reader = Files.newBufferedReader(properties, StandardCharsets.UTF_8)) {
+            loaded.load(reader);
+        }
+        final Map<String, String> map = new HashMap<>(loaded.size() * 2);
+        for (String name : loaded.stringPropertyNames()) {
+            map.put(name, loaded.getProperty(name));
+        }
+        return Configuration.fromMap(map);
+    }
+}
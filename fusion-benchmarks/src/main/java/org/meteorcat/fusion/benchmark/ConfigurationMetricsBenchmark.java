@@ -0,0 +1,69 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 开启访问统计对读取吞吐的影响: 关闭|默认采样率 16|每次读取都记录
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar ConfigurationMetricsBenchmark -t 4
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationMetricsBenchmark {
+
+    private static final int KEY_COUNT = 1000;
+
+    private static final ConfigOption<Integer> PARALLELISM = ConfigOptions.key("fusion.benchmark.parallelism")
+            .intType()
+            .defaultValue(1)
+            .withDeprecatedKeys("parallelism");
+
+    /**
+     * 读取采样率, 0 表示不开启统计
+     */
+    @Param({"0", "16", "1"})
+    public int sampleRate;
+
+    private String[] keys;
+
+    private Configuration configuration;
+
+    @Setup
+    public void setup() {
+        keys = new String[KEY_COUNT];
+        configuration = new Configuration();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "fusion.benchmark.key-" + i;
+            configuration.setString(keys[i], "value-" + i);
+        }
+        configuration.setString("parallelism", "8");
+        if (sampleRate > 0) {
+            configuration.enableMetrics(sampleRate);
+        }
+    }
+
+    @Benchmark
+    public Optional<Object> getRawValue() {
+        return configuration.getRawValue(keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)]);
+    }
+
+    /**
+     * 通过过时KEY命中的配置项读取
+     */
+    @Benchmark
+    public int getIntOption() {
+        return configuration.getInt(PARALLELISM);
+    }
+}
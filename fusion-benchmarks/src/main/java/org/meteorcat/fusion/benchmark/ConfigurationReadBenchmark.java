@@ -0,0 +1,115 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配置读取的并发基准测试
+ * 对比 Configuration 的快照读取和原先 synchronized (this.configs) 的读取方式, 读线程数量分别为 1, 8, 64
+ * <pre>
+ * // 直接运行 main 方法, 或者打包之后指定线程数量执行
+ * java -jar fusion-benchmarks/target/benchmarks.jar ConfigurationReadBenchmark -t 8
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationReadBenchmark {
+
+    /**
+     * 配置数量
+     */
+    @Param({"1000"})
+    public int keyCount;
+
+    /**
+     * 测试读取的配置KEY列表
+     */
+    private String[] keys;
+
+    /**
+     * 快照读取的配置对象
+     */
+    private Configuration configuration;
+
+    /**
+     * 模拟原先的同步读取方式
+     */
+    private SynchronizedConfigs synchronizedConfigs;
+
+    @Setup
+    public void setup() {
+        keys = new String[keyCount];
+        configuration = new Configuration(keyCount);
+        synchronizedConfigs = new SynchronizedConfigs();
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "fusion.benchmark.key-" + i;
+            configuration.setString(keys[i], "value-" + i);
+            synchronizedConfigs.put(keys[i], "value-" + i);
+        }
+    }
+
+    /**
+     * 快照读取
+     */
+    @Benchmark
+    public Optional<Object> snapshotRead() {
+        return configuration.getRawValue(keys[ThreadLocalRandom.current().nextInt(keyCount)]);
+    }
+
+    /**
+     * 同步锁读取
+     */
+    @Benchmark
+    public Optional<Object> synchronizedRead() {
+        return synchronizedConfigs.getRawValue(keys[ThreadLocalRandom.current().nextInt(keyCount)]);
+    }
+
+
+    /**
+     * 原先 Configuration.getRawValue 的读取方式, 每次读取都需要获取 configs 的监视器锁
+     */
+    static final class SynchronizedConfigs {
+
+        private final HashMap<String, Object> configs = new HashMap<>();
+
+        void put(String key, Object value) {
+            synchronized (this.configs) {
+                this.configs.put(key, value);
+            }
+        }
+
+        Optional<Object> getRawValue(String key) {
+            synchronized (this.configs) {
+                return Optional.ofNullable(this.configs.get(key));
+            }
+        }
+    }
+
+
+    /**
+     * 依次按照 1, 8, 64 个读线程运行对比
+     */
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 8, 64}) {
+            final Options options = new OptionsBuilder()
+                    .include(ConfigurationReadBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
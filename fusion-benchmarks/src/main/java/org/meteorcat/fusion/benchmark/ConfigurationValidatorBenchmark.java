@@ -0,0 +1,77 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.ConfigurationValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 整体检查的开销: 单线程检查对比 ForkJoinPool 并行检查
+ * 单线程的线程池等价于顺序检查加上任务拆分的开销, 并行的收益取决于机器的核数
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar ConfigurationValidatorBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationValidatorBenchmark {
+
+    /**
+     * 配置数量
+     */
+    @Param({"1000", "50000"})
+    public int size;
+
+    private Configuration config;
+
+    private ConfigurationValidator singleThread;
+
+    private ConfigurationValidator parallel;
+
+    private ForkJoinPool singleThreadPool;
+
+    @Setup
+    public void setup() {
+        final List<ConfigOption<Integer>> options = new ArrayList<>(size);
+        config = new Configuration();
+        for (int i = 0; i < size; i++) {
+            final ConfigOption<Integer> option = ConfigOptions.key("option-" + i).intType().defaultValue(0);
+            options.add(option);
+            config.setString(option.key(), Integer.toString(i));
+        }
+        final ConfigurationValidator.Builder single = ConfigurationValidator.builder();
+        final ConfigurationValidator.Builder common = ConfigurationValidator.builder();
+        for (ConfigOption<Integer> option : options) {
+            single.range(option, 0, Integer.MAX_VALUE);
+            common.range(option, 0, Integer.MAX_VALUE);
+        }
+        singleThreadPool = new ForkJoinPool(1);
+        singleThread = single.pool(singleThreadPool).build();
+        parallel = common.build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        singleThreadPool.shutdown();
+    }
+
+    @Benchmark
+    public int singleThread() {
+        return singleThread.validate(config).size();
+    }
+
+    @Benchmark
+    public int parallel() {
+        return parallel.validate(config).size();
+    }
+}
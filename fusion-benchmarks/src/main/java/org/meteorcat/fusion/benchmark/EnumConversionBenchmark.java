@@ -0,0 +1,64 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.util.ConfigurationUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 枚举配置转化的开销: 每次遍历所有枚举值, 对比按照枚举类缓存的查找表
+ * 读取的是最后声明的枚举值并且大小写不同, 对遍历来说是最坏的情况
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar EnumConversionBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnumConversionBenchmark {
+
+    /**
+     * 枚举值数量
+     */
+    @Param({"5", "500"})
+    public int constants;
+
+    private Class<? extends Enum<?>> enumClass;
+
+    private String value;
+
+    @Setup
+    public void setup() {
+        enumClass = constants == 5 ? SmallEnum.class : LargeEnum.class;
+        final Enum<?>[] values = enumClass.getEnumConstants();
+        value = values[values.length - 1].name().toLowerCase();
+    }
+
+    /**
+     * 原先的实现方式: 每次读取都遍历枚举值并转换大小写
+     */
+    @Benchmark
+    public Enum<?> linearScan() {
+        final String name = value.toUpperCase();
+        return Arrays.stream(enumClass.getEnumConstants())
+                .filter(e -> e.toString().toUpperCase().equals(name))
+                .findAny()
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public Enum<?> lookupTable() {
+        return ConfigurationUtils.convertToEnum(value, enumClass);
+    }
+
+    /**
+     * 5 个枚举值
+     */
+    public enum SmallEnum {
+        NONE, LZ4, SNAPPY, ZSTD, GZIP
+    }
+}
@@ -0,0 +1,70 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.FrozenConfiguration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 冻结配置和可写配置的读取延迟对比
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar FrozenConfigurationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrozenConfigurationBenchmark {
+
+    /**
+     * 配置数量
+     */
+    @Param({"1000", "100000"})
+    public int keyCount;
+
+    /**
+     * 每次调用连续读取的KEY数量, 打散访问顺序避免只命中同一个缓存行
+     */
+    private static final int BATCH = 1024;
+
+    private String[] keys;
+
+    private Configuration configuration;
+
+    private FrozenConfiguration frozen;
+
+    @Setup
+    public void setup() {
+        configuration = new Configuration(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            configuration.setString("fusion.benchmark.key-" + i, "value-" + i);
+        }
+        frozen = configuration.freeze();
+
+        keys = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            keys[i] = "fusion.benchmark.key-" + (int) ((i * 2654435761L) % keyCount);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void mutableGet(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(configuration.getString(key, null));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void frozenGet(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(frozen.getString(key, null));
+        }
+    }
+}
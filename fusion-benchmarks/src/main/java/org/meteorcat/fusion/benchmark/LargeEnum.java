@@ -0,0 +1,507 @@
+package org.meteorcat.fusion.benchmark;
+
+/**
+ * 500 个枚举值, 用于测试大枚举的配置转化
+ */
+public enum LargeEnum {
+    CONSTANT_0,
+    CONSTANT_1,
+    CONSTANT_2,
+    CONSTANT_3,
+    CONSTANT_4,
+    CONSTANT_5,
+    CONSTANT_6,
+    CONSTANT_7,
+    CONSTANT_8,
+    CONSTANT_9,
+    CONSTANT_10,
+    CONSTANT_11,
+    CONSTANT_12,
+    CONSTANT_13,
+    CONSTANT_14,
+    CONSTANT_15,
+    CONSTANT_16,
+    CONSTANT_17,
+    CONSTANT_18,
+    CONSTANT_19,
+    CONSTANT_20,
+    CONSTANT_21,
+    CONSTANT_22,
+    CONSTANT_23,
+    CONSTANT_24,
+    CONSTANT_25,
+    CONSTANT_26,
+    CONSTANT_27,
+    CONSTANT_28,
+    CONSTANT_29,
+    CONSTANT_30,
+    CONSTANT_31,
+    CONSTANT_32,
+    CONSTANT_33,
+    CONSTANT_34,
+    CONSTANT_35,
+    CONSTANT_36,
+    CONSTANT_37,
+    CONSTANT_38,
+    CONSTANT_39,
+    CONSTANT_40,
+    CONSTANT_41,
+    CONSTANT_42,
+    CONSTANT_43,
+    CONSTANT_44,
+    CONSTANT_45,
+    CONSTANT_46,
+    CONSTANT_47,
+    CONSTANT_48,
+    CONSTANT_49,
+    CONSTANT_50,
+    CONSTANT_51,
+    CONSTANT_52,
+    CONSTANT_53,
+    CONSTANT_54,
+    CONSTANT_55,
+    CONSTANT_56,
+    CONSTANT_57,
+    CONSTANT_58,
+    CONSTANT_59,
+    CONSTANT_60,
+    CONSTANT_61,
+    CONSTANT_62,
+    CONSTANT_63,
+    CONSTANT_64,
+    CONSTANT_65,
+    CONSTANT_66,
+    CONSTANT_67,
+    CONSTANT_68,
+    CONSTANT_69,
+    CONSTANT_70,
+    CONSTANT_71,
+    CONSTANT_72,
+    CONSTANT_73,
+    CONSTANT_74,
+    CONSTANT_75,
+    CONSTANT_76,
+    CONSTANT_77,
+    CONSTANT_78,
+    CONSTANT_79,
+    CONSTANT_80,
+    CONSTANT_81,
+    CONSTANT_82,
+    CONSTANT_83,
+    CONSTANT_84,
+    CONSTANT_85,
+    CONSTANT_86,
+    CONSTANT_87,
+    CONSTANT_88,
+    CONSTANT_89,
+    CONSTANT_90,
+    CONSTANT_91,
+    CONSTANT_92,
+    CONSTANT_93,
+    CONSTANT_94,
+    CONSTANT_95,
+    CONSTANT_96,
+    CONSTANT_97,
+    CONSTANT_98,
+    CONSTANT_99,
+    CONSTANT_100,
+    CONSTANT_101,
+    CONSTANT_102,
+    CONSTANT_103,
+    CONSTANT_104,
+    CONSTANT_105,
+    CONSTANT_106,
+    CONSTANT_107,
+    CONSTANT_108,
+    CONSTANT_109,
+    CONSTANT_110,
+    CONSTANT_111,
+    CONSTANT_112,
+    CONSTANT_113,
+    CONSTANT_114,
+    CONSTANT_115,
+    CONSTANT_116,
+    CONSTANT_117,
+    CONSTANT_118,
+    CONSTANT_119,
+    CONSTANT_120,
+    CONSTANT_121,
+    CONSTANT_122,
+    CONSTANT_123,
+    CONSTANT_124,
+    CONSTANT_125,
+    CONSTANT_126,
+    CONSTANT_127,
+    CONSTANT_128,
+    CONSTANT_129,
+    CONSTANT_130,
+    CONSTANT_131,
+    CONSTANT_132,
+    CONSTANT_133,
+    CONSTANT_134,
+    CONSTANT_135,
+    CONSTANT_136,
+    CONSTANT_137,
+    CONSTANT_138,
+    CONSTANT_139,
+    CONSTANT_140,
+    CONSTANT_141,
+    CONSTANT_142,
+    CONSTANT_143,
+    CONSTANT_144,
+    CONSTANT_145,
+    CONSTANT_146,
+    CONSTANT_147,
+    CONSTANT_148,
+    CONSTANT_149,
+    CONSTANT_150,
+    CONSTANT_151,
+    CONSTANT_152,
+    CONSTANT_153,
+    CONSTANT_154,
+    CONSTANT_155,
+    CONSTANT_156,
+    CONSTANT_157,
+    CONSTANT_158,
+    CONSTANT_159,
+    CONSTANT_160,
+    CONSTANT_161,
+    CONSTANT_162,
+    CONSTANT_163,
+    CONSTANT_164,
+    CONSTANT_165,
+    CONSTANT_166,
+    CONSTANT_167,
+    CONSTANT_168,
+    CONSTANT_169,
+    CONSTANT_170,
+    CONSTANT_171,
+    CONSTANT_172,
+    CONSTANT_173,
+    CONSTANT_174,
+    CONSTANT_175,
+    CONSTANT_176,
+    CONSTANT_177,
+    CONSTANT_178,
+    CONSTANT_179,
+    CONSTANT_180,
+    CONSTANT_181,
+    CONSTANT_182,
+    CONSTANT_183,
+    CONSTANT_184,
+    CONSTANT_185,
+    CONSTANT_186,
+    CONSTANT_187,
+    CONSTANT_188,
+    CONSTANT_189,
+    CONSTANT_190,
+    CONSTANT_191,
+    CONSTANT_192,
+    CONSTANT_193,
+    CONSTANT_194,
+    CONSTANT_195,
+    CONSTANT_196,
+    CONSTANT_197,
+    CONSTANT_198,
+    CONSTANT_199,
+    CONSTANT_200,
+    CONSTANT_201,
+    CONSTANT_202,
+    CONSTANT_203,
+    CONSTANT_204,
+    CONSTANT_205,
+    CONSTANT_206,
+    CONSTANT_207,
+    CONSTANT_208,
+    CONSTANT_209,
+    CONSTANT_210,
+    CONSTANT_211,
+    CONSTANT_212,
+    CONSTANT_213,
+    CONSTANT_214,
+    CONSTANT_215,
+    CONSTANT_216,
+    CONSTANT_217,
+    CONSTANT_218,
+    CONSTANT_219,
+    CONSTANT_220,
+    CONSTANT_221,
+    CONSTANT_222,
+    CONSTANT_223,
+    CONSTANT_224,
+    CONSTANT_225,
+    CONSTANT_226,
+    CONSTANT_227,
+    CONSTANT_228,
+    CONSTANT_229,
+    CONSTANT_230,
+    CONSTANT_231,
+    CONSTANT_232,
+    CONSTANT_233,
+    CONSTANT_234,
+    CONSTANT_235,
+    CONSTANT_236,
+    CONSTANT_237,
+    CONSTANT_238,
+    CONSTANT_239,
+    CONSTANT_240,
+    CONSTANT_241,
+    CONSTANT_242,
+    CONSTANT_243,
+    CONSTANT_244,
+    CONSTANT_245,
+    CONSTANT_246,
+    CONSTANT_247,
+    CONSTANT_248,
+    CONSTANT_249,
+    CONSTANT_250,
+    CONSTANT_251,
+    CONSTANT_252,
+    CONSTANT_253,
+    CONSTANT_254,
+    CONSTANT_255,
+    CONSTANT_256,
+    CONSTANT_257,
+    CONSTANT_258,
+    CONSTANT_259,
+    CONSTANT_260,
+    CONSTANT_261,
+    CONSTANT_262,
+    CONSTANT_263,
+    CONSTANT_264,
+    CONSTANT_265,
+    CONSTANT_266,
+    CONSTANT_267,
+    CONSTANT_268,
+    CONSTANT_269,
+    CONSTANT_270,
+    CONSTANT_271,
+    CONSTANT_272,
+    CONSTANT_273,
+    CONSTANT_274,
+    CONSTANT_275,
+    CONSTANT_276,
+    CONSTANT_277,
+    CONSTANT_278,
+    CONSTANT_279,
+    CONSTANT_280,
+    CONSTANT_281,
+    CONSTANT_282,
+    CONSTANT_283,
+    CONSTANT_284,
+    CONSTANT_285,
+    CONSTANT_286,
+    CONSTANT_287,
+    CONSTANT_288,
+    CONSTANT_289,
+    CONSTANT_290,
+    CONSTANT_291,
+    CONSTANT_292,
+    CONSTANT_293,
+    CONSTANT_294,
+    CONSTANT_295,
+    CONSTANT_296,
+    CONSTANT_297,
+    CONSTANT_298,
+    CONSTANT_299,
+    CONSTANT_300,
+    CONSTANT_301,
+    CONSTANT_302,
+    CONSTANT_303,
+    CONSTANT_304,
+    CONSTANT_305,
+    CONSTANT_306,
+    CONSTANT_307,
+    CONSTANT_308,
+    CONSTANT_309,
+    CONSTANT_310,
+    CONSTANT_311,
+    CONSTANT_312,
+    CONSTANT_313,
+    CONSTANT_314,
+    CONSTANT_315,
+    CONSTANT_316,
+    CONSTANT_317,
+    CONSTANT_318,
+    CONSTANT_319,
+    CONSTANT_320,
+    CONSTANT_321,
+    CONSTANT_322,
+    CONSTANT_323,
+    CONSTANT_324,
+    CONSTANT_325,
+    CONSTANT_326,
+    CONSTANT_327,
+    CONSTANT_328,
+    CONSTANT_329,
+    CONSTANT_330,
+    CONSTANT_331,
+    CONSTANT_332,
+    CONSTANT_333,
+    CONSTANT_334,
+    CONSTANT_335,
+    CONSTANT_336,
+    CONSTANT_337,
+    CONSTANT_338,
+    CONSTANT_339,
+    CONSTANT_340,
+    CONSTANT_341,
+    CONSTANT_342,
+    CONSTANT_343,
+    CONSTANT_344,
+    CONSTANT_345,
+    CONSTANT_346,
+    CONSTANT_347,
+    CONSTANT_348,
+    CONSTANT_349,
+    CONSTANT_350,
+    CONSTANT_351,
+    CONSTANT_352,
+    CONSTANT_353,
+    CONSTANT_354,
+    CONSTANT_355,
+    CONSTANT_356,
+    CONSTANT_357,
+    CONSTANT_358,
+    CONSTANT_359,
+    CONSTANT_360,
+    CONSTANT_361,
+    CONSTANT_362,
+    CONSTANT_363,
+    CONSTANT_364,
+    CONSTANT_365,
+    CONSTANT_366,
+    CONSTANT_367,
+    CONSTANT_368,
+    CONSTANT_369,
+    CONSTANT_370,
+    CONSTANT_371,
+    CONSTANT_372,
+    CONSTANT_373,
+    CONSTANT_374,
+    CONSTANT_375,
+    CONSTANT_376,
+    CONSTANT_377,
+    CONSTANT_378,
+    CONSTANT_379,
+    CONSTANT_380,
+    CONSTANT_381,
+    CONSTANT_382,
+    CONSTANT_383,
+    CONSTANT_384,
+    CONSTANT_385,
+    CONSTANT_386,
+    CONSTANT_387,
+    CONSTANT_388,
+    CONSTANT_389,
+    CONSTANT_390,
+    CONSTANT_391,
+    CONSTANT_392,
+    CONSTANT_393,
+    CONSTANT_394,
+    CONSTANT_395,
+    CONSTANT_396,
+    CONSTANT_397,
+    CONSTANT_398,
+    CONSTANT_399,
+    CONSTANT_400,
+    CONSTANT_401,
+    CONSTANT_402,
+    CONSTANT_403,
+    CONSTANT_404,
+    CONSTANT_405,
+    CONSTANT_406,
+    CONSTANT_407,
+    CONSTANT_408,
+    CONSTANT_409,
+    CONSTANT_410,
+    CONSTANT_411,
+    CONSTANT_412,
+    CONSTANT_413,
+    CONSTANT_414,
+    CONSTANT_415,
+    CONSTANT_416,
+    CONSTANT_417,
+    CONSTANT_418,
+    CONSTANT_419,
+    CONSTANT_420,
+    CONSTANT_421,
+    CONSTANT_422,
+    CONSTANT_423,
+    CONSTANT_424,
+    CONSTANT_425,
+    CONSTANT_426,
+    CONSTANT_427,
+    CONSTANT_428,
+    CONSTANT_429,
+    CONSTANT_430,
+    CONSTANT_431,
+    CONSTANT_432,
+    CONSTANT_433,
+    CONSTANT_434,
+    CONSTANT_435,
+    CONSTANT_436,
+    CONSTANT_437,
+    CONSTANT_438,
+    CONSTANT_439,
+    CONSTANT_440,
+    CONSTANT_441,
+    CONSTANT_442,
+    CONSTANT_443,
+    CONSTANT_444,
+    CONSTANT_445,
+    CONSTANT_446,
+    CONSTANT_447,
+    CONSTANT_448,
+    CONSTANT_449,
+    CONSTANT_450,
+    CONSTANT_451,
+    CONSTANT_452,
+    CONSTANT_453,
+    CONSTANT_454,
+    CONSTANT_455,
+    CONSTANT_456,
+    CONSTANT_457,
+    CONSTANT_458,
+    CONSTANT_459,
+    CONSTANT_460,
+    CONSTANT_461,
+    CONSTANT_462,
+    CONSTANT_463,
+    CONSTANT_464,
+    CONSTANT_465,
+    CONSTANT_466,
+    CONSTANT_467,
+    CONSTANT_468,
+    CONSTANT_469,
+    CONSTANT_470,
+    CONSTANT_471,
+    CONSTANT_472,
+    CONSTANT_473,
+    CONSTANT_474,
+    CONSTANT_475,
+    CONSTANT_476,
+    CONSTANT_477,
+    CONSTANT_478,
+    CONSTANT_479,
+    CONSTANT_480,
+    CONSTANT_481,
+    CONSTANT_482,
+    CONSTANT_483,
+    CONSTANT_484,
+    CONSTANT_485,
+    CONSTANT_486,
+    CONSTANT_487,
+    CONSTANT_488,
+    CONSTANT_489,
+    CONSTANT_490,
+    CONSTANT_491,
+    CONSTANT_492,
+    CONSTANT_493,
+    CONSTANT_494,
+    CONSTANT_495,
+    CONSTANT_496,
+    CONSTANT_497,
+    CONSTANT_498,
+    CONSTANT_499
+}
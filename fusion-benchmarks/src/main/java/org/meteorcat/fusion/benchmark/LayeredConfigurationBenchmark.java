@@ -0,0 +1,105 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.LayeredConfiguration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 默认配置 -> 集群配置 -> 作业配置 -> 动态配置 的叠加方式对比
+ * addAll 逐层复制合并 和 LayeredConfiguration 分层叠加的构建开销以及读取开销
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar LayeredConfigurationBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayeredConfigurationBenchmark {
+
+    /**
+     * 每次读取的KEY数量
+     */
+    private static final int BATCH = 1024;
+
+    @Param({"10000"})
+    public int defaultKeys;
+
+    private Configuration defaults;
+
+    private Configuration cluster;
+
+    private Configuration job;
+
+    private Configuration merged;
+
+    private LayeredConfiguration layered;
+
+    private String[] keys;
+
+    @Setup
+    public void setup() {
+        defaults = ConfigurationCodecBenchmark.createConfiguration(defaultKeys);
+        cluster = ConfigurationCodecBenchmark.createConfiguration(defaultKeys / 10);
+        job = ConfigurationCodecBenchmark.createConfiguration(defaultKeys / 100);
+        merged = mergeByCopy();
+        layered = layer();
+
+        final String[] all = merged.getKeys().toArray(new String[0]);
+        keys = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            keys[i] = all[(i * 7919) % all.length];
+        }
+    }
+
+    /**
+     * 逐层 addAll 合并, 再写入动态配置
+     */
+    private Configuration mergeByCopy() {
+        final Configuration config = new Configuration(defaults);
+        config.addAll(cluster);
+        config.addAll(job);
+        config.setString("pipeline.name", "dynamic");
+        return config;
+    }
+
+    /**
+     * 分层叠加, 动态配置写入最上层
+     */
+    private LayeredConfiguration layer() {
+        final LayeredConfiguration config = LayeredConfiguration.of(defaults, cluster, job);
+        config.setString("pipeline.name", "dynamic");
+        return config;
+    }
+
+    @Benchmark
+    public Configuration composeByCopy() {
+        return mergeByCopy();
+    }
+
+    @Benchmark
+    public LayeredConfiguration composeLayered() {
+        return layer();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void readMerged(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(merged.getRawValue(key));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void readLayered(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(layered.getRawValue(key));
+        }
+    }
+}
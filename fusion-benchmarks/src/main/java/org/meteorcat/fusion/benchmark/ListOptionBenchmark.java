@@ -0,0 +1,72 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 列表配置读取的开销: 每次按照正则拆分并装箱, 对比缓存的列表以及数值数组
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar ListOptionBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListOptionBenchmark {
+
+    private static final ConfigOption<List<Integer>> PORTS = ConfigOptions.key("application.ports")
+            .intType()
+            .asList()
+            .noDefaultValues();
+
+    /**
+     * 列表元素数量
+     */
+    @Param({"8", "128"})
+    public int elements;
+
+    private Configuration config;
+
+    @Setup
+    public void setup() {
+        final StringJoiner joiner = new StringJoiner(";");
+        for (int i = 0; i < elements; i++) {
+            joiner.add(Integer.toString(8000 + i));
+        }
+        config = new Configuration();
+        config.setString("application.ports", joiner.toString());
+    }
+
+    /**
+     * 常见的写法: 按照正则拆分之后逐个装箱
+     */
+    @Benchmark
+    public List<Integer> regexSplit() {
+        final String raw = config.getString("application.ports", "");
+        final List<Integer> values = new ArrayList<>();
+        for (String element : raw.split("(?<!\\\\);")) {
+            values.add(Integer.parseInt(element.trim()));
+        }
+        return values;
+    }
+
+    @Benchmark
+    public List<Integer> cachedList() {
+        return config.get(PORTS);
+    }
+
+    @Benchmark
+    public int[] intArray() {
+        return config.getIntArray(PORTS);
+    }
+}
@@ -0,0 +1,100 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 原生类型读取的分配基准测试, 需要配合 GC 分析器查看每次调用的分配字节数(gc.alloc.rate.norm)
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar PrimitiveGetterBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveGetterBenchmark {
+
+    private static final ConfigOption<Integer> INT_OPTION =
+            ConfigOptions.key("fusion.benchmark.int").intType().defaultValue(0);
+
+    private static final ConfigOption<Long> LONG_OPTION =
+            ConfigOptions.key("fusion.benchmark.long").longType().defaultValue(0L);
+
+    private static final ConfigOption<Double> DOUBLE_OPTION =
+            ConfigOptions.key("fusion.benchmark.double").doubleType().defaultValue(0.0);
+
+    private static final ConfigOption<Boolean> BOOLEAN_OPTION =
+            ConfigOptions.key("fusion.benchmark.boolean").booleanType().defaultValue(false);
+
+    /**
+     * 通过 String 写入的配置, 读取时需要解析
+     */
+    private static final ConfigOption<Integer> STRING_INT_OPTION =
+            ConfigOptions.key("fusion.benchmark.string-int").intType().defaultValue(0);
+
+    private Configuration configuration;
+
+    @Setup
+    public void setup() {
+        configuration = new Configuration();
+        // 超出 Integer/Long 缓存范围, 装箱必然产生分配
+        configuration.setInt(INT_OPTION, 123_456);
+        configuration.setLong(LONG_OPTION, 123_456_789L);
+        configuration.setDouble(DOUBLE_OPTION, 0.75);
+        configuration.setBoolean(BOOLEAN_OPTION, true);
+        configuration.setString(STRING_INT_OPTION.key(), "123456");
+    }
+
+    @Benchmark
+    public int getInt() {
+        return configuration.getInt(INT_OPTION);
+    }
+
+    @Benchmark
+    public long getLong() {
+        return configuration.getLong(LONG_OPTION);
+    }
+
+    @Benchmark
+    public double getDouble() {
+        return configuration.getDouble(DOUBLE_OPTION);
+    }
+
+    @Benchmark
+    public boolean getBoolean() {
+        return configuration.getBoolean(BOOLEAN_OPTION);
+    }
+
+    @Benchmark
+    public int getIntFromString() {
+        return configuration.getInt(STRING_INT_OPTION);
+    }
+
+    /**
+     * 对照组: 通过 getRawValue 读取, 每次创建 Optional
+     */
+    @Benchmark
+    public Optional<Object> getRawValue() {
+        return configuration.getRawValue(INT_OPTION.key());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        final Options options = new OptionsBuilder()
+                .include(PrimitiveGetterBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
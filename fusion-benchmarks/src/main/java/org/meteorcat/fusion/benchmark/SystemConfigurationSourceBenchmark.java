@@ -0,0 +1,82 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.SystemConfigurationSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动时读取系统属性的开销: 先复制所有系统属性再 fromMap, 对比按需读取的 SystemConfigurationSource
+ * 系统属性之中有大量和配置无关的条目, 实际只读取少量配置项
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar SystemConfigurationSourceBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SystemConfigurationSourceBenchmark {
+
+    /**
+     * 实际读取的配置项数量
+     */
+    private static final int USED_OPTIONS = 10;
+
+    /**
+     * 系统属性数量
+     */
+    @Param({"5000"})
+    public int propertyCount;
+
+    private String[] usedKeys;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < propertyCount; i++) {
+            System.setProperty("fusion.unrelated.property-" + i, "value-" + i);
+        }
+        usedKeys = new String[USED_OPTIONS];
+        for (int i = 0; i < USED_OPTIONS; i++) {
+            usedKeys[i] = "unrelated.property-" + (i * 97);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (int i = 0; i < propertyCount; i++) {
+            System.clearProperty("fusion.unrelated.property-" + i);
+        }
+    }
+
+    @Benchmark
+    public void copyThenFromMap(Blackhole blackhole) {
+        final Properties properties = System.getProperties();
+        final Map<String, String> map = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(SystemConfigurationSource.DEFAULT_PROPERTY_PREFIX)) {
+                map.put(name.substring(SystemConfigurationSource.DEFAULT_PROPERTY_PREFIX.length()),
+                        properties.getProperty(name));
+            }
+        }
+        final Configuration config = Configuration.fromMap(map);
+        for (String key : usedKeys) {
+            blackhole.consume(config.getString(key, null));
+        }
+    }
+
+    @Benchmark
+    public void lazySource(Blackhole blackhole) {
+        final SystemConfigurationSource source = SystemConfigurationSource.systemProperties();
+        for (String key : usedKeys) {
+            blackhole.consume(source.getString(key, null));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.MemorySize;
+import org.meteorcat.fusion.util.ConfigurationUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带单位的配置读取开销: 每次读取都重新解析文本, 对比按照原始文本缓存的解析结果
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar UnitParsingBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnitParsingBenchmark {
+
+    private static final ConfigOption<Duration> TIMEOUT = ConfigOptions.key("rpc.timeout")
+            .durationType()
+            .noDefaultValue();
+
+    private static final ConfigOption<MemorySize> BUFFER_SIZE = ConfigOptions.key("network.buffer-size")
+            .memoryType()
+            .noDefaultValue();
+
+    private Configuration config;
+
+    @Setup
+    public void setup() {
+        config = new Configuration();
+        config.setString("rpc.timeout", "30 s");
+        config.setString("network.buffer-size", "512m");
+    }
+
+    @Benchmark
+    public Duration parseDuration() {
+        return ConfigurationUtils.parseDuration(config.getString("rpc.timeout", null));
+    }
+
+    @Benchmark
+    public Duration cachedDuration() {
+        return config.get(TIMEOUT);
+    }
+
+    @Benchmark
+    public MemorySize parseMemorySize() {
+        return MemorySize.parse(config.getString("network.buffer-size", null));
+    }
+
+    @Benchmark
+    public MemorySize cachedMemorySize() {
+        return config.get(BUFFER_SIZE);
+    }
+}
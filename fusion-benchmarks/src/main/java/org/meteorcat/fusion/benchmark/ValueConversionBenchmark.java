@@ -0,0 +1,126 @@
+package org.meteorcat.fusion.benchmark;
+
+import org.meteorcat.fusion.configuration.description.Description;
+import org.meteorcat.fusion.configuration.description.Formatter;
+import org.meteorcat.fusion.configuration.description.TextElement;
+import org.meteorcat.fusion.util.ConfigurationUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.meteorcat.fusion.configuration.description.LinkElement.link;
+import static org.meteorcat.fusion.configuration.description.TextElement.code;
+import static org.meteorcat.fusion.configuration.description.TextElement.text;
+
+/**
+ * ConfigurationUtils.convertTo* 的字符串转化开销, 以及配置说明 Formatter.format 的开销
+ * <pre>
+ * java -jar fusion-benchmarks/target/benchmarks.jar ValueConversionBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueConversionBenchmark {
+
+    public String intText = "8080";
+
+    public String longText = "9223372036854775";
+
+    public String doubleText = "0.75";
+
+    public String booleanText = "true";
+
+    public String durationText = "30 s";
+
+    private Description description;
+
+    private Formatter formatter;
+
+    @Setup
+    public void setup() {
+        description = Description.builder()
+                .text("Timeout of %s requests, see %s.", code("rpc"), link("https://example.com/rpc", "the rpc docs"))
+                .linebreak()
+                .list(text("first entry"), text("second %s", code("entry")))
+                .build();
+        formatter = new PlainFormatter();
+    }
+
+    @Benchmark
+    public Integer convertToInteger() {
+        return ConfigurationUtils.convertToInteger(intText);
+    }
+
+    @Benchmark
+    public Long convertToLong() {
+        return ConfigurationUtils.convertToLong(longText);
+    }
+
+    @Benchmark
+    public Double convertToDouble() {
+        return ConfigurationUtils.convertToDouble(doubleText);
+    }
+
+    @Benchmark
+    public Boolean convertToBoolean() {
+        return ConfigurationUtils.convertToBoolean(booleanText);
+    }
+
+    @Benchmark
+    public Duration convertToDuration() {
+        return ConfigurationUtils.convertToDuration(durationText);
+    }
+
+    @Benchmark
+    public String formatDescription() {
+        return formatter.format(description);
+    }
+
+
+    /**
+     * 纯文本格式化, 和生成文档时的格式化工作量相当
+     */
+    static final class PlainFormatter extends Formatter {
+
+        @Override
+        protected void formatLink(StringBuilder state, String link, String description) {
+            state.append(description).append(" (").append(link).append(')');
+        }
+
+        @Override
+        protected void formatLineBreak(StringBuilder state) {
+            state.append('\n');
+        }
+
+        @Override
+        protected void formatText(StringBuilder state, String format, String[] elements,
+                                  EnumSet<TextElement.TextStyle> styles) {
+            final boolean isCode = styles.contains(TextElement.TextStyle.CODE);
+            if (isCode) {
+                state.append('`');
+            }
+            state.append(String.format(format, (Object[]) elements));
+            if (isCode) {
+                state.append('`');
+            }
+        }
+
+        @Override
+        protected void formatList(StringBuilder state, String[] entries) {
+            for (String entry : entries) {
+                state.append("- ").append(entry).append('\n');
+            }
+        }
+
+        @Override
+        protected Formatter newInstance() {
+            return new PlainFormatter();
+        }
+    }
+}
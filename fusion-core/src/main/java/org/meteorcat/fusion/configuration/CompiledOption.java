@@ -0,0 +1,91 @@
+package org.meteorcat.fusion.configuration;
+
+import java.util.Optional;
+
+/**
+ * 绑定到某个 Configuration 的配置项访问器, 由 {@link Configuration#compile(ConfigOption)} 创建
+ * 访问器本身就是这个配置项的缓存槽位: 记录解析时的快照和转化后的值
+ * 只要 Configuration 没有发布新快照, 读取就只是一次引用比较, 不需要计算KEY哈希|遍历 fallback keys|转化类型
+ * <pre>{@code
+ *     CompiledOption<Integer> parallelism = config.compile(PARALLELISM);
+ *     int value = parallelism.get();
+ * }</pre>
+ * 注: 访问器是线程安全的, 可以在多个线程之间共享
+ *
+ * @param <T> 配置值类型
+ */
+public final class CompiledOption<T> {
+
+    /**
+     * 绑定的配置对象
+     */
+    private final Configuration configuration;
+
+    /**
+     * 绑定的配置项
+     */
+    private final ConfigOption<T> option;
+
+    /**
+     * 最近一次解析的结果, 快照没有变化时直接复用
+     */
+    private volatile Slot<T> slot;
+
+    /**
+     * 只允许 Configuration 构建
+     */
+    CompiledOption(Configuration configuration, ConfigOption<T> option) {
+        this.configuration = configuration;
+        this.option = option;
+    }
+
+    /**
+     * 获取配置值, 配置不存在的时候返回配置项的默认值
+     */
+    public T get() {
+        final T value = slot().value;
+        return value == null ? option.defaultValue() : value;
+    }
+
+    /**
+     * 获取配置值, 配置不存在的时候返回空
+     */
+    public Optional<T> getOptional() {
+        return Optional.ofNullable(slot().value);
+    }
+
+    /**
+     * 获取绑定的配置项
+     */
+    public ConfigOption<T> option() {
+        return option;
+    }
+
+    /**
+     * 获取当前快照对应的槽位, 快照变化之后重新解析
+     */
+    private Slot<T> slot() {
+        final ConfigurationSnapshot current = configuration.snapshot();
+        final Slot<T> cached = this.slot;
+        if (cached != null && cached.snapshot == current) {
+            return cached;
+        }
+        final Slot<T> resolved = new Slot<>(current, configuration.resolveValue(current, option));
+        this.slot = resolved;
+        return resolved;
+    }
+
+    /**
+     * 解析结果, 不可变对象保证跨线程发布安全
+     */
+    private record Slot<T>(ConfigurationSnapshot snapshot, T value) {
+    }
+
+    /**
+     * 重载ToString
+     */
+    @Override
+    public String toString() {
+        return String.format("CompiledOption{key=%s}", option.key());
+    }
+}
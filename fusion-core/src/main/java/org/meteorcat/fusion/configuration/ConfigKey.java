@@ -0,0 +1,44 @@
+package org.meteorcat.fusion.configuration;
+
+import java.lang.annotation.*;
+
+/**
+ * 声明 record 组件或者 POJO 字段绑定的配置KEY, 由 {@link ConfigurationBinder} 读取
+ * <pre>{@code
+ * public record ServerSettings(
+ *         @ConfigKey("net.hostname") String hostname,
+ *         @ConfigKey(value = "net.port", fallbackKeys = "port", defaultValue = "8080") int port,
+ *         @ConfigKey(value = "rpc.timeout", defaultValue = "30 s") Duration timeout) {
+ * }
+ * }</pre>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.RECORD_COMPONENT})
+public @interface ConfigKey {
+
+    /**
+     * 没有默认值的标识
+     */
+    String NO_DEFAULT = "\u0000";
+
+    /**
+     * 配置KEY
+     */
+    String value();
+
+    /**
+     * 变动的配置KEY, 按照顺序查找
+     */
+    String[] fallbackKeys() default {};
+
+    /**
+     * 默认值文本, 按照字段类型转化, 例如 8080|30 s|512m|a;b;c
+     */
+    String defaultValue() default NO_DEFAULT;
+
+    /**
+     * 是否必填, 必填的配置不存在并且没有默认值时绑定失败
+     */
+    boolean required() default false;
+}
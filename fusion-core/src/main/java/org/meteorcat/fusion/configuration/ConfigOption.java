@@ -150,7 +150,7 @@ public class ConfigOption<T> {
      * 创建写入 fallback key 标识的配置项
      *
      * <p>When obtaining a value from the configuration via {@link
-     * Configuration#getValue(ConfigOption)}, the fallback keys will be checked in the order
+     * Configuration#get(ConfigOption)}, the fallback keys will be checked in the order
      * provided to this method. The first key for which a value is found will be used - that value
      * will be returned.
      *
@@ -175,7 +175,7 @@ public class ConfigOption<T> {
      * 用于追加过时的配置, 用于保持兼容性配置
      *
      * <p>When obtaining a value from the configuration via {@link
-     * Configuration#getValue(ConfigOption)}, the deprecated keys will be checked in the order
+     * Configuration#get(ConfigOption)}, the deprecated keys will be checked in the order
      * provided to this method. The first key for which a value is found will be used - that value
      * will be returned.
      *
@@ -0,0 +1,26 @@
+package org.meteorcat.fusion.configuration;
+
+import java.util.List;
+
+/**
+ * 编译期提取的配置项元数据, 由 fusion-processor 生成的 {@link ConfigOptionRegistry} 提供
+ * 读取元数据不需要初始化声明配置项的类, 适合生成文档或者列出所有配置
+ *
+ * @param key            配置KEY
+ * @param type           配置值类型, 例如 Integer|List&lt;Integer&gt;|Map&lt;String, String&gt;
+ * @param defaultValue   默认值的源代码文本, 没有默认值时为 null
+ * @param fallbackKeys   变动的配置KEY
+ * @param deprecatedKeys 过时的配置KEY
+ * @param description    描述文本, 描述不是字符串常量时为 null
+ * @param declaringClass 声明配置项的类
+ * @param fieldName      声明配置项的字段
+ */
+public record ConfigOptionDescriptor(String key,
+                                     String type,
+                                     String defaultValue,
+                                     List<String> fallbackKeys,
+                                     List<String> deprecatedKeys,
+                                     String description,
+                                     String declaringClass,
+                                     String fieldName) {
+}
@@ -0,0 +1,58 @@
+package org.meteorcat.fusion.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * 配置项目录, 由 fusion-processor 在编译期扫描 ConfigOptions.key(...) 声明的静态配置项生成
+ * 启动时只需要加载生成的类, 不需要反射或者扫描 classpath:
+ * <pre>{@code
+ * for (ConfigOptionRegistry registry : ConfigOptionRegistry.load()) {
+ *     validator.options(registry.options());
+ * }
+ * ConfigOption<?> option = registry.option("net.port");
+ * }</pre>
+ * 生成的类通过 META-INF/services 注册, 每个启用注解处理器的模块各生成一个
+ */
+public interface ConfigOptionRegistry {
+
+    /**
+     * 所有配置项的元数据, 按照配置KEY排序
+     */
+    List<ConfigOptionDescriptor> descriptors();
+
+    /**
+     * 按照主KEY或者 fallback key 查找配置项, 不存在返回 null
+     * 注: 生成的实现是字符串 switch, 编译之后按照哈希查找; 只会初始化声明该配置项的类
+     */
+    ConfigOption<?> option(String key);
+
+    /**
+     * 所有配置项, 会初始化所有声明配置项的类
+     */
+    default List<ConfigOption<?>> options() {
+        final List<ConfigOptionDescriptor> descriptors = descriptors();
+        final List<ConfigOption<?>> options = new ArrayList<>(descriptors.size());
+        for (ConfigOptionDescriptor descriptor : descriptors) {
+            options.add(option(descriptor.key()));
+        }
+        return options;
+    }
+
+    /**
+     * 加载 classpath 之中所有生成的配置项目录
+     */
+    static List<ConfigOptionRegistry> load() {
+        return load(Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * 按照指定的类加载器加载所有生成的配置项目录
+     */
+    static List<ConfigOptionRegistry> load(ClassLoader classLoader) {
+        final List<ConfigOptionRegistry> registries = new ArrayList<>();
+        ServiceLoader.load(ConfigOptionRegistry.class, classLoader).forEach(registries::add);
+        return registries;
+    }
+}
@@ -133,6 +133,13 @@ public class ConfigOptions {
             return new TypedConfigOptionBuilder<>(key, Duration.class);
         }
 
+        /**
+         * 包装强类型 MemorySize Builder
+         */
+        public TypedConfigOptionBuilder<MemorySize> memoryType() {
+            return new TypedConfigOptionBuilder<>(key, MemorySize.class);
+        }
+
         /**
          * 包装强类型 Enum Builder
          */
@@ -182,7 +189,7 @@ public class ConfigOptions {
          * 生成不带默认值的配置值
          */
         public ConfigOption<T> noDefaultValue() {
-            return new ConfigOption<>(key, clazz, ConfigOption.EMPTY_DESCRIPTION, null, true);
+            return new ConfigOption<>(key, clazz, ConfigOption.EMPTY_DESCRIPTION, null, false);
         }
 
 
@@ -4,10 +4,15 @@ import org.meteorcat.fusion.util.ConfigurationUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.*;
-import java.util.function.BiFunction;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 
 /**
@@ -16,7 +21,7 @@ import java.util.function.BiFunction;
 public class Configuration implements
         Serializable, // Java序列化实现
         Cloneable, // Java Clone 对象复制
-        //ReadableConfig,  // 自定义的读取配置接口
+        ReadableConfig,  // 自定义的读取配置接口
         WritableConfig // 自定义的写入配置接口
 
 {
@@ -32,11 +37,55 @@ public class Configuration implements
      */
     private static final Logger LOG = LoggerFactory.getLogger(Configuration.class);
 
+    /**
+     * 批量修改超过该数量的KEY时直接清空解析缓存, 不再逐个筛选
+     */
+    private static final int BATCH_INVALIDATE_THRESHOLD = 32;
+
 
     /**
-     * 加载的配置列表
+     * 写入锁, 写入在锁内基于当前快照生成新快照, 读取直接访问快照不需要加锁
      */
-    protected final HashMap<String, Object> configs;
+    private final transient Object lock = new Object();
+
+    /**
+     * 当前配置的快照, 也是配置的存储结构
+     * 快照是持久化的 HAMT 和有序索引, 写入只复制修改的路径, 复制配置时直接共享快照
+     */
+    private transient volatile ConfigurationSnapshot snapshot;
+
+    /**
+     * 配置项实际命中的KEY缓存(主KEY|fallback key|过时KEY), 避免每次读取都重新遍历 fallback keys
+     * 只有写入涉及到的KEY才会让对应的缓存失效, 反序列化之后延迟创建
+     */
+    private transient volatile ConcurrentHashMap<ConfigOption<?>, Resolution> resolutions;
+
+    /**
+     * 写入版本号, 每次写入递增
+     * 用来防止读取线程在写入期间把过期的解析结果放回缓存
+     */
+    private transient volatile long writeVersion;
+
+    /**
+     * 正在执行 {@link #edit(Consumer)} 回调的线程, 只在写入锁内访问
+     * 用来拒绝回调之内直接写入当前配置, 这些写入会被事务发布的快照覆盖
+     */
+    private transient Thread editOwner;
+
+    /**
+     * ${var} 模板的解析缓存, 只有读取到模板时才会创建
+     */
+    private transient volatile ConfigurationInterpolator interpolator;
+
+    /**
+     * 访问统计, 没有开启时为 null, 参见 {@link ConfigurationMetrics}
+     */
+    private transient volatile ConfigurationMetrics metrics;
+
+    /**
+     * 读取跟踪, 没有开启时为 null, 参见 {@link ConfigurationAccessTracker}
+     */
+    private transient volatile ConfigurationAccessTracker tracker;
 
 
     /**
@@ -57,21 +106,25 @@ public class Configuration implements
      * 默认无参数初始化构造方法
      */
     public Configuration() {
-        this.configs = new HashMap<>();
+        this.snapshot = ConfigurationSnapshot.EMPTY;
     }
 
     /**
      * 带初始化容量的构造方法
+     * 注: 持久化的存储结构按需分配节点, 容量参数不再生效, 和 {@link #Configuration()} 完全一致
+     *
+     * @deprecated 容量参数没有任何作用, 使用 {@link #Configuration()}
      */
+    @Deprecated
     public Configuration(int initialCapacity) {
-        this.configs = new HashMap<>(initialCapacity);
+        this();
     }
 
     /**
-     * 复制其他类初始化
+     * 复制其他类初始化, 直接共享对方的快照, 复杂度 O(1)
      */
     public Configuration(Configuration other) {
-        this.configs = new HashMap<>(other.configs);
+        this.snapshot = other.snapshot();
     }
 
 
@@ -79,8 +132,23 @@ public class Configuration implements
      * 静态复制集合类对象
      */
     public static Configuration fromMap(Map<String, String> map) {
-        final Configuration config = new Configuration(map.size());
-        map.forEach(config::setString);
+        final ConfigurationSnapshot.Editor editor = ConfigurationSnapshot.EMPTY.edit();
+        map.forEach(editor::put);
+        final Configuration config = new Configuration();
+        config.snapshot = config.buildSnapshot(editor);
+        return config;
+    }
+
+    /**
+     * 从KEY和对应的值构建配置, 有序的KEY在构建索引时排序几乎没有开销
+     */
+    static Configuration fromSorted(String[] sortedKeys, Object[] values) {
+        final ConfigurationSnapshot.Editor editor = ConfigurationSnapshot.EMPTY.edit();
+        for (int i = 0; i < sortedKeys.length; i++) {
+            editor.put(sortedKeys[i], values[i]);
+        }
+        final Configuration config = new Configuration();
+        config.snapshot = config.buildSnapshot(editor);
         return config;
     }
 
@@ -88,9 +156,7 @@ public class Configuration implements
      * 获取所有配置Set
      */
     public Set<String> getKeys() {
-        synchronized (this.configs) {
-            return new HashSet<>(this.configs.keySet());
-        }
+        return snapshot().keySet();
     }
 
 
@@ -102,55 +168,309 @@ public class Configuration implements
     }
 
     /**
-     * 获取配置值
+     * 获取配置值, 配置值之中的 ${var} 引用会被替换, 参见 {@link ConfigurationTemplate}
      */
     public String getString(String key, String defaultValue) {
-        return getRawValue(key)
-                .map(ConfigurationUtils::convertToString)
-                .orElse(defaultValue);
+        if (key == null) throw new NullPointerException("Configuration Key not be null.");
+        final ConfigurationSnapshot current = snapshot();
+        final Object rawValue = interpolate(current, key, current.get(key));
+        recordRead(key, rawValue != null, null);
+        trackRead(key, false);
+        return rawValue == null ? defaultValue : ConfigurationUtils.convertToString(rawValue);
+    }
+
+
+    // 原生类型读写 ----------------------------------------------------
+    // 注: 以下读取方法不会创建 Optional 也不会装箱, 配置命中时没有任何对象分配
+
+    /**
+     * 获取 int 配置值, 配置不存在时返回配置项默认值
+     */
+    public int getInt(ConfigOption<Integer> option) {
+        final Object rawValue = resolveRawValue(snapshot(), option);
+        return rawValue == null ? requireDefaultValue(option) : toInt(rawValue);
+    }
+
+    /**
+     * 获取 int 配置值, 配置不存在时返回传入的默认值
+     */
+    public int getInt(ConfigOption<Integer> option, int overrideDefault) {
+        final Object rawValue = resolveRawValue(snapshot(), option);
+        return rawValue == null ? overrideDefault : toInt(rawValue);
+    }
+
+    /**
+     * 写入 int 配置值
+     */
+    public Configuration setInt(ConfigOption<Integer> option, int value) {
+        return set(option, value);
+    }
+
+    /**
+     * 获取 long 配置值, 配置不存在时返回配置项默认值
+     */
+    public long getLong(ConfigOption<Long> option) {
+        final Object rawValue = resolveRawValue(snapshot(), option);
+        return rawValue == null ? requireDefaultValue(option) : toLong(rawValue);
+    }
+
+    /**
+     * 获取 long 配置值, 配置不存在时返回传入的默认值
+     */
+    public long getLong(ConfigOption<Long> option, long overrideDefault) {
+        final Object rawValue = resolveRawValue(snapshot(), option);
+        return rawValue == null ? overrideDefault : toLong(rawValue);
+    }
+
+    /**
+     * 写入 long 配置值
+     */
+    public Configuration setLong(ConfigOption<Long> option, long value) {
+        return set(option, value);
+    }
+
+    /**
+     * 获取 double 配置值, 配置不存在时返回配置项默认值
+     */
+    public double getDouble(ConfigOption<Double> option) {
+        final Object rawValue = resolveRawValue(snapshot(), option);
+        return rawValue == null ? requireDefaultValue(option) : toDouble(rawValue);
+    }
+
+    /**
+     * 获取 double 配置值, 配置不存在时返回传入的默认值
+     */
+    public double getDouble(ConfigOption<Double> option, double overrideDefault) {
+        final Object rawValue = resolveRawValue(snapshot(), option);
+        return rawValue == null ? overrideDefault : toDouble(rawValue);
+    }
+
+    /**
+     * 写入 double 配置值
+     */
+    public Configuration setDouble(ConfigOption<Double> option, double value) {
+        return set(option, value);
+    }
+
+    /**
+     * 获取 boolean 配置值, 配置不存在时返回配置项默认值
+     */
+    public boolean getBoolean(ConfigOption<Boolean> option) {
+        final Object rawValue = resolveRawValue(snapshot(), option);
+        return rawValue == null ? requireDefaultValue(option) : toBoolean(rawValue);
+    }
+
+    /**
+     * 获取 boolean 配置值, 配置不存在时返回传入的默认值
+     */
+    public boolean getBoolean(ConfigOption<Boolean> option, boolean overrideDefault) {
+        final Object rawValue = resolveRawValue(snapshot(), option);
+        return rawValue == null ? overrideDefault : toBoolean(rawValue);
+    }
+
+    /**
+     * 写入 boolean 配置值
+     */
+    public Configuration setBoolean(ConfigOption<Boolean> option, boolean value) {
+        return set(option, value);
+    }
+
+    /**
+     * 获取 int 数组配置值, 例如端口列表, 配置不存在时返回配置项默认值
+     * 注: 每次返回新的数组, 调用方可以修改
+     */
+    public int[] getIntArray(ConfigOption<List<Integer>> option) {
+        final Object rawValue = resolveRawValue(snapshot(), option);
+        return ConfigurationUtils.convertToIntArray(rawValue == null ? requireDefaultValue(option) : rawValue);
+    }
+
+    /**
+     * 获取 long 数组配置值, 配置不存在时返回配置项默认值
+     */
+    public long[] getLongArray(ConfigOption<List<Long>> option) {
+        final Object rawValue = resolveRawValue(snapshot(), option);
+        return ConfigurationUtils.convertToLongArray(rawValue == null ? requireDefaultValue(option) : rawValue);
+    }
+
+    /**
+     * 获取 double 数组配置值, 例如直方图的分桶边界, 配置不存在时返回配置项默认值
+     */
+    public double[] getDoubleArray(ConfigOption<List<Double>> option) {
+        final Object rawValue = resolveRawValue(snapshot(), option);
+        return ConfigurationUtils.convertToDoubleArray(rawValue == null ? requireDefaultValue(option) : rawValue);
+    }
+
+    /**
+     * 原生值转 int, 常见的 Integer 和 String 直接处理, 其他类型交给 ConfigurationUtils
+     */
+    static int toInt(Object rawValue) {
+        if (rawValue instanceof Integer value) {
+            return value;
+        } else if (rawValue instanceof String value) {
+            return Integer.parseInt(value);
+        }
+        return ConfigurationUtils.convertToInteger(rawValue);
     }
 
+    /**
+     * 原生值转 long
+     */
+    static long toLong(Object rawValue) {
+        if (rawValue instanceof Long value) {
+            return value;
+        } else if (rawValue instanceof String value) {
+            return Long.parseLong(value);
+        }
+        return ConfigurationUtils.convertToLong(rawValue);
+    }
 
     /**
-     * Cloneable 需要实现的的对象复制
+     * 原生值转 double
+     */
+    static double toDouble(Object rawValue) {
+        if (rawValue instanceof Double value) {
+            return value;
+        } else if (rawValue instanceof String value) {
+            return Double.parseDouble(value);
+        }
+        return ConfigurationUtils.convertToDouble(rawValue);
+    }
+
+    /**
+     * 原生值转 boolean, 字符串忽略大小写比较, 不需要像 convertToBoolean 一样先转大写
+     */
+    static boolean toBoolean(Object rawValue) {
+        if (rawValue instanceof Boolean value) {
+            return value;
+        } else if (rawValue instanceof String value) {
+            if ("true".equalsIgnoreCase(value)) {
+                return true;
+            } else if ("false".equalsIgnoreCase(value)) {
+                return false;
+            }
+        }
+        return ConfigurationUtils.convertToBoolean(rawValue);
+    }
+
+    /**
+     * 配置不存在时获取配置项默认值, 原生类型无法表示 null, 所以没有默认值时直接报错
+     */
+    static <T> T requireDefaultValue(ConfigOption<T> option) {
+        if (!option.hasDefaultValue()) {
+            throw new IllegalArgumentException(
+                    String.format("No value and no default value for config option '%s'.", option.key()));
+        }
+        return option.defaultValue();
+    }
+
+    // ----------------------------------------------------------------
+
+
+    /**
+     * Cloneable 需要实现的的对象复制, 和复制构造方法一样共享快照, 复杂度 O(1)
+     * 之后双方的写入都只会复制修改的路径, 不会互相影响
      */
     @Override
     public Configuration clone() {
-        Configuration config = new Configuration(this.configs.size());
-        config.addAll(this);
-        return config;
+        return new Configuration(this);
     }
 
     /**
      * 填充配置到内部集合
-     * 注: 小心不要 addAll(Configuration other, String prefix) 和 addAll(Configuration other) 同时调用, 会导致线程死锁
+     * 注: 读取的是对方的快照, 不需要持有对方的锁
      */
     public void addAll(Configuration other, String prefix) {
         final StringBuilder builder = new StringBuilder();
         builder.append(prefix);
         final int pl = builder.length();
 
+        final ConfigurationSnapshot source = other.snapshot();
+        final long waitStart = lockWaitStart();
+        synchronized (this.lock) {
+            recordLockWait(waitStart);
+            checkNotEditing();
+            final ConfigurationSnapshot.Editor editor = this.snapshot.edit();
+            source.forEach((key, value) -> {
+                builder.setLength(pl);
+                builder.append(key);
+                editor.put(builder.toString(), value);
+            });
+            publishAll(buildSnapshot(editor));
+        }
+    }
 
-        synchronized (this.configs) {
-            synchronized (other.configs) {
-                for (Map.Entry<String, Object> entry : other.configs.entrySet()) {
-                    builder.setLength(pl);
-                    builder.append(entry.getKey());
-                    this.configs.put(builder.toString(), entry.getValue());
-                }
+    /**
+     * 填充配置到内部集合, 当前配置为空时直接共享对方的快照
+     */
+    public void addAll(Configuration other) {
+        final ConfigurationSnapshot source = other.snapshot();
+        final long waitStart = lockWaitStart();
+        synchronized (this.lock) {
+            recordLockWait(waitStart);
+            checkNotEditing();
+            if (this.snapshot.size() == 0) {
+                publishAll(source);
+                return;
             }
+            final ConfigurationSnapshot.Editor editor = this.snapshot.edit();
+            source.forEach(editor::put);
+            publishAll(buildSnapshot(editor));
         }
     }
 
     /**
-     * 填充配置到内部集合
+     * 批量修改配置, 所有写入|删除|前缀删除在一次加锁之内完成, 结束之后一次性发布新的快照
+     * 读取线程要么看到修改之前的配置, 要么看到全部修改之后的配置; 回调抛出异常时所有修改都会丢弃
+     * <pre>{@code
+     * config.edit(tx -> {
+     *     tx.setString("net.hostname", "localhost");
+     *     tx.remove("net.legacy-port");
+     *     tx.set(AVRO_PROPERTIES, properties);
+     * });
+     * }</pre>
+     * 注: 回调之内只能通过事务写入, 直接写入当前配置对象(包括嵌套调用 edit)会抛出 IllegalStateException
      */
-    public void addAll(Configuration other) {
-        synchronized (this.configs) {
-            synchronized (other.configs) {
-                this.configs.putAll(other.configs);
+    public Configuration edit(Consumer<ConfigurationTransaction> body) {
+        if (body == null) throw new NullPointerException("Transaction body not be null.");
+        final long waitStart = lockWaitStart();
+        synchronized (this.lock) {
+            recordLockWait(waitStart);
+            checkNotEditing();
+            final ConfigurationTransaction transaction = new ConfigurationTransaction(this.snapshot.edit());
+            final long version = this.writeVersion;
+            this.editOwner = Thread.currentThread();
+            try {
+                body.accept(transaction);
+            } finally {
+                this.editOwner = null;
+                transaction.close();
+            }
+            // 兜底检查: 回调期间版本号发生变化说明有写入绕过了事务, 发布事务会覆盖这些写入
+            if (this.writeVersion != version) {
+                throw new IllegalStateException(
+                        "Configuration was written directly during edit(), the transaction is discarded.");
+            }
+            if (!transaction.isModified()) {
+                return this;
+            }
+
+            // 修改的KEY比较多的时候逐个筛选解析缓存反而更慢, 直接全部清空
+            final List<String> changedKeys = transaction.changedKeys();
+            final List<String> prefixRemovedKeys = transaction.prefixRemovedKeys();
+            if (changedKeys.size() + prefixRemovedKeys.size() > BATCH_INVALIDATE_THRESHOLD) {
+                publishAll(buildSnapshot(transaction.editor()));
+                return this;
+            }
+            this.snapshot = buildSnapshot(transaction.editor());
+            advanceVersion();
+            for (String key : changedKeys) {
+                invalidateResolutions(key, false);
+            }
+            for (String key : prefixRemovedKeys) {
+                invalidateResolutions(key, true);
             }
         }
+        return this;
     }
 
 
@@ -165,45 +485,133 @@ public class Configuration implements
     }
 
     /**
-     * 匹配对象
+     * 冻结当前配置, 生成不可变的只读配置
+     * 适合启动时构建完成之后只读取的配置, 内部采用最小完美哈希表存储, 没有锁也没有 HashMap.Node 的额外开销
+     * 注: 冻结之后对当前配置的写入不会影响冻结的配置, ${var} 模板按照冻结时的配置渲染
      */
-    public boolean containsKey(String key) {
-        synchronized (this.configs) {
-            return this.configs.containsKey(key);
+    public FrozenConfiguration freeze() {
+        return FrozenConfiguration.of(snapshot());
+    }
+
+    /**
+     * 把配置项绑定到当前配置上, 生成可以反复读取的访问器
+     * 访问器会缓存解析并转化完成的值, 只要配置没有被写入, 后续读取只需要比较一次快照引用
+     * <pre>{@code
+     * CompiledOption<Integer> parallelism = config.compile(PARALLELISM);
+     * for (Record record : records) {
+     *     int value = parallelism.get();
+     * }
+     * }</pre>
+     */
+    public <T> CompiledOption<T> compile(ConfigOption<T> option) {
+        if (option == null) throw new NullPointerException("ConfigOption not be null.");
+        return new CompiledOption<>(this, option);
+    }
+
+    /**
+     * 开启访问统计, 按照默认采样率记录读取, 已经开启时返回已有的统计
+     */
+    public ConfigurationMetrics enableMetrics() {
+        return enableMetrics(ConfigurationMetrics.DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * 开启访问统计, 已经开启时返回已有的统计
+     *
+     * @param sampleRate 读取采样率, 必须是 2 的幂, 1 表示每次读取都记录
+     */
+    public ConfigurationMetrics enableMetrics(int sampleRate) {
+        synchronized (this.lock) {
+            ConfigurationMetrics current = this.metrics;
+            if (current == null) {
+                current = new ConfigurationMetrics(this, sampleRate);
+                this.metrics = current;
+            }
+            return current;
         }
     }
 
+    /**
+     * 关闭访问统计, 同时从 JMX 注销
+     */
+    public void disableMetrics() {
+        final ConfigurationMetrics current;
+        synchronized (this.lock) {
+            current = this.metrics;
+            this.metrics = null;
+        }
+        if (current != null) {
+            current.unregister();
+        }
+    }
 
     /**
-     * 遍历所有配置回调
+     * 获取访问统计, 没有开启时返回 null
      */
-    private <T> Optional<T> applyWithOption(
-            ConfigOption<?> option,
-            BiFunction<String, Boolean, Optional<T>> applier
-    ) {
-        final boolean canBePrefixMap = ConfigurationUtils.canBePrefixMap(option);
-        final Optional<T> valueFromExactKey = applier.apply(option.key(), canBePrefixMap);
-        if (valueFromExactKey.isPresent()) {
-            return valueFromExactKey;
-        } else if (option.hasFallbackKeys()) {
-            // try the fallback keys
-            for (FallbackKey fallbackKey : option.fallbackKeys()) {
-                final Optional<T> valueFromFallbackKey =
-                        applier.apply(fallbackKey.getKey(), canBePrefixMap);
-                if (valueFromFallbackKey.isPresent()) {
-                    loggingFallback(fallbackKey, option);
-                    return valueFromFallbackKey;
-                }
+    public ConfigurationMetrics metrics() {
+        return this.metrics;
+    }
+
+    /**
+     * 开启读取跟踪, 用来找出没有被读取的配置, 已经开启时返回已有的跟踪
+     * 注: 开启时发布一个内容相同的新快照, 已经解析过的 CompiledOption 下一次读取会重新经过 Configuration 并被记录
+     */
+    public ConfigurationAccessTracker enableAccessTracking() {
+        synchronized (this.lock) {
+            ConfigurationAccessTracker current = this.tracker;
+            if (current == null) {
+                current = new ConfigurationAccessTracker(this);
+                this.tracker = current;
+                this.snapshot = this.snapshot.renew();
             }
+            return current;
         }
-        return Optional.empty();
+    }
+
+    /**
+     * 关闭读取跟踪, 已经获取的跟踪对象仍然可以生成报告
+     */
+    public void disableAccessTracking() {
+        this.tracker = null;
+    }
+
+    /**
+     * 获取读取跟踪, 没有开启时返回 null
+     */
+    public ConfigurationAccessTracker accessTracker() {
+        return this.tracker;
+    }
+
+    /**
+     * 匹配对象
+     */
+    public boolean containsKey(String key) {
+        return snapshot().containsKey(key);
+    }
+
+
+    /**
+     * 读取配置值, 配置不存在时返回配置项的默认值
+     */
+    @Override
+    public <T> T get(ConfigOption<T> option) {
+        final T value = resolveValue(snapshot(), option);
+        return value == null ? option.defaultValue() : value;
+    }
+
+    /**
+     * 读取配置值, 配置不存在时返回空
+     */
+    @Override
+    public <T> Optional<T> getOptional(ConfigOption<T> option) {
+        return Optional.ofNullable(resolveValue(snapshot(), option));
     }
 
 
     /**
      * 配置过时的异常日志记录
      */
-    private void loggingFallback(FallbackKey fallbackKey, ConfigOption<?> configOption) {
+    static void loggingFallback(FallbackKey fallbackKey, ConfigOption<?> configOption) {
         if (fallbackKey.isDeprecated()) {
             LOG.warn(
                     "Config uses deprecated configuration key '{}' instead of proper key '{}'",
@@ -233,22 +641,248 @@ public class Configuration implements
     public Optional<Object> getRawValue(String key, boolean canBePrefixMap) {
         if (key == null) throw new NullPointerException("Configuration Key not be null.");
 
-        // 注意, 这里要做好线程同步操作, 配置类是会被多线程调用的
-        synchronized (this.configs) {
-            final Object valueFromExactKey = this.configs.get(key);
-            if (!canBePrefixMap || valueFromExactKey != null) {
-                return Optional.ofNullable(valueFromExactKey);
+        // 配置类是会被多线程调用的, 这里读取的是不可变快照, 所以不需要加锁
+        final Object rawValue = getRawValue(snapshot(), key, canBePrefixMap);
+        recordRead(key, rawValue != null, null);
+        trackRead(key, canBePrefixMap);
+        return Optional.ofNullable(rawValue);
+    }
+
+    /**
+     * 在指定快照之中获取匹配KEY的原生值, 不存在返回 null
+     */
+    private Object getRawValue(ConfigurationSnapshot current, String key, boolean canBePrefixMap) {
+        final Object valueFromExactKey = current.get(key);
+        if (!canBePrefixMap || valueFromExactKey != null) {
+            return valueFromExactKey;
+        }
+
+        // 匹配出关联配置, 如果匹配到返回对应配置列表
+        final ConfigurationMetrics metrics = this.metrics;
+        final long start = metrics == null ? 0L : System.nanoTime();
+        final Map<String, String> valueFromPrefixMap = current.convertToPropertiesPrefixed(key);
+        if (metrics != null) {
+            metrics.recordPrefixScan(System.nanoTime() - start);
+        }
+        return valueFromPrefixMap.isEmpty() ? null : valueFromPrefixMap;
+    }
+
+    /**
+     * 在指定快照之中按照 主KEY -> fallback keys 的顺序查找配置项, 并转化成配置项声明的类型
+     * 注: 找不到配置的时候返回 null, 由调用方决定是否采用默认值
+     */
+    @SuppressWarnings("unchecked")
+    <T> T resolveValue(ConfigurationSnapshot current, ConfigOption<T> option) {
+        final Object rawValue = resolveRawValue(current, option);
+        return rawValue == null
+                ? null
+                : (T) ConfigurationUtils.convertValue(rawValue, option.getClazz(), option.isList());
+    }
+
+    /**
+     * 在指定快照之中按照 主KEY -> fallback keys 的顺序查找配置项的原生值, 不存在返回 null
+     * 注: 开启访问统计|读取跟踪时记录本次读取, 记录放在查找之外, 避免查找方法变大之后无法内联到读取方法
+     */
+    private Object resolveRawValue(ConfigurationSnapshot current, ConfigOption<?> option) {
+        final Object rawValue = lookupRawValue(current, option);
+        final ConfigurationMetrics metrics = this.metrics;
+        if (metrics != null && metrics.sampleRead()) {
+            recordOptionRead(metrics, option, rawValue != null);
+        }
+        final ConfigurationAccessTracker tracker = this.tracker;
+        if (tracker != null) {
+            tracker.markRead(option);
+        }
+        return rawValue;
+    }
+
+    /**
+     * 记录一次配置项读取, 命中的是否是 fallback key 从解析缓存之中获取
+     */
+    private void recordOptionRead(ConfigurationMetrics metrics, ConfigOption<?> option, boolean hit) {
+        final ConcurrentHashMap<ConfigOption<?>, Resolution> cache = this.resolutions;
+        final Resolution resolution = hit && cache != null ? cache.get(option) : null;
+        metrics.recordRead(option.key(), hit, resolution == null ? null : resolution.fallbackKey);
+    }
+
+    /**
+     * 按照 主KEY -> fallback keys 的顺序查找配置项的原生值, 不存在返回 null
+     * 注: 命中的KEY会被缓存, 之后的读取只需要查找一次
+     */
+    private Object lookupRawValue(ConfigurationSnapshot current, ConfigOption<?> option) {
+        final boolean canBePrefixMap = ConfigurationUtils.canBePrefixMap(option);
+        final ConcurrentHashMap<ConfigOption<?>, Resolution> cache = resolutions();
+        final Resolution cached = cache.get(option);
+        if (cached != null) {
+            if (cached.key == null) {
+                return null;
+            }
+            final Object rawValue = getRawValue(current, cached.key, canBePrefixMap);
+            if (rawValue != null) {
+                return interpolate(current, cached.key, rawValue);
+            }
+            // 缓存来自更新的快照, 当前快照之中没有命中, 按照当前快照重新解析
+        }
+
+        final long version = this.writeVersion;
+        String resolvedKey = null;
+        FallbackKey resolvedFallbackKey = null;
+        Object rawValue = getRawValue(current, option.key(), canBePrefixMap);
+        if (rawValue != null) {
+            resolvedKey = option.key();
+        } else if (option.hasFallbackKeys()) {
+            for (FallbackKey fallbackKey : option.fallbackKeys()) {
+                rawValue = getRawValue(current, fallbackKey.getKey(), canBePrefixMap);
+                if (rawValue != null) {
+                    loggingFallback(fallbackKey, option);
+                    resolvedKey = fallbackKey.getKey();
+                    resolvedFallbackKey = fallbackKey;
+                    break;
+                }
             }
+        }
 
-            // 匹配出关联配置, 如果匹配到返回对应配置列表
-            final Map<String, String> valueFromPrefixMap = ConfigurationUtils.convertToPropertiesPrefixed(configs, key);
-            if (valueFromPrefixMap.isEmpty()) {
-                return Optional.empty();
+        // 只有在解析期间没有发生写入, 并且解析的就是最新快照时才能缓存
+        if (current == this.snapshot) {
+            final Resolution resolution = new Resolution(option, resolvedKey, resolvedFallbackKey, canBePrefixMap);
+            cache.put(option, resolution);
+            if (version != this.writeVersion || current != this.snapshot) {
+                cache.remove(option, resolution);
             }
-            return Optional.of(valueFromPrefixMap);
         }
+        return resolvedKey == null ? rawValue : interpolate(current, resolvedKey, rawValue);
     }
 
+    /**
+     * 替换配置值之中的 ${var} 引用, 不是模板的配置值原样返回
+     * 注: 快照之中没有任何模板时直接返回, 不需要检查配置值
+     *
+     * @param current  读取的快照
+     * @param key      配置KEY
+     * @param rawValue 配置KEY在快照之中的原始值
+     */
+    private Object interpolate(ConfigurationSnapshot current, String key, Object rawValue) {
+        if (current.templateCount() == 0 || !ConfigurationTemplate.isTemplate(rawValue)) {
+            return rawValue;
+        }
+        final ConfigurationInterpolator templates = interpolator();
+        if (current == this.snapshot) {
+            final String cached = templates.cached(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        final long version = this.writeVersion;
+        final Map<String, String> computed = new HashMap<>();
+        final String value = templates.resolve(current, key, (String) rawValue, computed);
+
+        // 和解析缓存一样, 只有渲染期间没有发生写入时才能缓存
+        if (current == this.snapshot) {
+            templates.publish(computed);
+            if (version != this.writeVersion || current != this.snapshot) {
+                templates.retract(computed);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 读取指定快照之中KEY的值, 模板会被渲染, 不存在返回 null
+     */
+    Object interpolatedValue(ConfigurationSnapshot current, String key) {
+        return interpolate(current, key, current.get(key));
+    }
+
+    /**
+     * 获取模板解析缓存, 延迟创建
+     */
+    private ConfigurationInterpolator interpolator() {
+        ConfigurationInterpolator current = this.interpolator;
+        if (current == null) {
+            synchronized (this.lock) {
+                current = this.interpolator;
+                if (current == null) {
+                    current = new ConfigurationInterpolator();
+                    this.interpolator = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 生成编辑之后的快照, 本次编辑写入了模板时检查循环引用
+     * 注: 存在循环引用时抛出 IllegalArgumentException, 这时还没有发布快照, 配置保持不变
+     */
+    private ConfigurationSnapshot buildSnapshot(ConfigurationSnapshot.Editor editor) {
+        final List<String> templateKeys = editor.writtenTemplateKeys();
+        final ConfigurationSnapshot next = editor.build();
+        if (!templateKeys.isEmpty()) {
+            interpolator().checkCycles(next, templateKeys);
+        }
+        return next;
+    }
+
+    /**
+     * 获取解析缓存, 反序列化之后的对象需要延迟创建
+     */
+    private ConcurrentHashMap<ConfigOption<?>, Resolution> resolutions() {
+        ConcurrentHashMap<ConfigOption<?>, Resolution> current = this.resolutions;
+        if (current == null) {
+            synchronized (this.lock) {
+                current = this.resolutions;
+                if (current == null) {
+                    current = new ConcurrentHashMap<>();
+                    this.resolutions = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 发布写入之后的快照, 并让涉及到该KEY的解析缓存失效, 需要在写入锁内调用
+     *
+     * @param next            新的快照
+     * @param key             写入或者删除的KEY
+     * @param removedPrefixed 是否同时删除了 key. 开头的前缀配置
+     */
+    private void publish(ConfigurationSnapshot next, String key, boolean removedPrefixed) {
+        this.snapshot = next;
+        advanceVersion();
+        invalidateResolutions(key, removedPrefixed);
+    }
+
+    /**
+     * 让涉及到该KEY的解析缓存失效, 必须在快照替换和版本号递增之后调用
+     */
+    private void invalidateResolutions(String key, boolean removedPrefixed) {
+        final ConcurrentHashMap<ConfigOption<?>, Resolution> cache = this.resolutions;
+        if (cache != null && !cache.isEmpty()) {
+            cache.values().removeIf(resolution -> resolution.involves(key, removedPrefixed));
+        }
+        final ConfigurationInterpolator templates = this.interpolator;
+        if (templates != null) {
+            templates.invalidate(key, removedPrefixed);
+        }
+    }
+
+    /**
+     * 发布批量写入之后的快照, 并让所有解析缓存失效, 需要在写入锁内调用
+     */
+    private void publishAll(ConfigurationSnapshot next) {
+        this.snapshot = next;
+        advanceVersion();
+        final ConcurrentHashMap<ConfigOption<?>, Resolution> cache = this.resolutions;
+        if (cache != null) {
+            cache.clear();
+        }
+        final ConfigurationInterpolator templates = this.interpolator;
+        if (templates != null) {
+            templates.clear();
+        }
+    }
 
     /**
      * 替换对应配置项的值
@@ -258,14 +892,149 @@ public class Configuration implements
         if (value == null) throw new NullPointerException("Value cannot be null.");
 
         // 保持跨线程安全
-        synchronized (this.configs) {
-            if (canBePrefixMap) {
-                ConfigurationUtils.removePrefixMap(this.configs, key);
+        final long waitStart = lockWaitStart();
+        synchronized (this.lock) {
+            recordLockWait(waitStart);
+            checkNotEditing();
+            final ConfigurationSnapshot.Editor editor = this.snapshot.edit();
+            final boolean removedPrefixed = canBePrefixMap && editor.removePrefixed(key);
+            editor.put(key, value);
+            publish(buildSnapshot(editor), key, removedPrefixed);
+        }
+    }
+
+    /**
+     * 批量写入和删除配置, 在一次加锁之内完成并发布新的快照
+     * 写入期间读取线程一直读取旧快照, 完成之后切换到新快照, 读取线程不会因为批量写入而阻塞
+     * 注: 按照普通KEY处理, 和 fromMap 一样不会删除前缀配置
+     *
+     * @param updates  需要写入的配置
+     * @param removals 需要删除的配置KEY
+     */
+    void applyChanges(Map<String, ?> updates, Collection<String> removals) {
+        final long waitStart = lockWaitStart();
+        synchronized (this.lock) {
+            recordLockWait(waitStart);
+            checkNotEditing();
+            final ConfigurationSnapshot.Editor editor = this.snapshot.edit();
+            final List<String> changedKeys = new ArrayList<>(updates.size() + removals.size());
+            for (String key : removals) {
+                if (editor.remove(key) != null) {
+                    changedKeys.add(key);
+                }
+            }
+            for (Map.Entry<String, ?> entry : updates.entrySet()) {
+                editor.put(entry.getKey(), entry.getValue());
+                changedKeys.add(entry.getKey());
+            }
+            if (changedKeys.isEmpty()) {
+                return;
+            }
+
+            // 先替换快照和递增版本号, 再让解析缓存失效, 和单个写入的顺序保持一致
+            this.snapshot = buildSnapshot(editor);
+            advanceVersion();
+            for (String key : changedKeys) {
+                invalidateResolutions(key, false);
             }
-            this.configs.put(key, value);
         }
     }
 
+    /**
+     * 批量写入的数据来源, 解析过程中直接把配置交给 sink
+     */
+    @FunctionalInterface
+    interface BatchSource<E extends Exception> {
+
+        /**
+         * 解析配置并逐个写入
+         */
+        void writeTo(BiConsumer<String, Object> sink) throws E;
+    }
+
+    /**
+     * 在一次加锁之内把数据来源解析出的配置直接写入, 不需要中间集合, 期间读取线程继续访问旧快照
+     * 注: 批量写入的节点原地修改, 不会为每个配置复制路径; 配置为空时排序之后线性构建有序索引;
+     * 和 {@link #edit(Consumer)} 一样, 解析失败时丢弃本次写入的所有配置, 当前配置保持不变
+     */
+    <E extends Exception> void loadBatch(BatchSource<E> source) throws E {
+        final long waitStart = lockWaitStart();
+        synchronized (this.lock) {
+            recordLockWait(waitStart);
+            checkNotEditing();
+            // 编辑器只修改本次新建的节点, 抛出异常时直接丢弃不会影响已经发布的快照
+            final ConfigurationSnapshot.Editor editor = this.snapshot.edit();
+            source.writeTo(editor::put);
+            publishAll(buildSnapshot(editor));
+        }
+    }
+
+    /**
+     * 当前线程正在执行 edit 回调时拒绝直接写入, 需要在写入锁内调用
+     * 注: 其他线程的写入会等待 edit 释放写入锁之后再执行, 不会被覆盖
+     */
+    private void checkNotEditing() {
+        if (this.editOwner == Thread.currentThread()) {
+            throw new IllegalStateException(
+                    "Configuration is being edited on this thread, write through the ConfigurationTransaction instead.");
+        }
+    }
+
+    /**
+     * 递增写入版本号并记录写入次数, 需要在写入锁内调用
+     */
+    private void advanceVersion() {
+        this.writeVersion++;
+        final ConfigurationMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordWrite();
+        }
+    }
+
+    /**
+     * 记录一次读取, 没有开启统计或者没有采样到时直接返回
+     */
+    private void recordRead(String key, boolean hit, FallbackKey fallbackKey) {
+        final ConfigurationMetrics metrics = this.metrics;
+        if (metrics != null && metrics.sampleRead()) {
+            metrics.recordRead(key, hit, fallbackKey);
+        }
+    }
+
+    /**
+     * 跟踪一次按照KEY的读取, 没有开启跟踪时直接返回
+     */
+    private void trackRead(String key, boolean canBePrefixMap) {
+        final ConfigurationAccessTracker tracker = this.tracker;
+        if (tracker != null) {
+            tracker.markRead(key, canBePrefixMap);
+        }
+    }
+
+    /**
+     * 开始等待写入锁的时间, 没有开启统计时为 0
+     */
+    private long lockWaitStart() {
+        return this.metrics == null ? 0L : System.nanoTime();
+    }
+
+    /**
+     * 获取写入锁之后记录等待时间, 需要在写入锁内调用
+     */
+    private void recordLockWait(long waitStart) {
+        final ConfigurationMetrics metrics = this.metrics;
+        if (metrics != null && waitStart != 0L) {
+            metrics.recordLockWait(System.nanoTime() - waitStart);
+        }
+    }
+
+    /**
+     * 获取当前的只读快照
+     */
+    ConfigurationSnapshot snapshot() {
+        return this.snapshot;
+    }
+
     /**
      * 替换对应单独配置项的值
      */
@@ -276,48 +1045,181 @@ public class Configuration implements
     // ----------------------------------------------------------------
 
 
+    /**
+     * 配置项的解析结果, 记录配置项最终命中的KEY
+     */
+    private static final class Resolution {
+
+        /**
+         * 解析的配置项
+         */
+        private final ConfigOption<?> option;
+
+        /**
+         * 命中的KEY, 所有KEY都不存在时为 null
+         */
+        private final String key;
+
+        /**
+         * 命中的 fallback key, 通过主KEY命中或者没有命中时为 null
+         */
+        private final FallbackKey fallbackKey;
+
+        /**
+         * 配置项是否允许按照前缀读取
+         */
+        private final boolean canBePrefixMap;
+
+        Resolution(ConfigOption<?> option, String key, FallbackKey fallbackKey, boolean canBePrefixMap) {
+            this.option = option;
+            this.key = key;
+            this.fallbackKey = fallbackKey;
+            this.canBePrefixMap = canBePrefixMap;
+        }
+
+        /**
+         * 判断写入的KEY是否会影响解析结果: 写入的是配置项的主KEY或者 fallback key,
+         * 或者写入的是这些KEY的前缀配置, 又或者写入时删除了这些KEY
+         */
+        boolean involves(String writtenKey, boolean removedPrefixed) {
+            if (involves(option.key(), writtenKey, removedPrefixed)) {
+                return true;
+            }
+            for (FallbackKey fallbackKey : option.fallbackKeys()) {
+                if (involves(fallbackKey.getKey(), writtenKey, removedPrefixed)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean involves(String optionKey, String writtenKey, boolean removedPrefixed) {
+            return optionKey.equals(writtenKey)
+                    || (canBePrefixMap && isPrefixMapKey(optionKey, writtenKey))
+                    || (removedPrefixed && isPrefixMapKey(writtenKey, optionKey));
+        }
+
+        /**
+         * 判断 candidate 是否是 key. 开头的前缀配置, 等价于 ConfigurationUtils.filterPrefixMapKey 但不拼接字符串
+         */
+        private static boolean isPrefixMapKey(String key, String candidate) {
+            return candidate.length() > key.length()
+                    && candidate.charAt(key.length()) == '.'
+                    && candidate.startsWith(key);
+        }
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // 序列化 ---------------------------------------------------------
+
+    /**
+     * 序列化时写入代理对象, 快照的节点结构不参与序列化, 只保存有序的KEY和值
+     * 注: protected 让子类同样通过代理序列化, 反序列化得到的是 Configuration 而不是子类
+     */
+    @Serial
+    protected Object writeReplace() {
+        final ConfigurationSnapshot current = snapshot();
+        final String[] keys = current.sortedKeys().clone();
+        final Object[] values = new Object[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = current.get(keys[i]);
+        }
+        return new SerializedForm(keys, values);
+    }
+
+    /**
+     * 读取旧版本直接写入 HashMap configs 字段的序列化数据, 其他情况只允许通过代理对象反序列化
+     * 注: 反序列化的对象没有经过构造方法, 由 {@link #readResolve()} 替换成正常构造的配置
+     */
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        final Object configs;
+        try {
+            configs = in.readFields().get("configs", null);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidObjectException("Serialization proxy required.");
+        }
+        if (!(configs instanceof Map<?, ?> legacy)) {
+            throw new InvalidObjectException("Serialization proxy required.");
+        }
+        final ConfigurationSnapshot.Editor editor = ConfigurationSnapshot.EMPTY.edit();
+        try {
+            legacy.forEach((key, value) -> editor.put((String) key, value));
+            final Configuration restored = new Configuration();
+            this.snapshot = restored.buildSnapshot(editor);
+        } catch (ClassCastException | NullPointerException | IllegalArgumentException e) {
+            throw new InvalidObjectException("Malformed configuration: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 旧版本的序列化数据读取之后替换成正常构造的配置, 共享读取到的快照
+     */
+    @Serial
+    protected Object readResolve() {
+        return new Configuration(this);
+    }
+
+    /**
+     * Configuration 的序列化代理
+     */
+    private static final class SerializedForm implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final String[] keys;
+
+        private final Object[] values;
+
+        SerializedForm(String[] keys, Object[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        /**
+         * 反序列化时按照有序KEY重建配置
+         */
+        @Serial
+        private Object readResolve() throws InvalidObjectException {
+            if (keys == null || values == null || keys.length != values.length) {
+                throw new InvalidObjectException("Malformed configuration.");
+            }
+            try {
+                return Configuration.fromSorted(keys, values);
+            } catch (NullPointerException | IllegalArgumentException e) {
+                throw new InvalidObjectException("Malformed configuration: " + e.getMessage());
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------
+
+
     // 重载系统所需 -----------------------------------------------------
 
     /**
-     * 按照KEY字符串所有列表生成实例化唯一哈希值
-     * 注: 这里可以学习下, 用于设计后续包装列表对象的的唯一哈希值生成
+     * 按照配置内容(KEY和值)生成哈希值, 直接取快照增量维护的 64 位指纹, 复杂度 O(1)
+     * 注: 写入之后再修改配置值内部的状态(例如写入的 Map)不会更新指纹, 配置值应该当作不可变对象使用
      */
     @Override
     public int hashCode() {
-        int hash = 0;
-        for (String s : this.configs.keySet()) {
-            hash ^= s.hashCode();
-        }
-        return hash;
+        final long fingerprint = snapshot().fingerprint();
+        return (int) (fingerprint ^ (fingerprint >>> 32));
     }
 
     /**
-     * 比较匹配重载功能
+     * 比较匹配重载功能, 配置数量或者指纹不同时直接返回 false, 只有指纹相同时才逐个比较配置值
+     * 注: byte[] 按照内容比较, 其他值按照 equals 比较
      */
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
             return true;
-        } else if (obj instanceof Configuration) {
-            // 用来做 Configuration 内部配置比较, 用于处理相同配置项但是不同实例化的情况
-            Map<String, Object> otherConfigs = ((Configuration) obj).configs;
-            for (Map.Entry<String, Object> entry : otherConfigs.entrySet()) {
-                Object thisValue = entry.getValue();
-                Object otherValue = otherConfigs.get(entry.getKey());
-
-                if (!thisValue.getClass().equals(byte[].class)) {
-                    if (!thisValue.equals(otherValue)) {
-                        return false;
-                    }
-                } else if (otherValue.getClass().equals(byte[].class)) {
-                    if (!Arrays.equals((byte[]) thisValue, (byte[]) otherValue)) {
-                        return false;
-                    }
-                } else {
-                    return false;
-                }
-            }
-            return true;
+        } else if (obj instanceof Configuration other) {
+            return snapshot().contentEquals(other.snapshot());
         } else {
             return false;
         }
@@ -329,7 +1231,9 @@ public class Configuration implements
      */
     @Override
     public String toString() {
-        return this.configs.toString();
+        final StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        snapshot().forEach((key, value) -> joiner.add(key + "=" + value));
+        return joiner.toString();
     }
 
     // ----------------------------------------------------------------
@@ -0,0 +1,194 @@
+package org.meteorcat.fusion.configuration;
+
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 单个 Configuration 的读取跟踪, 由 {@link Configuration#enableAccessTracking()} 开启, 用来找出可以删除的配置
+ * <pre>{@code
+ * ConfigurationAccessTracker tracker = config.enableAccessTracking();
+ * // ... 运行一段时间之后
+ * tracker.unreadKeys();   // 写入了但是从来没有被读取的KEY
+ * tracker.unsetKeys();    // 读取了但是从来没有写入的KEY, 读取时只能使用默认值
+ * }</pre>
+ * 注:
+ * 1. 读取时只记录读取了哪个KEY|哪个配置项, 不记录命中的是哪个KEY; 每个KEY只有第一次读取会写入跟踪表,
+ * 之后的读取只是一次 ConcurrentHashMap 查找, 读取线程之间没有任何共享写入
+ * 2. 命中的KEY在生成报告时按照当前快照重新解析: 主KEY -> fallback keys, mapType 配置项包含前缀配置,
+ * 模板之中 ${var} 引用的KEY同样算作被读取
+ * 3. 配置项按照主KEY跟踪, 主KEY相同的多个配置项只记录第一个
+ * 4. {@link CompiledOption} 只在快照变化之后才会经过 Configuration, 开启跟踪时会发布一个内容相同的新快照,
+ * 开启之前已经解析的访问器下一次读取同样会被记录
+ */
+public final class ConfigurationAccessTracker {
+
+    /**
+     * 跟踪的配置对象
+     */
+    private final Configuration configuration;
+
+    /**
+     * 按照KEY读取的配置: KEY -> 是否允许按照前缀读取
+     */
+    private final ConcurrentHashMap<String, Boolean> keys = new ConcurrentHashMap<>();
+
+    /**
+     * 读取的配置项: 主KEY -> 配置项
+     */
+    private final ConcurrentHashMap<String, ConfigOption<?>> options = new ConcurrentHashMap<>();
+
+    /**
+     * 只允许 Configuration 创建
+     */
+    ConfigurationAccessTracker(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+
+    // 记录 ------------------------------------------------------------
+
+    /**
+     * 记录一次按照KEY的读取
+     */
+    void markRead(String key, boolean canBePrefixMap) {
+        final Boolean marked = keys.get(key);
+        if (marked == null || (canBePrefixMap && !marked)) {
+            keys.merge(key, canBePrefixMap, Boolean::logicalOr);
+        }
+    }
+
+    /**
+     * 记录一次配置项读取
+     */
+    void markRead(ConfigOption<?> option) {
+        final String key = option.key();
+        if (options.get(key) == null) {
+            options.putIfAbsent(key, option);
+        }
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // 报告 ------------------------------------------------------------
+
+    /**
+     * 当前配置之中从来没有被读取的KEY, 按照字典序排列
+     */
+    public SortedSet<String> unreadKeys() {
+        final ConfigurationSnapshot current = configuration.snapshot();
+        final Set<String> consumed = consumedKeys(current);
+        final SortedSet<String> result = new TreeSet<>();
+        for (String key : current.sortedKeys()) {
+            if (!consumed.contains(key)) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 读取过但是在当前配置之中不存在的KEY, 配置项只报告主KEY, 按照字典序排列
+     */
+    public SortedSet<String> unsetKeys() {
+        final ConfigurationSnapshot current = configuration.snapshot();
+        final Consumer<String> ignored = key -> {
+        };
+        final SortedSet<String> result = new TreeSet<>();
+        keys.forEach((key, canBePrefixMap) -> {
+            if (!resolve(current, key, canBePrefixMap, ignored)) {
+                result.add(key);
+            }
+        });
+        options.forEach((key, option) -> {
+            if (!resolve(current, option, ignored)) {
+                result.add(key);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 读取过的KEY和配置项数量
+     */
+    public int trackedCount() {
+        return keys.size() + options.size();
+    }
+
+    /**
+     * 清空所有跟踪记录
+     */
+    public void reset() {
+        keys.clear();
+        options.clear();
+    }
+
+    /**
+     * 按照当前快照解析所有读取过的KEY, 包括模板引用的KEY
+     */
+    private Set<String> consumedKeys(ConfigurationSnapshot current) {
+        final Deque<String> pending = new ArrayDeque<>();
+        keys.forEach((key, canBePrefixMap) -> resolve(current, key, canBePrefixMap, pending::add));
+        options.forEach((key, option) -> resolve(current, option, pending::add));
+
+        final Set<String> consumed = new HashSet<>();
+        while (!pending.isEmpty()) {
+            final String key = pending.poll();
+            if (!consumed.add(key)) {
+                continue;
+            }
+            final Object raw = current.get(key);
+            if (ConfigurationTemplate.isTemplate(raw)) {
+                for (String reference : ConfigurationTemplate.compile((String) raw).references()) {
+                    if (ConfigurationTemplate.isKeyReference(reference) && current.containsKey(reference)) {
+                        pending.add(reference);
+                    }
+                }
+            }
+        }
+        return consumed;
+    }
+
+    /**
+     * 按照 主KEY -> fallback keys 的顺序解析配置项, 和 Configuration 的读取顺序一致
+     */
+    private static boolean resolve(ConfigurationSnapshot current, ConfigOption<?> option, Consumer<String> sink) {
+        final boolean canBePrefixMap = ConfigurationUtils.canBePrefixMap(option);
+        if (resolve(current, option.key(), canBePrefixMap, sink)) {
+            return true;
+        }
+        for (FallbackKey fallbackKey : option.fallbackKeys()) {
+            if (resolve(current, fallbackKey.getKey(), canBePrefixMap, sink)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析单个KEY命中的配置KEY, 精确匹配优先, 没有精确匹配时才匹配前缀配置
+     *
+     * @return 是否命中
+     */
+    private static boolean resolve(ConfigurationSnapshot current, String key, boolean canBePrefixMap,
+                                   Consumer<String> sink) {
+        if (current.containsKey(key)) {
+            sink.accept(key);
+            return true;
+        }
+        if (!canBePrefixMap) {
+            return false;
+        }
+        final boolean[] matched = {false};
+        current.forEachPrefixedKey(key, prefixed -> {
+            matched[0] = true;
+            sink.accept(prefixed);
+        });
+        return matched[0];
+    }
+
+    // ----------------------------------------------------------------
+}
@@ -0,0 +1,303 @@
+package org.meteorcat.fusion.configuration;
+
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 把配置绑定到 record 或者 POJO, 字段通过 {@link ConfigKey} 声明对应的配置KEY
+ * <pre>{@code
+ * ServerSettings settings = ConfigurationBinder.bind(config, ServerSettings.class);
+ * }</pre>
+ * 每个类只在第一次绑定时分析一次, 生成配置项和构造方法|字段写入的 MethodHandle 并缓存,
+ * 之后的绑定只是逐个读取配置项并调用 MethodHandle, 开销接近手写的逐个读取
+ * 注:
+ * 1. record 的所有组件都必须声明 {@link ConfigKey}, POJO 只绑定声明了 {@link ConfigKey} 的非 final 字段, 并且需要无参构造方法
+ * 2. 绑定 Configuration 时所有字段都从同一个快照读取, 绑定期间的写入不会导致读取到一半新一半旧的配置
+ * 3. 配置不存在并且没有默认值时: record 的原生类型组件取 0|false, 引用类型取 null; POJO 保留字段的初始值
+ * 4. 支持的字段类型: 原生类型及其包装类|String|Duration|MemorySize|枚举|List&lt;以上类型&gt;|Map&lt;String, String&gt;
+ */
+public final class ConfigurationBinder {
+
+    /**
+     * 支持的非枚举字段类型
+     */
+    private static final Set<Class<?>> SUPPORTED_TYPES = Set.of(
+            Integer.class, Long.class, Float.class, Double.class, Boolean.class,
+            String.class, Duration.class, MemorySize.class, Map.class);
+
+    /**
+     * 每个类分析之后的绑定方式
+     */
+    private static final ClassValue<Binding> BINDINGS = new ClassValue<>() {
+        @Override
+        protected Binding computeValue(Class<?> type) {
+            return type.isRecord() ? Binding.forRecord(type) : Binding.forBean(type);
+        }
+    };
+
+    /**
+     * 不允许实例化
+     */
+    private ConfigurationBinder() {
+    }
+
+    /**
+     * 把配置绑定到指定类型的新对象
+     *
+     * @throws IllegalArgumentException 必填配置不存在|配置值无法转化成字段类型, 异常信息包含所有出错的KEY
+     */
+    public static <T> T bind(ReadableConfig config, Class<T> type) {
+        if (config == null) throw new NullPointerException("Config not be null.");
+        if (type == null) throw new NullPointerException("Type not be null.");
+        return type.cast(BINDINGS.get(type).bind(config));
+    }
+
+
+    // 绑定方式 --------------------------------------------------------
+
+    /**
+     * 单个类的绑定方式, 创建之后不再修改
+     */
+    private static final class Binding {
+
+        private final Class<?> type;
+
+        private final Property[] properties;
+
+        /**
+         * record: (Object[]) -> Object 的构造方法; POJO: () -> Object 的无参构造方法
+         */
+        private final MethodHandle constructor;
+
+        private final boolean isRecord;
+
+        private Binding(Class<?> type, Property[] properties, MethodHandle constructor, boolean isRecord) {
+            this.type = type;
+            this.properties = properties;
+            this.constructor = constructor;
+            this.isRecord = isRecord;
+        }
+
+        /**
+         * 分析 record, 按照组件顺序调用规范构造方法
+         */
+        static Binding forRecord(Class<?> type) {
+            final MethodHandles.Lookup lookup = lookup(type);
+            final RecordComponent[] components = type.getRecordComponents();
+            final Property[] properties = new Property[components.length];
+            final Class<?>[] parameterTypes = new Class<?>[components.length];
+            for (int i = 0; i < components.length; i++) {
+                final RecordComponent component = components[i];
+                final ConfigKey configKey = component.getAnnotation(ConfigKey.class);
+                if (configKey == null) {
+                    throw new IllegalArgumentException(String.format(
+                            "Record component %s.%s is not annotated with @ConfigKey.",
+                            type.getName(), component.getName()));
+                }
+                properties[i] = Property.create(type, component.getName(), component.getType(),
+                        component.getGenericType(), configKey, null);
+                parameterTypes[i] = component.getType();
+            }
+            try {
+                final MethodHandle constructor = lookup
+                        .findConstructor(type, MethodType.methodType(void.class, parameterTypes))
+                        .asSpreader(Object[].class, parameterTypes.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+                return new Binding(type, properties, constructor, true);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Cannot access canonical constructor of " + type.getName(), e);
+            }
+        }
+
+        /**
+         * 分析 POJO, 使用无参构造方法创建之后逐个写入字段, 父类声明的字段同样绑定
+         */
+        static Binding forBean(Class<?> type) {
+            final MethodHandles.Lookup lookup = lookup(type);
+            final List<Property> properties = new ArrayList<>();
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                final MethodHandles.Lookup fieldLookup = current == type ? lookup : lookup(current);
+                for (Field field : current.getDeclaredFields()) {
+                    final ConfigKey configKey = field.getAnnotation(ConfigKey.class);
+                    if (configKey == null) {
+                        continue;
+                    }
+                    if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                        throw new IllegalArgumentException(String.format(
+                                "Field %s.%s annotated with @ConfigKey must not be static or final.",
+                                current.getName(), field.getName()));
+                    }
+                    try {
+                        final MethodHandle setter = fieldLookup.unreflectSetter(field)
+                                .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                        properties.add(Property.create(type, field.getName(), field.getType(),
+                                field.getGenericType(), configKey, setter));
+                    } catch (IllegalAccessException e) {
+                        throw new IllegalArgumentException("Cannot access field " + field, e);
+                    }
+                }
+            }
+            try {
+                final MethodHandle constructor = lookup
+                        .findConstructor(type, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+                return new Binding(type, properties.toArray(new Property[0]), constructor, false);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("No accessible no-arg constructor in " + type.getName(), e);
+            }
+        }
+
+        /**
+         * 读取所有配置并创建对象
+         */
+        Object bind(ReadableConfig config) {
+            final ConfigurationSnapshot snapshot = config instanceof Configuration configuration
+                    ? configuration.snapshot()
+                    : null;
+            final Object[] values = new Object[properties.length];
+            List<String> errors = null;
+            for (int i = 0; i < properties.length; i++) {
+                final Property property = properties[i];
+                try {
+                    Object value = snapshot != null
+                            ? ((Configuration) config).resolveValue(snapshot, property.option)
+                            : config.getOptional(property.option).orElse(null);
+                    if (value == null) {
+                        value = property.defaultValue;
+                    }
+                    if (value == null && property.required) {
+                        errors = addError(errors, property.option.key() + ": required option is not set");
+                    }
+                    values[i] = value;
+                } catch (RuntimeException e) {
+                    errors = addError(errors, property.option.key() + ": " + e.getMessage());
+                }
+            }
+            if (errors != null) {
+                throw new IllegalArgumentException("Cannot bind configuration to " + type.getName() + ": "
+                        + String.join("; ", errors));
+            }
+
+            try {
+                if (isRecord) {
+                    for (int i = 0; i < properties.length; i++) {
+                        if (values[i] == null) {
+                            values[i] = properties[i].zero;
+                        }
+                    }
+                    return (Object) constructor.invokeExact(values);
+                }
+                final Object instance = (Object) constructor.invokeExact();
+                for (int i = 0; i < properties.length; i++) {
+                    if (values[i] != null) {
+                        properties[i].setter.invokeExact(instance, values[i]);
+                    }
+                }
+                return instance;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to create " + type.getName(), e);
+            }
+        }
+
+        /**
+         * 追加错误信息
+         */
+        private static List<String> addError(List<String> errors, String error) {
+            final List<String> result = errors == null ? new ArrayList<>() : errors;
+            result.add(error);
+            return result;
+        }
+
+        /**
+         * 获取可以访问私有成员的 Lookup
+         */
+        private static MethodHandles.Lookup lookup(Class<?> type) {
+            try {
+                return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot access " + type.getName()
+                        + ", the module must be open to fusion-core.", e);
+            }
+        }
+    }
+
+    /**
+     * 单个字段的绑定方式
+     *
+     * @param option       由 {@link ConfigKey} 生成的配置项
+     * @param defaultValue 转化之后的默认值, 没有默认值为 null
+     * @param required     是否必填
+     * @param zero         原生类型的零值, 引用类型为 null
+     * @param setter       POJO 的字段写入方法, record 为 null
+     */
+    private record Property(ConfigOption<Object> option, Object defaultValue, boolean required,
+                            Object zero, MethodHandle setter) {
+
+        /**
+         * 按照字段类型生成配置项, 并转化默认值
+         */
+        static Property create(Class<?> owner, String name, Class<?> rawType, Type genericType,
+                               ConfigKey configKey, MethodHandle setter) {
+            final boolean isList = rawType == List.class;
+            final Class<?> valueType = isList ? listElementType(owner, name, genericType) : boxed(rawType);
+            if (!valueType.isEnum() && !SUPPORTED_TYPES.contains(valueType)) {
+                throw new IllegalArgumentException(String.format(
+                        "Unsupported type %s of %s.%s.", genericType.getTypeName(), owner.getName(), name));
+            }
+
+            ConfigOption<Object> option = new ConfigOption<>(
+                    configKey.value(), valueType, ConfigOption.EMPTY_DESCRIPTION, null, isList);
+            if (configKey.fallbackKeys().length > 0) {
+                option = option.withFallbackKeys(configKey.fallbackKeys());
+            }
+
+            Object defaultValue = null;
+            if (!ConfigKey.NO_DEFAULT.equals(configKey.defaultValue())) {
+                try {
+                    defaultValue = ConfigurationUtils.convertValue(configKey.defaultValue(), valueType, isList);
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException(String.format(
+                            "Invalid default value '%s' of %s.%s: %s",
+                            configKey.defaultValue(), owner.getName(), name, e.getMessage()), e);
+                }
+            }
+            final Object zero = rawType.isPrimitive() ? Array.get(Array.newInstance(rawType, 1), 0) : null;
+            return new Property(option, defaultValue, configKey.required(), zero, setter);
+        }
+
+        /**
+         * List 的元素类型
+         */
+        private static Class<?> listElementType(Class<?> owner, String name, Type genericType) {
+            if (genericType instanceof ParameterizedType parameterized
+                    && parameterized.getActualTypeArguments()[0] instanceof Class<?> element) {
+                return element;
+            }
+            throw new IllegalArgumentException(String.format(
+                    "List %s.%s must declare a concrete element type.", owner.getName(), name));
+        }
+
+        /**
+         * 原生类型转包装类
+         */
+        private static Class<?> boxed(Class<?> type) {
+            if (!type.isPrimitive()) {
+                return type;
+            }
+            return MethodType.methodType(type).wrap().returnType();
+        }
+    }
+
+    // ----------------------------------------------------------------
+}
@@ -0,0 +1,499 @@
+package org.meteorcat.fusion.configuration;
+
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Configuration 的二进制编码, 用来代替 Java 默认序列化 HashMap 的方式分发配置
+ * 编码格式(多字节整数都是大端序):
+ * <pre>
+ * +--------+---------+----------------+---------+--------+
+ * | magic  | version | payload length | payload | crc32  |
+ * | 4 byte | 1 byte  | varint         | n byte  | 4 byte |
+ * +--------+---------+----------------+---------+--------+
+ *
+ * payload:
+ *   varint 配置数量, 之后每个配置按照KEY的字典序排列:
+ *     KEY 字典: varint 和上一个KEY共享的前缀长度(字符数) + varint 长度 + 剩余部分的 UTF-8 字节
+ *     1 byte 类型标识(Configuration.Type.ordinal())
+ *     值: String|Bytes 为 varint 长度 + 字节, Integer|Long 为 zigzag varint,
+ *         Boolean 为 1 byte, Float|Double 为定长 IEEE 754
+ * </pre>
+ * 配置KEY大多共享前缀(比如 "taskmanager.memory.xxx"), 排序之后相邻KEY只需要保存不同的部分(front coding)
+ * 解码时KEY天然有序, 可以线性构建 Configuration 的有序索引
+ * <pre>{@code
+ * byte[] bytes = ConfigurationCodec.toBytes(config);
+ * Configuration copy = ConfigurationCodec.fromBytes(bytes);
+ * }</pre>
+ * 注: Configuration.Type 之外的值(列表|Map|时间间隔|内存大小|枚举)按照 {@link ConfigurationUtils#encodeValue(Object)}
+ * 的规范文本保存成 String, 解码之后按照配置项读取时再转化回声明的类型; 不支持的类型会抛出 IllegalArgumentException
+ */
+public final class ConfigurationCodec {
+
+    /**
+     * 文件标识 "FCFG"
+     */
+    static final int MAGIC = 0x46434647;
+
+    /**
+     * 当前编码版本
+     */
+    static final byte VERSION = 1;
+
+    /**
+     * 从 DataInput 解码时默认允许的最大 payload 长度, 避免损坏的长度字段分配过大的数组
+     */
+    public static final int DEFAULT_MAX_PAYLOAD_LENGTH = 64 << 20;
+
+    /**
+     * 类型标识, 和 Configuration.Type 的 ordinal 对应
+     */
+    private static final byte TYPE_STRING = (byte) Configuration.Type.String.ordinal();
+    private static final byte TYPE_INTEGER = (byte) Configuration.Type.Integer.ordinal();
+    private static final byte TYPE_LONG = (byte) Configuration.Type.Long.ordinal();
+    private static final byte TYPE_BOOLEAN = (byte) Configuration.Type.Boolean.ordinal();
+    private static final byte TYPE_FLOAT = (byte) Configuration.Type.Float.ordinal();
+    private static final byte TYPE_DOUBLE = (byte) Configuration.Type.Double.ordinal();
+    private static final byte TYPE_BYTES = (byte) Configuration.Type.Bytes.ordinal();
+
+    /**
+     * 不允许实例化
+     */
+    private ConfigurationCodec() { /* 不允许实例化 */}
+
+
+    // 编码 ----------------------------------------------------------
+
+    /**
+     * 编码成字节数组
+     */
+    public static byte[] toBytes(Configuration configuration) {
+        final Encoder frame = encodeFrame(configuration);
+        return Arrays.copyOf(frame.buffer, frame.length);
+    }
+
+    /**
+     * 编码写入到 DataOutput
+     */
+    public static void write(Configuration configuration, DataOutput out) throws IOException {
+        final Encoder frame = encodeFrame(configuration);
+        out.write(frame.buffer, 0, frame.length);
+    }
+
+    /**
+     * 编码写入到 ByteBuffer, 剩余空间不足时抛出 BufferOverflowException
+     */
+    public static void write(Configuration configuration, ByteBuffer buffer) {
+        final Encoder frame = encodeFrame(configuration);
+        buffer.put(frame.buffer, 0, frame.length);
+    }
+
+    /**
+     * 编码完整的数据帧
+     */
+    private static Encoder encodeFrame(Configuration configuration) {
+        final Encoder payload = encodePayload(configuration.snapshot());
+        final CRC32 crc = new CRC32();
+        crc.update(payload.buffer, 0, payload.length);
+
+        final Encoder frame = new Encoder(payload.length + 16);
+        frame.writeInt(MAGIC);
+        frame.writeByte(VERSION);
+        frame.writeVarInt(payload.length);
+        frame.writeBytes(payload.buffer, 0, payload.length);
+        frame.writeInt((int) crc.getValue());
+        return frame;
+    }
+
+    /**
+     * 编码配置内容
+     */
+    private static Encoder encodePayload(ConfigurationSnapshot snapshot) {
+        final String[] keys = snapshot.sortedKeys();
+        final Encoder encoder = new Encoder(keys.length * 16 + 64);
+        encoder.writeVarInt(keys.length);
+        String previous = "";
+        for (String key : keys) {
+            final int shared = sharedPrefixLength(previous, key);
+            encoder.writeVarInt(shared);
+            encoder.writeString(key, shared);
+            writeValue(encoder, key, snapshot.get(key));
+            previous = key;
+        }
+        return encoder;
+    }
+
+    /**
+     * 按照类型写入配置值
+     */
+    private static void writeValue(Encoder encoder, String key, Object value) {
+        final Class<?> clazz = value.getClass();
+        if (clazz == String.class) {
+            encoder.writeByte(TYPE_STRING);
+            encoder.writeString((String) value);
+        } else if (clazz == Integer.class) {
+            encoder.writeByte(TYPE_INTEGER);
+            encoder.writeVarLong(zigzag((Integer) value));
+        } else if (clazz == Long.class) {
+            encoder.writeByte(TYPE_LONG);
+            encoder.writeVarLong(zigzag((Long) value));
+        } else if (clazz == Boolean.class) {
+            encoder.writeByte(TYPE_BOOLEAN);
+            encoder.writeByte((Boolean) value ? 1 : 0);
+        } else if (clazz == Float.class) {
+            encoder.writeByte(TYPE_FLOAT);
+            encoder.writeInt(Float.floatToIntBits((Float) value));
+        } else if (clazz == Double.class) {
+            encoder.writeByte(TYPE_DOUBLE);
+            encoder.writeLong(Double.doubleToLongBits((Double) value));
+        } else if (clazz == byte[].class) {
+            final byte[] bytes = (byte[]) value;
+            encoder.writeByte(TYPE_BYTES);
+            encoder.writeVarInt(bytes.length);
+            encoder.writeBytes(bytes, 0, bytes.length);
+        } else {
+            encoder.writeByte(TYPE_STRING);
+            encoder.writeString(encodeValue(key, value));
+        }
+    }
+
+    /**
+     * Configuration.Type 之外的值转化成规范文本
+     */
+    static String encodeValue(String key, Object value) {
+        try {
+            return ConfigurationUtils.encodeValue(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Unrecognized type %s of configuration key '%s'.", value.getClass().getName(), key), e);
+        }
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // 解码 ----------------------------------------------------------
+
+    /**
+     * 从字节数组解码
+     */
+    public static Configuration fromBytes(byte[] bytes) {
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * 从 ByteBuffer 解码, 读取完成之后 position 指向数据帧的末尾
+     * 注: 数据帧不完整或者长度字段超出剩余字节时抛出 IllegalArgumentException
+     */
+    public static Configuration read(ByteBuffer buffer) {
+        try {
+            checkHeader(buffer.getInt(), buffer.get());
+            final int length = readLength(buffer, buffer.remaining());
+            final byte[] payload = new byte[length];
+            buffer.get(payload);
+            return decodePayload(payload, buffer.getInt());
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated configuration frame.", e);
+        }
+    }
+
+    /**
+     * 从 DataInput 解码, payload 最大长度为 {@link #DEFAULT_MAX_PAYLOAD_LENGTH}
+     */
+    public static Configuration read(DataInput in) throws IOException {
+        return read(in, DEFAULT_MAX_PAYLOAD_LENGTH);
+    }
+
+    /**
+     * 从 DataInput 解码, payload 长度超过 maxPayloadLength 时抛出 IllegalArgumentException
+     */
+    public static Configuration read(DataInput in, int maxPayloadLength) throws IOException {
+        checkHeader(in.readInt(), in.readByte());
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift == 35) {
+                throw new IllegalArgumentException("Malformed varint.");
+            }
+            final byte b = in.readByte();
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        if (length < 0 || length > maxPayloadLength) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid configuration payload length %d, maximum %d.", length & 0xFFFFFFFFL, maxPayloadLength));
+        }
+        final byte[] payload = new byte[length];
+        in.readFully(payload);
+        return decodePayload(payload, in.readInt());
+    }
+
+    /**
+     * 校验文件标识和版本
+     */
+    private static void checkHeader(int magic, byte version) {
+        if (magic != MAGIC) {
+            throw new IllegalArgumentException(String.format("Invalid configuration magic: 0x%08X", magic));
+        }
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported configuration codec version: " + version);
+        }
+    }
+
+    /**
+     * 校验 CRC 并解码配置内容, KEY有序时直接线性构建配置
+     */
+    private static Configuration decodePayload(byte[] payload, int expectedCrc) {
+        final CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IllegalArgumentException("Configuration checksum mismatch, the data is corrupted.");
+        }
+
+        try {
+            return decodeEntries(ByteBuffer.wrap(payload));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated configuration payload.", e);
+        }
+    }
+
+    /**
+     * 解码所有配置, 长度字段都不能超出剩余字节
+     */
+    private static Configuration decodeEntries(ByteBuffer buffer) {
+        // 每个配置至少占用3个字节(共享长度|KEY长度|类型标识), 用来限制数组大小
+        final int size = readLength(buffer, buffer.remaining() / 3);
+        final String[] keys = new String[size];
+        final Object[] values = new Object[size];
+        String previous = "";
+        for (int i = 0; i < size; i++) {
+            final int shared = readVarInt(buffer);
+            if (shared > previous.length()) {
+                throw new IllegalArgumentException("Malformed configuration key at index " + i + ".");
+            }
+            final String key = shared == 0
+                    ? readString(buffer)
+                    : previous.substring(0, shared).concat(readString(buffer));
+            // KEY必须严格递增, 否则不能直接作为有序索引
+            if (i > 0 && key.compareTo(previous) <= 0) {
+                throw new IllegalArgumentException("Configuration keys are not in ascending order at index " + i + ".");
+            }
+            keys[i] = key;
+            values[i] = readValue(buffer);
+            previous = key;
+        }
+        return Configuration.fromSorted(keys, values);
+    }
+
+    /**
+     * 按照类型标识读取配置值
+     */
+    private static Object readValue(ByteBuffer buffer) {
+        final byte type = buffer.get();
+        if (type == TYPE_STRING) {
+            return readString(buffer);
+        } else if (type == TYPE_INTEGER) {
+            return (int) unzigzag(readVarLong(buffer));
+        } else if (type == TYPE_LONG) {
+            return unzigzag(readVarLong(buffer));
+        } else if (type == TYPE_BOOLEAN) {
+            return buffer.get() != 0;
+        } else if (type == TYPE_FLOAT) {
+            return Float.intBitsToFloat(buffer.getInt());
+        } else if (type == TYPE_DOUBLE) {
+            return Double.longBitsToDouble(buffer.getLong());
+        } else if (type == TYPE_BYTES) {
+            final byte[] bytes = new byte[readLength(buffer, buffer.remaining())];
+            buffer.get(bytes);
+            return bytes;
+        }
+        throw new IllegalArgumentException("Unrecognized type tag: " + type);
+    }
+
+    /**
+     * 读取 varint 长度 + UTF-8 字节的字符串
+     */
+    private static String readString(ByteBuffer buffer) {
+        final int length = readLength(buffer, buffer.remaining());
+        final String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // 变长整数 -------------------------------------------------------
+
+    /**
+     * 读取 varint, 每个字节低7位为数据, 最高位表示后面是否还有字节
+     */
+    static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint.");
+    }
+
+    /**
+     * 读取长度|数量, 负数或者超过 limit 时抛出 IllegalArgumentException
+     */
+    private static int readLength(ByteBuffer buffer, int limit) {
+        final int length = readVarInt(buffer);
+        if (length < 0 || length > limit) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid length %d in configuration data, only %d bytes remaining.",
+                    length & 0xFFFFFFFFL, buffer.remaining()));
+        }
+        return length;
+    }
+
+    /**
+     * 读取 varlong
+     */
+    static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint.");
+    }
+
+    /**
+     * zigzag 编码, 让绝对值较小的负数也只占用较少的字节
+     */
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * zigzag 解码
+     */
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 计算两个字符串共享的前缀长度
+     */
+    private static int sharedPrefixLength(String previous, String key) {
+        final int limit = Math.min(previous.length(), key.length());
+        int i = 0;
+        while (i < limit && previous.charAt(i) == key.charAt(i)) {
+            i++;
+        }
+        // 不拆开代理对, 否则前后两段都不是合法的 UTF-16 字符串
+        if (i > 0 && i < key.length() && Character.isHighSurrogate(key.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    // ----------------------------------------------------------------
+
+
+    /**
+     * 可扩容的字节写入器
+     */
+    static final class Encoder {
+
+        private byte[] buffer;
+
+        private int length;
+
+        Encoder(int capacity) {
+            this.buffer = new byte[Math.max(capacity, 16)];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[length++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            buffer[length++] = (byte) (value >>> 24);
+            buffer[length++] = (byte) (value >>> 16);
+            buffer[length++] = (byte) (value >>> 8);
+            buffer[length++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes, int offset, int count) {
+            ensure(count);
+            System.arraycopy(bytes, offset, buffer, length, count);
+            length += count;
+        }
+
+        /**
+         * 写入字符串
+         */
+        void writeString(String value) {
+            writeString(value, 0);
+        }
+
+        /**
+         * 写入字符串从 from 开始的部分, 纯 ASCII 字符串直接逐个字符写入, 避免 getBytes 复制
+         */
+        void writeString(String value, int from) {
+            final int size = value.length();
+            boolean ascii = true;
+            for (int i = from; i < size && ascii; i++) {
+                ascii = value.charAt(i) < 0x80;
+            }
+            if (ascii) {
+                writeVarInt(size - from);
+                ensure(size - from);
+                for (int i = from; i < size; i++) {
+                    buffer[length++] = (byte) value.charAt(i);
+                }
+            } else {
+                final byte[] bytes = value.substring(from).getBytes(StandardCharsets.UTF_8);
+                writeVarInt(bytes.length);
+                writeBytes(bytes, 0, bytes.length);
+            }
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package org.meteorcat.fusion.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配置文件热加载, 监听配置文件的修改并把变化的配置写入到 Configuration
+ * 支持的文件格式:
+ * <pre>
+ * 1. *.properties: 标准的 java.util.Properties 格式
+ * 2. *.yaml | *.yml: 扁平或者嵌套的 YAML, 嵌套的KEY按照 '.' 拼接, 解析规则见 {@link ConfigurationLoader}
+ * </pre>
+ * 处理流程:
+ * <pre>
+ * 1. 启动时加载所有文件写入配置, 并记录每个文件解析之后的内容
+ * 2. WatchService 收到修改事件之后等待 debounce 时间, 期间的连续修改合并成一次加载
+ * 3. 只重新解析发生修改的文件, 和上次的内容比较之后只写入新增|修改|删除的配置
+ * 4. 所有变化在一次加锁之内写入并直接发布新快照, 读取线程不会被阻塞
+ * </pre>
+ * <pre>{@code
+ * Configuration config = new Configuration();
+ * try (ConfigurationFileWatcher watcher = ConfigurationFileWatcher.watch(
+ *         config, Duration.ofMillis(200), Paths.get("conf/fusion.yaml"))) {
+ *     // 修改 conf/fusion.yaml 之后 config 会自动更新
+ * }
+ * }</pre>
+ * 注: 多个文件定义相同KEY的时候以后加载的文件为准, 删除某个文件中的KEY时会回退到其他文件之中的值
+ */
+public class ConfigurationFileWatcher implements AutoCloseable {
+
+    /**
+     * 日志打印对象
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigurationFileWatcher.class);
+
+    /**
+     * 写入的配置对象
+     */
+    private final Configuration configuration;
+
+    /**
+     * 合并连续修改事件的等待时间
+     */
+    private final Duration debounce;
+
+    /**
+     * 监听的配置文件, 按照加载顺序排列
+     */
+    private final List<Path> files;
+
+    /**
+     * 每个文件上一次解析的内容, 只由监听线程访问
+     */
+    private final Map<Path, Map<String, String>> contents = new HashMap<>();
+
+    /**
+     * 文件监听服务
+     */
+    private final WatchService watchService;
+
+    /**
+     * 监听线程
+     */
+    private final Thread thread;
+
+    /**
+     * 是否已经关闭
+     */
+    private volatile boolean closed;
+
+    /**
+     * 加载配置文件并开始监听修改
+     *
+     * @param configuration 写入的配置对象
+     * @param debounce      合并连续修改事件的等待时间
+     * @param files         配置文件, 多个文件定义相同KEY时以后面的文件为准
+     */
+    public static ConfigurationFileWatcher watch(
+            Configuration configuration,
+            Duration debounce,
+            Path... files
+    ) throws IOException {
+        final ConfigurationFileWatcher watcher = new ConfigurationFileWatcher(configuration, debounce, files);
+        watcher.thread.start();
+        return watcher;
+    }
+
+    /**
+     * 私有化构建方法, 完成首次加载并注册监听目录
+     */
+    private ConfigurationFileWatcher(Configuration configuration, Duration debounce, Path... files) throws IOException {
+        if (configuration == null) throw new NullPointerException("Configuration not be null.");
+        if (debounce == null) throw new NullPointerException("Debounce not be null.");
+        if (files.length == 0) throw new IllegalArgumentException("No configuration file to watch.");
+        this.configuration = configuration;
+        this.debounce = debounce;
+        this.files = new ArrayList<>(files.length);
+
+        // 首次加载所有文件
+        final Map<String, String> merged = new HashMap<>();
+        for (Path file : files) {
+            final Path absolute = file.toAbsolutePath().normalize();
+            final Map<String, String> parsed = parse(absolute);
+            this.files.add(absolute);
+            this.contents.put(absolute, parsed);
+            merged.putAll(parsed);
+        }
+        configuration.applyChanges(merged, Collections.emptyList());
+
+        // 注册文件所在目录, WatchService 只能监听目录; 注册失败时关闭监听服务
+        this.watchService = FileSystems.getDefault().newWatchService();
+        try {
+            final Set<Path> directories = new HashSet<>();
+            for (Path file : this.files) {
+                if (directories.add(file.getParent())) {
+                    file.getParent().register(
+                            watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                watchService.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+
+        this.thread = new Thread(this::run, "fusion-configuration-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * 监听线程主循环
+     */
+    private void run() {
+        try {
+            while (!closed) {
+                final Set<Path> changed = new LinkedHashSet<>();
+                collect(watchService.take(), changed);
+
+                // 等待 debounce 时间内没有新的事件再加载, 合并编辑器保存时的连续写入
+                WatchKey key;
+                while ((key = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                    collect(key, changed);
+                }
+                for (Path file : changed) {
+                    try {
+                        reload(file);
+                    } catch (RuntimeException e) {
+                        // 任何一个文件加载失败都不能结束监听线程, 否则之后的修改都不会再生效
+                        LOG.error("Failed to reload configuration file '{}', keep watching.", file, e);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignore) {
+            // 关闭监听
+        }
+    }
+
+    /**
+     * 收集修改事件当中属于监听文件的路径
+     */
+    private void collect(WatchKey key, Set<Path> changed) {
+        final Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // 事件丢失, 重新加载所有文件
+                changed.addAll(files);
+                continue;
+            }
+            final Path file = directory.resolve((Path) event.context());
+            if (contents.containsKey(file)) {
+                changed.add(file);
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * 重新解析单个文件, 和上一次的内容比较之后只写入变化的配置
+     * 注: 解析失败或者写入被拒绝时(比如 ${var} 循环引用)保留上一次的配置, 记录的文件内容也不变, 下次修改仍然和生效的内容比较
+     */
+    private void reload(Path file) {
+        final Map<String, String> parsed;
+        try {
+            parsed = parse(file);
+        } catch (IOException | RuntimeException e) {
+            // 编辑器保存过程中文件可能暂时不存在或者内容不完整, 保留上一次的配置
+            LOG.warn("Failed to reload configuration file '{}', keep the previous values.", file, e);
+            return;
+        }
+
+        final Map<String, String> previous = contents.get(file);
+        final Map<String, String> updates = new HashMap<>();
+        final List<String> removals = new ArrayList<>();
+        for (Map.Entry<String, String> entry : parsed.entrySet()) {
+            if (!entry.getValue().equals(previous.get(entry.getKey())) && ownsKey(file, entry.getKey())) {
+                updates.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (String key : previous.keySet()) {
+            if (!parsed.containsKey(key)) {
+                // 回退到其他文件之中的值, 都没有则删除
+                final String fallback = valueFromOtherFiles(file, key);
+                if (fallback == null) {
+                    removals.add(key);
+                } else {
+                    updates.put(key, fallback);
+                }
+            }
+        }
+
+        if (!updates.isEmpty() || !removals.isEmpty()) {
+            try {
+                configuration.applyChanges(updates, removals);
+            } catch (RuntimeException e) {
+                LOG.warn("Rejected configuration file '{}', keep the previous values.", file, e);
+                return;
+            }
+            LOG.info("Reloaded configuration file '{}': {} updated, {} removed.", file, updates.size(), removals.size());
+        }
+        contents.put(file, parsed);
+    }
+
+    /**
+     * 判断当前文件是否是该KEY生效的来源, 也就是后面加载的文件都没有定义这个KEY
+     */
+    private boolean ownsKey(Path file, String key) {
+        for (int i = files.indexOf(file) + 1; i < files.size(); i++) {
+            if (contents.get(files.get(i)).containsKey(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按照从后往前的顺序查找其他文件之中定义的值
+     */
+    private String valueFromOtherFiles(Path file, String key) {
+        for (int i = files.size() - 1; i >= 0; i--) {
+            final Path other = files.get(i);
+            if (!other.equals(file)) {
+                final String value = contents.get(other).get(key);
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 停止监听
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watchService.close();
+        thread.interrupt();
+    }
+
+
+    // 文件解析 -------------------------------------------------------
+
+    /**
+     * 按照文件扩展名解析配置文件
+     */
+    static Map<String, String> parse(Path file) throws IOException {
+        final Map<String, String> result = new HashMap<>();
+        ConfigurationLoader.parse(file, result::put);
+        return result;
+    }
+
+    // ----------------------------------------------------------------
+}
@@ -0,0 +1,211 @@
+package org.meteorcat.fusion.configuration;
+
+import java.util.function.Consumer;
+
+/**
+ * 持久化的有序KEY索引, 采用 AVL 平衡二叉树, 和 ConfigurationTrie 一起组成配置快照
+ * 用于前缀配置(prefix map)的范围查找以及按照字典序遍历KEY
+ * 写入只复制从根节点到修改位置的路径(以及旋转涉及到的节点), 其他节点在新旧版本之间共享
+ * 和 ConfigurationTrie 一样, 持有相同 edit 标识的批量写入可以原地修改本次新建的节点
+ */
+final class ConfigurationIndex {
+
+    /**
+     * 不允许实例化
+     */
+    private ConfigurationIndex() { /* 不允许实例化 */}
+
+
+    /**
+     * 树节点
+     */
+    static final class Node {
+
+        /**
+         * 配置KEY, 删除节点时可能被后继节点的KEY替换
+         */
+        private String key;
+
+        private Node left;
+
+        private Node right;
+
+        /**
+         * 子树高度, 叶子节点为 1
+         */
+        private int height;
+
+        /**
+         * 创建节点的批量写入标识
+         */
+        private final Object edit;
+
+        Node(String key, Node left, Node right, Object edit) {
+            this.key = key;
+            this.left = left;
+            this.right = right;
+            this.edit = edit;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    /**
+     * 插入KEY, 返回新的根节点, 调用方需要保证KEY不存在
+     */
+    static Node insert(Node node, String key, Object edit) {
+        if (node == null) {
+            return new Node(key, null, null, edit);
+        }
+        final int compare = key.compareTo(node.key);
+        if (compare == 0) {
+            return node;
+        }
+        final Node editable = editable(node, edit);
+        if (compare < 0) {
+            editable.left = insert(editable.left, key, edit);
+        } else {
+            editable.right = insert(editable.right, key, edit);
+        }
+        return balance(editable, edit);
+    }
+
+    /**
+     * 删除KEY, 返回新的根节点, 调用方需要保证KEY存在
+     */
+    static Node remove(Node node, String key, Object edit) {
+        if (node == null) {
+            return null;
+        }
+        final int compare = key.compareTo(node.key);
+        final Node editable;
+        if (compare < 0) {
+            editable = editable(node, edit);
+            editable.left = remove(editable.left, key, edit);
+        } else if (compare > 0) {
+            editable = editable(node, edit);
+            editable.right = remove(editable.right, key, edit);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            // 用右子树的最小KEY替换当前节点
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            editable = editable(node, edit);
+            editable.key = successor.key;
+            editable.right = remove(editable.right, successor.key, edit);
+        }
+        return balance(editable, edit);
+    }
+
+    /**
+     * 从严格递增的KEY构建完全平衡的树, 复杂度 O(n)
+     */
+    static Node build(String[] sortedKeys, int from, int to, Object edit) {
+        if (from >= to) {
+            return null;
+        }
+        final int mid = (from + to) >>> 1;
+        return new Node(
+                sortedKeys[mid],
+                build(sortedKeys, from, mid, edit),
+                build(sortedKeys, mid + 1, to, edit),
+                edit);
+    }
+
+    /**
+     * 按照字典序遍历 [from, to) 范围之内的KEY
+     */
+    static void range(Node node, String from, String to, Consumer<String> action) {
+        while (node != null) {
+            final boolean afterFrom = node.key.compareTo(from) >= 0;
+            final boolean beforeTo = node.key.compareTo(to) < 0;
+            if (afterFrom) {
+                range(node.left, from, to, action);
+            }
+            if (afterFrom && beforeTo) {
+                action.accept(node.key);
+            }
+            if (!beforeTo) {
+                return;
+            }
+            node = node.right;
+        }
+    }
+
+    /**
+     * 按照字典序把KEY写入数组, 返回写入之后的下标
+     */
+    static int toArray(Node node, String[] target, int index) {
+        while (node != null) {
+            index = toArray(node.left, target, index);
+            target[index++] = node.key;
+            node = node.right;
+        }
+        return index;
+    }
+
+    /**
+     * 节点高度, 空节点为 0
+     */
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * 获取可以修改的节点: 当前批量写入创建的节点直接返回, 否则复制
+     */
+    private static Node editable(Node node, Object edit) {
+        return edit != null && node.edit == edit ? node : new Node(node.key, node.left, node.right, edit);
+    }
+
+    /**
+     * 更新高度并在左右子树高度差超过 1 时旋转, 传入的节点必须可以修改
+     */
+    private static Node balance(Node node, Object edit) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        final int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(editable(node.left, edit), edit);
+            }
+            return rotateRight(node, edit);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(editable(node.right, edit), edit);
+            }
+            return rotateLeft(node, edit);
+        }
+        return node;
+    }
+
+    /**
+     * 右旋, 传入的节点必须可以修改
+     */
+    private static Node rotateRight(Node node, Object edit) {
+        final Node left = editable(node.left, edit);
+        node.left = left.right;
+        left.right = node;
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        left.height = Math.max(height(left.left), height(left.right)) + 1;
+        return left;
+    }
+
+    /**
+     * 左旋, 传入的节点必须可以修改
+     */
+    private static Node rotateLeft(Node node, Object edit) {
+        final Node right = editable(node.right, edit);
+        node.right = right.left;
+        right.left = node;
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        right.height = Math.max(height(right.left), height(right.right)) + 1;
+        return right;
+    }
+}
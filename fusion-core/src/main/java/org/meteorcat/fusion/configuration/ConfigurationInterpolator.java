@@ -0,0 +1,198 @@
+package org.meteorcat.fusion.configuration;
+
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Configuration 的 ${var} 模板解析, 每个 Configuration 各自持有一个
+ * 维护三份缓存:
+ * <pre>
+ * templates:  模板原文 -> 编译之后的模板, 同样的模板只解析一次
+ * resolved:   配置KEY -> 渲染之后的字符串
+ * dependents: 被引用的KEY -> 引用它的KEY, 写入某个KEY时只让依赖它的KEY(包括间接依赖)失效
+ * </pre>
+ * 循环引用在写入时检查并拒绝, 所以读取时不需要检测循环
+ * 注: 引用的环境变量|系统属性不会跟踪变化, 渲染结果缓存到相关配置被写入为止
+ */
+final class ConfigurationInterpolator {
+
+    /**
+     * 编译之后的模板
+     */
+    private final ConcurrentHashMap<String, ConfigurationTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * 渲染之后的配置值
+     */
+    private final ConcurrentHashMap<String, String> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * 反向依赖: 被引用的KEY -> 引用它的KEY
+     */
+    private final ConcurrentHashMap<String, Set<String>> dependents = new ConcurrentHashMap<>();
+
+    /**
+     * 获取编译之后的模板
+     */
+    ConfigurationTemplate template(String raw) {
+        return templates.computeIfAbsent(raw, ConfigurationTemplate::compile);
+    }
+
+    /**
+     * 获取缓存的渲染结果, 没有缓存返回 null
+     */
+    String cached(String key) {
+        return resolved.get(key);
+    }
+
+    /**
+     * 在指定快照之中渲染KEY的模板, 引用的KEY如果也是模板会递归渲染
+     * 渲染过程中的所有结果记录到 computed, 由调用方确认快照没有变化之后再放入缓存
+     *
+     * @param snapshot 读取的快照
+     * @param key      配置KEY
+     * @param raw      配置KEY在快照之中的原始值
+     * @param computed 本次渲染得到的结果
+     */
+    String resolve(ConfigurationSnapshot snapshot, String key, String raw, Map<String, String> computed) {
+        final String value = template(raw).render(reference -> {
+            if (!ConfigurationTemplate.isKeyReference(reference)) {
+                return ConfigurationTemplate.lookupExternal(reference);
+            }
+            // 引用的KEY不存在也要记录依赖, 之后写入这个KEY同样需要让当前KEY失效
+            dependents.computeIfAbsent(reference, ignored -> ConcurrentHashMap.newKeySet()).add(key);
+            final Object referenced = snapshot.get(reference);
+            if (referenced == null) {
+                return null;
+            }
+            if (!ConfigurationTemplate.isTemplate(referenced)) {
+                return ConfigurationUtils.convertToString(referenced);
+            }
+            String nested = resolved.get(reference);
+            if (nested == null) {
+                nested = computed.get(reference);
+            }
+            return nested != null ? nested : resolve(snapshot, reference, (String) referenced, computed);
+        });
+        computed.put(key, value);
+        return value;
+    }
+
+    /**
+     * 渲染快照之中的所有模板, 用于冻结|发布之类不再跟踪写入的只读副本
+     *
+     * @return 模板KEY -> 渲染结果, 快照之中没有模板时返回空 Map
+     */
+    static Map<String, String> renderAll(ConfigurationSnapshot snapshot) {
+        if (snapshot.templateCount() == 0) {
+            return Map.of();
+        }
+        final ConfigurationInterpolator interpolator = new ConfigurationInterpolator();
+        final Map<String, String> computed = new HashMap<>();
+        snapshot.forEach((key, value) -> {
+            if (ConfigurationTemplate.isTemplate(value) && !computed.containsKey(key)) {
+                interpolator.resolve(snapshot, key, (String) value, computed);
+            }
+        });
+        return computed;
+    }
+
+    /**
+     * 把渲染结果放入缓存
+     */
+    void publish(Map<String, String> computed) {
+        resolved.putAll(computed);
+    }
+
+    /**
+     * 撤回放入缓存的渲染结果, 渲染期间快照发生变化时调用
+     */
+    void retract(Map<String, String> computed) {
+        computed.forEach(resolved::remove);
+    }
+
+    /**
+     * 写入KEY之后让它以及直接|间接依赖它的KEY失效
+     *
+     * @param key             写入或者删除的KEY
+     * @param removedPrefixed 是否同时删除了 key. 开头的前缀配置
+     */
+    void invalidate(String key, boolean removedPrefixed) {
+        final Deque<String> pending = new ArrayDeque<>();
+        pending.add(key);
+        if (removedPrefixed) {
+            final String prefix = key + ".";
+            for (String candidate : dependents.keySet()) {
+                if (candidate.startsWith(prefix)) {
+                    pending.add(candidate);
+                }
+            }
+            for (String candidate : resolved.keySet()) {
+                if (candidate.startsWith(prefix)) {
+                    pending.add(candidate);
+                }
+            }
+        }
+
+        final Set<String> visited = new HashSet<>();
+        while (!pending.isEmpty()) {
+            final String current = pending.poll();
+            if (!visited.add(current)) {
+                continue;
+            }
+            resolved.remove(current);
+            final Set<String> referencing = dependents.remove(current);
+            if (referencing != null) {
+                pending.addAll(referencing);
+            }
+        }
+    }
+
+    /**
+     * 清空所有缓存, 批量写入之后调用
+     */
+    void clear() {
+        resolved.clear();
+        dependents.clear();
+        templates.clear();
+    }
+
+    /**
+     * 检查写入的模板KEY是否形成循环引用, 存在循环时抛出 IllegalArgumentException
+     * 注: 写入之前没有循环, 新出现的循环一定经过本次写入的模板KEY, 所以只需要从这些KEY开始检查
+     */
+    void checkCycles(ConfigurationSnapshot snapshot, Collection<String> writtenKeys) {
+        final Set<String> checked = new HashSet<>();
+        final List<String> path = new ArrayList<>();
+        for (String key : writtenKeys) {
+            visit(snapshot, key, path, checked);
+        }
+    }
+
+    /**
+     * 深度优先遍历引用, path 是当前的引用链
+     */
+    private void visit(ConfigurationSnapshot snapshot, String key, List<String> path, Set<String> checked) {
+        if (checked.contains(key)) {
+            return;
+        }
+        final int start = path.indexOf(key);
+        if (start >= 0) {
+            throw new IllegalArgumentException("Cyclic reference in configuration: "
+                    + String.join(" -> ", path.subList(start, path.size())) + " -> " + key);
+        }
+        final Object raw = snapshot.get(key);
+        if (ConfigurationTemplate.isTemplate(raw)) {
+            path.add(key);
+            for (String reference : template((String) raw).references()) {
+                if (ConfigurationTemplate.isKeyReference(reference)) {
+                    visit(snapshot, reference, path, checked);
+                }
+            }
+            path.remove(path.size() - 1);
+        }
+        checked.add(key);
+    }
+}
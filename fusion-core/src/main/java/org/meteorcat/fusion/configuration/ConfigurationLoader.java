@@ -0,0 +1,640 @@
+package org.meteorcat.fusion.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * 流式配置文件加载器, 边读取边解析, 解析出的配置直接写入 Configuration
+ * 支持的文件格式:
+ * <pre>
+ * 1. *.properties: 标准的 java.util.Properties 格式, 支持续行和转义
+ * 2. *.yaml | *.yml: 扁平或者嵌套的 YAML, 和 flink 一样嵌套的KEY按照 '.' 拼接成一个KEY
+ * </pre>
+ * YAML 嵌套展开规则:
+ * <pre>
+ * taskmanager:
+ *   memory:
+ *     size: 1g        =>  taskmanager.memory.size = 1g
+ * jobmanager.ports:
+ *   - 8000
+ *   - 8001            =>  jobmanager.ports = 8000;8001
+ * avro: {schema: 1}   =>  avro.schema = 1
+ * </pre>
+ * 所有配置在一次加锁之内写入, 不需要先构建中间 Map 再逐个 setString; 解析失败时目标配置保持不变
+ * <pre>{@code
+ * Configuration config = ConfigurationLoader.load(Paths.get("conf/config.yaml"));
+ * }</pre>
+ * 注: YAML 只支持配置文件常用的子集, 块标量(| >)、锚点以及对象列表会抛出 IllegalArgumentException
+ */
+public final class ConfigurationLoader {
+
+    /**
+     * 日志打印对象
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigurationLoader.class);
+
+    /**
+     * 列表展开成字符串时的分隔符
+     */
+    private static final String LIST_DELIMITER = ";";
+
+    /**
+     * 不允许实例化
+     */
+    private ConfigurationLoader() { /* 不允许实例化 */}
+
+
+    // 加载 ----------------------------------------------------------
+
+    /**
+     * 按照文件扩展名加载配置文件
+     */
+    public static Configuration load(Path file) throws IOException {
+        final Configuration config = new Configuration();
+        load(file, config);
+        return config;
+    }
+
+    /**
+     * 按照文件扩展名加载配置文件写入到指定配置, 相同的KEY会被覆盖
+     */
+    public static void load(Path file, Configuration target) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (isProperties(file)) {
+                loadProperties(reader, target);
+            } else {
+                loadYaml(reader, target);
+            }
+        }
+    }
+
+    /**
+     * 加载 properties 内容写入到指定配置
+     */
+    public static void loadProperties(Reader reader, Configuration target) throws IOException {
+        target.loadBatch(sink -> parseProperties(reader, sink));
+    }
+
+    /**
+     * 按照 UTF-8 编码加载 properties 内容写入到指定配置
+     */
+    public static void loadProperties(InputStream in, Configuration target) throws IOException {
+        loadProperties(new InputStreamReader(in, StandardCharsets.UTF_8), target);
+    }
+
+    /**
+     * 加载 YAML 内容写入到指定配置
+     */
+    public static void loadYaml(Reader reader, Configuration target) throws IOException {
+        target.loadBatch(sink -> parseYaml(reader, sink));
+    }
+
+    /**
+     * 按照 UTF-8 编码加载 YAML 内容写入到指定配置
+     */
+    public static void loadYaml(InputStream in, Configuration target) throws IOException {
+        loadYaml(new InputStreamReader(in, StandardCharsets.UTF_8), target);
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // 解析 ----------------------------------------------------------
+
+    /**
+     * 按照文件扩展名解析配置文件, 逐个交给 sink
+     */
+    static void parse(Path file, BiConsumer<String, ? super String> sink) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (isProperties(file)) {
+                parseProperties(reader, sink);
+            } else {
+                parseYaml(reader, sink);
+            }
+        }
+    }
+
+    /**
+     * 是否是 properties 文件, 其他文件按照 YAML 处理
+     */
+    private static boolean isProperties(Path file) {
+        return file.getFileName().toString().endsWith(".properties");
+    }
+
+    /**
+     * 包装成 BufferedReader
+     */
+    private static BufferedReader buffered(Reader reader) {
+        return reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // Properties ------------------------------------------------------
+
+    /**
+     * 解析 properties 内容, 规则和 java.util.Properties#load(Reader) 一致
+     */
+    static void parseProperties(Reader reader, BiConsumer<String, ? super String> sink) throws IOException {
+        final BufferedReader lines = buffered(reader);
+        final StringBuilder logical = new StringBuilder();
+        String line;
+        while ((line = lines.readLine()) != null) {
+            final int start = skipWhitespace(line, 0);
+            if (logical.isEmpty()
+                    && (start == line.length() || line.charAt(start) == '#' || line.charAt(start) == '!')) {
+                continue;
+            }
+            // 奇数个反斜杠结尾表示续行, 下一行开头的空白会被忽略
+            if (isContinued(line)) {
+                logical.append(line, start, line.length() - 1);
+                continue;
+            }
+            if (logical.isEmpty()) {
+                parsePropertyLine(line, start, sink);
+            } else {
+                logical.append(line, start, line.length());
+                parsePropertyLine(logical.toString(), 0, sink);
+                logical.setLength(0);
+            }
+        }
+        if (!logical.isEmpty()) {
+            parsePropertyLine(logical.toString(), 0, sink);
+        }
+    }
+
+    /**
+     * 解析一个逻辑行, KEY 以未转义的 '=' ':' 或者空白结束
+     */
+    private static void parsePropertyLine(String line, int start, BiConsumer<String, ? super String> sink) {
+        boolean escaped = false;
+        int keyEnd = start;
+        while (keyEnd < line.length()) {
+            final char c = line.charAt(keyEnd);
+            if (c == '\\') {
+                escaped = true;
+                keyEnd += 2;
+                continue;
+            }
+            if (c == '=' || c == ':' || c == ' ' || c == '\t' || c == '\f') {
+                break;
+            }
+            keyEnd++;
+        }
+        keyEnd = Math.min(keyEnd, line.length());
+
+        int valueStart = skipWhitespace(line, keyEnd);
+        if (valueStart < line.length() && (line.charAt(valueStart) == '=' || line.charAt(valueStart) == ':')) {
+            valueStart = skipWhitespace(line, valueStart + 1);
+        }
+        final String key = escaped ? unescape(line, start, keyEnd) : line.substring(start, keyEnd);
+        final String value = line.indexOf('\\', valueStart) >= 0
+                ? unescape(line, valueStart, line.length())
+                : line.substring(valueStart);
+        sink.accept(key, value);
+    }
+
+    /**
+     * 跳过 properties 的空白字符
+     */
+    private static int skipWhitespace(String line, int from) {
+        int i = from;
+        while (i < line.length() && (line.charAt(i) == ' ' || line.charAt(i) == '\t' || line.charAt(i) == '\f')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 行尾是否是奇数个反斜杠
+     */
+    private static boolean isContinued(String line) {
+        int count = 0;
+        for (int i = line.length() - 1; i >= 0 && line.charAt(i) == '\\'; i--) {
+            count++;
+        }
+        return (count & 1) == 1;
+    }
+
+    /**
+     * 处理 properties 转义字符
+     */
+    private static String unescape(String line, int from, int to) {
+        final StringBuilder result = new StringBuilder(to - from);
+        int i = from;
+        while (i < to) {
+            final char c = line.charAt(i++);
+            if (c != '\\') {
+                result.append(c);
+                continue;
+            }
+            if (i == to) {
+                break;
+            }
+            final char escaped = line.charAt(i++);
+            switch (escaped) {
+                case 't' -> result.append('\t');
+                case 'n' -> result.append('\n');
+                case 'r' -> result.append('\r');
+                case 'f' -> result.append('\f');
+                case 'u' -> {
+                    if (i + 4 > to) {
+                        throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                    }
+                    try {
+                        result.append((char) Integer.parseInt(line, i, i + 4, 16));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Malformed \\uxxxx encoding.", e);
+                    }
+                    i += 4;
+                }
+                default -> result.append(escaped);
+            }
+        }
+        return result.toString();
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // YAML ----------------------------------------------------------
+
+    /**
+     * 解析 YAML 内容, 嵌套的KEY按照 '.' 拼接, 列表按照 ';' 拼接
+     */
+    static void parseYaml(Reader reader, BiConsumer<String, ? super String> sink) throws IOException {
+        final BufferedReader lines = buffered(reader);
+        final YamlParser parser = new YamlParser(sink);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            parser.accept(line);
+        }
+        parser.finish();
+    }
+
+    /**
+     * 按行解析 YAML, 只保存当前路径上的KEY前缀, 不会构建整个文档树
+     */
+    private static final class YamlParser {
+
+        /**
+         * 当前路径上的一层映射
+         *
+         * @param indent 映射KEY所在行的缩进
+         * @param prefix 拼接好的KEY前缀
+         */
+        private record Frame(int indent, String prefix) {
+        }
+
+        /**
+         * 解析结果接收者
+         */
+        private final BiConsumer<String, ? super String> sink;
+
+        /**
+         * 当前路径, 栈底是缩进为 -1 的根节点
+         */
+        private final Deque<Frame> frames = new ArrayDeque<>();
+
+        /**
+         * 值为空的KEY, 等待下一行判断是嵌套映射还是列表
+         */
+        private String pendingKey;
+
+        /**
+         * 值为空的KEY所在行的缩进
+         */
+        private int pendingIndent;
+
+        /**
+         * 正在收集的列表KEY
+         */
+        private String listKey;
+
+        /**
+         * 正在收集的列表项缩进
+         */
+        private int listIndent;
+
+        /**
+         * 正在收集的列表项
+         */
+        private final List<String> listItems = new ArrayList<>();
+
+        /**
+         * 当前行号
+         */
+        private int lineNo;
+
+        /**
+         * 初始化根节点
+         */
+        YamlParser(BiConsumer<String, ? super String> sink) {
+            this.sink = sink;
+            this.frames.push(new Frame(-1, ""));
+        }
+
+        /**
+         * 解析一行
+         */
+        void accept(String line) {
+            lineNo++;
+            final String content = stripComment(line);
+            int indent = 0;
+            while (indent < content.length() && content.charAt(indent) == ' ') {
+                indent++;
+            }
+            if (indent == content.length()) {
+                return;
+            }
+            if (content.charAt(indent) == '\t') {
+                throw error("tabs are not allowed for indentation");
+            }
+            final String text = content.substring(indent);
+
+            // 文档分隔符, 之后的内容按照新的文档处理
+            if (indent == 0 && (text.equals("---") || text.equals("..."))) {
+                finish();
+                frames.clear();
+                frames.push(new Frame(-1, ""));
+                return;
+            }
+
+            if (text.equals("-") || text.startsWith("- ")) {
+                acceptListItem(indent, text.substring(1).trim());
+                return;
+            }
+            finishList();
+
+            if (pendingKey != null) {
+                if (indent > pendingIndent) {
+                    frames.push(new Frame(pendingIndent, pendingKey));
+                } else {
+                    warnEmpty(pendingKey);
+                }
+                pendingKey = null;
+            }
+            while (frames.peek().indent() >= indent) {
+                frames.pop();
+            }
+
+            final int separator = findSeparator(text);
+            if (separator < 0) {
+                throw error("expected 'key: value'");
+            }
+            final String key = scalar(text.substring(0, separator).trim());
+            if (key.isEmpty()) {
+                throw error("empty key");
+            }
+            final String prefix = frames.peek().prefix();
+            final String fullKey = prefix.isEmpty() ? key : prefix + "." + key;
+            final String value = text.substring(separator + 1).trim();
+            if (value.isEmpty()) {
+                pendingKey = fullKey;
+                pendingIndent = indent;
+            } else if (value.charAt(0) == '[') {
+                sink.accept(fullKey, String.join(LIST_DELIMITER, flowItems(value, ']')));
+            } else if (value.charAt(0) == '{') {
+                for (String entry : flowItems(value, '}')) {
+                    final int entrySeparator = findSeparator(entry);
+                    if (entrySeparator < 0) {
+                        throw error("expected 'key: value' in flow mapping");
+                    }
+                    sink.accept(
+                            fullKey + "." + scalar(entry.substring(0, entrySeparator).trim()),
+                            scalar(entry.substring(entrySeparator + 1).trim()));
+                }
+            } else if (value.charAt(0) == '|' || value.charAt(0) == '>'
+                    || value.charAt(0) == '&' || value.charAt(0) == '*') {
+                throw error("block scalars, anchors and aliases are not supported");
+            } else {
+                sink.accept(fullKey, scalar(value));
+            }
+        }
+
+        /**
+         * 解析结束, 输出还没有结束的列表
+         */
+        void finish() {
+            finishList();
+            if (pendingKey != null) {
+                warnEmpty(pendingKey);
+                pendingKey = null;
+            }
+        }
+
+        /**
+         * 收集列表项, 列表只能属于上一行值为空的KEY
+         */
+        private void acceptListItem(int indent, String item) {
+            if (listKey == null) {
+                if (pendingKey == null || indent < pendingIndent) {
+                    throw error("list item without a key");
+                }
+                listKey = pendingKey;
+                listIndent = indent;
+                pendingKey = null;
+            } else if (indent != listIndent) {
+                throw error("inconsistent list indentation");
+            }
+            if (item.startsWith("-") || item.startsWith("[") || item.startsWith("{") || findSeparator(item) >= 0) {
+                throw error("only lists of scalars are supported");
+            }
+            listItems.add(scalar(item));
+        }
+
+        /**
+         * 输出收集好的列表
+         */
+        private void finishList() {
+            if (listKey != null) {
+                sink.accept(listKey, String.join(LIST_DELIMITER, listItems));
+                listKey = null;
+                listItems.clear();
+            }
+        }
+
+        /**
+         * 没有值也没有子节点的KEY, 和扁平格式一样忽略
+         */
+        private void warnEmpty(String key) {
+            LOG.warn("Configuration key '{}' has no value and is ignored, line {}.", key, lineNo);
+        }
+
+        /**
+         * 去掉注释和行尾空白, '#' 只有在行首或者空白之后并且不在引号内才是注释
+         */
+        private static String stripComment(String line) {
+            char quote = 0;
+            char previous = ' ';
+            for (int i = 0; i < line.length(); i++) {
+                final char c = line.charAt(i);
+                if (quote != 0) {
+                    if (c == '\\' && quote == '"') {
+                        i++;
+                    } else if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '#' && (previous == ' ' || previous == '\t')) {
+                    return line.substring(0, i).stripTrailing();
+                } else if ((c == '"' || c == '\'') && isScalarStart(line, i)) {
+                    quote = c;
+                }
+                previous = c;
+            }
+            return line.stripTrailing();
+        }
+
+        /**
+         * 引号只有出现在标量开头时才表示引用, 比如 it's 里的单引号只是普通字符
+         */
+        private static boolean isScalarStart(String text, int index) {
+            int i = index - 1;
+            while (i >= 0 && text.charAt(i) == ' ') {
+                i--;
+            }
+            if (i < 0) {
+                return true;
+            }
+            final char c = text.charAt(i);
+            return c == ':' || c == '-' || c == '[' || c == '{' || c == ',';
+        }
+
+        /**
+         * 查找引号外第一个后面跟着空白或者在末尾的 ':', 不存在返回 -1
+         */
+        private static int findSeparator(String text) {
+            int i = 0;
+            if (!text.isEmpty() && (text.charAt(0) == '"' || text.charAt(0) == '\'')) {
+                i = closingQuote(text, 0) + 1;
+            }
+            for (; i < text.length(); i++) {
+                if (text.charAt(i) == ':' && (i + 1 == text.length() || text.charAt(i + 1) == ' ')) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 查找 start 位置的引号对应的结束引号, 不存在时返回末尾
+         */
+        private static int closingQuote(String text, int start) {
+            final char quote = text.charAt(start);
+            for (int i = start + 1; i < text.length(); i++) {
+                final char c = text.charAt(i);
+                if (c == '\\' && quote == '"') {
+                    i++;
+                } else if (c == quote) {
+                    if (quote == '\'' && i + 1 < text.length() && text.charAt(i + 1) == '\'') {
+                        i++;
+                    } else {
+                        return i;
+                    }
+                }
+            }
+            return text.length() - 1;
+        }
+
+        /**
+         * 拆分 [a, b] 或者 {a: 1, b: 2} 的元素, 不支持嵌套
+         */
+        private List<String> flowItems(String value, char close) {
+            if (value.charAt(value.length() - 1) != close) {
+                throw error("unterminated flow collection");
+            }
+            final List<String> items = new ArrayList<>();
+            final String body = value.substring(1, value.length() - 1);
+            int start = 0;
+            for (int i = 0; i < body.length(); i++) {
+                final char c = body.charAt(i);
+                if ((c == '"' || c == '\'') && isScalarStart(body, i)) {
+                    i = closingQuote(body, i);
+                } else if (c == '[' || c == '{') {
+                    throw error("nested flow collections are not supported");
+                } else if (c == ',') {
+                    items.add(body.substring(start, i).trim());
+                    start = i + 1;
+                }
+            }
+            final String last = body.substring(start).trim();
+            if (!last.isEmpty() || !items.isEmpty()) {
+                items.add(last);
+            }
+            if (close == ']') {
+                items.replaceAll(this::scalar);
+            }
+            return items;
+        }
+
+        /**
+         * 还原标量, 去掉引号并处理转义
+         */
+        private String scalar(String text) {
+            if (text.length() >= 2 && text.charAt(0) == '\'' && text.charAt(text.length() - 1) == '\'') {
+                return text.substring(1, text.length() - 1).replace("''", "'");
+            }
+            if (text.length() >= 2 && text.charAt(0) == '"' && text.charAt(text.length() - 1) == '"') {
+                return unescapeDoubleQuoted(text.substring(1, text.length() - 1));
+            }
+            return text;
+        }
+
+        /**
+         * 处理双引号字符串的转义
+         */
+        private String unescapeDoubleQuoted(String text) {
+            if (text.indexOf('\\') < 0) {
+                return text;
+            }
+            final StringBuilder result = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                final char c = text.charAt(i);
+                if (c != '\\' || i + 1 == text.length()) {
+                    result.append(c);
+                    continue;
+                }
+                final char escaped = text.charAt(++i);
+                switch (escaped) {
+                    case 'n' -> result.append('\n');
+                    case 't' -> result.append('\t');
+                    case 'r' -> result.append('\r');
+                    case '0' -> result.append('\0');
+                    case 'u' -> {
+                        if (i + 5 > text.length()) {
+                            throw error("malformed \\uxxxx escape");
+                        }
+                        try {
+                            result.append((char) Integer.parseInt(text, i + 1, i + 5, 16));
+                        } catch (NumberFormatException e) {
+                            throw error("malformed \\uxxxx escape");
+                        }
+                        i += 4;
+                    }
+                    default -> result.append(escaped);
+                }
+            }
+            return result.toString();
+        }
+
+        /**
+         * 带行号的解析异常
+         */
+        private IllegalArgumentException error(String reason) {
+            return new IllegalArgumentException(String.format("Failed to parse YAML line %d: %s.", lineNo, reason));
+        }
+    }
+
+    // ----------------------------------------------------------------
+}
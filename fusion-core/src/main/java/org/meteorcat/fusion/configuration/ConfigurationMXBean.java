@@ -0,0 +1,69 @@
+package org.meteorcat.fusion.configuration;
+
+/**
+ * Configuration 访问统计的 JMX 接口, 由 {@link ConfigurationMetrics} 实现
+ * 注: 读取相关的计数按照采样率估算, 写入|前缀扫描|写入锁等待是精确值
+ */
+public interface ConfigurationMXBean {
+
+    /**
+     * 当前配置数量
+     */
+    int getKeyCount();
+
+    /**
+     * 读取采样率, 每 N 次读取记录一次, 1 表示精确统计
+     */
+    int getSampleRate();
+
+    /**
+     * 读取次数 (估算)
+     */
+    long getReadCount();
+
+    /**
+     * 主KEY和 fallback key 都不存在的读取次数 (估算)
+     */
+    long getMissCount();
+
+    /**
+     * 通过非过时的 fallback key 命中的读取次数 (估算)
+     */
+    long getFallbackKeyHitCount();
+
+    /**
+     * 通过过时KEY命中的读取次数 (估算)
+     */
+    long getDeprecatedKeyHitCount();
+
+    /**
+     * 写入次数, 单个写入和批量写入都记一次
+     */
+    long getWriteCount();
+
+    /**
+     * 写入线程等待写入锁的总时间, 单位纳秒
+     * 注: 读取直接访问快照, 不会等待写入锁
+     */
+    long getWriteLockWaitNanos();
+
+    /**
+     * mapType 配置项按照前缀扫描的次数
+     */
+    long getPrefixMapScanCount();
+
+    /**
+     * mapType 配置项按照前缀扫描的总耗时, 单位纳秒
+     */
+    long getPrefixMapScanNanos();
+
+    /**
+     * 读取最多的KEY, 按照估算的读取次数从高到低排列, 格式为 key=count
+     */
+    String[] getHotKeys();
+
+    /**
+     * 清空所有统计
+     */
+    void reset();
+}
@@ -0,0 +1,307 @@
+package org.meteorcat.fusion.configuration;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个 Configuration 的访问统计, 由 {@link Configuration#enableMetrics()} 开启, 可以注册成 JMX MXBean
+ * <pre>{@code
+ * ConfigurationMetrics metrics = config.enableMetrics();
+ * metrics.register("job-config");   // org.meteorcat.fusion:type=Configuration,name="job-config"
+ * }</pre>
+ * 注:
+ * 1. 计数器都是 LongAdder, 多个读取线程不会竞争同一个计数器
+ * 2. 读取只按照采样率记录, 记录时按照采样率累加, 读取次数|未命中|fallback 命中|热点KEY都是估算值;
+ * 采样判断只需要一次 ThreadLocalRandom, 未采样的读取没有任何原子操作, 采样率为 1 时精确统计
+ * 3. 写入|写入锁等待|前缀扫描本身的开销远大于计数, 始终精确统计
+ * 4. 通过 {@link CompiledOption} 命中缓存的读取不经过 Configuration, 不会被统计
+ */
+public final class ConfigurationMetrics implements ConfigurationMXBean {
+
+    /**
+     * 默认读取采样率
+     */
+    public static final int DEFAULT_SAMPLE_RATE = 16;
+
+    /**
+     * JMX 的域名
+     */
+    public static final String JMX_DOMAIN = "org.meteorcat.fusion";
+
+    /**
+     * JMX 返回的热点KEY数量
+     */
+    static final int HOT_KEY_LIMIT = 10;
+
+    /**
+     * 最多跟踪的不同KEY数量, 超过之后新出现的KEY不再计入热点统计, 避免随机KEY撑满内存
+     */
+    static final int MAX_TRACKED_KEYS = 4096;
+
+    /**
+     * 统计的配置对象
+     */
+    private final Configuration configuration;
+
+    private final int sampleRate;
+
+    /**
+     * sampleRate - 1, 随机数和该值按位与为 0 时采样
+     */
+    private final int sampleMask;
+
+    private final LongAdder reads = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder fallbackHits = new LongAdder();
+
+    private final LongAdder deprecatedHits = new LongAdder();
+
+    private final LongAdder writes = new LongAdder();
+
+    private final LongAdder lockWaitNanos = new LongAdder();
+
+    private final LongAdder prefixScans = new LongAdder();
+
+    private final LongAdder prefixScanNanos = new LongAdder();
+
+    /**
+     * KEY -> 采样到的读取次数
+     */
+    private final ConcurrentHashMap<String, LongAdder> hotKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 注册到 JMX 的名称, 没有注册时为 null
+     */
+    private volatile ObjectName objectName;
+
+    /**
+     * 只允许 Configuration 创建
+     *
+     * @param sampleRate 读取采样率, 必须是 2 的幂
+     */
+    ConfigurationMetrics(Configuration configuration, int sampleRate) {
+        if (sampleRate < 1 || Integer.bitCount(sampleRate) != 1) {
+            throw new IllegalArgumentException("Sample rate must be a power of two: " + sampleRate);
+        }
+        this.configuration = configuration;
+        this.sampleRate = sampleRate;
+        this.sampleMask = sampleRate - 1;
+    }
+
+
+    // 记录 ------------------------------------------------------------
+
+    /**
+     * 判断本次读取是否需要记录
+     */
+    boolean sampleRead() {
+        return (ThreadLocalRandom.current().nextInt() & sampleMask) == 0;
+    }
+
+    /**
+     * 记录一次采样到的读取
+     *
+     * @param key      读取的KEY, 配置项读取时为主KEY
+     * @param hit      是否命中
+     * @param fallback 命中的 fallback key, 通过主KEY命中时为 null
+     */
+    void recordRead(String key, boolean hit, FallbackKey fallback) {
+        reads.add(sampleRate);
+        if (!hit) {
+            misses.add(sampleRate);
+        } else if (fallback != null) {
+            (fallback.isDeprecated() ? deprecatedHits : fallbackHits).add(sampleRate);
+        }
+
+        LongAdder counter = hotKeys.get(key);
+        if (counter == null) {
+            if (hotKeys.size() >= MAX_TRACKED_KEYS) {
+                return;
+            }
+            counter = hotKeys.computeIfAbsent(key, ignored -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * 记录一次写入
+     */
+    void recordWrite() {
+        writes.increment();
+    }
+
+    /**
+     * 记录一次等待写入锁的时间
+     */
+    void recordLockWait(long nanos) {
+        lockWaitNanos.add(nanos);
+    }
+
+    /**
+     * 记录一次前缀扫描
+     */
+    void recordPrefixScan(long nanos) {
+        prefixScans.increment();
+        prefixScanNanos.add(nanos);
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // MXBean ----------------------------------------------------------
+
+    @Override
+    public int getKeyCount() {
+        return configuration.snapshot().size();
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public long getReadCount() {
+        return reads.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getFallbackKeyHitCount() {
+        return fallbackHits.sum();
+    }
+
+    @Override
+    public long getDeprecatedKeyHitCount() {
+        return deprecatedHits.sum();
+    }
+
+    @Override
+    public long getWriteCount() {
+        return writes.sum();
+    }
+
+    @Override
+    public long getWriteLockWaitNanos() {
+        return lockWaitNanos.sum();
+    }
+
+    @Override
+    public long getPrefixMapScanCount() {
+        return prefixScans.sum();
+    }
+
+    @Override
+    public long getPrefixMapScanNanos() {
+        return prefixScanNanos.sum();
+    }
+
+    @Override
+    public String[] getHotKeys() {
+        final Map<String, Long> top = hotKeys(HOT_KEY_LIMIT);
+        final String[] result = new String[top.size()];
+        int i = 0;
+        for (Map.Entry<String, Long> entry : top.entrySet()) {
+            result[i++] = entry.getKey() + "=" + entry.getValue();
+        }
+        return result;
+    }
+
+    /**
+     * 读取最多的 limit 个KEY以及估算的读取次数, 按照次数从高到低排列
+     */
+    public Map<String, Long> hotKeys(int limit) {
+        final PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<String, LongAdder> entry : hotKeys.entrySet()) {
+            heap.offer(Map.entry(entry.getKey(), entry.getValue().sum() * sampleRate));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        final List<Map.Entry<String, Long>> sorted = new ArrayList<>(heap);
+        sorted.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        final Map<String, Long> result = new LinkedHashMap<>();
+        sorted.forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        reads.reset();
+        misses.reset();
+        fallbackHits.reset();
+        deprecatedHits.reset();
+        writes.reset();
+        lockWaitNanos.reset();
+        prefixScans.reset();
+        prefixScanNanos.reset();
+        hotKeys.clear();
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // JMX 注册 ---------------------------------------------------------
+
+    /**
+     * 注册到平台 MBeanServer, 名称为 org.meteorcat.fusion:type=Configuration,name="name"
+     *
+     * @throws IllegalStateException 名称已经被占用或者已经注册过
+     */
+    public synchronized ObjectName register(String name) {
+        if (name == null) throw new NullPointerException("Name not be null.");
+        if (objectName != null) {
+            throw new IllegalStateException("Metrics already registered as " + objectName);
+        }
+        try {
+            final ObjectName registered = new ObjectName(JMX_DOMAIN, new Hashtable<>(Map.of(
+                    "type", "Configuration",
+                    "name", ObjectName.quote(name))));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, registered);
+            this.objectName = registered;
+            return registered;
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register configuration metrics '" + name + "'", e);
+        }
+    }
+
+    /**
+     * 从平台 MBeanServer 注销, 没有注册时忽略
+     */
+    public synchronized void unregister() {
+        final ObjectName registered = this.objectName;
+        if (registered == null) {
+            return;
+        }
+        this.objectName = null;
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(registered)) {
+                server.unregisterMBean(registered);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister configuration metrics " + registered, e);
+        }
+    }
+
+    /**
+     * 注册到 JMX 的名称, 没有注册时为 null
+     */
+    public ObjectName objectName() {
+        return objectName;
+    }
+
+    // ----------------------------------------------------------------
+}
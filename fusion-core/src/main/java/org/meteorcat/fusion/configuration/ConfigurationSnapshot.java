@@ -0,0 +1,364 @@
+package org.meteorcat.fusion.configuration;
+
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Configuration 的不可变快照, 同时也是 Configuration 的存储结构
+ * 由持久化的 HAMT(ConfigurationTrie) 保存 KEY-VALUE, 持久化的 AVL 树(ConfigurationIndex) 保存有序KEY
+ * 写入通过 {@link Editor} 生成新的快照, 新旧快照共享没有修改的节点, 所以复制配置只需要复制快照引用
+ */
+final class ConfigurationSnapshot {
+
+    /**
+     * 空快照
+     */
+    static final ConfigurationSnapshot EMPTY = new ConfigurationSnapshot(ConfigurationTrie.EMPTY, null, 0, 0L, 0, new String[0]);
+
+    /**
+     * KEY-VALUE 字典树的根节点
+     */
+    private final ConfigurationTrie.Node root;
+
+    /**
+     * 有序KEY索引的根节点
+     */
+    private final ConfigurationIndex.Node index;
+
+    /**
+     * 配置数量
+     */
+    private final int size;
+
+    /**
+     * 内容指纹, 所有 KEY-VALUE 指纹的和, 写入时增量维护
+     * 内容相同的快照指纹一定相同, 指纹不同的快照内容一定不同
+     */
+    private final long fingerprint;
+
+    /**
+     * 包含 ${var} 模板的配置数量, 为 0 时读取不需要检查模板
+     */
+    private final int templateCount;
+
+    /**
+     * 按照字典序排列的配置KEY, 第一次使用时从索引生成
+     */
+    private volatile String[] sortedKeys;
+
+    /**
+     * 只允许 Editor 构建
+     */
+    private ConfigurationSnapshot(ConfigurationTrie.Node root, ConfigurationIndex.Node index, int size,
+                                  long fingerprint, int templateCount, String[] sortedKeys) {
+        this.root = root;
+        this.index = index;
+        this.size = size;
+        this.fingerprint = fingerprint;
+        this.templateCount = templateCount;
+        this.sortedKeys = sortedKeys;
+    }
+
+    /**
+     * 获取配置值, 不存在返回 null
+     */
+    Object get(String key) {
+        return ConfigurationTrie.get(root, key);
+    }
+
+    /**
+     * 判断配置是否存在
+     */
+    boolean containsKey(String key) {
+        return get(key) != null;
+    }
+
+    /**
+     * 获取配置数量
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 获取内容指纹
+     */
+    long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * 获取包含模板的配置数量
+     */
+    int templateCount() {
+        return templateCount;
+    }
+
+    /**
+     * 判断两个快照的内容是否相同, 指纹不同时直接返回, 指纹相同时才逐个比较
+     * 注: byte[] 按照内容比较, 其他值按照 equals 比较
+     */
+    boolean contentEquals(ConfigurationSnapshot other) {
+        if (this == other) {
+            return true;
+        }
+        if (size != other.size || fingerprint != other.fingerprint) {
+            return false;
+        }
+        final boolean[] equal = {true};
+        root.forEach((key, value) -> {
+            if (equal[0] && !valueEquals(value, other.get(key))) {
+                equal[0] = false;
+            }
+        });
+        return equal[0];
+    }
+
+    /**
+     * 单个配置值的比较, 和指纹使用的哈希保持一致
+     */
+    private static boolean valueEquals(Object value, Object otherValue) {
+        if (otherValue == null) {
+            return false;
+        }
+        if (value instanceof byte[] bytes) {
+            return otherValue instanceof byte[] otherBytes && Arrays.equals(bytes, otherBytes);
+        }
+        return value.equals(otherValue);
+    }
+
+    /**
+     * 单个 KEY-VALUE 的指纹: KEY 和值的哈希拼接成 64 位之后打散, 快照的指纹是所有配置指纹的和
+     * 求和和顺序无关, 写入时减去旧值的指纹再加上新值的指纹即可, 删除时减去旧值的指纹
+     */
+    static long entryFingerprint(String key, Object value) {
+        final int valueHash = value instanceof byte[] bytes ? Arrays.hashCode(bytes) : value.hashCode();
+        return mix(((long) key.hashCode() << 32) | (valueHash & 0xFFFFFFFFL));
+    }
+
+    /**
+     * SplitMix64 的打散函数, 让相近的输入得到差异很大的输出
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 获取所有配置KEY的副本
+     */
+    Set<String> keySet() {
+        final Set<String> keys = new HashSet<>(Math.max(16, size * 4 / 3 + 1));
+        root.forEach((key, value) -> keys.add(key));
+        return keys;
+    }
+
+    /**
+     * 遍历所有配置, 顺序不确定
+     */
+    void forEach(BiConsumer<String, Object> action) {
+        root.forEach(action);
+    }
+
+    /**
+     * 获取按照字典序排列的配置KEY, 调用方不允许修改
+     */
+    String[] sortedKeys() {
+        String[] current = this.sortedKeys;
+        if (current == null) {
+            current = new String[size];
+            ConfigurationIndex.toArray(index, current, 0);
+            this.sortedKeys = current;
+        }
+        return current;
+    }
+
+    /**
+     * 把 key. 开头的前缀配置还原成去掉前缀的 String 集合, 结果和 ConfigurationUtils.convertToPropertiesPrefixed 一致
+     * 注: '.' 的下一个字符是 '/', 所以 [key., key/) 正好覆盖所有前缀KEY, 复杂度 O(log n + 匹配数量)
+     */
+    Map<String, String> convertToPropertiesPrefixed(String key) {
+        final String prefixKey = key + ".";
+        final Map<String, String> result = new HashMap<>();
+        ConfigurationIndex.range(index, prefixKey, key + "/", candidate -> result.put(
+                candidate.substring(prefixKey.length()),
+                ConfigurationUtils.convertToString(get(candidate))));
+        return result;
+    }
+
+    /**
+     * 按照字典序遍历 key. 开头的前缀配置KEY, 范围和 {@link #convertToPropertiesPrefixed(String)} 一致
+     */
+    void forEachPrefixedKey(String key, Consumer<String> action) {
+        ConfigurationIndex.range(index, key + ".", key + "/", action);
+    }
+
+    /**
+     * 内容相同但是引用不同的快照, 共享所有节点
+     * 用于让按照快照引用缓存的读取者(例如 {@link CompiledOption})重新解析一次
+     */
+    ConfigurationSnapshot renew() {
+        return new ConfigurationSnapshot(root, index, size, fingerprint, templateCount, sortedKeys);
+    }
+
+    /**
+     * 基于当前快照开始修改
+     */
+    Editor edit() {
+        return new Editor(this);
+    }
+
+
+    /**
+     * 快照编辑器, 只能在单个线程内使用
+     * 同一个编辑器的写入共享 edit 标识, 本次新建的节点直接原地修改; build 之后更换标识, 已经发布的快照不会再被修改
+     */
+    static final class Editor {
+
+        /**
+         * 当前批量写入的标识
+         */
+        private Object edit = new Object();
+
+        private ConfigurationTrie.Node root;
+
+        private ConfigurationIndex.Node index;
+
+        private int size;
+
+        private long fingerprint;
+
+        private int templateCount;
+
+        /**
+         * 本次编辑写入的模板KEY, 用于检查循环引用
+         */
+        private List<String> writtenTemplateKeys;
+
+        /**
+         * 单次写入的结果
+         */
+        private final ConfigurationTrie.Change change = new ConfigurationTrie.Change();
+
+        /**
+         * 从空快照开始写入时先收集新增的KEY, 构建快照时排序之后线性构建索引
+         */
+        private List<String> pendingKeys;
+
+        Editor(ConfigurationSnapshot base) {
+            this.root = base.root;
+            this.index = base.index;
+            this.size = base.size;
+            this.fingerprint = base.fingerprint;
+            this.templateCount = base.templateCount;
+            this.pendingKeys = base.size == 0 ? new ArrayList<>() : null;
+        }
+
+        /**
+         * 读取当前编辑之中的配置值, 不存在返回 null
+         */
+        Object get(String key) {
+            return ConfigurationTrie.get(root, key);
+        }
+
+        /**
+         * 写入配置, 返回旧值
+         */
+        Object put(String key, Object value) {
+            if (key == null) throw new NullPointerException("Key not be null.");
+            if (value == null) throw new NullPointerException("Value cannot be null.");
+            change.reset();
+            root = ConfigurationTrie.put(root, key, value, edit, change);
+            if (!change.modified) {
+                return change.oldValue;
+            }
+            fingerprint += entryFingerprint(key, value);
+            if (ConfigurationTemplate.isTemplate(value)) {
+                templateCount++;
+                if (writtenTemplateKeys == null) {
+                    writtenTemplateKeys = new ArrayList<>();
+                }
+                writtenTemplateKeys.add(key);
+            }
+            if (change.oldValue != null) {
+                fingerprint -= entryFingerprint(key, change.oldValue);
+                if (ConfigurationTemplate.isTemplate(change.oldValue)) {
+                    templateCount--;
+                }
+            } else {
+                size++;
+                if (pendingKeys != null) {
+                    pendingKeys.add(key);
+                } else {
+                    index = ConfigurationIndex.insert(index, key, edit);
+                }
+            }
+            return change.oldValue;
+        }
+
+        /**
+         * 删除配置, 返回旧值
+         */
+        Object remove(String key) {
+            flushPendingKeys();
+            change.reset();
+            root = ConfigurationTrie.remove(root, key, edit, change);
+            if (change.modified) {
+                size--;
+                fingerprint -= entryFingerprint(key, change.oldValue);
+                if (ConfigurationTemplate.isTemplate(change.oldValue)) {
+                    templateCount--;
+                }
+                index = ConfigurationIndex.remove(index, key, edit);
+            }
+            return change.oldValue;
+        }
+
+        /**
+         * 删除 key. 开头的前缀配置, 返回是否删除了配置
+         */
+        boolean removePrefixed(String key) {
+            flushPendingKeys();
+            final List<String> prefixKeys = new ArrayList<>();
+            ConfigurationIndex.range(index, key + ".", key + "/", prefixKeys::add);
+            for (String prefixKey : prefixKeys) {
+                remove(prefixKey);
+            }
+            return !prefixKeys.isEmpty();
+        }
+
+        /**
+         * 本次编辑写入的模板KEY, 没有写入模板返回空列表
+         */
+        List<String> writtenTemplateKeys() {
+            return writtenTemplateKeys == null ? List.of() : writtenTemplateKeys;
+        }
+
+        /**
+         * 生成新的快照, 之后的写入不会影响生成的快照
+         */
+        ConfigurationSnapshot build() {
+            final String[] sortedKeys = flushPendingKeys();
+            this.edit = new Object();
+            return new ConfigurationSnapshot(root, index, size, fingerprint, templateCount, sortedKeys);
+        }
+
+        /**
+         * 排序收集的KEY并构建索引, 返回排序之后的KEY
+         */
+        private String[] flushPendingKeys() {
+            if (pendingKeys == null) {
+                return null;
+            }
+            final String[] sortedKeys = pendingKeys.toArray(new String[0]);
+            Arrays.sort(sortedKeys);
+            index = ConfigurationIndex.build(sortedKeys, 0, sortedKeys.length, edit);
+            pendingKeys = null;
+            return sortedKeys;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.meteorcat.fusion.configuration;
+
+/**
+ * 按需查找的只读配置来源, 例如环境变量和系统属性
+ * 和 Configuration 不同, 配置来源不能遍历所有KEY, 只支持按照KEY精确查找, 不参与前缀配置(prefix map)的合并
+ * 可以作为 {@link LayeredConfiguration} 的配置层使用
+ */
+@FunctionalInterface
+public interface ConfigurationSource {
+
+    /**
+     * 查找KEY对应的原生值, 不存在返回 null
+     *
+     * @param key 配置KEY, 例如 task.slots
+     * @return 原生值或者 null
+     */
+    Object get(String key);
+}
@@ -0,0 +1,129 @@
+package org.meteorcat.fusion.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 编译之后的配置值模板, 例如 ${base.dir}/checkpoints
+ * 模板只解析一次, 拆分成交替出现的文本和引用, 渲染时只需要拼接:
+ * <pre>
+ * ${base.dir}/checkpoints  -> 文本: ["", "/checkpoints"], 引用: ["base.dir"]
+ * ${env:HOME}/.fusion      -> 引用环境变量 HOME
+ * ${sys:user.dir}/data     -> 引用系统属性 user.dir
+ * $${literal}              -> 转义, 渲染成 ${literal}
+ * </pre>
+ * 注: 没有闭合的 ${ 按照普通文本处理, 引用不支持嵌套
+ */
+final class ConfigurationTemplate {
+
+    /**
+     * 引用环境变量的前缀
+     */
+    static final String ENV_PREFIX = "env:";
+
+    /**
+     * 引用系统属性的前缀
+     */
+    static final String SYS_PREFIX = "sys:";
+
+    /**
+     * 引用之间的文本, 数量比引用多一个
+     */
+    private final String[] literals;
+
+    /**
+     * 引用的名称, 不包括 ${ 和 }
+     */
+    private final String[] references;
+
+    /**
+     * 私有化构建方法
+     */
+    private ConfigurationTemplate(String[] literals, String[] references) {
+        this.literals = literals;
+        this.references = references;
+    }
+
+    /**
+     * 判断配置值是否需要按照模板处理, 只检查是否包含 ${
+     */
+    static boolean isTemplate(Object value) {
+        return value instanceof String text && text.contains("${");
+    }
+
+    /**
+     * 解析模板
+     */
+    static ConfigurationTemplate compile(String template) {
+        final List<String> literals = new ArrayList<>();
+        final List<String> references = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        final int length = template.length();
+        int i = 0;
+        while (i < length) {
+            if (template.startsWith("$${", i)) {
+                literal.append("${");
+                i += 3;
+            } else if (template.startsWith("${", i)) {
+                final int end = template.indexOf('}', i + 2);
+                if (end < 0) {
+                    literal.append(template, i, length);
+                    break;
+                }
+                literals.add(literal.toString());
+                literal.setLength(0);
+                references.add(template.substring(i + 2, end));
+                i = end + 1;
+            } else {
+                literal.append(template.charAt(i++));
+            }
+        }
+        literals.add(literal.toString());
+        return new ConfigurationTemplate(literals.toArray(new String[0]), references.toArray(new String[0]));
+    }
+
+    /**
+     * 引用的名称
+     */
+    String[] references() {
+        return references;
+    }
+
+    /**
+     * 判断引用的是否是其他配置KEY, 而不是环境变量或者系统属性
+     */
+    static boolean isKeyReference(String reference) {
+        return !reference.startsWith(ENV_PREFIX) && !reference.startsWith(SYS_PREFIX);
+    }
+
+    /**
+     * 查找环境变量或者系统属性, 不存在返回 null
+     */
+    static String lookupExternal(String reference) {
+        if (reference.startsWith(ENV_PREFIX)) {
+            return System.getenv(reference.substring(ENV_PREFIX.length()));
+        }
+        return System.getProperty(reference.substring(SYS_PREFIX.length()));
+    }
+
+    /**
+     * 渲染模板, resolver 返回 null 表示引用不存在, 这时保留原样的 ${reference}
+     */
+    String render(Function<String, String> resolver) {
+        if (references.length == 0) {
+            return literals[0];
+        }
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < references.length; i++) {
+            builder.append(literals[i]);
+            final String value = resolver.apply(references[i]);
+            if (value == null) {
+                builder.append("${").append(references[i]).append('}');
+            } else {
+                builder.append(value);
+            }
+        }
+        return builder.append(literals[references.length]).toString();
+    }
+}
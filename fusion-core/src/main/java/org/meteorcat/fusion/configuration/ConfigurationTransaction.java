@@ -0,0 +1,174 @@
+package org.meteorcat.fusion.configuration;
+
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量修改配置的事务, 由 {@link Configuration#edit(java.util.function.Consumer)} 创建
+ * 事务之内的所有写入和删除都在一次加锁之内基于同一个编辑器完成, 结束之后一次性发布新的快照
+ * <pre>{@code
+ * config.edit(tx -> tx
+ *         .setString("net.hostname", "localhost")
+ *         .set(PORT, 8080)
+ *         .removePrefixMap("avro.properties"));
+ * }</pre>
+ * 注: 事务只能在回调之内使用, 并且不是线程安全的; 回调抛出异常时所有修改都会丢弃
+ */
+public final class ConfigurationTransaction {
+
+    /**
+     * 快照编辑器
+     */
+    private final ConfigurationSnapshot.Editor editor;
+
+    /**
+     * 写入或者删除的KEY, 用于让解析缓存失效
+     */
+    private final List<String> changedKeys = new ArrayList<>();
+
+    /**
+     * 删除了前缀配置的KEY
+     */
+    private final List<String> prefixRemovedKeys = new ArrayList<>();
+
+    /**
+     * 回调结束之后关闭, 不允许继续使用
+     */
+    private boolean closed;
+
+    /**
+     * 只允许 Configuration 构建
+     */
+    ConfigurationTransaction(ConfigurationSnapshot.Editor editor) {
+        this.editor = editor;
+    }
+
+    /**
+     * 写入字符串配置
+     */
+    public ConfigurationTransaction setString(String key, String value) {
+        ensureOpen();
+        putInternal(key, value);
+        return this;
+    }
+
+    /**
+     * 写入配置项, 和 {@link Configuration#set(ConfigOption, Object)} 一样, 写入 mapType 配置会删除原先的前缀配置
+     */
+    public <T> ConfigurationTransaction set(ConfigOption<T> option, T value) {
+        ensureOpen();
+        if (option == null) throw new NullPointerException("ConfigOption not be null.");
+        if (value == null) throw new NullPointerException("Value cannot be null.");
+        if (ConfigurationUtils.canBePrefixMap(option) && editor.removePrefixed(option.key())) {
+            prefixRemovedKeys.add(option.key());
+        }
+        putInternal(option.key(), value);
+        return this;
+    }
+
+    /**
+     * 删除配置, 返回配置是否存在
+     */
+    public boolean remove(String key) {
+        ensureOpen();
+        if (key == null) throw new NullPointerException("Key not be null.");
+        if (editor.remove(key) == null) {
+            return false;
+        }
+        changedKeys.add(key);
+        return true;
+    }
+
+    /**
+     * 删除配置项的主KEY和所有 fallback key, 返回是否删除了配置
+     */
+    public boolean remove(ConfigOption<?> option) {
+        ensureOpen();
+        if (option == null) throw new NullPointerException("ConfigOption not be null.");
+        boolean removed = remove(option.key());
+        for (FallbackKey fallbackKey : option.fallbackKeys()) {
+            removed |= remove(fallbackKey.getKey());
+        }
+        return removed;
+    }
+
+    /**
+     * 删除 key. 开头的前缀配置, 返回是否删除了配置
+     */
+    public boolean removePrefixMap(String key) {
+        ensureOpen();
+        if (key == null) throw new NullPointerException("Key not be null.");
+        if (!editor.removePrefixed(key)) {
+            return false;
+        }
+        prefixRemovedKeys.add(key);
+        return true;
+    }
+
+    /**
+     * 判断配置是否存在, 可以读取到本次事务之内的写入
+     */
+    public boolean containsKey(String key) {
+        ensureOpen();
+        if (key == null) throw new NullPointerException("Key not be null.");
+        return editor.get(key) != null;
+    }
+
+    /**
+     * 写入配置并记录修改的KEY
+     */
+    private void putInternal(String key, Object value) {
+        if (key == null) throw new NullPointerException("Key not be null.");
+        if (value == null) throw new NullPointerException("Value cannot be null.");
+        editor.put(key, value);
+        changedKeys.add(key);
+    }
+
+    /**
+     * 检查事务是否还可以使用
+     */
+    private void ensureOpen() {
+        if (closed) throw new IllegalStateException("Transaction has been closed.");
+    }
+
+    // Configuration 内部使用 ---------------------------------------------
+
+    /**
+     * 关闭事务
+     */
+    void close() {
+        this.closed = true;
+    }
+
+    /**
+     * 是否发生了修改
+     */
+    boolean isModified() {
+        return !changedKeys.isEmpty() || !prefixRemovedKeys.isEmpty();
+    }
+
+    /**
+     * 获取快照编辑器
+     */
+    ConfigurationSnapshot.Editor editor() {
+        return editor;
+    }
+
+    /**
+     * 写入或者删除的KEY
+     */
+    List<String> changedKeys() {
+        return changedKeys;
+    }
+
+    /**
+     * 删除了前缀配置的KEY
+     */
+    List<String> prefixRemovedKeys() {
+        return prefixRemovedKeys;
+    }
+
+    // ----------------------------------------------------------------
+}
@@ -0,0 +1,508 @@
+package org.meteorcat.fusion.configuration;
+
+import java.util.function.BiConsumer;
+
+/**
+ * 持久化的哈希数组映射字典树(HAMT), 保存配置的 KEY-VALUE
+ * 节点采用 CHAMP 布局: 每个节点用 dataMap|nodeMap 两个位图标记 32 个分支,
+ * 同一个数组前半部分顺序存放 KEY-VALUE, 后半部分倒序存放子节点:
+ * <pre>
+ * content: [k0, v0, k1, v1, ..., node1, node0]
+ * </pre>
+ * 写入只复制从根节点到修改位置的路径, 其他节点在新旧版本之间共享, 旧版本不会被修改
+ * 批量写入时传入同一个 edit 标识, 标识相同的节点是本次批量写入新建的, 可以直接原地修改, 避免反复复制路径
+ * 参考: <a href="https://michael.steindorfer.name/publications/oopsla15.pdf">CHAMP</a>
+ * 注: 配置值不允许为 null, 所以查找结果为 null 表示不存在
+ */
+final class ConfigurationTrie {
+
+    /**
+     * 每层消耗的哈希位数
+     */
+    private static final int BITS = 5;
+
+    /**
+     * 每层分支的掩码
+     */
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * 空的根节点
+     */
+    static final Node EMPTY = new BitmapNode(0, 0, new Object[0], null);
+
+    /**
+     * 不允许实例化
+     */
+    private ConfigurationTrie() { /* 不允许实例化 */}
+
+    /**
+     * 查找配置值, 不存在返回 null
+     * 注: 读取是热点路径, 位图节点在循环之内逐层下降, 不走递归的虚方法调用, 只有哈希冲突节点交给节点自己处理
+     */
+    static Object get(Node root, String key) {
+        final int hash = key.hashCode();
+        Node node = root;
+        int shift = 0;
+        while (node instanceof BitmapNode bitmap) {
+            final int bit = bitpos(hash, shift);
+            if ((bitmap.dataMap & bit) != 0) {
+                final Object[] content = bitmap.content;
+                final int index = bitmap.dataIndex(bit) << 1;
+                return key.equals(content[index]) ? content[index + 1] : null;
+            }
+            if ((bitmap.nodeMap & bit) == 0) {
+                return null;
+            }
+            node = bitmap.nodeAt(bit);
+            shift += BITS;
+        }
+        return node.get(key, hash, shift);
+    }
+
+    /**
+     * 写入配置值, 返回新的根节点, 旧值记录在 change 之中
+     */
+    static Node put(Node root, String key, Object value, Object edit, Change change) {
+        return root.put(key, key.hashCode(), value, 0, edit, change);
+    }
+
+    /**
+     * 删除配置, 返回新的根节点, 旧值记录在 change 之中
+     */
+    static Node remove(Node root, String key, Object edit, Change change) {
+        return root.remove(key, key.hashCode(), 0, edit, change);
+    }
+
+    /**
+     * 对应哈希片段的位图标记
+     */
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+
+    /**
+     * 单次写入|删除的结果
+     */
+    static final class Change {
+
+        /**
+         * 写入|删除之前的值, 不存在为 null
+         */
+        Object oldValue;
+
+        /**
+         * 是否发生了修改
+         */
+        boolean modified;
+
+        /**
+         * 重置成未修改的状态
+         */
+        void reset() {
+            this.oldValue = null;
+            this.modified = false;
+        }
+    }
+
+
+    /**
+     * 字典树节点
+     */
+    abstract static class Node {
+
+        /**
+         * 创建节点的批量写入标识, 只有持有相同标识的写入才允许原地修改
+         */
+        final Object edit;
+
+        Node(Object edit) {
+            this.edit = edit;
+        }
+
+        /**
+         * 当前批量写入是否可以原地修改该节点
+         */
+        final boolean isEditable(Object edit) {
+            return edit != null && this.edit == edit;
+        }
+
+        abstract Object get(String key, int hash, int shift);
+
+        abstract Node put(String key, int hash, Object value, int shift, Object edit, Change change);
+
+        abstract Node remove(String key, int hash, int shift, Object edit, Change change);
+
+        abstract void forEach(BiConsumer<String, Object> action);
+
+        /**
+         * 是否只有一个 KEY-VALUE 并且没有子节点, 这种子节点会被父节点内联
+         */
+        abstract boolean isSingleton();
+
+        /**
+         * 单个节点的 KEY, 只有 isSingleton 时有效
+         */
+        abstract String singletonKey();
+
+        /**
+         * 单个节点的值, 只有 isSingleton 时有效
+         */
+        abstract Object singletonValue();
+    }
+
+
+    /**
+     * 位图索引节点
+     */
+    private static final class BitmapNode extends Node {
+
+        /**
+         * 直接存放 KEY-VALUE 的分支
+         */
+        private int dataMap;
+
+        /**
+         * 存放子节点的分支
+         */
+        private int nodeMap;
+
+        /**
+         * KEY-VALUE 以及倒序存放的子节点
+         */
+        private Object[] content;
+
+        BitmapNode(int dataMap, int nodeMap, Object[] content, Object edit) {
+            super(edit);
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        @Override
+        Object get(String key, int hash, int shift) {
+            final int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                final int index = dataIndex(bit) << 1;
+                return key.equals(content[index]) ? content[index + 1] : null;
+            }
+            if ((nodeMap & bit) != 0) {
+                return nodeAt(bit).get(key, hash, shift + BITS);
+            }
+            return null;
+        }
+
+        @Override
+        Node put(String key, int hash, Object value, int shift, Object edit, Change change) {
+            final int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                final int index = dataIndex(bit) << 1;
+                final String currentKey = (String) content[index];
+                if (key.equals(currentKey)) {
+                    final Object currentValue = content[index + 1];
+                    change.oldValue = currentValue;
+                    if (currentValue == value) {
+                        return this;
+                    }
+                    change.modified = true;
+                    final BitmapNode node = editable(edit);
+                    node.content[index + 1] = value;
+                    return node;
+                }
+
+                // 同一个分支已经有其他 KEY, 两个 KEY 一起下沉到新的子节点
+                change.modified = true;
+                final Node child = mergeTwo(
+                        currentKey, content[index + 1], currentKey.hashCode(),
+                        key, value, hash, shift + BITS, edit);
+                return migrateToNode(bit, child, edit);
+            }
+            if ((nodeMap & bit) != 0) {
+                final Node child = nodeAt(bit);
+                final Node newChild = child.put(key, hash, value, shift + BITS, edit, change);
+                if (newChild == child) {
+                    return this;
+                }
+                final BitmapNode node = editable(edit);
+                node.content[content.length - 1 - nodeIndex(bit)] = newChild;
+                return node;
+            }
+
+            // 新增 KEY-VALUE
+            change.modified = true;
+            final int index = dataIndex(bit) << 1;
+            final Object[] newContent = new Object[content.length + 2];
+            System.arraycopy(content, 0, newContent, 0, index);
+            newContent[index] = key;
+            newContent[index + 1] = value;
+            System.arraycopy(content, index, newContent, index + 2, content.length - index);
+            return update(dataMap | bit, nodeMap, newContent, edit);
+        }
+
+        @Override
+        Node remove(String key, int hash, int shift, Object edit, Change change) {
+            final int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                final int index = dataIndex(bit) << 1;
+                if (!key.equals(content[index])) {
+                    return this;
+                }
+                change.oldValue = content[index + 1];
+                change.modified = true;
+                final Object[] newContent = new Object[content.length - 2];
+                System.arraycopy(content, 0, newContent, 0, index);
+                System.arraycopy(content, index + 2, newContent, index, content.length - index - 2);
+                return update(dataMap ^ bit, nodeMap, newContent, edit);
+            }
+            if ((nodeMap & bit) != 0) {
+                final Node child = nodeAt(bit);
+                final Node newChild = child.remove(key, hash, shift + BITS, edit, change);
+                if (!change.modified) {
+                    return this;
+                }
+                // 子节点只剩一个 KEY-VALUE 时内联到当前节点, 保证子节点至少有两个配置
+                if (newChild.isSingleton()) {
+                    return migrateToInline(bit, newChild.singletonKey(), newChild.singletonValue(), edit);
+                }
+                final BitmapNode node = editable(edit);
+                node.content[content.length - 1 - nodeIndex(bit)] = newChild;
+                return node;
+            }
+            return this;
+        }
+
+        @Override
+        void forEach(BiConsumer<String, Object> action) {
+            final int dataLength = Integer.bitCount(dataMap) << 1;
+            for (int i = 0; i < dataLength; i += 2) {
+                action.accept((String) content[i], content[i + 1]);
+            }
+            for (int i = dataLength; i < content.length; i++) {
+                ((Node) content[i]).forEach(action);
+            }
+        }
+
+        @Override
+        boolean isSingleton() {
+            return nodeMap == 0 && Integer.bitCount(dataMap) == 1;
+        }
+
+        @Override
+        String singletonKey() {
+            return (String) content[0];
+        }
+
+        @Override
+        Object singletonValue() {
+            return content[1];
+        }
+
+        /**
+         * KEY-VALUE 在数组之中的序号
+         */
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        /**
+         * 子节点的序号, 子节点在数组末尾倒序存放
+         */
+        private int nodeIndex(int bit) {
+            return Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        /**
+         * 获取子节点
+         */
+        private Node nodeAt(int bit) {
+            return (Node) content[content.length - 1 - nodeIndex(bit)];
+        }
+
+        /**
+         * 获取可以修改的节点: 当前批量写入创建的节点直接返回, 否则复制
+         */
+        private BitmapNode editable(Object edit) {
+            return isEditable(edit) ? this : new BitmapNode(dataMap, nodeMap, content.clone(), edit);
+        }
+
+        /**
+         * 替换位图和数组, 可以原地修改时直接修改当前节点
+         */
+        private BitmapNode update(int newDataMap, int newNodeMap, Object[] newContent, Object edit) {
+            if (isEditable(edit)) {
+                this.dataMap = newDataMap;
+                this.nodeMap = newNodeMap;
+                this.content = newContent;
+                return this;
+            }
+            return new BitmapNode(newDataMap, newNodeMap, newContent, edit);
+        }
+
+        /**
+         * 把分支上的 KEY-VALUE 替换成子节点
+         */
+        private BitmapNode migrateToNode(int bit, Node child, Object edit) {
+            final int oldIndex = dataIndex(bit) << 1;
+            final int newIndex = content.length - 2 - nodeIndex(bit);
+            final Object[] newContent = new Object[content.length - 1];
+            System.arraycopy(content, 0, newContent, 0, oldIndex);
+            System.arraycopy(content, oldIndex + 2, newContent, oldIndex, newIndex - oldIndex);
+            newContent[newIndex] = child;
+            System.arraycopy(content, newIndex + 2, newContent, newIndex + 1, content.length - newIndex - 2);
+            return update(dataMap ^ bit, nodeMap | bit, newContent, edit);
+        }
+
+        /**
+         * 把分支上的子节点替换成 KEY-VALUE
+         */
+        private BitmapNode migrateToInline(int bit, String key, Object value, Object edit) {
+            final int oldIndex = content.length - 1 - nodeIndex(bit);
+            final int newIndex = dataIndex(bit) << 1;
+            final Object[] newContent = new Object[content.length + 1];
+            System.arraycopy(content, 0, newContent, 0, newIndex);
+            newContent[newIndex] = key;
+            newContent[newIndex + 1] = value;
+            System.arraycopy(content, newIndex, newContent, newIndex + 2, oldIndex - newIndex);
+            System.arraycopy(content, oldIndex + 1, newContent, oldIndex + 2, content.length - oldIndex - 1);
+            return update(dataMap | bit, nodeMap ^ bit, newContent, edit);
+        }
+    }
+
+    /**
+     * 合并两个哈希不同的 KEY-VALUE, 哈希片段相同时继续下沉; 哈希完全相同时生成冲突节点
+     */
+    private static Node mergeTwo(
+            String key0, Object value0, int hash0,
+            String key1, Object value1, int hash1,
+            int shift, Object edit
+    ) {
+        if (hash0 == hash1) {
+            return new CollisionNode(hash0, new Object[]{key0, value0, key1, value1}, edit);
+        }
+        final int bit0 = bitpos(hash0, shift);
+        final int bit1 = bitpos(hash1, shift);
+        if (bit0 != bit1) {
+            final Object[] content = Integer.compareUnsigned(bit0, bit1) < 0
+                    ? new Object[]{key0, value0, key1, value1}
+                    : new Object[]{key1, value1, key0, value0};
+            return new BitmapNode(bit0 | bit1, 0, content, edit);
+        }
+        final Node child = mergeTwo(key0, value0, hash0, key1, value1, hash1, shift + BITS, edit);
+        return new BitmapNode(0, bit0, new Object[]{child}, edit);
+    }
+
+
+    /**
+     * String.hashCode 完全相同的 KEY 组成的冲突节点, 线性查找
+     */
+    private static final class CollisionNode extends Node {
+
+        /**
+         * 所有 KEY 共同的哈希值
+         */
+        private final int hash;
+
+        /**
+         * KEY-VALUE 顺序存放
+         */
+        private Object[] content;
+
+        CollisionNode(int hash, Object[] content, Object edit) {
+            super(edit);
+            this.hash = hash;
+            this.content = content;
+        }
+
+        @Override
+        Object get(String key, int hash, int shift) {
+            final int index = indexOf(key);
+            return index < 0 ? null : content[index + 1];
+        }
+
+        @Override
+        Node put(String key, int hash, Object value, int shift, Object edit, Change change) {
+            if (hash != this.hash) {
+                // 哈希不同的 KEY 落到相同的路径, 在冲突节点外面包一层位图节点
+                final Node wrapper = new BitmapNode(0, bitpos(this.hash, shift), new Object[]{this}, edit);
+                return wrapper.put(key, hash, value, shift, edit, change);
+            }
+            final int index = indexOf(key);
+            if (index >= 0) {
+                change.oldValue = content[index + 1];
+                if (content[index + 1] == value) {
+                    return this;
+                }
+                change.modified = true;
+                final CollisionNode node = isEditable(edit) ? this : new CollisionNode(hash, content.clone(), edit);
+                node.content[index + 1] = value;
+                return node;
+            }
+            change.modified = true;
+            final Object[] newContent = new Object[content.length + 2];
+            System.arraycopy(content, 0, newContent, 0, content.length);
+            newContent[content.length] = key;
+            newContent[content.length + 1] = value;
+            return update(newContent, edit);
+        }
+
+        @Override
+        Node remove(String key, int hash, int shift, Object edit, Change change) {
+            final int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+            change.oldValue = content[index + 1];
+            change.modified = true;
+            final Object[] newContent = new Object[content.length - 2];
+            System.arraycopy(content, 0, newContent, 0, index);
+            System.arraycopy(content, index + 2, newContent, index, content.length - index - 2);
+            return update(newContent, edit);
+        }
+
+        @Override
+        void forEach(BiConsumer<String, Object> action) {
+            for (int i = 0; i < content.length; i += 2) {
+                action.accept((String) content[i], content[i + 1]);
+            }
+        }
+
+        @Override
+        boolean isSingleton() {
+            return content.length == 2;
+        }
+
+        @Override
+        String singletonKey() {
+            return (String) content[0];
+        }
+
+        @Override
+        Object singletonValue() {
+            return content[1];
+        }
+
+        /**
+         * 查找 KEY 在数组之中的下标, 不存在返回 -1
+         */
+        private int indexOf(String key) {
+            for (int i = 0; i < content.length; i += 2) {
+                if (key.equals(content[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 替换数组, 可以原地修改时直接修改当前节点
+         */
+        private CollisionNode update(Object[] newContent, Object edit) {
+            if (isEditable(edit)) {
+                this.content = newContent;
+                return this;
+            }
+            return new CollisionNode(hash, newContent, edit);
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package org.meteorcat.fusion.configuration;
+
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.io.Serial;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+/**
+ * 按照声明的配置项一次性检查整个 Configuration, 返回所有违规而不是遇到第一个就停止
+ * 检查内容: 类型能否转化|取值范围|自定义约束|必填配置|未声明的KEY|过时的KEY
+ * <pre>{@code
+ * ConfigurationValidator validator = ConfigurationValidator.builder()
+ *         .option(HOSTNAME).required(HOSTNAME)
+ *         .range(PARALLELISM, 1, 1024)
+ *         .check(PORTS, ports -> !ports.isEmpty(), "at least one port is required")
+ *         .build();
+ * validator.validateOrThrow(config);
+ * }</pre>
+ * 注: 规则在 build 时按照KEY编译好, 检查时每个KEY只需要一次查找; 配置数量较多时按照KEY区间拆分到 ForkJoinPool 并行检查
+ */
+public final class ConfigurationValidator {
+
+    /**
+     * 配置数量超过该值时才并行检查, 配置较少时拆分任务的开销比检查本身更大
+     */
+    static final int PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * 并行检查时每个子任务负责的最大KEY数量
+     */
+    private static final int SPLIT_THRESHOLD = 1024;
+
+    /**
+     * 配置KEY -> 编译之后的规则, 包括主KEY和所有 fallback key
+     */
+    private final Map<String, KeyRule> keyRules;
+
+    /**
+     * mapType 配置项的主KEY -> 规则, 用于识别 key.xxx 形式的前缀配置
+     */
+    private final Map<String, Rule> prefixRules;
+
+    /**
+     * 必填的配置项
+     */
+    private final Rule[] requiredRules;
+
+    /**
+     * 是否允许未声明的KEY
+     */
+    private final boolean allowUnknownKeys;
+
+    /**
+     * 并行检查使用的线程池
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * 只允许 Builder 构建
+     */
+    private ConfigurationValidator(Builder builder) {
+        final Map<String, KeyRule> keys = new HashMap<>();
+        final Map<String, Rule> prefixes = new HashMap<>();
+        final List<Rule> required = new ArrayList<>();
+        for (Map.Entry<ConfigOption<?>, RuleBuilder> entry : builder.rules.entrySet()) {
+            final RuleBuilder draft = entry.getValue();
+            final Rule rule = new Rule(entry.getKey(), draft.required, draft.checks.toArray(new Check[0]));
+            keys.putIfAbsent(rule.option().key(), new KeyRule(rule, null));
+            for (FallbackKey fallbackKey : rule.option().fallbackKeys()) {
+                keys.putIfAbsent(fallbackKey.getKey(), new KeyRule(rule, fallbackKey));
+            }
+            if (ConfigurationUtils.canBePrefixMap(rule.option())) {
+                prefixes.put(rule.option().key(), rule);
+            }
+            if (rule.required()) {
+                required.add(rule);
+            }
+        }
+        this.keyRules = keys;
+        this.prefixRules = prefixes;
+        this.requiredRules = required.toArray(new Rule[0]);
+        this.allowUnknownKeys = builder.allowUnknownKeys;
+        this.pool = builder.pool;
+    }
+
+    /**
+     * 构建检查器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 检查配置, 返回按照KEY排序的所有违规, 没有违规返回空列表
+     */
+    public List<Violation> validate(Configuration configuration) {
+        final ConfigurationSnapshot current = configuration.snapshot();
+        final String[] keys = current.sortedKeys();
+        final List<Violation> violations = keys.length < PARALLEL_THRESHOLD
+                ? checkKeys(configuration, current, keys, 0, keys.length)
+                : pool.invoke(new ValidationTask(this, configuration, current, keys, 0, keys.length));
+
+        for (Rule rule : requiredRules) {
+            if (!isPresent(current, keys, rule.option())) {
+                violations.add(new Violation(rule.option().key(), Violation.Kind.REQUIRED,
+                        "Required option is not set."));
+            }
+        }
+        violations.sort(Comparator.comparing(Violation::key));
+        return violations;
+    }
+
+    /**
+     * 检查配置, 存在违规时抛出 IllegalArgumentException, 异常信息包含所有违规
+     */
+    public void validateOrThrow(Configuration configuration) {
+        final List<Violation> violations = validate(configuration);
+        if (!violations.isEmpty()) {
+            final StringBuilder builder = new StringBuilder()
+                    .append("Invalid configuration, ")
+                    .append(violations.size())
+                    .append(" violation(s):");
+            for (Violation violation : violations) {
+                builder.append(System.lineSeparator()).append("  ").append(violation);
+            }
+            throw new IllegalArgumentException(builder.toString());
+        }
+    }
+
+    /**
+     * 检查有序KEY数组 [from, to) 之间的配置
+     */
+    private List<Violation> checkKeys(Configuration configuration, ConfigurationSnapshot current,
+                                      String[] keys, int from, int to) {
+        final List<Violation> violations = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            checkKey(configuration, current, keys[i], violations);
+        }
+        return violations;
+    }
+
+    /**
+     * 检查单个配置KEY
+     */
+    private void checkKey(Configuration configuration, ConfigurationSnapshot current,
+                          String key, List<Violation> violations) {
+        final KeyRule keyRule = keyRules.get(key);
+        if (keyRule == null) {
+            if (!allowUnknownKeys && findPrefixRule(key) == null) {
+                violations.add(new Violation(key, Violation.Kind.UNKNOWN, "Unknown configuration key."));
+            }
+            return;
+        }
+        if (keyRule.fallbackKey() != null && keyRule.fallbackKey().isDeprecated()) {
+            violations.add(new Violation(key, Violation.Kind.DEPRECATED,
+                    "Deprecated key, use '" + keyRule.rule().option().key() + "' instead."));
+        }
+
+        final Rule rule = keyRule.rule();
+        final Object value;
+        try {
+            value = ConfigurationUtils.convertValue(
+                    configuration.interpolatedValue(current, key), rule.option().getClazz(), rule.option().isList());
+        } catch (RuntimeException e) {
+            violations.add(new Violation(key, Violation.Kind.TYPE, String.format(
+                    "Could not convert value to %s%s: %s",
+                    rule.option().isList() ? "list of " : "", rule.option().getClazz().getSimpleName(), e.getMessage())));
+            return;
+        }
+        for (Check check : rule.checks()) {
+            if (!check.test().test(value)) {
+                violations.add(new Violation(key, check.kind(), check.message() + " (value: " + value + ")"));
+            }
+        }
+    }
+
+    /**
+     * 查找 key 所属的 mapType 配置项, 依次去掉最后一段按照前缀查找
+     */
+    private Rule findPrefixRule(String key) {
+        if (prefixRules.isEmpty()) {
+            return null;
+        }
+        int dot = key.lastIndexOf('.');
+        while (dot > 0) {
+            final Rule rule = prefixRules.get(key.substring(0, dot));
+            if (rule != null) {
+                return rule;
+            }
+            dot = key.lastIndexOf('.', dot - 1);
+        }
+        return null;
+    }
+
+    /**
+     * 判断配置项的主KEY|fallback key|前缀配置是否存在
+     */
+    private static boolean isPresent(ConfigurationSnapshot current, String[] sortedKeys, ConfigOption<?> option) {
+        if (current.containsKey(option.key())) {
+            return true;
+        }
+        if (ConfigurationUtils.canBePrefixMap(option)) {
+            // 有序KEY之中第一个不小于 key. 的KEY如果以 key. 开头, 说明存在前缀配置
+            final String prefix = option.key() + ".";
+            final int index = Arrays.binarySearch(sortedKeys, prefix);
+            final int insertion = index >= 0 ? index : -index - 1;
+            if (insertion < sortedKeys.length && sortedKeys[insertion].startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (FallbackKey fallbackKey : option.fallbackKeys()) {
+            if (current.containsKey(fallbackKey.getKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 并行检查任务, 按照KEY区间对半拆分
+     * 注: ForkJoinTask 实现了 Serializable, 但是检查任务只在当前进程之中执行, 不会被序列化
+     */
+    private static final class ValidationTask extends RecursiveTask<List<Violation>> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient ConfigurationValidator validator;
+
+        private final transient Configuration configuration;
+
+        private final transient ConfigurationSnapshot current;
+
+        private final String[] keys;
+
+        private final int from;
+
+        private final int to;
+
+        ValidationTask(ConfigurationValidator validator, Configuration configuration, ConfigurationSnapshot current,
+                       String[] keys, int from, int to) {
+            this.validator = validator;
+            this.configuration = configuration;
+            this.current = current;
+            this.keys = keys;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Violation> compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                return validator.checkKeys(configuration, current, keys, from, to);
+            }
+            final int middle = (from + to) >>> 1;
+            final ValidationTask left = new ValidationTask(validator, configuration, current, keys, from, middle);
+            left.fork();
+            final List<Violation> right = new ValidationTask(validator, configuration, current, keys, middle, to)
+                    .compute();
+            final List<Violation> violations = left.join();
+            violations.addAll(right);
+            return violations;
+        }
+    }
+
+
+    // 规则 ------------------------------------------------------------
+
+    /**
+     * 编译之后的单个配置项规则, 构建之后不再修改
+     */
+    private record Rule(ConfigOption<?> option, boolean required, Check[] checks) {
+    }
+
+    /**
+     * 构建过程中的配置项规则
+     */
+    private static final class RuleBuilder {
+
+        private final List<Check> checks = new ArrayList<>();
+
+        private boolean required;
+    }
+
+    /**
+     * 配置KEY对应的规则, fallbackKey 为 null 表示是主KEY
+     */
+    private record KeyRule(Rule rule, FallbackKey fallbackKey) {
+    }
+
+    /**
+     * 对转化之后的值进行的检查
+     */
+    private record Check(Predicate<Object> test, Violation.Kind kind, String message) {
+    }
+
+    /**
+     * 单条违规
+     *
+     * @param key     违规的配置KEY
+     * @param kind    违规类型
+     * @param message 违规说明
+     */
+    public record Violation(String key, Kind kind, String message) {
+
+        /**
+         * 违规类型
+         */
+        public enum Kind {
+            TYPE,
+            RANGE,
+            CONSTRAINT,
+            REQUIRED,
+            UNKNOWN,
+            DEPRECATED
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s [%s] %s", key, kind, message);
+        }
+    }
+
+    /**
+     * ConfigurationValidator 构建器
+     */
+    public static final class Builder {
+
+        /**
+         * 按照声明顺序保存的规则
+         */
+        private final Map<ConfigOption<?>, RuleBuilder> rules = new LinkedHashMap<>();
+
+        private boolean allowUnknownKeys;
+
+        private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        /**
+         * 不允许外部实例化
+         */
+        private Builder() {
+        }
+
+        /**
+         * 声明配置项, 只检查类型能否转化
+         */
+        public Builder option(ConfigOption<?> option) {
+            rule(option);
+            return this;
+        }
+
+        /**
+         * 批量声明配置项
+         */
+        public Builder options(Collection<? extends ConfigOption<?>> options) {
+            options.forEach(this::option);
+            return this;
+        }
+
+        /**
+         * 声明必填的配置项, 主KEY和 fallback key 都不存在时违规
+         */
+        public Builder required(ConfigOption<?> option) {
+            rule(option).required = true;
+            return this;
+        }
+
+        /**
+         * 限制配置值在 [min, max] 之间, 适用于数值|Duration|MemorySize 等可比较的类型
+         */
+        public <T extends Comparable<? super T>> Builder range(ConfigOption<T> option, T min, T max) {
+            if (min.compareTo(max) > 0) {
+                throw new IllegalArgumentException(String.format("Invalid range [%s, %s].", min, max));
+            }
+            rule(option).checks.add(new Check(value -> {
+                @SuppressWarnings("unchecked") final T typed = (T) value;
+                return typed.compareTo(min) >= 0 && typed.compareTo(max) <= 0;
+            }, Violation.Kind.RANGE, String.format("Value must be in range [%s, %s].", min, max)));
+            return this;
+        }
+
+        /**
+         * 自定义约束, 检查的是转化之后的配置值
+         */
+        @SuppressWarnings("unchecked")
+        public <T> Builder check(ConfigOption<T> option, Predicate<? super T> predicate, String message) {
+            if (predicate == null) throw new NullPointerException("Predicate not be null.");
+            rule(option).checks.add(new Check(value -> predicate.test((T) value), Violation.Kind.CONSTRAINT, message));
+            return this;
+        }
+
+        /**
+         * 是否允许未声明的KEY, 默认不允许
+         */
+        public Builder allowUnknownKeys(boolean allowUnknownKeys) {
+            this.allowUnknownKeys = allowUnknownKeys;
+            return this;
+        }
+
+        /**
+         * 指定并行检查的线程池, 默认使用 ForkJoinPool.commonPool()
+         */
+        public Builder pool(ForkJoinPool pool) {
+            if (pool == null) throw new NullPointerException("ForkJoinPool not be null.");
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * 编译规则
+         */
+        public ConfigurationValidator build() {
+            return new ConfigurationValidator(this);
+        }
+
+        /**
+         * 获取配置项的规则, 不存在时创建
+         */
+        private RuleBuilder rule(ConfigOption<?> option) {
+            if (option == null) throw new NullPointerException("ConfigOption not be null.");
+            return rules.computeIfAbsent(option, ignored -> new RuleBuilder());
+        }
+    }
+
+    // ----------------------------------------------------------------
+}
@@ -0,0 +1,434 @@
+package org.meteorcat.fusion.configuration;
+
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * 冻结之后的只读配置, 由 {@link Configuration#freeze()} 创建
+ * 内部采用最小完美哈希(minimal perfect hash)存储, n 个配置正好占用 n 个槽位:
+ * <pre>
+ * 1. 第一层哈希把KEY分到 n 个桶, 每个桶记录一个位移种子(seed)
+ * 2. 第二层哈希用桶的种子把KEY映射到槽位, 构建时为每个桶寻找不冲突的种子
+ * 3. 只有一个KEY的桶直接记录空闲槽位, 以负数保存: seed = -(slot + 1)
+ * </pre>
+ * 读取只需要计算两次哈希加一次字符串比较, 没有锁也没有 HashMap.Node 的对象开销
+ * 配置值之中的 ${var} 模板在冻结时渲染, 读取结果和冻结时的 Configuration 一致
+ * 参考: <a href="https://cmph.sourceforge.net/papers/esa09.pdf">Hash, displace, and compress</a>
+ */
+public final class FrozenConfiguration implements ReadableConfig, Serializable {
+
+    /**
+     * 序列化的版本ID
+     */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 按照槽位存放的配置KEY
+     */
+    private final String[] keys;
+
+    /**
+     * 按照槽位存放的配置值
+     */
+    private final Object[] values;
+
+    /**
+     * 每个桶的位移种子
+     */
+    private final int[] seeds;
+
+    /**
+     * 按照KEY字典序排列的槽位下标, 用于二分查找前缀配置
+     */
+    private final int[] sortedSlots;
+
+    /**
+     * 是否存在 String.hashCode 相同的KEY, 这种情况下第二层哈希需要遍历字符计算
+     */
+    private final boolean fullHash;
+
+    /**
+     * 私有化构建方法
+     */
+    private FrozenConfiguration(String[] keys, Object[] values, int[] seeds, int[] sortedSlots, boolean fullHash) {
+        this.keys = keys;
+        this.values = values;
+        this.seeds = seeds;
+        this.sortedSlots = sortedSlots;
+        this.fullHash = fullHash;
+    }
+
+    /**
+     * 从配置快照构建
+     */
+    static FrozenConfiguration of(ConfigurationSnapshot snapshot) {
+        final String[] sortedKeys = snapshot.sortedKeys();
+        final int size = sortedKeys.length;
+        final boolean fullHash = hasHashCollision(sortedKeys);
+
+        // 第一层哈希分桶
+        final List<List<Integer>> buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayList<>(2));
+        }
+        for (int i = 0; i < size; i++) {
+            buckets.get(bucketOf(sortedKeys[i], size)).add(i);
+        }
+
+        // 从最大的桶开始放置, 越往后空闲槽位越少, 大桶越难找到合适的种子
+        final Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+
+        final int[] seeds = new int[size];
+        final int[] slotOfKey = new int[size];
+        final boolean[] occupied = new boolean[size];
+        final int[] candidate = new int[size];
+        int next = 0;
+        for (; next < size; next++) {
+            final List<Integer> bucket = buckets.get(order[next]);
+            if (bucket.size() <= 1) {
+                break;
+            }
+            int seed = 1;
+            int placed = 0;
+            while (placed < bucket.size()) {
+                final int slot = slotOf(sortedKeys[bucket.get(placed)], seed, size, fullHash);
+                if (occupied[slot] || contains(candidate, placed, slot)) {
+                    seed++;
+                    placed = 0;
+                } else {
+                    candidate[placed++] = slot;
+                }
+            }
+            for (int i = 0; i < bucket.size(); i++) {
+                occupied[candidate[i]] = true;
+                slotOfKey[bucket.get(i)] = candidate[i];
+            }
+            seeds[order[next]] = seed;
+        }
+
+        // 单个KEY的桶直接放进空闲槽位
+        int free = 0;
+        for (; next < size; next++) {
+            final List<Integer> bucket = buckets.get(order[next]);
+            if (bucket.isEmpty()) {
+                break;
+            }
+            while (occupied[free]) {
+                free++;
+            }
+            occupied[free] = true;
+            slotOfKey[bucket.get(0)] = free;
+            seeds[order[next]] = -free - 1;
+        }
+
+        final Map<String, String> rendered = ConfigurationInterpolator.renderAll(snapshot);
+        final String[] keys = new String[size];
+        final Object[] values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            final String renderedValue = rendered.get(sortedKeys[i]);
+            keys[slotOfKey[i]] = sortedKeys[i];
+            values[slotOfKey[i]] = renderedValue != null ? renderedValue : snapshot.get(sortedKeys[i]);
+        }
+        return new FrozenConfiguration(keys, values, seeds, slotOfKey, fullHash);
+    }
+
+
+    // 读取配置 -------------------------------------------------------
+
+    /**
+     * 获取配置数量
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * 获取所有配置Set
+     */
+    public Set<String> getKeys() {
+        return new HashSet<>(Arrays.asList(keys));
+    }
+
+    /**
+     * 匹配对象
+     */
+    public boolean containsKey(String key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * 获取配置值
+     */
+    public String getString(String key, String defaultValue) {
+        if (key == null) throw new NullPointerException("Configuration Key not be null.");
+        final Object rawValue = lookup(key);
+        return rawValue == null ? defaultValue : ConfigurationUtils.convertToString(rawValue);
+    }
+
+    /**
+     * 获取配置当中的原生值
+     */
+    public Optional<Object> getRawValue(String key) {
+        return getRawValue(key, false);
+    }
+
+    /**
+     * 获取匹配KEY的原生值
+     */
+    public Optional<Object> getRawValue(String key, boolean canBePrefixMap) {
+        if (key == null) throw new NullPointerException("Configuration Key not be null.");
+        return Optional.ofNullable(getRawValueInternal(key, canBePrefixMap));
+    }
+
+    /**
+     * 读取配置值, 配置不存在时返回配置项的默认值
+     */
+    @Override
+    public <T> T get(ConfigOption<T> option) {
+        final T value = resolveValue(option);
+        return value == null ? option.defaultValue() : value;
+    }
+
+    /**
+     * 读取配置值, 配置不存在时返回空
+     */
+    @Override
+    public <T> Optional<T> getOptional(ConfigOption<T> option) {
+        return Optional.ofNullable(resolveValue(option));
+    }
+
+    /**
+     * 获取 int 配置值, 配置不存在时返回配置项默认值
+     */
+    public int getInt(ConfigOption<Integer> option) {
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null ? Configuration.requireDefaultValue(option) : Configuration.toInt(rawValue);
+    }
+
+    /**
+     * 获取 long 配置值, 配置不存在时返回配置项默认值
+     */
+    public long getLong(ConfigOption<Long> option) {
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null ? Configuration.requireDefaultValue(option) : Configuration.toLong(rawValue);
+    }
+
+    /**
+     * 获取 double 配置值, 配置不存在时返回配置项默认值
+     */
+    public double getDouble(ConfigOption<Double> option) {
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null ? Configuration.requireDefaultValue(option) : Configuration.toDouble(rawValue);
+    }
+
+    /**
+     * 获取 boolean 配置值, 配置不存在时返回配置项默认值
+     */
+    public boolean getBoolean(ConfigOption<Boolean> option) {
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null ? Configuration.requireDefaultValue(option) : Configuration.toBoolean(rawValue);
+    }
+
+    /**
+     * 还原成可写入的配置对象
+     */
+    public Configuration toConfiguration() {
+        final Configuration config = new Configuration();
+        for (int i = 0; i < keys.length; i++) {
+            config.setValueInternal(keys[i], values[i]);
+        }
+        return config;
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // 内部查找 -------------------------------------------------------
+
+    /**
+     * 按照 主KEY -> fallback keys 的顺序查找并转化成配置项声明的类型
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T resolveValue(ConfigOption<T> option) {
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null
+                ? null
+                : (T) ConfigurationUtils.convertValue(rawValue, option.getClazz(), option.isList());
+    }
+
+    /**
+     * 按照 主KEY -> fallback keys 的顺序查找原生值, 冻结的配置不会变化, 所以不需要缓存解析结果
+     */
+    private Object resolveRawValue(ConfigOption<?> option) {
+        final boolean canBePrefixMap = ConfigurationUtils.canBePrefixMap(option);
+        final Object rawValue = getRawValueInternal(option.key(), canBePrefixMap);
+        if (rawValue != null || !option.hasFallbackKeys()) {
+            return rawValue;
+        }
+        for (FallbackKey fallbackKey : option.fallbackKeys()) {
+            final Object valueFromFallbackKey = getRawValueInternal(fallbackKey.getKey(), canBePrefixMap);
+            if (valueFromFallbackKey != null) {
+                Configuration.loggingFallback(fallbackKey, option);
+                return valueFromFallbackKey;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取精确KEY或者前缀配置的原生值, 不存在返回 null
+     */
+    private Object getRawValueInternal(String key, boolean canBePrefixMap) {
+        final Object valueFromExactKey = lookup(key);
+        if (!canBePrefixMap || valueFromExactKey != null) {
+            return valueFromExactKey;
+        }
+        final Map<String, String> valueFromPrefixMap = convertToPropertiesPrefixed(key);
+        return valueFromPrefixMap.isEmpty() ? null : valueFromPrefixMap;
+    }
+
+    /**
+     * 精确查找配置值
+     */
+    private Object lookup(String key) {
+        final int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    /**
+     * 查找KEY所在的槽位, 不存在返回 -1
+     */
+    private int indexOf(String key) {
+        final int size = keys.length;
+        if (size == 0) {
+            return -1;
+        }
+        final int seed = seeds[bucketOf(key, size)];
+        final int slot = seed < 0 ? -seed - 1 : slotOf(key, seed, size, fullHash);
+        return key.equals(keys[slot]) ? slot : -1;
+    }
+
+    /**
+     * 把 key. 开头的前缀配置还原成去掉前缀的 String 集合
+     */
+    private Map<String, String> convertToPropertiesPrefixed(String key) {
+        final String prefixKey = key + ".";
+        final Map<String, String> result = new HashMap<>();
+        int low = 0;
+        int high = sortedSlots.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (keys[sortedSlots[mid]].compareTo(prefixKey) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < sortedSlots.length; i++) {
+            final int slot = sortedSlots[i];
+            if (!keys[slot].startsWith(prefixKey)) {
+                break;
+            }
+            result.put(keys[slot].substring(prefixKey.length()), ConfigurationUtils.convertToString(values[slot]));
+        }
+        return result;
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // 哈希函数 -------------------------------------------------------
+
+    /**
+     * 第一层哈希: 计算KEY所在的桶, 直接复用 String 缓存的 hashCode
+     */
+    private static int bucketOf(String key, int size) {
+        return reduce(mix(key.hashCode()), size);
+    }
+
+    /**
+     * 第二层哈希: 按照桶的种子计算KEY所在的槽位
+     */
+    private static int slotOf(String key, int seed, int size, boolean fullHash) {
+        final int hash;
+        if (fullHash) {
+            // FNV-1a, 以种子作为初始值遍历字符
+            int h = 0x811C9DC5 ^ seed;
+            for (int i = 0; i < key.length(); i++) {
+                h = (h ^ key.charAt(i)) * 0x01000193;
+            }
+            hash = mix(h);
+        } else {
+            hash = mix(key.hashCode() ^ (seed * 0x9E3779B9));
+        }
+        return reduce(hash, size);
+    }
+
+    /**
+     * 把32位哈希映射到 [0, size), 用乘法和移位代替取模运算
+     * 参考: <a href="https://lemire.me/blog/2016/06/27/a-fast-alternative-to-the-modulo-reduction/">fast range</a>
+     */
+    private static int reduce(int hash, int size) {
+        return (int) (((hash & 0xFFFFFFFFL) * size) >>> 32);
+    }
+
+    /**
+     * murmur3 的 fmix32 混淆
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * 判断是否存在 hashCode 相同的KEY, 这些KEY无论种子是什么都会落在同一个槽位
+     */
+    private static boolean hasHashCollision(String[] keys) {
+        final Set<Integer> hashes = new HashSet<>(keys.length * 2);
+        for (String key : keys) {
+            if (!hashes.add(key.hashCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断候选槽位之中是否已经存在
+     */
+    private static boolean contains(int[] candidate, int length, int slot) {
+        for (int i = 0; i < length; i++) {
+            if (candidate[i] == slot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ----------------------------------------------------------------
+
+
+    /**
+     * 转化字符串
+     */
+    @Override
+    public String toString() {
+        final StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (int slot : sortedSlots) {
+            joiner.add(keys[slot] + "=" + values[slot]);
+        }
+        return joiner.toString();
+    }
+}
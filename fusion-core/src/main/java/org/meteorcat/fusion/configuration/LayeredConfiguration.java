@@ -0,0 +1,420 @@
+package org.meteorcat.fusion.configuration;
+
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分层叠加的配置, 按照优先级从低到高叠加多个配置层, 最上面是一个可以写入的配置层
+ * <pre>{@code
+ * LayeredConfiguration effective = LayeredConfiguration.of(defaults, cluster, job);
+ * effective.set(PARALLELISM, 4);            // 写入最上层的动态配置
+ * int parallelism = effective.get(PARALLELISM);
+ * }</pre>
+ * 读取结果和依次 addAll 合并之后的配置一致: 同一个KEY取优先级最高的配置层,
+ * 前缀配置(prefix map)合并所有配置层的前缀KEY, fallback key 在所有配置层都找不到主KEY之后才会查找
+ * 还可以在只读配置层和可写入配置层之间叠加按需查找的 {@link ConfigurationSource}(例如环境变量),
+ * 这些来源只参与精确KEY的查找, 不参与前缀配置|getKeys|toConfiguration
+ * 配置层之中的 ${var} 模板按照叠加之后的结果渲染, 引用的KEY同样取优先级最高的配置层, 和合并之后的配置一致;
+ * 配置层之间形成循环引用时读取抛出 IllegalArgumentException
+ * 注: 不会复制任何配置层, 各个配置层依然可以单独写入(例如 ConfigurationFileWatcher 重新加载),
+ * 读取时按照快照引用判断配置层是否发生变化, 任何一层变化之后解析缓存整体失效
+ */
+public final class LayeredConfiguration implements ReadableConfig, WritableConfig {
+
+    /**
+     * 缓存之中表示KEY不存在的标记
+     */
+    private static final Object MISSING = new Object();
+
+    /**
+     * 配置层, 按照优先级从低到高排列, 最后一个是可写入的配置层
+     */
+    private final Configuration[] layers;
+
+    /**
+     * 按需查找的配置来源, 按照优先级从低到高排列, 优先级高于只读配置层, 低于可写入配置层
+     */
+    private final ConfigurationSource[] sources;
+
+    /**
+     * 当前的解析视图
+     */
+    private volatile View view;
+
+    /**
+     * 私有化构建方法
+     */
+    private LayeredConfiguration(Configuration[] layers, ConfigurationSource[] sources) {
+        this.layers = layers;
+        this.sources = sources;
+        this.view = new View(capture(layers), sources);
+    }
+
+    /**
+     * 按照优先级从低到高叠加只读配置层, 并在最上面创建一个空的可写入配置层
+     */
+    public static LayeredConfiguration of(Configuration... readOnlyLayers) {
+        return of(Arrays.asList(readOnlyLayers), List.of());
+    }
+
+    /**
+     * 按照优先级从低到高叠加只读配置层和按需查找的配置来源, 并在最上面创建一个空的可写入配置层
+     * <pre>{@code
+     * LayeredConfiguration.of(
+     *         List.of(defaults, cluster, job),
+     *         List.of(SystemConfigurationSource.environment(), SystemConfigurationSource.systemProperties()));
+     * }</pre>
+     */
+    public static LayeredConfiguration of(List<Configuration> readOnlyLayers, List<? extends ConfigurationSource> sources) {
+        final Configuration[] layers = new Configuration[readOnlyLayers.size() + 1];
+        for (int i = 0; i < readOnlyLayers.size(); i++) {
+            layers[i] = readOnlyLayers.get(i);
+            if (layers[i] == null) throw new NullPointerException("Configuration layer not be null.");
+        }
+        layers[readOnlyLayers.size()] = new Configuration();
+        for (ConfigurationSource source : sources) {
+            if (source == null) throw new NullPointerException("Configuration source not be null.");
+        }
+        return new LayeredConfiguration(layers, sources.toArray(new ConfigurationSource[0]));
+    }
+
+    /**
+     * 获取最上层的可写入配置
+     */
+    public Configuration top() {
+        return layers[layers.length - 1];
+    }
+
+    /**
+     * 获取所有配置层, 按照优先级从低到高排列, 包括最上层的可写入配置
+     */
+    public List<Configuration> layers() {
+        return List.of(layers);
+    }
+
+    // 写入配置 -------------------------------------------------------
+
+    /**
+     * 写入最上层的配置
+     */
+    public void setString(String key, String value) {
+        top().setString(key, value);
+    }
+
+    /**
+     * 写入最上层的配置, 返回最上层的配置对象
+     */
+    @Override
+    public <T> Configuration set(ConfigOption<T> option, T value) {
+        return top().set(option, value);
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // 读取配置 -------------------------------------------------------
+
+    /**
+     * 获取所有配置层的配置KEY
+     */
+    public Set<String> getKeys() {
+        final View current = view();
+        final Set<String> keys = new HashSet<>();
+        for (ConfigurationSnapshot snapshot : current.snapshots) {
+            snapshot.forEach((key, value) -> keys.add(key));
+        }
+        return keys;
+    }
+
+    /**
+     * 匹配对象
+     */
+    public boolean containsKey(String key) {
+        if (key == null) throw new NullPointerException("Configuration Key not be null.");
+        return view().lookup(key) != null;
+    }
+
+    /**
+     * 获取配置值
+     */
+    public String getString(String key, String defaultValue) {
+        if (key == null) throw new NullPointerException("Configuration Key not be null.");
+        final Object rawValue = view().lookup(key);
+        return rawValue == null ? defaultValue : ConfigurationUtils.convertToString(rawValue);
+    }
+
+    /**
+     * 获取配置当中的原生值
+     */
+    public Optional<Object> getRawValue(String key) {
+        return getRawValue(key, false);
+    }
+
+    /**
+     * 获取匹配KEY的原生值
+     */
+    public Optional<Object> getRawValue(String key, boolean canBePrefixMap) {
+        if (key == null) throw new NullPointerException("Configuration Key not be null.");
+        return Optional.ofNullable(view().getRawValue(key, canBePrefixMap));
+    }
+
+    /**
+     * 读取配置值, 配置不存在时返回配置项的默认值
+     */
+    @Override
+    public <T> T get(ConfigOption<T> option) {
+        final T value = resolveValue(option);
+        return value == null ? option.defaultValue() : value;
+    }
+
+    /**
+     * 读取配置值, 配置不存在时返回空
+     */
+    @Override
+    public <T> Optional<T> getOptional(ConfigOption<T> option) {
+        return Optional.ofNullable(resolveValue(option));
+    }
+
+    /**
+     * 获取 int 配置值, 配置不存在时返回配置项默认值
+     */
+    public int getInt(ConfigOption<Integer> option) {
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null ? Configuration.requireDefaultValue(option) : Configuration.toInt(rawValue);
+    }
+
+    /**
+     * 获取 long 配置值, 配置不存在时返回配置项默认值
+     */
+    public long getLong(ConfigOption<Long> option) {
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null ? Configuration.requireDefaultValue(option) : Configuration.toLong(rawValue);
+    }
+
+    /**
+     * 获取 double 配置值, 配置不存在时返回配置项默认值
+     */
+    public double getDouble(ConfigOption<Double> option) {
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null ? Configuration.requireDefaultValue(option) : Configuration.toDouble(rawValue);
+    }
+
+    /**
+     * 获取 boolean 配置值, 配置不存在时返回配置项默认值
+     */
+    public boolean getBoolean(ConfigOption<Boolean> option) {
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null ? Configuration.requireDefaultValue(option) : Configuration.toBoolean(rawValue);
+    }
+
+    /**
+     * 合并所有配置层生成独立的配置对象, 最底层直接共享快照, 其他配置层依次 addAll
+     */
+    public Configuration toConfiguration() {
+        final Configuration merged = new Configuration(layers[0]);
+        for (int i = 1; i < layers.length; i++) {
+            merged.addAll(layers[i]);
+        }
+        return merged;
+    }
+
+    /**
+     * 转化字符串
+     */
+    @Override
+    public String toString() {
+        return "LayeredConfiguration" + Arrays.toString(layers);
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // 内部查找 -------------------------------------------------------
+
+    /**
+     * 按照 主KEY -> fallback keys 的顺序查找并转化成配置项声明的类型
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T resolveValue(ConfigOption<T> option) {
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null
+                ? null
+                : (T) ConfigurationUtils.convertValue(rawValue, option.getClazz(), option.isList());
+    }
+
+    /**
+     * 按照 主KEY -> fallback keys 的顺序查找原生值, 每个KEY都会先查找所有配置层
+     */
+    private Object resolveRawValue(ConfigOption<?> option) {
+        final View current = view();
+        final boolean canBePrefixMap = ConfigurationUtils.canBePrefixMap(option);
+        final Object rawValue = current.getRawValue(option.key(), canBePrefixMap);
+        if (rawValue != null || !option.hasFallbackKeys()) {
+            return rawValue;
+        }
+        for (FallbackKey fallbackKey : option.fallbackKeys()) {
+            final Object valueFromFallbackKey = current.getRawValue(fallbackKey.getKey(), canBePrefixMap);
+            if (valueFromFallbackKey != null) {
+                Configuration.loggingFallback(fallbackKey, option);
+                return valueFromFallbackKey;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取当前的解析视图, 任何一个配置层发布了新快照就重新创建视图
+     * 注: 只需要比较每个配置层的快照引用, 多个线程同时发现变化时各自创建视图, 结果是一样的
+     */
+    private View view() {
+        final View current = this.view;
+        final ConfigurationSnapshot[] snapshots = current.snapshots;
+        for (int i = 0; i < layers.length; i++) {
+            if (layers[i].snapshot() != snapshots[i]) {
+                final View next = new View(capture(layers), sources);
+                this.view = next;
+                return next;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 获取所有配置层的当前快照
+     */
+    private static ConfigurationSnapshot[] capture(Configuration[] layers) {
+        final ConfigurationSnapshot[] snapshots = new ConfigurationSnapshot[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            snapshots[i] = layers[i].snapshot();
+        }
+        return snapshots;
+    }
+
+    /**
+     * 基于一组快照的解析视图, 缓存每个KEY合并之后的结果, 快照不会变化所以缓存不需要单独失效
+     */
+    private static final class View {
+
+        /**
+         * 各个配置层的快照, 按照优先级从低到高排列
+         */
+        private final ConfigurationSnapshot[] snapshots;
+
+        /**
+         * 按需查找的配置来源
+         */
+        private final ConfigurationSource[] sources;
+
+        /**
+         * KEY -> 优先级最高的配置值, 不存在记录为 MISSING
+         */
+        private final ConcurrentHashMap<String, Object> values = new ConcurrentHashMap<>();
+
+        /**
+         * KEY -> 合并所有配置层之后的前缀配置, 不存在记录为 MISSING
+         */
+        private final ConcurrentHashMap<String, Object> prefixMaps = new ConcurrentHashMap<>();
+
+        View(ConfigurationSnapshot[] snapshots, ConfigurationSource[] sources) {
+            this.snapshots = snapshots;
+            this.sources = sources;
+        }
+
+        /**
+         * 获取精确KEY或者前缀配置的原生值, 不存在返回 null
+         */
+        Object getRawValue(String key, boolean canBePrefixMap) {
+            final Object valueFromExactKey = lookup(key);
+            if (!canBePrefixMap || valueFromExactKey != null) {
+                return valueFromExactKey;
+            }
+            Object valueFromPrefixMap = prefixMaps.get(key);
+            if (valueFromPrefixMap == null) {
+                valueFromPrefixMap = mergePrefixMap(key);
+                prefixMaps.putIfAbsent(key, valueFromPrefixMap);
+            }
+            return valueFromPrefixMap == MISSING ? null : valueFromPrefixMap;
+        }
+
+        /**
+         * 精确查找优先级最高的配置值, 模板会被渲染, 不存在返回 null
+         */
+        Object lookup(String key) {
+            return lookup(key, null);
+        }
+
+        /**
+         * 精确查找优先级最高的配置值
+         *
+         * @param path 正在渲染的引用链, 用来检查跨配置层的循环引用, 不在渲染之中时为 null
+         */
+        private Object lookup(String key, List<String> path) {
+            Object value = values.get(key);
+            if (value == null) {
+                value = find(key, path);
+                values.putIfAbsent(key, value == null ? MISSING : value);
+            }
+            return value == MISSING ? null : value;
+        }
+
+        /**
+         * 按照 可写入配置层 -> 配置来源 -> 只读配置层 的顺序查找, 不存在返回 null
+         * 注: 只渲染配置层之中的模板, 配置来源(环境变量之类)的值原样返回
+         */
+        private Object find(String key, List<String> path) {
+            final int top = snapshots.length - 1;
+            Object value = snapshots[top].get(key);
+            if (value == null) {
+                for (int i = sources.length - 1; i >= 0; i--) {
+                    final Object valueFromSource = sources[i].get(key);
+                    if (valueFromSource != null) {
+                        return valueFromSource;
+                    }
+                }
+            }
+            for (int i = top - 1; value == null && i >= 0; i--) {
+                value = snapshots[i].get(key);
+            }
+            return ConfigurationTemplate.isTemplate(value) ? render(key, (String) value, path) : value;
+        }
+
+        /**
+         * 按照叠加之后的配置渲染模板, 引用的KEY通过 {@link #lookup(String, List)} 查找, 同样会被渲染
+         */
+        private String render(String key, String raw, List<String> path) {
+            final List<String> chain = path == null ? new ArrayList<>() : path;
+            final int start = chain.indexOf(key);
+            if (start >= 0) {
+                throw new IllegalArgumentException("Cyclic reference in configuration: "
+                        + String.join(" -> ", chain.subList(start, chain.size())) + " -> " + key);
+            }
+            chain.add(key);
+            try {
+                return ConfigurationTemplate.compile(raw).render(reference -> {
+                    if (!ConfigurationTemplate.isKeyReference(reference)) {
+                        return ConfigurationTemplate.lookupExternal(reference);
+                    }
+                    final Object referenced = lookup(reference, chain);
+                    return referenced == null ? null : ConfigurationUtils.convertToString(referenced);
+                });
+            } finally {
+                chain.remove(chain.size() - 1);
+            }
+        }
+
+        /**
+         * 从低到高合并所有配置层的前缀配置, 高优先级覆盖低优先级
+         */
+        private Object mergePrefixMap(String key) {
+            final Map<String, String> merged = new HashMap<>();
+            for (ConfigurationSnapshot snapshot : snapshots) {
+                merged.putAll(snapshot.convertToPropertiesPrefixed(key));
+            }
+            return merged.isEmpty() ? MISSING : Collections.unmodifiableMap(merged);
+        }
+    }
+
+    // ----------------------------------------------------------------
+}
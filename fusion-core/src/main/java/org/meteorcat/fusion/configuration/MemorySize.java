@@ -0,0 +1,184 @@
+package org.meteorcat.fusion.configuration;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Locale;
+
+/**
+ * 内存大小配置值, 按照 1024 进制换算单位, 由 {@link ConfigOptions.OptionBuilder#memoryType()} 声明
+ * <pre>{@code
+ *     ConfigOption<MemorySize> bufferSize = ConfigOptions
+ *         .key("network.buffer-size")
+ *         .memoryType()
+ *         .defaultValue(MemorySize.ofMebiBytes(32));
+ *
+ *     // 支持的写法: 1024 | 512b | 64 kb | 512m | 4 gb | 1t, 单位不区分大小写, 没有单位按照字节处理
+ *     MemorySize size = MemorySize.parse("512m");
+ * }</pre>
+ */
+public final class MemorySize implements Serializable, Comparable<MemorySize> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 0 字节
+     */
+    public static final MemorySize ZERO = new MemorySize(0L);
+
+    /**
+     * 字节数
+     */
+    private final long bytes;
+
+    /**
+     * 私有化构建方法
+     */
+    private MemorySize(long bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("Memory size must be >= 0: " + bytes);
+        this.bytes = bytes;
+    }
+
+
+    // 工厂方法 ---------------------------------------------------------
+
+    /**
+     * 按照字节构建
+     */
+    public static MemorySize ofBytes(long bytes) {
+        return bytes == 0L ? ZERO : new MemorySize(bytes);
+    }
+
+    /**
+     * 按照 KB 构建
+     */
+    public static MemorySize ofKibiBytes(long kibiBytes) {
+        return ofBytes(Math.multiplyExact(kibiBytes, 1L << 10));
+    }
+
+    /**
+     * 按照 MB 构建
+     */
+    public static MemorySize ofMebiBytes(long mebiBytes) {
+        return ofBytes(Math.multiplyExact(mebiBytes, 1L << 20));
+    }
+
+    /**
+     * 按照 GB 构建
+     */
+    public static MemorySize ofGibiBytes(long gibiBytes) {
+        return ofBytes(Math.multiplyExact(gibiBytes, 1L << 30));
+    }
+
+    /**
+     * 解析内存大小文本, 格式错误|数值溢出时抛出 IllegalArgumentException
+     * 注: 单次解析没有缓存, 配置读取经过 {@link org.meteorcat.fusion.util.ConfigurationUtils#convertToMemorySize(Object)} 会缓存解析结果
+     */
+    public static MemorySize parse(String text) {
+        if (text == null) throw new NullPointerException("Memory size text not be null.");
+        final int length = text.length();
+        int i = 0;
+        while (i < length && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        final int start = i;
+        long value = 0L;
+        while (i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            final int digit = text.charAt(i) - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                throw new IllegalArgumentException("Memory size overflows: " + text);
+            }
+            value = value * 10 + digit;
+            i++;
+        }
+        if (i == start) {
+            throw new IllegalArgumentException("Memory size does not start with a number: " + text);
+        }
+        while (i < length && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        int end = length;
+        while (end > i && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+
+        final int shift = switch (text.substring(i, end).toLowerCase(Locale.ROOT)) {
+            case "", "b", "bytes" -> 0;
+            case "k", "kb", "kibibytes" -> 10;
+            case "m", "mb", "mebibytes" -> 20;
+            case "g", "gb", "gibibytes" -> 30;
+            case "t", "tb", "tebibytes" -> 40;
+            default -> throw new IllegalArgumentException(String.format(
+                    "Unrecognized memory unit in '%s'. Expected one of: b, kb, mb, gb, tb (case insensitive)",
+                    text));
+        };
+        if (value > (Long.MAX_VALUE >> shift)) {
+            throw new IllegalArgumentException("Memory size overflows: " + text);
+        }
+        return ofBytes(value << shift);
+    }
+
+    // ----------------------------------------------------------------
+
+
+    /**
+     * 获取字节数
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * 获取 KB 数, 向下取整
+     */
+    public long getKibiBytes() {
+        return bytes >> 10;
+    }
+
+    /**
+     * 获取 MB 数, 向下取整
+     */
+    public long getMebiBytes() {
+        return bytes >> 20;
+    }
+
+    /**
+     * 获取 GB 数, 向下取整
+     */
+    public long getGibiBytes() {
+        return bytes >> 30;
+    }
+
+    /**
+     * 比较大小
+     */
+    @Override
+    public int compareTo(MemorySize other) {
+        return Long.compare(bytes, other.bytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof MemorySize other && bytes == other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bytes);
+    }
+
+    /**
+     * 按照能整除的最大单位输出, 例如 512 mb, 输出的文本可以重新解析
+     */
+    @Override
+    public String toString() {
+        final String[] units = {"b", "kb", "mb", "gb", "tb"};
+        int unit = 0;
+        long value = bytes;
+        while (unit < units.length - 1 && value != 0 && (value & 1023) == 0) {
+            value >>= 10;
+            unit++;
+        }
+        return value + " " + units[unit];
+    }
+}
@@ -1,4 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
 package org.meteorcat.fusion.configuration;
 
+import java.util.Optional;
+
+/**
+ * 让 configuration 配置支持读取功能
+ * 依赖 ConfigOption 配置类, 按照 主KEY -> fallback keys 的顺序查找配置
+ */
 public interface ReadableConfig {
+
+    /**
+     * Reads a value using the metadata included in {@link ConfigOption}. Returns the {@link
+     * ConfigOption#defaultValue()} if value key not present in the configuration.
+     * 读取配置值, 配置不存在时返回配置项的默认值
+     *
+     * @param option metadata of the option to read
+     * @param <T>    type of the value to read
+     * @return read value or {@link ConfigOption#defaultValue()} if not found
+     */
+    <T> T get(ConfigOption<T> option);
+
+    /**
+     * Reads a value using the metadata included in {@link ConfigOption}. In contrast to {@link
+     * #get(ConfigOption)} returns {@link Optional#empty()} if value not present.
+     * 读取配置值, 配置不存在时返回空
+     *
+     * @param option metadata of the option to read
+     * @param <T>    type of the value to read
+     * @return read value or {@link Optional#empty()} if not found
+     */
+    <T> Optional<T> getOptional(ConfigOption<T> option);
 }
@@ -0,0 +1,865 @@
+package org.meteorcat.fusion.configuration;
+
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * 多个 JVM 共享的内存映射配置段
+ * 一个进程通过 {@link #publish(Configuration, Path)} 把配置写入映射文件, 其他进程只读映射之后直接在堆外读取,
+ * 不需要反序列化, 同一台机器上的所有进程共享同一份 page cache
+ * 文件布局(多字节整数都是大端序):
+ * <pre>
+ * header(32 byte):
+ *   int magic "FCSM" | int version | long generation | int count | int capacity | int sortedOffset | int length
+ * hash table: capacity 个 int, 保存 entry 偏移, 0 表示空槽位, 线性探测
+ * sorted table: count 个 int, 按照KEY字典序保存 entry 偏移, 用于二分查找前缀配置
+ * entry:
+ *   int hash | int KEY 字符数 | KEY 的 UTF-16 字符 | 1 byte 类型标识(Configuration.Type.ordinal()) | 值
+ *   值: String|Bytes 为 int 长度 + 字节(String 为 UTF-8), Integer|Float 为 4 byte,
+ *       Long|Double 为 8 byte, Boolean 为 1 byte
+ * </pre>
+ * KEY 以 UTF-16 字符保存, 比较时和 String 逐个字符对比, 不需要解码也不会产生临时对象
+ * 版本号(generation)按照顺序锁(seqlock)的方式维护:
+ * <pre>
+ * 1. 写入方持有文件锁, 先把版本号改成奇数, 覆盖写入内容之后再改成下一个偶数
+ * 2. 读取方等待版本号变成偶数之后读取, 读取完成再次比较版本号, 不一致说明期间重新发布过, 丢弃结果重试
+ * 3. 读取方可以通过 {@link #generation()} 判断配置是否重新发布过
+ * 4. 写入方在写入中途退出时版本号停留在奇数: 读取方等待期间尝试获取共享文件锁, 能够获取说明没有写入方持有锁,
+ *    直接抛出 IllegalStateException; 等待超过 {@link #WRITE_TIMEOUT_NANOS} 同样抛出异常, 不会无限等待
+ * </pre>
+ * <pre>{@code
+ * // 写入进程
+ * SharedConfiguration.publish(config, Paths.get("/dev/shm/fusion.conf"));
+ * // 读取进程
+ * try (SharedConfiguration shared = SharedConfiguration.open(Paths.get("/dev/shm/fusion.conf"))) {
+ *     int port = shared.getInt(NET_PORT);
+ * }
+ * }</pre>
+ * 注: 配置值之中的 ${var} 模板在发布时渲染, 读取结果和发布时的 Configuration 一致
+ * 注: 文件只会变大不会截断, 否则其他进程访问映射区域会触发 SIGBUS; 重新发布的内容更大时读取方会自动重新映射
+ * 注: Configuration.Type 之外的值(列表|Map|时间间隔|内存大小|枚举)和 {@link ConfigurationCodec} 一样按照规范文本保存成 String,
+ * 按照配置项读取时再转化回声明的类型; 不支持的类型会抛出 IllegalArgumentException
+ */
+public final class SharedConfiguration implements ReadableConfig, AutoCloseable {
+
+    /**
+     * 文件标识 "FCSM"
+     */
+    static final int MAGIC = 0x4643534D;
+
+    /**
+     * 当前布局版本
+     */
+    static final int VERSION = 1;
+
+    /**
+     * 文件头字段偏移
+     */
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int GENERATION_OFFSET = 8;
+    private static final int COUNT_OFFSET = 16;
+    private static final int CAPACITY_OFFSET = 20;
+    private static final int SORTED_OFFSET = 24;
+    private static final int LENGTH_OFFSET = 28;
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * 类型标识, 和 Configuration.Type 的 ordinal 对应
+     */
+    private static final byte TYPE_STRING = (byte) Configuration.Type.String.ordinal();
+    private static final byte TYPE_INTEGER = (byte) Configuration.Type.Integer.ordinal();
+    private static final byte TYPE_LONG = (byte) Configuration.Type.Long.ordinal();
+    private static final byte TYPE_BOOLEAN = (byte) Configuration.Type.Boolean.ordinal();
+    private static final byte TYPE_FLOAT = (byte) Configuration.Type.Float.ordinal();
+    private static final byte TYPE_DOUBLE = (byte) Configuration.Type.Double.ordinal();
+    private static final byte TYPE_BYTES = (byte) Configuration.Type.Bytes.ordinal();
+
+    /**
+     * 版本号的内存屏障访问, 映射区域按照 long 视图访问
+     */
+    private static final VarHandle GENERATION =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    /**
+     * 等待写入完成的最长时间, 超过之后抛出 IllegalStateException
+     */
+    static final long WRITE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * 等待写入期间检查写入方是否已经退出的间隔
+     */
+    private static final long WRITER_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * 等待写入时自旋的次数, 超过之后改为短暂休眠, 避免长时间占用 CPU
+     */
+    private static final int SPIN_LIMIT = 1024;
+
+    /**
+     * 基本类型快速读取没有命中的标识, 恰好等于该值的配置会走通用读取路径, 结果仍然正确
+     */
+    private static final long MISSING = Long.MIN_VALUE;
+
+    /**
+     * 映射的文件
+     */
+    private final Path file;
+
+    /**
+     * 文件通道, 文件变大时用来重新映射
+     */
+    private final FileChannel channel;
+
+    /**
+     * 当前的只读映射区域
+     */
+    private volatile MappedByteBuffer buffer;
+
+    /**
+     * 私有化构建方法
+     */
+    private SharedConfiguration(Path file, FileChannel channel, MappedByteBuffer buffer) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+
+    // 发布 ----------------------------------------------------------
+
+    /**
+     * 把配置写入映射文件, 文件不存在时创建, 已经发布过则覆盖并递增版本号
+     * 多个进程同时发布时通过文件锁串行执行
+     *
+     * @return 发布之后的版本号
+     */
+    public static long publish(Configuration configuration, Path file) throws IOException {
+        final byte[] image = encode(configuration.snapshot());
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final FileLock lock = channel.lock();
+            try {
+                final MappedByteBuffer target = channel.map(
+                        FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), image.length));
+                final long previous = target.getInt(MAGIC_OFFSET) == MAGIC
+                        ? (long) GENERATION.getVolatile(target, GENERATION_OFFSET)
+                        : 0L;
+
+                // 奇数表示正在写入, 上次写入中途退出时版本号已经是奇数, 直接沿用
+                final long writing = previous | 1L;
+                GENERATION.setVolatile(target, GENERATION_OFFSET, writing);
+                VarHandle.storeStoreFence();
+                target.put(MAGIC_OFFSET, image, MAGIC_OFFSET, GENERATION_OFFSET);
+                target.put(COUNT_OFFSET, image, COUNT_OFFSET, image.length - COUNT_OFFSET);
+                GENERATION.setRelease(target, GENERATION_OFFSET, writing + 1);
+                return writing + 1;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * 按照文件布局编码配置快照, 版本号由发布时写入
+     */
+    static byte[] encode(ConfigurationSnapshot snapshot) {
+        final String[] keys = snapshot.sortedKeys();
+        final int count = keys.length;
+        final int capacity = tableCapacity(count);
+        final int sortedOffset = HEADER_SIZE + capacity * Integer.BYTES;
+
+        // 先计算总长度, 模板替换成渲染结果, 其他类型转化成规范文本, 字符串值提前编码成 UTF-8
+        final Map<String, String> rendered = ConfigurationInterpolator.renderAll(snapshot);
+        final Object[] raws = new Object[count];
+        final Object[] values = new Object[count];
+        long length = sortedOffset + (long) count * Integer.BYTES;
+        for (int i = 0; i < count; i++) {
+            final String renderedValue = rendered.get(keys[i]);
+            final Object value = renderedValue != null ? renderedValue : normalize(keys[i], snapshot.get(keys[i]));
+            raws[i] = value;
+            values[i] = value instanceof String string ? string.getBytes(StandardCharsets.UTF_8) : value;
+            length += 2L * Integer.BYTES + 2L * keys[i].length() + 1 + valueSize(value, values[i]);
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Configuration is too large to share: " + length + " bytes.");
+        }
+
+        final ByteBuffer image = ByteBuffer.allocate((int) length);
+        image.putInt(MAGIC_OFFSET, MAGIC);
+        image.putInt(VERSION_OFFSET, VERSION);
+        image.putInt(COUNT_OFFSET, count);
+        image.putInt(CAPACITY_OFFSET, capacity);
+        image.putInt(SORTED_OFFSET, sortedOffset);
+        image.putInt(LENGTH_OFFSET, (int) length);
+        image.position(sortedOffset + count * Integer.BYTES);
+        final int mask = capacity - 1;
+        for (int i = 0; i < count; i++) {
+            final String key = keys[i];
+            final int entry = image.position();
+            final int hash = hash(key);
+            int slot = hash & mask;
+            while (image.getInt(HEADER_SIZE + slot * Integer.BYTES) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            image.putInt(HEADER_SIZE + slot * Integer.BYTES, entry);
+            image.putInt(sortedOffset + i * Integer.BYTES, entry);
+
+            image.putInt(hash);
+            image.putInt(key.length());
+            for (int c = 0; c < key.length(); c++) {
+                image.putChar(key.charAt(c));
+            }
+            writeValue(image, raws[i], values[i]);
+        }
+        return image.array();
+    }
+
+    /**
+     * Configuration.Type 之外的值转化成规范文本, 参见 {@link ConfigurationCodec}
+     */
+    private static Object normalize(String key, Object value) {
+        final Class<?> clazz = value.getClass();
+        if (clazz == String.class || clazz == byte[].class || clazz == Integer.class || clazz == Float.class
+                || clazz == Long.class || clazz == Double.class || clazz == Boolean.class) {
+            return value;
+        }
+        return ConfigurationCodec.encodeValue(key, value);
+    }
+
+    /**
+     * 计算配置值占用的字节数(不包括类型标识), 值已经按照 {@link #normalize(String, Object)} 转化
+     */
+    private static int valueSize(Object value, Object encoded) {
+        final Class<?> clazz = value.getClass();
+        if (clazz == String.class || clazz == byte[].class) {
+            return Integer.BYTES + ((byte[]) encoded).length;
+        } else if (clazz == Integer.class || clazz == Float.class) {
+            return Integer.BYTES;
+        } else if (clazz == Long.class || clazz == Double.class) {
+            return Long.BYTES;
+        }
+        return 1;
+    }
+
+    /**
+     * 按照类型写入配置值, 字符串使用提前编码好的 UTF-8 字节
+     */
+    private static void writeValue(ByteBuffer image, Object value, Object encoded) {
+        final Class<?> clazz = value.getClass();
+        if (clazz == String.class || clazz == byte[].class) {
+            final byte[] bytes = (byte[]) encoded;
+            image.put(clazz == String.class ? TYPE_STRING : TYPE_BYTES);
+            image.putInt(bytes.length);
+            image.put(bytes);
+        } else if (clazz == Integer.class) {
+            image.put(TYPE_INTEGER).putInt((Integer) value);
+        } else if (clazz == Long.class) {
+            image.put(TYPE_LONG).putLong((Long) value);
+        } else if (clazz == Boolean.class) {
+            image.put(TYPE_BOOLEAN).put((byte) ((Boolean) value ? 1 : 0));
+        } else if (clazz == Float.class) {
+            image.put(TYPE_FLOAT).putFloat((Float) value);
+        } else {
+            image.put(TYPE_DOUBLE).putDouble((Double) value);
+        }
+    }
+
+    /**
+     * 哈希表容量, 不小于配置数量两倍的 2 的幂
+     */
+    private static int tableCapacity(int count) {
+        return Integer.highestOneBit(Math.max(1, count * 2 - 1)) << 1;
+    }
+
+    /**
+     * KEY 的哈希值, String.hashCode 的结果由规范保证, 不同 JVM 计算一致
+     */
+    private static int hash(String key) {
+        final int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // 映射 ----------------------------------------------------------
+
+    /**
+     * 只读映射配置文件
+     */
+    public static SharedConfiguration open(Path file) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.capacity() < HEADER_SIZE || mapped.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new IllegalArgumentException("Not a shared configuration file: " + file);
+            }
+            if (mapped.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IllegalArgumentException(
+                        "Unsupported shared configuration version: " + mapped.getInt(VERSION_OFFSET));
+            }
+            final SharedConfiguration shared = new SharedConfiguration(file, channel, mapped);
+            if (shared.writerAbandoned(mapped)) {
+                throw shared.abandoned();
+            }
+            return shared;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 当前发布的版本号, 每次重新发布都会变大
+     */
+    public long generation() {
+        return awaitGeneration(mapping());
+    }
+
+    /**
+     * 关闭文件通道
+     * 注: Java 不能主动解除映射, 映射区域会在对象回收之后释放
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 获取当前映射区域, 重新发布的内容超过映射范围时重新映射
+     */
+    private ByteBuffer mapping() {
+        final MappedByteBuffer current = this.buffer;
+        return current.getInt(LENGTH_OFFSET) <= current.capacity() ? current : remap(current);
+    }
+
+    /**
+     * 按照文件当前大小重新映射
+     */
+    private synchronized ByteBuffer remap(MappedByteBuffer current) {
+        if (this.buffer != current) {
+            return this.buffer;
+        }
+        try {
+            final long size = channel.size();
+            if (size <= current.capacity()) {
+                // 读到的是写入过程中的长度, 等待写入完成之后重试
+                return current;
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return this.buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to remap shared configuration file " + file, e);
+        }
+    }
+
+    /**
+     * 等待写入完成并返回当前版本号
+     */
+    private long awaitGeneration(ByteBuffer current) {
+        final long generation = (long) GENERATION.getAcquire(current, GENERATION_OFFSET);
+        return (generation & 1L) == 0 ? generation : awaitWriter(current);
+    }
+
+    /**
+     * 版本号是奇数时等待写入完成, 写入方已经退出或者等待超时的时候抛出 IllegalStateException
+     */
+    private long awaitWriter(ByteBuffer current) {
+        final long start = System.nanoTime();
+        long lastCheck = start;
+        int spins = 0;
+        long generation;
+        while (((generation = (long) GENERATION.getAcquire(current, GENERATION_OFFSET)) & 1L) != 0) {
+            final long now = System.nanoTime();
+            if (now - start >= WRITE_TIMEOUT_NANOS) {
+                throw new IllegalStateException(String.format(
+                        "Timed out after %d ms waiting for the publisher of shared configuration file %s.",
+                        TimeUnit.NANOSECONDS.toMillis(WRITE_TIMEOUT_NANOS), file));
+            }
+            if (now - lastCheck >= WRITER_CHECK_NANOS) {
+                if (writerAbandoned(current)) {
+                    throw abandoned();
+                }
+                lastCheck = now;
+            }
+            if (++spins < SPIN_LIMIT) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            }
+        }
+        return generation;
+    }
+
+    /**
+     * 判断写入方是否在写入中途退出: 版本号是奇数, 并且可以获取共享文件锁(说明没有写入方持有排他锁)
+     * 注: 同一个 JVM 之内正在发布时获取锁会抛出 OverlappingFileLockException, 说明写入方仍然存活
+     */
+    private boolean writerAbandoned(ByteBuffer current) {
+        if (((long) GENERATION.getAcquire(current, GENERATION_OFFSET) & 1L) == 0) {
+            return false;
+        }
+        try (FileLock lock = channel.tryLock(0L, Long.MAX_VALUE, true)) {
+            return lock != null && ((long) GENERATION.getAcquire(current, GENERATION_OFFSET) & 1L) != 0;
+        } catch (OverlappingFileLockException e) {
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to lock shared configuration file " + file, e);
+        }
+    }
+
+    /**
+     * 写入方中途退出时的异常, 需要重新发布之后才能读取
+     */
+    private IllegalStateException abandoned() {
+        return new IllegalStateException("Shared configuration file " + file
+                + " was left half written by a publisher that exited, it must be published again.");
+    }
+
+    /**
+     * 读取期间版本号没有变化, 读取的结果有效
+     */
+    private static boolean validate(ByteBuffer current, long generation) {
+        VarHandle.loadLoadFence();
+        return (long) GENERATION.getAcquire(current, GENERATION_OFFSET) == generation;
+    }
+
+    /**
+     * 在顺序锁保护下读取, 版本号变化时重试
+     * 注: 读取期间内容可能被覆盖, 越界之类的异常只有在版本号没有变化时才说明文件损坏
+     */
+    private <T> T read(Function<ByteBuffer, T> reader) {
+        for (; ; ) {
+            final ByteBuffer current = mapping();
+            final long generation = awaitGeneration(current);
+            T result = null;
+            RuntimeException failure = null;
+            try {
+                result = reader.apply(current);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            if (validate(current, generation)) {
+                if (failure != null) {
+                    throw new IllegalStateException("Shared configuration file " + file + " is corrupted.", failure);
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * 直接从映射区域读取指定类型的基本类型值, 不产生对象
+     * 注: 不存在|类型不一致|读取失败时返回 MISSING, 由调用方走通用读取路径
+     */
+    private long readBits(String key, byte type) {
+        for (; ; ) {
+            final ByteBuffer current = mapping();
+            final long generation = awaitGeneration(current);
+            long bits = MISSING;
+            try {
+                final int offset = find(current, key);
+                if (offset >= 0 && current.get(offset) == type) {
+                    if (type == TYPE_INTEGER) {
+                        bits = current.getInt(offset + 1);
+                    } else if (type == TYPE_BOOLEAN) {
+                        bits = current.get(offset + 1);
+                    } else {
+                        bits = current.getLong(offset + 1);
+                    }
+                }
+            } catch (RuntimeException e) {
+                bits = MISSING;
+            }
+            if (validate(current, generation)) {
+                return bits;
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // 读取配置 -------------------------------------------------------
+
+    /**
+     * 获取配置数量
+     */
+    public int size() {
+        return read(current -> current.getInt(COUNT_OFFSET));
+    }
+
+    /**
+     * 获取所有配置Set
+     */
+    public Set<String> getKeys() {
+        return read(current -> {
+            final int count = current.getInt(COUNT_OFFSET);
+            final int sortedOffset = current.getInt(SORTED_OFFSET);
+            Objects.checkFromIndexSize(sortedOffset, (long) count * Integer.BYTES, current.limit());
+            final Set<String> keys = new HashSet<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                keys.add(readKey(current, current.getInt(sortedOffset + i * Integer.BYTES), 0));
+            }
+            return keys;
+        });
+    }
+
+    /**
+     * 匹配对象
+     */
+    public boolean containsKey(String key) {
+        if (key == null) throw new NullPointerException("Configuration Key not be null.");
+        return read(current -> find(current, key) >= 0);
+    }
+
+    /**
+     * 获取配置值
+     */
+    public String getString(String key, String defaultValue) {
+        if (key == null) throw new NullPointerException("Configuration Key not be null.");
+        final Object rawValue = getRawValueInternal(key, false);
+        return rawValue == null ? defaultValue : ConfigurationUtils.convertToString(rawValue);
+    }
+
+    /**
+     * 获取配置当中的原生值
+     */
+    public Optional<Object> getRawValue(String key) {
+        return getRawValue(key, false);
+    }
+
+    /**
+     * 获取匹配KEY的原生值
+     */
+    public Optional<Object> getRawValue(String key, boolean canBePrefixMap) {
+        if (key == null) throw new NullPointerException("Configuration Key not be null.");
+        return Optional.ofNullable(getRawValueInternal(key, canBePrefixMap));
+    }
+
+    /**
+     * 读取配置值, 配置不存在时返回配置项的默认值
+     */
+    @Override
+    public <T> T get(ConfigOption<T> option) {
+        final T value = resolveValue(option);
+        return value == null ? option.defaultValue() : value;
+    }
+
+    /**
+     * 读取配置值, 配置不存在时返回空
+     */
+    @Override
+    public <T> Optional<T> getOptional(ConfigOption<T> option) {
+        return Optional.ofNullable(resolveValue(option));
+    }
+
+    /**
+     * 获取 int 配置值, 配置不存在时返回配置项默认值
+     */
+    public int getInt(ConfigOption<Integer> option) {
+        final long bits = readBits(option.key(), TYPE_INTEGER);
+        if (bits != MISSING) {
+            return (int) bits;
+        }
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null ? Configuration.requireDefaultValue(option) : Configuration.toInt(rawValue);
+    }
+
+    /**
+     * 获取 long 配置值, 配置不存在时返回配置项默认值
+     */
+    public long getLong(ConfigOption<Long> option) {
+        final long bits = readBits(option.key(), TYPE_LONG);
+        if (bits != MISSING) {
+            return bits;
+        }
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null ? Configuration.requireDefaultValue(option) : Configuration.toLong(rawValue);
+    }
+
+    /**
+     * 获取 double 配置值, 配置不存在时返回配置项默认值
+     */
+    public double getDouble(ConfigOption<Double> option) {
+        final long bits = readBits(option.key(), TYPE_DOUBLE);
+        if (bits != MISSING) {
+            return Double.longBitsToDouble(bits);
+        }
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null ? Configuration.requireDefaultValue(option) : Configuration.toDouble(rawValue);
+    }
+
+    /**
+     * 获取 boolean 配置值, 配置不存在时返回配置项默认值
+     */
+    public boolean getBoolean(ConfigOption<Boolean> option) {
+        final long bits = readBits(option.key(), TYPE_BOOLEAN);
+        if (bits != MISSING) {
+            return bits != 0;
+        }
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null ? Configuration.requireDefaultValue(option) : Configuration.toBoolean(rawValue);
+    }
+
+    /**
+     * 复制成可写入的配置对象
+     */
+    public Configuration toConfiguration() {
+        return read(current -> {
+            final int count = current.getInt(COUNT_OFFSET);
+            final int sortedOffset = current.getInt(SORTED_OFFSET);
+            Objects.checkFromIndexSize(sortedOffset, (long) count * Integer.BYTES, current.limit());
+            final String[] keys = new String[count];
+            final Object[] values = new Object[count];
+            for (int i = 0; i < count; i++) {
+                final int entry = current.getInt(sortedOffset + i * Integer.BYTES);
+                keys[i] = readKey(current, entry, 0);
+                values[i] = readValue(current, valueOffset(current, entry));
+            }
+            return Configuration.fromSorted(keys, values);
+        });
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // 内部查找 -------------------------------------------------------
+
+    /**
+     * 按照 主KEY -> fallback keys 的顺序查找并转化成配置项声明的类型
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T resolveValue(ConfigOption<T> option) {
+        final Object rawValue = resolveRawValue(option);
+        return rawValue == null
+                ? null
+                : (T) ConfigurationUtils.convertValue(rawValue, option.getClazz(), option.isList());
+    }
+
+    /**
+     * 按照 主KEY -> fallback keys 的顺序查找原生值
+     * 注: 每个KEY单独读取, 查找期间重新发布时不同KEY可能来自不同版本
+     */
+    private Object resolveRawValue(ConfigOption<?> option) {
+        final boolean canBePrefixMap = ConfigurationUtils.canBePrefixMap(option);
+        final Object rawValue = getRawValueInternal(option.key(), canBePrefixMap);
+        if (rawValue != null || !option.hasFallbackKeys()) {
+            return rawValue;
+        }
+        for (FallbackKey fallbackKey : option.fallbackKeys()) {
+            final Object valueFromFallbackKey = getRawValueInternal(fallbackKey.getKey(), canBePrefixMap);
+            if (valueFromFallbackKey != null) {
+                Configuration.loggingFallback(fallbackKey, option);
+                return valueFromFallbackKey;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取精确KEY或者前缀配置的原生值, 不存在返回 null
+     */
+    private Object getRawValueInternal(String key, boolean canBePrefixMap) {
+        return read(current -> {
+            final int offset = find(current, key);
+            if (offset >= 0) {
+                return readValue(current, offset);
+            }
+            if (!canBePrefixMap) {
+                return null;
+            }
+            final Map<String, String> valueFromPrefixMap = convertToPropertiesPrefixed(current, key);
+            return valueFromPrefixMap.isEmpty() ? null : valueFromPrefixMap;
+        });
+    }
+
+    /**
+     * 在哈希表之中查找KEY, 返回值的偏移(指向类型标识), 不存在返回 -1
+     */
+    private static int find(ByteBuffer current, String key) {
+        final int capacity = current.getInt(CAPACITY_OFFSET);
+        Objects.checkFromIndexSize(HEADER_SIZE, (long) capacity * Integer.BYTES, current.limit());
+        final int hash = hash(key);
+        final int mask = capacity - 1;
+        int slot = hash & mask;
+        for (int probe = 0; probe < capacity; probe++) {
+            final int entry = current.getInt(HEADER_SIZE + slot * Integer.BYTES);
+            if (entry == 0) {
+                return -1;
+            }
+            if (current.getInt(entry) == hash && matches(current, entry, key)) {
+                return valueOffset(current, entry);
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 比较 entry 的 KEY 和传入的字符串是否相同
+     */
+    private static boolean matches(ByteBuffer current, int entry, String key) {
+        final int length = current.getInt(entry + Integer.BYTES);
+        if (length != key.length()) {
+            return false;
+        }
+        final int chars = entry + 2 * Integer.BYTES;
+        for (int i = 0; i < length; i++) {
+            if (current.getChar(chars + i * Character.BYTES) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按照字典序比较 entry 的 KEY 和传入的字符串, 规则和 String.compareTo 一致
+     */
+    private static int compareKey(ByteBuffer current, int entry, String key) {
+        final int length = current.getInt(entry + Integer.BYTES);
+        final int chars = entry + 2 * Integer.BYTES;
+        final int limit = Math.min(length, key.length());
+        for (int i = 0; i < limit; i++) {
+            final char c = current.getChar(chars + i * Character.BYTES);
+            if (c != key.charAt(i)) {
+                return c - key.charAt(i);
+            }
+        }
+        return length - key.length();
+    }
+
+    /**
+     * entry 之中值的偏移(指向类型标识)
+     */
+    private static int valueOffset(ByteBuffer current, int entry) {
+        return entry + 2 * Integer.BYTES + current.getInt(entry + Integer.BYTES) * Character.BYTES;
+    }
+
+    /**
+     * 读取 entry 的 KEY, 从第 from 个字符开始
+     */
+    private static String readKey(ByteBuffer current, int entry, int from) {
+        final int length = current.getInt(entry + Integer.BYTES);
+        final int chars = entry + 2 * Integer.BYTES;
+        Objects.checkFromToIndex(from, length, (current.limit() - chars) / Character.BYTES);
+        final char[] key = new char[length - from];
+        for (int i = from; i < length; i++) {
+            key[i - from] = current.getChar(chars + i * Character.BYTES);
+        }
+        return new String(key);
+    }
+
+    /**
+     * 按照类型标识读取配置值
+     */
+    private static Object readValue(ByteBuffer current, int offset) {
+        final byte type = current.get(offset);
+        if (type == TYPE_STRING) {
+            return new String(readBytes(current, offset + 1), StandardCharsets.UTF_8);
+        } else if (type == TYPE_INTEGER) {
+            return current.getInt(offset + 1);
+        } else if (type == TYPE_LONG) {
+            return current.getLong(offset + 1);
+        } else if (type == TYPE_BOOLEAN) {
+            return current.get(offset + 1) != 0;
+        } else if (type == TYPE_FLOAT) {
+            return current.getFloat(offset + 1);
+        } else if (type == TYPE_DOUBLE) {
+            return current.getDouble(offset + 1);
+        } else if (type == TYPE_BYTES) {
+            return readBytes(current, offset + 1);
+        }
+        throw new IllegalArgumentException("Unrecognized configuration type tag: " + type);
+    }
+
+    /**
+     * 读取 int 长度 + 字节, 长度超出映射范围时抛出越界异常而不是分配过大的数组
+     */
+    private static byte[] readBytes(ByteBuffer current, int offset) {
+        final int length = current.getInt(offset);
+        Objects.checkFromIndexSize(offset + Integer.BYTES, length, current.limit());
+        final byte[] bytes = new byte[length];
+        current.get(offset + Integer.BYTES, bytes);
+        return bytes;
+    }
+
+    /**
+     * 把 key. 开头的前缀配置还原成去掉前缀的 String 集合
+     */
+    private static Map<String, String> convertToPropertiesPrefixed(ByteBuffer current, String key) {
+        final String prefixKey = key + ".";
+        final int count = current.getInt(COUNT_OFFSET);
+        final int sortedOffset = current.getInt(SORTED_OFFSET);
+        Objects.checkFromIndexSize(sortedOffset, (long) count * Integer.BYTES, current.limit());
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (compareKey(current, current.getInt(sortedOffset + mid * Integer.BYTES), prefixKey) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        final Map<String, String> result = new HashMap<>();
+        for (int i = low; i < count; i++) {
+            final int entry = current.getInt(sortedOffset + i * Integer.BYTES);
+            if (!startsWith(current, entry, prefixKey)) {
+                break;
+            }
+            result.put(
+                    readKey(current, entry, prefixKey.length()),
+                    ConfigurationUtils.convertToString(readValue(current, valueOffset(current, entry))));
+        }
+        return result;
+    }
+
+    /**
+     * 判断 entry 的 KEY 是否以 prefix 开头
+     */
+    private static boolean startsWith(ByteBuffer current, int entry, String prefix) {
+        final int length = current.getInt(entry + Integer.BYTES);
+        if (length < prefix.length()) {
+            return false;
+        }
+        final int chars = entry + 2 * Integer.BYTES;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (current.getChar(chars + i * Character.BYTES) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ----------------------------------------------------------------
+
+
+    /**
+     * 转化字符串, 直接读取映射区域之中最近的版本号, 不等待写入完成也不会抛出异常
+     */
+    @Override
+    public String toString() {
+        final long generation = (long) GENERATION.getAcquire(this.buffer, GENERATION_OFFSET);
+        return "SharedConfiguration{file=" + file + ", generation=" + generation
+                + ((generation & 1L) != 0 ? " (publishing)" : "") + "}";
+    }
+}
@@ -0,0 +1,184 @@
+package org.meteorcat.fusion.configuration;
+
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * 按需读取环境变量或者系统属性的配置来源
+ * 启动时不会复制整个 System.getenv()|System.getProperties(), 只有读取到某个配置KEY时才换算成对应的名称去查找, 结果会被缓存:
+ * <pre>
+ * 环境变量: task.slots       -> FUSION_TASK_SLOTS
+ * 系统属性: task.slots       -> fusion.task.slots (-Dfusion.task.slots=4)
+ * </pre>
+ * 启动开销只和实际读取的配置项数量有关, 和环境变量|系统属性的数量无关
+ * 注: 结果在第一次读取之后缓存, 之后再修改的系统属性不会生效
+ */
+public final class SystemConfigurationSource implements ConfigurationSource, ReadableConfig {
+
+    /**
+     * 默认的环境变量前缀
+     */
+    public static final String DEFAULT_ENV_PREFIX = "FUSION_";
+
+    /**
+     * 默认的系统属性前缀
+     */
+    public static final String DEFAULT_PROPERTY_PREFIX = "fusion.";
+
+    /**
+     * 缓存之中表示KEY不存在的标记
+     */
+    private static final Object MISSING = new Object();
+
+    /**
+     * 配置KEY换算成环境变量|系统属性名称
+     */
+    private final UnaryOperator<String> nameOf;
+
+    /**
+     * 按照名称查找环境变量|系统属性
+     */
+    private final UnaryOperator<String> lookup;
+
+    /**
+     * 配置KEY -> 查找结果, 不存在记录为 MISSING
+     */
+    private final ConcurrentHashMap<String, Object> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * 私有化构建方法
+     */
+    private SystemConfigurationSource(UnaryOperator<String> nameOf, UnaryOperator<String> lookup) {
+        this.nameOf = nameOf;
+        this.lookup = lookup;
+    }
+
+    /**
+     * 采用 FUSION_ 前缀的环境变量
+     */
+    public static SystemConfigurationSource environment() {
+        return environment(DEFAULT_ENV_PREFIX);
+    }
+
+    /**
+     * 采用指定前缀的环境变量
+     */
+    public static SystemConfigurationSource environment(String prefix) {
+        if (prefix == null) throw new NullPointerException("Prefix not be null.");
+        return new SystemConfigurationSource(key -> toEnvironmentName(prefix, key), System::getenv);
+    }
+
+    /**
+     * 采用 fusion. 前缀的系统属性
+     */
+    public static SystemConfigurationSource systemProperties() {
+        return systemProperties(DEFAULT_PROPERTY_PREFIX);
+    }
+
+    /**
+     * 采用指定前缀的系统属性
+     */
+    public static SystemConfigurationSource systemProperties(String prefix) {
+        if (prefix == null) throw new NullPointerException("Prefix not be null.");
+        return new SystemConfigurationSource(key -> prefix + key, System::getProperty);
+    }
+
+    /**
+     * 配置KEY换算成环境变量名称: 加上前缀, 字母转大写, 其他非字母数字的字符换成 '_'
+     * 例如 task.slots -> FUSION_TASK_SLOTS, state.backend-type -> FUSION_STATE_BACKEND_TYPE
+     */
+    public static String toEnvironmentName(String prefix, String key) {
+        final StringBuilder builder = new StringBuilder(prefix.length() + key.length());
+        builder.append(prefix);
+        for (int i = 0; i < key.length(); i++) {
+            final char c = key.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                builder.append((char) (c - ('a' - 'A')));
+            } else if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                builder.append(c);
+            } else {
+                builder.append('_');
+            }
+        }
+        return builder.toString();
+    }
+
+    // 读取配置 -------------------------------------------------------
+
+    /**
+     * 查找KEY对应的原生值, 第一次查找时换算名称并缓存结果, 不存在返回 null
+     */
+    @Override
+    public Object get(String key) {
+        if (key == null) throw new NullPointerException("Configuration Key not be null.");
+        Object value = resolved.get(key);
+        if (value == null) {
+            final String found = lookup.apply(nameOf.apply(key));
+            value = found == null ? MISSING : found;
+            resolved.putIfAbsent(key, value);
+        }
+        return value == MISSING ? null : value;
+    }
+
+    /**
+     * 匹配对象
+     */
+    public boolean containsKey(String key) {
+        return get(key) != null;
+    }
+
+    /**
+     * 获取配置值
+     */
+    public String getString(String key, String defaultValue) {
+        final Object rawValue = get(key);
+        return rawValue == null ? defaultValue : (String) rawValue;
+    }
+
+    /**
+     * 读取配置值, 配置不存在时返回配置项的默认值
+     */
+    @Override
+    public <T> T get(ConfigOption<T> option) {
+        final T value = resolveValue(option);
+        return value == null ? option.defaultValue() : value;
+    }
+
+    /**
+     * 读取配置值, 配置不存在时返回空
+     */
+    @Override
+    public <T> Optional<T> getOptional(ConfigOption<T> option) {
+        return Optional.ofNullable(resolveValue(option));
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // 内部查找 -------------------------------------------------------
+
+    /**
+     * 按照 主KEY -> fallback keys 的顺序查找并转化成配置项声明的类型
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T resolveValue(ConfigOption<T> option) {
+        Object rawValue = get(option.key());
+        if (rawValue == null && option.hasFallbackKeys()) {
+            for (FallbackKey fallbackKey : option.fallbackKeys()) {
+                rawValue = get(fallbackKey.getKey());
+                if (rawValue != null) {
+                    Configuration.loggingFallback(fallbackKey, option);
+                    break;
+                }
+            }
+        }
+        return rawValue == null
+                ? null
+                : (T) ConfigurationUtils.convertValue(rawValue, option.getClazz(), option.isList());
+    }
+
+    // ----------------------------------------------------------------
+}
@@ -2,11 +2,20 @@ package org.meteorcat.fusion.util;
 
 import org.meteorcat.fusion.configuration.ConfigOption;
 import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.MemorySize;
 
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -99,25 +108,127 @@ public class ConfigurationUtils {
 
 
     /**
-     * 转化为枚举对象
+     * 按照配置项声明的类型转化原生值, 列表配置会逐个转化内部元素
+     */
+    public static Object convertValue(Object o, Class<?> clazz, boolean isList) {
+        if (isList) {
+            return convertToList(o, clazz);
+        }
+        return convertValue(o, clazz);
+    }
+
+    /**
+     * 按照目标类型转化原生值
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T convertValue(Object o, Class<?> clazz) {
+        if (Integer.class.equals(clazz)) {
+            return (T) convertToInteger(o);
+        } else if (Long.class.equals(clazz)) {
+            return (T) convertToLong(o);
+        } else if (Boolean.class.equals(clazz)) {
+            return (T) convertToBoolean(o);
+        } else if (Float.class.equals(clazz)) {
+            return (T) convertToFloat(o);
+        } else if (Double.class.equals(clazz)) {
+            return (T) convertToDouble(o);
+        } else if (String.class.equals(clazz)) {
+            return (T) convertToString(o);
+        } else if (Duration.class.equals(clazz)) {
+            return (T) convertToDuration(o);
+        } else if (MemorySize.class.equals(clazz)) {
+            return (T) convertToMemorySize(o);
+        } else if (clazz.isEnum()) {
+            return (T) convertToEnum(o, (Class<? extends Enum<?>>) clazz);
+        } else if (clazz == Map.class) {
+            return (T) convertToProperties(o);
+        }
+        throw new IllegalArgumentException("Unsupported type: " + clazz);
+    }
+
+    /**
+     * 转化为列表对象, 并逐个转化内部元素
+     * 文本按照 {@link #decodeList(String)} 拆分, 同样的文本只解码一次, 返回的列表不可修改
+     */
+    public static List<?> convertToList(Object o, Class<?> clazz) {
+        if (o instanceof List<?> list) {
+            return list.stream().map(e -> convertValue(e, clazz)).toList();
+        } else if (o instanceof String text) {
+            return cachedParse(LIST_CACHE.get(clazz), text, raw -> {
+                // 和数值数组一样, 非字符串元素忽略两侧的空白
+                final List<String> elements = decodeList(raw);
+                final Object[] values = new Object[elements.size()];
+                for (int i = 0; i < values.length; i++) {
+                    final String element = elements.get(i);
+                    values[i] = convertValue(String.class.equals(clazz) ? element : element.trim(), clazz);
+                }
+                return List.of(values);
+            });
+        }
+        throw new IllegalArgumentException(
+                String.format("Could not parse value '%s' as a list of %s.", o, clazz.getSimpleName()));
+    }
+
+    /**
+     * 转化为 Map 对象, 文本按照 {@link #decodeMap(String)} 解码, 同样的文本只解码一次
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, String> convertToProperties(Object o) {
+        if (o instanceof Map) {
+            return (Map<String, String>) o;
+        } else if (o instanceof String text) {
+            return cachedParse(MAP_CACHE, text, ConfigurationUtils::decodeMap);
+        }
+        throw new IllegalArgumentException(
+                String.format("Could not parse value '%s' as a map.", o));
+    }
+
+    /**
+     * 转化为枚举对象, 不区分大小写
+     * 注: 每个枚举类只在第一次转化时构建查找表, 之后只需要一次哈希查找
      */
     @SuppressWarnings("unchecked")
     public static <E extends Enum<?>> E convertToEnum(Object o, Class<E> clazz) {
-        if (o.getClass().equals(clazz)) {
+        if (clazz.isInstance(o)) {
             return (E) o;
         }
-        return Arrays.stream(clazz.getEnumConstants())
-                .filter(e -> e.toString()
-                        .toLowerCase(Locale.ROOT)
-                        .equals(o.toString().toUpperCase(Locale.ROOT))
-                ).findAny()
-                .orElseThrow(() -> new IllegalArgumentException(
-                        String.format(
-                                "Could not parse value for enum %s. Expected one of: [%s]",
-                                clazz, Arrays.toString(clazz.getEnumConstants()))
-                ));
+        final Map<String, Enum<?>> constants = ENUM_CONSTANTS.get(clazz);
+        final String name = o.toString();
+        Enum<?> constant = constants.get(name);
+        if (constant == null) {
+            constant = constants.get(name.toUpperCase(Locale.ROOT));
+        }
+        if (constant == null) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Could not parse value for enum %s. Expected one of: [%s]",
+                            clazz, Arrays.toString(clazz.getEnumConstants())));
+        }
+        return (E) constant;
     }
 
+    /**
+     * 枚举类的查找表: 原始名称和大写名称 -> 枚举值
+     * 原始名称可以直接命中, 大小写不同时再按照大写名称查找; 大写之后重名的枚举值以先声明的为准
+     */
+    private static final ClassValue<Map<String, Enum<?>>> ENUM_CONSTANTS = new ClassValue<>() {
+        @Override
+        protected Map<String, Enum<?>> computeValue(Class<?> type) {
+            final Enum<?>[] values = (Enum<?>[]) type.getEnumConstants();
+            final Map<String, Enum<?>> table = new HashMap<>(values.length * 4);
+            for (Enum<?> value : values) {
+                table.putIfAbsent(value.toString(), value);
+            }
+            for (Enum<?> value : values) {
+                table.putIfAbsent(value.toString().toUpperCase(Locale.ROOT), value);
+            }
+            // 构建之后不再修改; 不使用 Map.copyOf, 相似的枚举名称在它的线性探测表里会聚集, 查找不到时要探测很久
+            return table;
+        }
+    };
+
+
+
 
     /**
      * 强制转化为字符串
@@ -140,7 +251,7 @@ public class ConfigurationUtils {
             return (Integer) o;
         } else if (o.getClass() == Long.class) {
             long v = (Long) o;
-            if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+            if (v >= Integer.MIN_VALUE && v <= Integer.MAX_VALUE) {
                 return (int) v;
             } else {
                 throw new IllegalArgumentException(
@@ -218,6 +329,461 @@ public class ConfigurationUtils {
     }
 
 
+    /**
+     * 转化为时间间隔, 文本按照 {@link #parseDuration(String)} 解析, 数值按照毫秒处理
+     */
+    public static Duration convertToDuration(Object o) {
+        if (o.getClass() == Duration.class) {
+            return (Duration) o;
+        } else if (o.getClass() == Long.class || o.getClass() == Integer.class) {
+            return Duration.ofMillis(((Number) o).longValue());
+        }
+        return cachedParse(DURATION_CACHE, o.toString(), ConfigurationUtils::parseDuration);
+    }
+
+    /**
+     * 转化为内存大小, 文本按照 {@link MemorySize#parse(String)} 解析, 数值按照字节处理
+     */
+    public static MemorySize convertToMemorySize(Object o) {
+        if (o.getClass() == MemorySize.class) {
+            return (MemorySize) o;
+        } else if (o.getClass() == Long.class || o.getClass() == Integer.class) {
+            return MemorySize.ofBytes(((Number) o).longValue());
+        }
+        return cachedParse(MEMORY_SIZE_CACHE, o.toString(), MemorySize::parse);
+    }
+
+    /**
+     * 解析时间间隔文本, 例如 30 s | 500ms | 2min | 1 h, 单位不区分大小写, 没有单位按照毫秒处理
+     * 支持的单位: ns|us|ms|s|min(m)|h|d 以及对应的英文全称(单复数均可)
+     */
+    public static Duration parseDuration(String text) {
+        if (text == null) throw new NullPointerException("Duration text not be null.");
+        final int length = text.length();
+        int i = 0;
+        while (i < length && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        final int start = i;
+        long value = 0L;
+        while (i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            final int digit = text.charAt(i) - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                throw new IllegalArgumentException("Duration overflows: " + text);
+            }
+            value = value * 10 + digit;
+            i++;
+        }
+        if (i == start) {
+            throw new IllegalArgumentException("Duration does not start with a number: " + text);
+        }
+        while (i < length && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        int end = length;
+        while (end > i && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+
+        final ChronoUnit unit = switch (text.substring(i, end).toLowerCase(Locale.ROOT)) {
+            case "ns", "nano", "nanos", "nanosecond", "nanoseconds" -> ChronoUnit.NANOS;
+            case "us", "µs", "micro", "micros", "microsecond", "microseconds" -> ChronoUnit.MICROS;
+            case "", "ms", "milli", "millis", "millisecond", "milliseconds" -> ChronoUnit.MILLIS;
+            case "s", "sec", "secs", "second", "seconds" -> ChronoUnit.SECONDS;
+            case "m", "min", "mins", "minute", "minutes" -> ChronoUnit.MINUTES;
+            case "h", "hour", "hours" -> ChronoUnit.HOURS;
+            case "d", "day", "days" -> ChronoUnit.DAYS;
+            default -> throw new IllegalArgumentException(String.format(
+                    "Unrecognized time unit in '%s'. Expected one of: ns, us, ms, s, min, h, d (case insensitive)",
+                    text));
+        };
+        try {
+            return Duration.of(value, unit);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Duration overflows: " + text, e);
+        }
+    }
+
+    /**
+     * 把时间间隔格式化成 {@link #parseDuration(String)} 可以解析的文本, 采用能够整除的最大单位, 例如 5 s | 2 min
+     */
+    public static String formatDuration(Duration duration) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Negative duration cannot be formatted: " + duration);
+        }
+        final long seconds = duration.getSeconds();
+        final int nanos = duration.getNano();
+        if (nanos == 0) {
+            if (seconds % 86400 == 0) {
+                return seconds / 86400 + " d";
+            } else if (seconds % 3600 == 0) {
+                return seconds / 3600 + " h";
+            } else if (seconds % 60 == 0) {
+                return seconds / 60 + " min";
+            }
+            return seconds + " s";
+        }
+        try {
+            if (nanos % 1_000_000 == 0) {
+                return Math.addExact(Math.multiplyExact(seconds, 1_000L), nanos / 1_000_000) + " ms";
+            } else if (nanos % 1_000 == 0) {
+                return Math.addExact(Math.multiplyExact(seconds, 1_000_000L), nanos / 1_000) + " us";
+            }
+            return Math.addExact(Math.multiplyExact(seconds, 1_000_000_000L), nanos) + " ns";
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Duration overflows: " + duration, e);
+        }
+    }
+
+    /**
+     * 配置值的规范文本, 按照配置项声明的类型读取时可以通过 {@link #convertValue(Object, Class, boolean)} 还原
+     * 列表按照 {@link #encodeList(List)} 编码, Map 按照 {@link #encodeMap(Map)} 编码,
+     * 时间间隔按照 {@link #formatDuration(Duration)} 格式化, 数值|布尔|内存大小|枚举直接使用 toString
+     */
+    public static String encodeValue(Object o) {
+        if (o instanceof String text) {
+            return text;
+        } else if (o instanceof List<?> list) {
+            return encodeList(list);
+        } else if (o instanceof Map<?, ?> map) {
+            return encodeMap(map);
+        } else if (o instanceof Duration duration) {
+            return formatDuration(duration);
+        } else if (o instanceof Number || o instanceof Boolean || o instanceof MemorySize || o instanceof Enum<?>) {
+            return o.toString();
+        }
+        throw new IllegalArgumentException("Unsupported type: " + o.getClass().getName());
+    }
+
+    /**
+     * 解析结果缓存的上限, 超过之后整体清空; 配置文本的种类通常很少, 只有异常的输入才会触发
+     */
+    private static final int PARSE_CACHE_LIMIT = 1024;
+
+    /**
+     * 时间间隔的解析缓存: 原始文本 -> 解析结果
+     */
+    private static final ConcurrentHashMap<String, Duration> DURATION_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 内存大小的解析缓存: 原始文本 -> 解析结果
+     */
+    private static final ConcurrentHashMap<String, MemorySize> MEMORY_SIZE_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Map 文本的解码缓存: 原始文本 -> 不可修改的 Map
+     */
+    private static final ConcurrentHashMap<String, Map<String, String>> MAP_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 按照原始文本缓存解析结果, 同样的文本只解析一次; 解析结果都是不可变对象, 可以直接共享
+     * 注: 解析失败不会缓存, 每次读取都会重新抛出异常
+     */
+    private static <V> V cachedParse(ConcurrentHashMap<String, V> cache, String text, Function<String, V> parser) {
+        final V cached = cache.get(text);
+        if (cached != null) {
+            return cached;
+        }
+        final V parsed = parser.apply(text);
+        if (cache.size() >= PARSE_CACHE_LIMIT) {
+            cache.clear();
+        }
+        cache.put(text, parsed);
+        return parsed;
+    }
+
+
+    // 列表配置编码 -------------------------------------------------
+    // 注: 列表按照 a;b;c 编码, 元素之中的 ; 和 \ 使用 \ 转义, 空文本表示空列表
+
+    /**
+     * 列表元素分隔符
+     */
+    private static final char LIST_DELIMITER = ';';
+
+    /**
+     * 转义符
+     */
+    private static final char LIST_ESCAPE = '\\';
+
+    /**
+     * Map 的KEY和值之间的分隔符
+     */
+    private static final char MAP_KEY_DELIMITER = ':';
+
+    /**
+     * 编码列表, 元素按照 toString 输出并转义分隔符, 时间间隔按照 {@link #formatDuration(Duration)} 输出
+     */
+    public static String encodeList(List<?> list) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) {
+                builder.append(LIST_DELIMITER);
+            }
+            final Object value = list.get(i);
+            final String element = value instanceof Duration duration ? formatDuration(duration) : value.toString();
+            for (int c = 0; c < element.length(); c++) {
+                final char ch = element.charAt(c);
+                if (ch == LIST_DELIMITER || ch == LIST_ESCAPE) {
+                    builder.append(LIST_ESCAPE);
+                }
+                builder.append(ch);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 解码列表, 单次遍历拆分; 没有转义的元素直接截取, 只有包含转义的元素才需要拼接
+     */
+    public static List<String> decodeList(String text) {
+        if (text.isEmpty()) {
+            return List.of();
+        }
+        final List<String> elements = new ArrayList<>();
+        final int length = text.length();
+        int start = 0;
+        StringBuilder escaped = null;
+        for (int i = 0; i < length; i++) {
+            final char ch = text.charAt(i);
+            if (ch == LIST_ESCAPE && i + 1 < length) {
+                if (escaped == null) {
+                    escaped = new StringBuilder();
+                }
+                escaped.append(text, start, i);
+                start = ++i;
+            } else if (ch == LIST_DELIMITER) {
+                elements.add(element(text, start, i, escaped));
+                start = i + 1;
+                if (escaped != null) {
+                    escaped.setLength(0);
+                }
+            }
+        }
+        elements.add(element(text, start, length, escaped));
+        return elements;
+    }
+
+    /**
+     * 编码 Map, 按照 k1:v1;k2:v2 输出, KEY和值之中的 ; : \ 使用 \ 转义, 空 Map 编码成空文本
+     */
+    public static String encodeMap(Map<?, ?> map) {
+        final StringBuilder builder = new StringBuilder();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!builder.isEmpty()) {
+                builder.append(LIST_DELIMITER);
+            }
+            appendEscaped(builder, entry.getKey().toString());
+            builder.append(MAP_KEY_DELIMITER);
+            appendEscaped(builder, entry.getValue().toString());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 解码 {@link #encodeMap(Map)} 的输出, 返回的 Map 不可修改并且保持编码时的顺序
+     */
+    public static Map<String, String> decodeMap(String text) {
+        final Map<String, String> map = new LinkedHashMap<>();
+        if (text.isEmpty()) {
+            return Collections.unmodifiableMap(map);
+        }
+        final StringBuilder current = new StringBuilder();
+        String key = null;
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            final char ch = text.charAt(i);
+            if (ch == LIST_ESCAPE && i + 1 < length) {
+                current.append(text.charAt(++i));
+            } else if (ch == MAP_KEY_DELIMITER && key == null) {
+                key = current.toString();
+                current.setLength(0);
+            } else if (ch == LIST_DELIMITER) {
+                putEntry(map, text, key, current);
+                key = null;
+            } else {
+                current.append(ch);
+            }
+        }
+        putEntry(map, text, key, current);
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * 写入解码出来的 Map 元素, 缺少 KEY 分隔符时抛出异常
+     */
+    private static void putEntry(Map<String, String> map, String text, String key, StringBuilder value) {
+        if (key == null) {
+            throw new IllegalArgumentException(
+                    String.format("Could not parse value '%s' as a map, expected k1:v1;k2:v2.", text));
+        }
+        map.put(key, value.toString());
+        value.setLength(0);
+    }
+
+    /**
+     * 追加文本并转义 Map 编码之中的特殊字符
+     */
+    private static void appendEscaped(StringBuilder builder, String text) {
+        for (int c = 0; c < text.length(); c++) {
+            final char ch = text.charAt(c);
+            if (ch == LIST_DELIMITER || ch == MAP_KEY_DELIMITER || ch == LIST_ESCAPE) {
+                builder.append(LIST_ESCAPE);
+            }
+            builder.append(ch);
+        }
+    }
+
+    /**
+     * 截取单个元素, 元素之前出现过转义时拼接上之前的部分
+     */
+    private static String element(String text, int start, int end, StringBuilder escaped) {
+        if (escaped == null || escaped.isEmpty()) {
+            return text.substring(start, end);
+        }
+        return escaped.append(text, start, end).toString();
+    }
+
+    /**
+     * 转化为 int 数组, 例如端口列表 8000;8001;8002
+     * 注: 数值不需要转义, 文本直接按照字符区间解析, 不截取子字符串也不装箱; 返回的是缓存的副本
+     */
+    public static int[] convertToIntArray(Object o) {
+        if (o instanceof List<?> list) {
+            final int[] values = new int[list.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = convertToInteger(list.get(i));
+            }
+            return values;
+        }
+        return cachedParse(INT_ARRAY_CACHE, o.toString(), raw -> {
+            final int count = countListElements(raw);
+            final int[] values = new int[count];
+            int start = 0;
+            for (int i = 0; i < count; i++) {
+                final int end = nextDelimiter(raw, start);
+                values[i] = Integer.parseInt(raw, trimStart(raw, start, end), trimEnd(raw, start, end), 10);
+                start = end + 1;
+            }
+            return values;
+        }).clone();
+    }
+
+    /**
+     * 转化为 long 数组
+     */
+    public static long[] convertToLongArray(Object o) {
+        if (o instanceof List<?> list) {
+            final long[] values = new long[list.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = convertToLong(list.get(i));
+            }
+            return values;
+        }
+        return cachedParse(LONG_ARRAY_CACHE, o.toString(), raw -> {
+            final int count = countListElements(raw);
+            final long[] values = new long[count];
+            int start = 0;
+            for (int i = 0; i < count; i++) {
+                final int end = nextDelimiter(raw, start);
+                values[i] = Long.parseLong(raw, trimStart(raw, start, end), trimEnd(raw, start, end), 10);
+                start = end + 1;
+            }
+            return values;
+        }).clone();
+    }
+
+    /**
+     * 转化为 double 数组, 例如直方图的分桶边界 0.5;1;2.5
+     * 注: Double 没有按照字符区间解析的方法, 每个元素需要截取一次
+     */
+    public static double[] convertToDoubleArray(Object o) {
+        if (o instanceof List<?> list) {
+            final double[] values = new double[list.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = convertToDouble(list.get(i));
+            }
+            return values;
+        }
+        return cachedParse(DOUBLE_ARRAY_CACHE, o.toString(), raw -> {
+            final int count = countListElements(raw);
+            final double[] values = new double[count];
+            int start = 0;
+            for (int i = 0; i < count; i++) {
+                final int end = nextDelimiter(raw, start);
+                values[i] = Double.parseDouble(raw.substring(start, end));
+                start = end + 1;
+            }
+            return values;
+        }).clone();
+    }
+
+    /**
+     * 统计数值列表的元素数量
+     */
+    private static int countListElements(String text) {
+        if (text.isEmpty()) {
+            return 0;
+        }
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == LIST_DELIMITER) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 查找下一个分隔符, 不存在时返回文本长度
+     */
+    private static int nextDelimiter(String text, int from) {
+        final int end = text.indexOf(LIST_DELIMITER, from);
+        return end < 0 ? text.length() : end;
+    }
+
+    /**
+     * 跳过元素开头的空白
+     */
+    private static int trimStart(String text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * 跳过元素结尾的空白
+     */
+    private static int trimEnd(String text, int start, int end) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * 列表的解码缓存, 按照元素类型分开: 原始文本 -> 不可修改的列表
+     */
+    private static final ClassValue<ConcurrentHashMap<String, List<?>>> LIST_CACHE = new ClassValue<>() {
+        @Override
+        protected ConcurrentHashMap<String, List<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * 数值数组的解码缓存, 缓存的数组不会交给调用方, 读取时返回副本
+     */
+    private static final ConcurrentHashMap<String, int[]> INT_ARRAY_CACHE = new ConcurrentHashMap<>();
+
+    private static final ConcurrentHashMap<String, long[]> LONG_ARRAY_CACHE = new ConcurrentHashMap<>();
+
+    private static final ConcurrentHashMap<String, double[]> DOUBLE_ARRAY_CACHE = new ConcurrentHashMap<>();
+
+    // ----------------------------------------------------------------
+
+
     /**
      * 把指定配置KEY的值还原成原生 String 类型
      */
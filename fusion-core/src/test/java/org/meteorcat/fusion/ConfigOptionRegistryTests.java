@@ -0,0 +1,174 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.*;
+import org.meteorcat.fusion.processor.ConfigOptionProcessor;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 编译期生成的配置项目录的测试单元
+ * 注: 测试代码编译时 fusion-processor 会扫描这里声明的配置项, 生成 FusionConfigOptionRegistry
+ */
+public class ConfigOptionRegistryTests {
+
+    /**
+     * 引用常量作为KEY
+     */
+    static final String TIMEOUT_KEY = "registry-test.rpc.timeout";
+
+    /**
+     * 目录之中的配置项
+     */
+    public static final class Options {
+
+        public static final ConfigOption<Integer> PORT = ConfigOptions.key("registry-test.net.port")
+                .intType()
+                .defaultValue(8080)
+                .withFallbackKeys("registry-test.port")
+                .withDeprecatedKeys("registry-test.legacy-port")
+                .withDescription("Port of the \"server\".");
+
+        public static final ConfigOption<List<Integer>> PORTS = ConfigOptions.key("registry-test.net.ports")
+                .intType()
+                .asList()
+                .defaultValues(8000, 8001);
+
+        public static final ConfigOption<Duration> TIMEOUT = ConfigOptions.key(TIMEOUT_KEY)
+                .durationType()
+                .noDefaultValue();
+
+        /**
+         * private 字段不会收录
+         */
+        private static final ConfigOption<String> HIDDEN = ConfigOptions.key("registry-test.hidden")
+                .stringType()
+                .noDefaultValue();
+    }
+
+    /**
+     * 通过 ServiceLoader 加载生成的目录, 元数据和配置项对象一致
+     */
+    @Test
+    public void generatedRegistry() {
+        final ConfigOptionRegistry registry = ConfigOptionRegistry.load().stream()
+                .filter(candidate -> candidate.option(Options.PORT.key()) != null)
+                .findFirst()
+                .orElseThrow();
+
+        assert registry.option("registry-test.net.port") == Options.PORT;
+        assert registry.option("registry-test.port") == Options.PORT;
+        assert registry.option("registry-test.legacy-port") == Options.PORT;
+        assert registry.option(TIMEOUT_KEY) == Options.TIMEOUT;
+        assert registry.option("registry-test.hidden") == null;
+        assert registry.options().contains(Options.PORTS);
+
+        final ConfigOptionDescriptor port = registry.descriptors().stream()
+                .filter(descriptor -> descriptor.key().equals("registry-test.net.port"))
+                .findFirst()
+                .orElseThrow();
+        assert port.type().equals("Integer");
+        assert port.defaultValue().equals("8080");
+        assert port.fallbackKeys().equals(List.of("registry-test.port"));
+        assert port.deprecatedKeys().equals(List.of("registry-test.legacy-port"));
+        assert port.description().equals("Port of the \"server\".");
+        assert port.declaringClass().equals(Options.class.getCanonicalName());
+        assert port.fieldName().equals("PORT");
+
+        final ConfigOptionDescriptor ports = registry.descriptors().stream()
+                .filter(descriptor -> descriptor.key().equals("registry-test.net.ports"))
+                .findFirst()
+                .orElseThrow();
+        assert ports.type().equals("List<Integer>");
+        assert ports.defaultValue().equals("8000, 8001");
+    }
+
+    /**
+     * 增量编译只重新编译部分声明配置项的类时, 生成的目录保留其他类的配置项
+     */
+    @Test
+    public void incrementalCompilation() throws Exception {
+        final Path sources = Files.createTempDirectory("fusion-registry-src");
+        final Path classes = Files.createTempDirectory("fusion-registry-classes");
+        final Path first = holder(sources, "FirstOptions", "incremental.first", "incremental.first-port");
+        final Path second = holder(sources, "SecondOptions", "incremental.second", "incremental.second-port");
+
+        // 两个类分别编译到同一个输出目录
+        compile(classes, first);
+        compile(classes, second);
+        List<String> keys = generatedKeys(classes);
+        assert keys.equals(List.of("incremental.first", "incremental.second")) : keys;
+
+        // 只重新编译第一个类, 修改之后的KEY替换旧的KEY, 第二个类的配置项保留
+        holder(sources, "FirstOptions", "incremental.renamed", "incremental.renamed-port");
+        compile(classes, first);
+        keys = generatedKeys(classes);
+        assert keys.equals(List.of("incremental.renamed", "incremental.second")) : keys;
+
+        // 删除第二个类之后不再收录它的配置项
+        Files.delete(classes.resolve("incremental/SecondOptions.class"));
+        compile(classes, first);
+        keys = generatedKeys(classes);
+        assert keys.equals(List.of("incremental.renamed")) : keys;
+    }
+
+    /**
+     * 写入声明一个配置项的类
+     */
+    private static Path holder(Path sources, String name, String key, String fallbackKey) throws Exception {
+        final Path file = sources.resolve("incremental").resolve(name + ".java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "package incremental;\n\n"
+                + "public final class " + name + " {\n"
+                + "    public static final org.meteorcat.fusion.configuration.ConfigOption<Integer> PORT =\n"
+                + "            org.meteorcat.fusion.configuration.ConfigOptions.key(\"" + key + "\")\n"
+                + "                    .intType()\n"
+                + "                    .defaultValue(80)\n"
+                + "                    .withFallbackKeys(\"" + fallbackKey + "\");\n"
+                + "}\n");
+        return file;
+    }
+
+    /**
+     * 启用配置项目录注解处理器编译, 输出目录同时作为 classpath, 和构建工具的增量编译一致
+     */
+    private static void compile(Path classes, Path source) throws Exception {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(null, null, null)) {
+            final JavaCompiler.CompilationTask task = compiler.getTask(null, files, null,
+                    List.of("-d", classes.toString(), "-classpath", classes + File.pathSeparator + System.getProperty("java.class.path")),
+                    null, files.getJavaFileObjects(source.toFile()));
+            task.setProcessors(List.of(new ConfigOptionProcessor()));
+            assert task.call() : "Compilation failed: " + source;
+        }
+    }
+
+    /**
+     * 通过 ServiceLoader 加载输出目录之中生成的目录, 返回所有配置项的主KEY
+     */
+    private static List<String> generatedKeys(Path classes) throws Exception {
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()},
+                ConfigOptionRegistryTests.class.getClassLoader())) {
+            final ConfigOptionRegistry registry = ConfigOptionRegistry.load(loader).stream()
+                    .filter(candidate -> candidate.getClass().getClassLoader() == loader)
+                    .findFirst()
+                    .orElseThrow();
+            final List<String> keys = new ArrayList<>();
+            for (ConfigOptionDescriptor descriptor : registry.descriptors()) {
+                keys.add(descriptor.key());
+                assert registry.option(descriptor.fallbackKeys().get(0)) == registry.option(descriptor.key());
+            }
+            return keys;
+        }
+    }
+}
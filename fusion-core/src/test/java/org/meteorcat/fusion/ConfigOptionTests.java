@@ -4,8 +4,13 @@ package org.meteorcat.fusion;
 import org.junit.Test;
 import org.meteorcat.fusion.configuration.ConfigOption;
 import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.MemorySize;
+import org.meteorcat.fusion.util.ConfigurationUtils;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 配置项的测试单元
@@ -77,4 +82,66 @@ public class ConfigOptionTests {
         System.out.println(threshold);
     }
 
+
+    /**
+     * 枚举配置, 读取时不区分大小写
+     */
+    @Test
+    public void enumOptions() {
+        ConfigOption<TimeUnit> unit = ConfigOptions
+                .key("timeout.unit")
+                .enumType(TimeUnit.class)
+                .defaultValue(TimeUnit.SECONDS);
+        Configuration config = new Configuration();
+        config.setString("timeout.unit", "milliseconds");
+        assert config.get(unit) == TimeUnit.MILLISECONDS;
+        config.setString("timeout.unit", "MINUTES");
+        assert config.get(unit) == TimeUnit.MINUTES;
+        config.setString("timeout.unit", "weeks");
+        try {
+            config.get(unit);
+            assert false;
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    /**
+     * 时间间隔和内存大小配置, 支持带单位的文本
+     */
+    @Test
+    public void durationAndMemoryOptions() {
+        assert ConfigurationUtils.parseDuration("30 s").equals(Duration.ofSeconds(30));
+        assert ConfigurationUtils.parseDuration("500ms").equals(Duration.ofMillis(500));
+        assert ConfigurationUtils.parseDuration(" 2 MIN ").equals(Duration.ofMinutes(2));
+        assert ConfigurationUtils.parseDuration("1500").equals(Duration.ofMillis(1500));
+        assert MemorySize.parse("4 gb").equals(MemorySize.ofGibiBytes(4));
+        assert MemorySize.parse("512m").equals(MemorySize.ofMebiBytes(512));
+        assert MemorySize.parse("1024").getKibiBytes() == 1;
+        assert MemorySize.parse(MemorySize.ofMebiBytes(512).toString()).getMebiBytes() == 512;
+        for (String invalid : new String[]{"", "gb", "10 parsecs", "99999999999999999999 b", "9999999999 tb"}) {
+            try {
+                MemorySize.parse(invalid);
+                assert false : invalid;
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+
+        ConfigOption<Duration> timeout = ConfigOptions
+                .key("rpc.timeout")
+                .durationType()
+                .defaultValue(Duration.ofSeconds(10));
+        ConfigOption<MemorySize> bufferSize = ConfigOptions
+                .key("network.buffer-size")
+                .memoryType()
+                .defaultValue(MemorySize.ofMebiBytes(32));
+        Configuration config = new Configuration();
+        assert config.get(bufferSize).getMebiBytes() == 32;
+        config.setString("rpc.timeout", "30 s");
+        config.setString("network.buffer-size", "64kb");
+        assert config.get(timeout).getSeconds() == 30;
+        assert config.get(timeout) == config.get(timeout);
+        assert config.get(bufferSize).getBytes() == 64 * 1024;
+        config.set(timeout, Duration.ofMinutes(1));
+        assert config.get(timeout).toMinutes() == 1;
+    }
 }
@@ -0,0 +1,87 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.*;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 配置读取跟踪的测试单元
+ */
+public class ConfigurationAccessTrackerTests {
+
+    private static final ConfigOption<Integer> PORT = ConfigOptions.key("net.port")
+            .intType()
+            .defaultValue(8080)
+            .withDeprecatedKeys("port");
+
+    private static final ConfigOption<String> HOSTNAME = ConfigOptions.key("net.hostname")
+            .stringType()
+            .noDefaultValue();
+
+    private static final ConfigOption<Map<String, String>> PROPERTIES = ConfigOptions.key("avro.properties")
+            .mapType()
+            .noDefaultValue();
+
+    /**
+     * 写入了没有读取的KEY和读取了没有写入的KEY
+     */
+    @Test
+    public void unreadAndUnsetKeys() {
+        final Configuration config = new Configuration();
+        config.setString("port", "9000");
+        config.setString("avro.properties.schema", "user");
+        config.setString("avro.properties.codec", "snappy");
+        config.setString("base.dir", "/data");
+        config.setString("checkpoint.dir", "${base.dir}/checkpoints");
+        config.setString("legacy.timeout", "30");
+
+        final ConfigurationAccessTracker tracker = config.enableAccessTracking();
+        assert config.enableAccessTracking() == tracker;
+        assert tracker.unreadKeys().size() == 6;
+
+        assert config.getInt(PORT) == 9000;
+        assert config.get(PROPERTIES).size() == 2;
+        assert config.getString("checkpoint.dir", null).equals("/data/checkpoints");
+        assert config.getOptional(HOSTNAME).isEmpty();
+        assert config.getString("missing", null) == null;
+
+        assert tracker.unreadKeys().equals(Set.of("legacy.timeout")) : tracker.unreadKeys();
+        assert tracker.unsetKeys().equals(Set.of("missing", "net.hostname")) : tracker.unsetKeys();
+
+        // 写入主KEY之后过时KEY不再被读取
+        config.setString("net.port", "9001");
+        assert tracker.unreadKeys().equals(Set.of("legacy.timeout", "port")) : tracker.unreadKeys();
+
+        tracker.reset();
+        assert tracker.trackedCount() == 0 && tracker.unsetKeys().isEmpty();
+
+        config.disableAccessTracking();
+        config.getInt(PORT);
+        assert config.accessTracker() == null && tracker.trackedCount() == 0;
+    }
+
+    /**
+     * 开启跟踪之前已经解析的 CompiledOption, 开启之后的读取同样会被记录
+     */
+    @Test
+    public void compiledOptionResolvedBeforeTracking() {
+        final Configuration config = new Configuration();
+        config.setString("net.port", "9000");
+        config.setString("net.hostname", "localhost");
+        final CompiledOption<Integer> port = config.compile(PORT);
+        assert port.get() == 9000;
+
+        final ConfigurationAccessTracker tracker = config.enableAccessTracking();
+        assert port.get() == 9000;
+        assert tracker.unreadKeys().equals(Set.of("net.hostname")) : tracker.unreadKeys();
+
+        // 关闭之后重新开启得到新的跟踪, 同样能记录已经解析的访问器
+        config.disableAccessTracking();
+        final ConfigurationAccessTracker reopened = config.enableAccessTracking();
+        assert reopened != tracker;
+        assert port.get() == 9000;
+        assert reopened.unreadKeys().equals(Set.of("net.hostname")) : reopened.unreadKeys();
+    }
+}
@@ -0,0 +1,99 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.ConfigKey;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.ConfigurationBinder;
+import org.meteorcat.fusion.configuration.MemorySize;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 配置绑定到 record|POJO 的测试单元
+ */
+public class ConfigurationBinderTests {
+
+    /**
+     * 测试用的 record
+     */
+    record ServerSettings(
+            @ConfigKey(value = "net.hostname", required = true) String hostname,
+            @ConfigKey(value = "net.port", fallbackKeys = "port", defaultValue = "8080") int port,
+            @ConfigKey(value = "rpc.timeout", defaultValue = "30 s") Duration timeout,
+            @ConfigKey("net.ports") List<Integer> ports,
+            @ConfigKey("net.buffer") MemorySize buffer,
+            @ConfigKey("net.daemon") boolean daemon) {
+    }
+
+    /**
+     * 测试用的 POJO
+     */
+    static class ClientSettings {
+
+        @ConfigKey("client.name")
+        private String name = "anonymous";
+
+        @ConfigKey(value = "client.retries", defaultValue = "3")
+        private int retries;
+
+        private String ignored = "untouched";
+    }
+
+    /**
+     * record 绑定: fallback key|默认值|列表|未设置的原生类型
+     */
+    @Test
+    public void bindRecord() {
+        final Configuration config = new Configuration();
+        config.setString("net.hostname", "localhost");
+        config.setString("port", "9000");
+        config.setString("net.ports", "80;443");
+        config.setString("net.buffer", "32m");
+
+        final ServerSettings settings = ConfigurationBinder.bind(config, ServerSettings.class);
+        assert settings.hostname().equals("localhost");
+        assert settings.port() == 9000;
+        assert settings.timeout().equals(Duration.ofSeconds(30));
+        assert settings.ports().equals(List.of(80, 443));
+        assert settings.buffer().equals(MemorySize.ofMebiBytes(32));
+        assert !settings.daemon();
+
+        config.setString("net.port", "9100");
+        assert ConfigurationBinder.bind(config, ServerSettings.class).port() == 9100;
+    }
+
+    /**
+     * POJO 绑定: 未设置的字段保留初始值, 未声明 @ConfigKey 的字段不受影响
+     */
+    @Test
+    public void bindBean() {
+        final Configuration config = new Configuration();
+        ClientSettings settings = ConfigurationBinder.bind(config, ClientSettings.class);
+        assert settings.name.equals("anonymous");
+        assert settings.retries == 3;
+        assert settings.ignored.equals("untouched");
+
+        config.setString("client.name", "worker");
+        config.setString("client.retries", "5");
+        settings = ConfigurationBinder.bind(config, ClientSettings.class);
+        assert settings.name.equals("worker");
+        assert settings.retries == 5;
+    }
+
+    /**
+     * 必填缺失和类型错误一次性报告
+     */
+    @Test
+    public void reportsAllErrors() {
+        final Configuration config = new Configuration();
+        config.setString("net.port", "not-a-number");
+        try {
+            ConfigurationBinder.bind(config, ServerSettings.class);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("net.hostname") : e.getMessage();
+            assert e.getMessage().contains("net.port") : e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.ConfigurationCodec;
+import org.meteorcat.fusion.configuration.MemorySize;
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * 配置二进制编码测试单元
+ */
+public class ConfigurationCodecTests {
+
+    /**
+     * 创建包含所有支持类型的配置
+     */
+    private static Configuration createConfiguration() {
+        final Configuration config = new Configuration();
+        config.setString("net.hostname", "localhost");
+        config.setString("net.description", "配置中文说明");
+        config.set(ConfigurationUtils.getIntegerConfigOption("net.port"), 8080);
+        config.set(ConfigurationUtils.getIntegerConfigOption("net.offset"), -3);
+        config.set(ConfigurationUtils.getLongConfigOption("net.timeout"), Long.MAX_VALUE);
+        config.set(ConfigurationUtils.getBooleanConfigOption("net.enabled"), true);
+        config.set(ConfigurationUtils.getFloatConfigOption("cpu.ratio"), 0.5f);
+        config.set(ConfigurationUtils.getDoubleConfigOption("cpu.threshold"), 0.9);
+        return config;
+    }
+
+    /**
+     * 编码之后解码的内容一致
+     */
+    @Test
+    public void roundTrip() throws IOException {
+        final Configuration config = createConfiguration();
+
+        final Configuration fromBytes = ConfigurationCodec.fromBytes(ConfigurationCodec.toBytes(config));
+        assert fromBytes.getKeys().equals(config.getKeys());
+        for (String key : config.getKeys()) {
+            assert fromBytes.getRawValue(key).equals(config.getRawValue(key));
+        }
+        assert fromBytes.getRawValue("net.port").orElseThrow().equals(8080);
+        assert fromBytes.getRawValue("net.timeout").orElseThrow().equals(Long.MAX_VALUE);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ConfigurationCodec.write(config, new DataOutputStream(bytes));
+        final Configuration fromStream = ConfigurationCodec.read(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assert fromStream.getKeys().equals(config.getKeys());
+
+        final ByteBuffer buffer = ByteBuffer.allocate(1024);
+        ConfigurationCodec.write(config, buffer);
+        buffer.flip();
+        final Configuration fromBuffer = ConfigurationCodec.read(buffer);
+        assert fromBuffer.getString("net.description", null).equals("配置中文说明");
+        assert !buffer.hasRemaining();
+    }
+
+    /**
+     * 字节数组类型, 没有对应的配置项构建器, 这里直接强制转换配置项类型写入
+     */
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void bytesValue() {
+        final Configuration config = new Configuration();
+        final ConfigOption<byte[]> secret = (ConfigOption) ConfigOptions.key("secret.key").stringType().noDefaultValue();
+        config.set(secret, new byte[]{1, 2, 3});
+        final Configuration copy = ConfigurationCodec.fromBytes(ConfigurationCodec.toBytes(config));
+        assert Arrays.equals((byte[]) copy.getRawValue("secret.key").orElseThrow(), new byte[]{1, 2, 3});
+    }
+
+    /**
+     * 通过 set 写入的列表|Map|时间间隔|内存大小|枚举按照规范文本编码, 解码之后按照配置项读取的值一致
+     */
+    @Test
+    public void typedOptionValues() {
+        final ConfigOption<List<Integer>> ports = ConfigOptions.key("net.ports").intType().asList().noDefaultValues();
+        final ConfigOption<List<Duration>> retries = ConfigOptions.key("net.retries").durationType().asList().noDefaultValues();
+        final ConfigOption<Map<String, String>> tags = ConfigOptions.key("net.tags").mapType().noDefaultValue();
+        final ConfigOption<Duration> timeout = ConfigOptions.key("net.timeout").durationType().noDefaultValue();
+        final ConfigOption<Duration> delay = ConfigOptions.key("net.delay").durationType().noDefaultValue();
+        final ConfigOption<MemorySize> buffer = ConfigOptions.key("net.buffer").memoryType().noDefaultValue();
+        final ConfigOption<TimeUnit> unit = ConfigOptions.key("net.unit").enumType(TimeUnit.class).noDefaultValue();
+
+        final Configuration config = new Configuration();
+        config.set(ports, List.of(1, 2));
+        config.set(retries, List.of(Duration.ofMillis(1500), Duration.ofMinutes(2)));
+        config.set(tags, Map.of("zone", "a;b:c\\d"));
+        config.set(timeout, Duration.ofSeconds(5));
+        config.set(delay, Duration.ofNanos(1_000_001));
+        config.set(buffer, MemorySize.ofBytes(64 * 1024));
+        config.set(unit, TimeUnit.SECONDS);
+
+        final Configuration copy = ConfigurationCodec.fromBytes(ConfigurationCodec.toBytes(config));
+        assert copy.get(ports).equals(List.of(1, 2));
+        assert copy.get(retries).equals(List.of(Duration.ofMillis(1500), Duration.ofMinutes(2)));
+        assert copy.get(tags).equals(Map.of("zone", "a;b:c\\d")) : copy.get(tags);
+        assert copy.get(timeout).equals(Duration.ofSeconds(5));
+        assert copy.get(delay).equals(Duration.ofNanos(1_000_001));
+        assert copy.get(buffer).equals(MemorySize.ofBytes(64 * 1024));
+        assert copy.get(unit) == TimeUnit.SECONDS;
+    }
+
+    /**
+     * 数据被修改之后 CRC 校验失败
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void corrupted() {
+        final byte[] bytes = ConfigurationCodec.toBytes(createConfiguration());
+        bytes[bytes.length / 2] ^= 0x01;
+        ConfigurationCodec.fromBytes(bytes);
+    }
+
+    /**
+     * 长度字段损坏|数据帧不完整时抛出 IllegalArgumentException, 不会按照损坏的长度分配数组
+     */
+    @Test
+    public void malformedFrames() {
+        // 负数长度, 超过剩余字节的长度, 超过5个字节的 varint, 不完整的数据帧
+        assertRejected(frame(0xFF, 0xFF, 0xFF, 0xFF, 0x0F));
+        assertRejected(frame(0xFF, 0xFF, 0xFF, 0x7F));
+        assertRejected(frame(0x80, 0x80, 0x80, 0x80, 0x80, 0x01));
+        final byte[] bytes = ConfigurationCodec.toBytes(createConfiguration());
+        assertRejected(Arrays.copyOf(bytes, bytes.length - 1));
+
+        // CRC 正确但是 payload 之中的字符串长度超出剩余字节
+        final byte[] payload = {1, 0, 0x7F, 'k'};
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+        final ByteBuffer forged = ByteBuffer.allocate(64);
+        forged.put(frame(payload.length)).put(payload).putInt((int) crc.getValue()).flip();
+        assertRejected(Arrays.copyOf(forged.array(), forged.limit()));
+
+        // DataInput 按照最大 payload 长度限制
+        final byte[] large = frame(0xFF, 0xFF, 0xFF, 0x07);
+        try {
+            ConfigurationCodec.read(new DataInputStream(new ByteArrayInputStream(large)), 1024);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("maximum 1024") : e.getMessage();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * 数据帧头部(文件标识|版本)加上指定的长度字节
+     */
+    private static byte[] frame(int... lengthBytes) {
+        final ByteBuffer buffer = ByteBuffer.allocate(5 + lengthBytes.length);
+        buffer.putInt(0x46434647).put((byte) 1);
+        for (int b : lengthBytes) {
+            buffer.put((byte) b);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 从字节数组和 DataInput 解码都抛出 IllegalArgumentException
+     */
+    private static void assertRejected(byte[] bytes) {
+        try {
+            ConfigurationCodec.fromBytes(bytes);
+            assert false : "ByteBuffer decode should fail";
+        } catch (IllegalArgumentException expected) {
+            // 期望的异常
+        }
+        try {
+            ConfigurationCodec.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+            assert false : "DataInput decode should fail";
+        } catch (IllegalArgumentException | EOFException expected) {
+            // 期望的异常, 数据不完整时 DataInput 抛出 EOFException
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
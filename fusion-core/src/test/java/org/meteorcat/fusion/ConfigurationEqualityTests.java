@@ -0,0 +1,86 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+
+import java.util.*;
+
+/**
+ * Configuration 的 hashCode|equals 测试单元
+ */
+public class ConfigurationEqualityTests {
+
+    /**
+     * 内容相同的配置, 无论写入顺序和写入过程, 哈希值相同并且相等
+     */
+    @Test
+    public void sameContent() {
+        final Configuration left = new Configuration();
+        final Configuration right = new Configuration();
+        final List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            order.add(i);
+            left.setString("key-" + i, "value-" + i);
+        }
+        Collections.shuffle(order, new Random(1));
+        for (int i : order) {
+            right.setString("key-" + i, "temporary");
+            right.setString("key-" + i, "value-" + i);
+        }
+        right.setString("extra", "1");
+        right.edit(tx -> tx.remove("extra"));
+
+        assert left.hashCode() == right.hashCode();
+        assert left.equals(right) && right.equals(left);
+        assert left.equals(left.clone());
+        assert new Configuration().equals(new Configuration());
+    }
+
+    /**
+     * 缺少配置或者配置值不同时不相等, 以前只比较对方自己的配置, 这些情况都会判断成相等
+     */
+    @Test
+    public void differentContent() {
+        final Configuration left = new Configuration();
+        left.setString("a", "1");
+        final Configuration right = left.clone();
+        right.setString("b", "2");
+        assert !left.equals(right) && !right.equals(left);
+
+        final Configuration changed = left.clone();
+        changed.setString("a", "2");
+        assert !left.equals(changed);
+        assert left.hashCode() != changed.hashCode();
+
+        // 类型不同的值不相等
+        final Configuration typed = new Configuration();
+        typed.set(ConfigOptions.key("a").intType().noDefaultValue(), 1);
+        assert !left.equals(typed);
+
+        // hashCode 相同的KEY
+        final Configuration aa = new Configuration();
+        aa.setString("Aa", "1");
+        final Configuration bb = new Configuration();
+        bb.setString("BB", "1");
+        assert !aa.equals(bb);
+    }
+
+    /**
+     * byte[] 按照内容比较
+     */
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void bytesValue() {
+        final ConfigOption<byte[]> secret = (ConfigOption) ConfigOptions.key("secret").stringType().noDefaultValue();
+        final Configuration left = new Configuration();
+        final Configuration right = new Configuration();
+        left.set(secret, new byte[]{1, 2, 3});
+        right.set(secret, new byte[]{1, 2, 3});
+        assert left.hashCode() == right.hashCode();
+        assert left.equals(right);
+        right.set(secret, new byte[]{1, 2, 4});
+        assert !left.equals(right);
+    }
+}
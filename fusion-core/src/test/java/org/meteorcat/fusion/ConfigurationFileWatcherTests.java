@@ -0,0 +1,92 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.ConfigurationFileWatcher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 配置文件热加载测试单元
+ */
+public class ConfigurationFileWatcherTests {
+
+    /**
+     * 修改文件之后只写入变化的配置, 删除的配置也会同步删除
+     */
+    @Test
+    public void reloadChangedKeys() throws Exception {
+        final Path directory = Files.createTempDirectory("fusion-watcher");
+        final Path file = directory.resolve("fusion.yaml");
+        Files.writeString(file, "net.hostname: localhost\nnet.port: 8080\nfs.search.enabled: true\n");
+
+        final Configuration config = new Configuration();
+        try (ConfigurationFileWatcher ignore = ConfigurationFileWatcher.watch(config, Duration.ofMillis(50), file)) {
+            assert config.getString("net.port", null).equals("8080");
+
+            Files.writeString(file, "# comment\nnet.hostname: localhost\nnet.port: 9090\n");
+            await(() -> "9090".equals(config.getString("net.port", null)));
+            assert !config.containsKey("fs.search.enabled");
+            assert config.getString("net.hostname", null).equals("localhost");
+        }
+    }
+
+    /**
+     * 多个文件定义相同KEY时, 删除后加载文件之中的KEY会回退到前面文件的值
+     */
+    @Test
+    public void fallbackToEarlierFile() throws Exception {
+        final Path directory = Files.createTempDirectory("fusion-watcher");
+        final Path defaults = directory.resolve("defaults.properties");
+        final Path overrides = directory.resolve("overrides.properties");
+        Files.writeString(defaults, "net.port=80\n");
+        Files.writeString(overrides, "net.port=8080\n");
+
+        final Configuration config = new Configuration();
+        try (ConfigurationFileWatcher ignore = ConfigurationFileWatcher.watch(
+                config, Duration.ofMillis(50), defaults, overrides)) {
+            assert config.getString("net.port", null).equals("8080");
+
+            Files.writeString(overrides, "net.hostname=localhost\n");
+            await(() -> config.containsKey("net.hostname"));
+            assert config.getString("net.port", null).equals("80");
+        }
+    }
+
+    /**
+     * 循环引用的修改被拒绝之后保留上一次的配置, 监听线程继续处理之后的修改
+     */
+    @Test
+    public void rejectCyclicReload() throws Exception {
+        final Path directory = Files.createTempDirectory("fusion-watcher");
+        final Path file = directory.resolve("fusion.properties");
+        Files.writeString(file, "x=1\n");
+
+        final Configuration config = new Configuration();
+        try (ConfigurationFileWatcher ignore = ConfigurationFileWatcher.watch(config, Duration.ofMillis(50), file)) {
+            Files.writeString(file, "x=1\na=${b}\nb=${a}\n");
+            Thread.sleep(500);
+            assert !config.containsKey("a") && !config.containsKey("b");
+
+            Files.writeString(file, "x=2\n");
+            await(() -> "2".equals(config.getString("x", null)));
+            assert !config.containsKey("a") && !config.containsKey("b");
+        }
+    }
+
+    /**
+     * 等待条件满足, 文件监听是异步的
+     */
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within timeout.");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
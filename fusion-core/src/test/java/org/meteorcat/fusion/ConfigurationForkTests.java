@@ -0,0 +1,191 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * 复制配置(clone/复制构造)的测试单元, 复制之后共享存储, 双方的写入互不影响
+ */
+public class ConfigurationForkTests {
+
+    /**
+     * 复制之后双方各自写入, 互相不可见
+     */
+    @Test
+    public void forkIsolation() {
+        final Configuration base = new Configuration();
+        for (int i = 0; i < 1000; i++) {
+            base.setString("fusion.key-" + i, "value-" + i);
+        }
+        final Configuration fork = base.clone();
+        final Configuration copy = new Configuration(base);
+        fork.setString("fusion.key-1", "fork");
+        fork.setString("fusion.extra", "fork");
+        base.setString("fusion.key-2", "base");
+
+        assert base.getString("fusion.key-1", null).equals("value-1");
+        assert !base.containsKey("fusion.extra");
+        assert fork.getString("fusion.key-2", null).equals("value-2");
+        assert fork.getKeys().size() == 1001;
+        assert copy.getString("fusion.key-1", null).equals("value-1");
+        assert copy.getString("fusion.key-2", null).equals("value-2");
+    }
+
+    /**
+     * 随机写入和前缀删除, 其中包含大量 hashCode 相同的KEY, 每一步都和 HashMap 对比, 已经复制出去的配置保持不变
+     */
+    @Test
+    public void randomWritesAgainstHashMap() {
+        final Random random = new Random(7);
+        final String[] prefixes = {"Aa", "BB", "AaBB", "BBAa", "AaAa", "BBBB", "job", "job.name"};
+        final Configuration config = new Configuration();
+        final Map<String, Object> expected = new HashMap<>();
+        final List<Configuration> forks = new ArrayList<>();
+        final List<Map<String, Object>> forkExpected = new ArrayList<>();
+
+        for (int step = 0; step < 5000; step++) {
+            final String prefix = prefixes[random.nextInt(prefixes.length)];
+            if (random.nextInt(20) == 0) {
+                final ConfigOption<Map<String, String>> option = ConfigOptions.key(prefix).mapType().noDefaultValue();
+                config.set(option, Collections.singletonMap("k", "v" + step));
+                ConfigurationUtils.removePrefixMap(expected, prefix);
+                expected.put(prefix, Collections.singletonMap("k", "v" + step));
+            } else {
+                final String key = prefix + "." + random.nextInt(200);
+                config.setString(key, "v" + step);
+                expected.put(key, "v" + step);
+            }
+            if (step % 500 == 0) {
+                forks.add(config.clone());
+                forkExpected.add(new HashMap<>(expected));
+            }
+        }
+
+        assertSame(config, expected);
+        for (int i = 0; i < forks.size(); i++) {
+            assertSame(forks.get(i), forkExpected.get(i));
+        }
+    }
+
+    /**
+     * 序列化之后的配置内容一致
+     */
+    @Test
+    public void serialization() throws IOException, ClassNotFoundException {
+        final Configuration config = new Configuration();
+        config.setString("net.hostname", "localhost");
+        config.setString("Aa", "1");
+        config.setString("BB", "2");
+        config.set(ConfigOptions.key("net.port").intType().noDefaultValue(), 8080);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(config);
+        }
+        final Configuration restored;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = (Configuration) in.readObject();
+        }
+
+        assert restored.getKeys().equals(config.getKeys());
+        assert restored.getRawValue("net.port").orElseThrow().equals(8080);
+        assert restored.getString("BB", null).equals("2");
+        restored.setString("Aa", "changed");
+        assert config.getString("Aa", null).equals("1");
+    }
+
+    /**
+     * 子类通过同一个代理序列化, 反序列化得到 Configuration
+     */
+    @Test
+    public void subclassSerialization() throws IOException, ClassNotFoundException {
+        final Configuration config = new Configuration() {
+        };
+        config.setString("net.hostname", "localhost");
+
+        final Object restored = deserialize(serialize(config));
+        assert restored.getClass() == Configuration.class;
+        assert ((Configuration) restored).getString("net.hostname", null).equals("localhost");
+    }
+
+    /**
+     * 旧版本直接写入 HashMap configs 字段的序列化数据仍然可以读取
+     */
+    @Test
+    public void legacySerialization() throws IOException, ClassNotFoundException {
+        final LegacyConfiguration legacy = new LegacyConfiguration();
+        legacy.configs.put("net.hostname", "localhost");
+        legacy.configs.put("net.port", 8080);
+
+        // 把类描述之中的类名替换成 Configuration, 得到和旧版本一致的序列化数据
+        final byte[] bytes = replaceClassName(serialize(legacy),
+                LegacyConfiguration.class.getName(), Configuration.class.getName());
+        final Configuration restored = (Configuration) deserialize(bytes);
+        assert restored.getKeys().equals(Set.of("net.hostname", "net.port"));
+        assert restored.getRawValue("net.port").orElseThrow().equals(8080);
+        restored.setString("net.hostname", "changed");
+        assert restored.getString("net.hostname", null).equals("changed");
+    }
+
+    /**
+     * 旧版本 Configuration 的字段布局
+     */
+    private static final class LegacyConfiguration implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final HashMap<String, Object> configs = new HashMap<>();
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     * 替换序列化数据之中以 writeUTF 写入的类名, 类描述之间按照序号引用, 长度变化不影响其他内容
+     */
+    private static byte[] replaceClassName(byte[] bytes, String from, String to) throws IOException {
+        final ByteArrayOutputStream source = new ByteArrayOutputStream();
+        new DataOutputStream(source).writeUTF(from);
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        new DataOutputStream(target).writeUTF(to);
+        final byte[] pattern = source.toByteArray();
+        for (int i = 0; i + pattern.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + pattern.length, pattern, 0, pattern.length)) {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                out.write(bytes, 0, i);
+                out.write(target.toByteArray());
+                out.write(bytes, i + pattern.length, bytes.length - i - pattern.length);
+                return out.toByteArray();
+            }
+        }
+        throw new AssertionError("Class name not found: " + from);
+    }
+
+    /**
+     * 配置内容和期望的集合一致
+     */
+    private static void assertSame(Configuration config, Map<String, Object> expected) {
+        assert config.getKeys().equals(expected.keySet()) : config.getKeys() + " != " + expected.keySet();
+        for (Map.Entry<String, Object> entry : expected.entrySet()) {
+            assert config.getRawValue(entry.getKey()).orElseThrow().equals(entry.getValue()) : entry.getKey();
+        }
+    }
+}
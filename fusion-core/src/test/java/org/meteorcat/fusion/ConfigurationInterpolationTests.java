@@ -0,0 +1,159 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 配置值 ${var} 模板的测试单元
+ */
+public class ConfigurationInterpolationTests {
+
+    private static final ConfigOption<String> CHECKPOINT_DIR = ConfigOptions.key("state.checkpoint-dir")
+            .stringType()
+            .noDefaultValue()
+            .withFallbackKeys("checkpoint.dir");
+
+    /**
+     * 引用其他KEY|环境变量|系统属性, 以及转义和不存在的引用
+     */
+    @Test
+    public void references() {
+        final String property = "fusion-test-" + System.nanoTime();
+        System.setProperty(property, "sys-value");
+        try {
+            final Configuration config = new Configuration();
+            config.setString("base.dir", "/data");
+            config.setString("checkpoint.dir", "${base.dir}/checkpoints");
+            config.setString("system", "${sys:" + property + "}");
+            config.setString("escaped", "$${base.dir}");
+            config.setString("missing", "${not.exists}/x");
+            config.setString("unclosed", "${base.dir");
+
+            assert config.getString("checkpoint.dir", null).equals("/data/checkpoints");
+            assert config.get(CHECKPOINT_DIR).equals("/data/checkpoints");
+            assert config.getString("system", null).equals("sys-value");
+            assert config.getString("escaped", null).equals("${base.dir}");
+            assert config.getString("missing", null).equals("${not.exists}/x");
+            assert config.getString("unclosed", null).equals("${base.dir");
+
+            final String path = System.getenv("PATH");
+            config.setString("path", "${env:PATH}");
+            assert path == null || config.getString("path", null).equals(path);
+        } finally {
+            System.clearProperty(property);
+        }
+    }
+
+    /**
+     * 嵌套引用, 写入被引用的KEY之后依赖它的KEY(包括间接依赖)重新渲染
+     */
+    @Test
+    public void dependentInvalidation() {
+        final Configuration config = new Configuration();
+        config.setString("root", "/data");
+        config.setString("base.dir", "${root}/fusion");
+        config.setString("checkpoint.dir", "${base.dir}/checkpoints");
+        config.setString("other", "${root}");
+        assert config.getString("checkpoint.dir", null).equals("/data/fusion/checkpoints");
+        assert config.getString("other", null).equals("/data");
+
+        config.setString("root", "/mnt");
+        assert config.getString("checkpoint.dir", null).equals("/mnt/fusion/checkpoints");
+        assert config.getString("base.dir", null).equals("/mnt/fusion");
+
+        // 引用的KEY不存在时保留原样, 写入之后重新渲染
+        config.setString("log.file", "${log.dir}/fusion.log");
+        assert config.getString("log.file", null).equals("${log.dir}/fusion.log");
+        config.edit(tx -> tx.setString("log.dir", "/var/log"));
+        assert config.getString("log.file", null).equals("/var/log/fusion.log");
+        config.edit(tx -> tx.remove("log.dir"));
+        assert config.getString("log.file", null).equals("${log.dir}/fusion.log");
+
+        // 原始值保持不变
+        assert config.getRawValue("checkpoint.dir").orElseThrow().equals("${base.dir}/checkpoints");
+    }
+
+    /**
+     * 写入时拒绝循环引用, 拒绝之后配置保持不变
+     */
+    @Test
+    public void cyclesRejected() {
+        final Configuration config = new Configuration();
+        config.setString("a", "${b}");
+        config.setString("b", "/data");
+        try {
+            config.setString("b", "${c}/x");
+            config.setString("c", "${a}");
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("c -> a -> b -> c");
+        }
+        assert config.getString("a", null).equals("${c}/x");
+        assert !config.containsKey("c");
+
+        try {
+            config.edit(tx -> tx.setString("self", "${self}"));
+            assert false;
+        } catch (IllegalArgumentException ignored) {
+        }
+        assert !config.containsKey("self");
+
+        try {
+            Configuration.fromMap(Map.of("x", "${y}", "y", "${x}"));
+            assert false;
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    /**
+     * 冻结|共享|分层的只读视图读取到的模板值和 Configuration 一致, 分层时可以跨层引用
+     */
+    @Test
+    public void views() throws Exception {
+        final Configuration config = new Configuration();
+        config.setString("base", "/opt");
+        config.setString("dir", "${base}/data");
+
+        assert config.getString("dir", null).equals("/opt/data");
+        assert config.freeze().getString("dir", null).equals("/opt/data");
+        assert config.freeze().get(CHECKPOINT_DIR.withFallbackKeys("dir")).equals("/opt/data");
+
+        final Path file = Files.createTempFile("fusion-shared", ".conf");
+        try {
+            SharedConfiguration.publish(config, file);
+            try (SharedConfiguration shared = SharedConfiguration.open(file)) {
+                assert shared.getString("dir", null).equals("/opt/data");
+                assert shared.getString("base", null).equals("/opt");
+            }
+        } finally {
+            Files.delete(file);
+        }
+
+        final Configuration defaults = new Configuration();
+        defaults.setString("base", "/usr");
+        defaults.setString("log.dir", "${base}/log");
+        final Configuration job = new Configuration();
+        job.setString("base", "/srv");
+        final LayeredConfiguration layered = LayeredConfiguration.of(defaults, job);
+        // 下层的模板引用上层覆盖之后的值
+        assert layered.getString("log.dir", null).equals("/srv/log");
+        job.setString("base", "/home");
+        assert layered.getString("log.dir", null).equals("/home/log");
+
+        // 单独每层没有循环, 叠加之后跨层形成循环
+        defaults.setString("a", "${b}");
+        job.setString("b", "${a}");
+        try {
+            layered.getString("a", null);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("a -> b -> a") : e.getMessage();
+        }
+        assert LayeredConfiguration.of(List.of(config), List.of()).getString("dir", null).equals("/opt/data");
+    }
+}
@@ -0,0 +1,62 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 列表配置编码的测试单元
+ */
+public class ConfigurationListTests {
+
+    private static final ConfigOption<List<Integer>> PORTS = ConfigOptions.key("application.ports")
+            .intType()
+            .asList()
+            .defaultValues(8000, 8001);
+
+    private static final ConfigOption<List<Double>> BUCKETS = ConfigOptions.key("metrics.buckets")
+            .doubleType()
+            .asList()
+            .noDefaultValues();
+
+    /**
+     * 编码之后可以原样解码, 包括分隔符|转义符|空元素
+     */
+    @Test
+    public void encodeDecode() {
+        final List<String> values = List.of("a;b", "c\\d", "", "plain", "\\;");
+        final String encoded = ConfigurationUtils.encodeList(values);
+        assert ConfigurationUtils.decodeList(encoded).equals(values) : encoded;
+        assert ConfigurationUtils.decodeList("").isEmpty();
+        assert ConfigurationUtils.decodeList("x;y").equals(List.of("x", "y"));
+        assert ConfigurationUtils.decodeList("trailing\\").equals(List.of("trailing\\"));
+    }
+
+    /**
+     * 列表配置和数值数组读取
+     */
+    @Test
+    public void typedLists() {
+        final Configuration config = new Configuration();
+        assert Arrays.equals(config.getIntArray(PORTS), new int[]{8000, 8001});
+
+        config.setString("application.ports", "9000; 9001;9002");
+        assert config.get(PORTS).equals(List.of(9000, 9001, 9002));
+        assert config.get(PORTS) == config.get(PORTS);
+        final int[] ports = config.getIntArray(PORTS);
+        assert Arrays.equals(ports, new int[]{9000, 9001, 9002});
+        ports[0] = 0;
+        assert config.getIntArray(PORTS)[0] == 9000;
+
+        config.setString("metrics.buckets", "0.5;1;2.5");
+        assert Arrays.equals(config.getDoubleArray(BUCKETS), new double[]{0.5, 1, 2.5});
+        config.set(BUCKETS, List.of(0.1, 0.2));
+        assert Arrays.equals(config.getDoubleArray(BUCKETS), new double[]{0.1, 0.2});
+        assert ConfigurationUtils.convertToLongArray("1;2;3").length == 3;
+    }
+}
@@ -0,0 +1,114 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.ConfigurationLoader;
+
+import java.io.StringReader;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 流式配置加载的测试单元
+ */
+public class ConfigurationLoaderTests {
+
+    /**
+     * properties 解析结果和 java.util.Properties 一致, 包括续行、转义和各种分隔符
+     */
+    @Test
+    public void loadProperties() throws Exception {
+        final String content = """
+                # comment
+                ! another comment
+                net.hostname = localhost
+                net.port:8080
+                net.name\tfusion
+                  fs.path = /tmp/\\
+                      fusion
+                escaped\\ key = a\\tb\\u4e2d
+                empty.value =
+                """;
+        final Configuration config = new Configuration();
+        ConfigurationLoader.loadProperties(new StringReader(content), config);
+
+        final Properties expected = new Properties();
+        expected.load(new StringReader(content));
+        assert config.getKeys().equals(expected.stringPropertyNames());
+        for (String name : expected.stringPropertyNames()) {
+            assert config.getString(name, null).equals(expected.getProperty(name)) : name;
+        }
+    }
+
+    /**
+     * 嵌套 YAML 按照 '.' 展开, 列表按照 ';' 拼接
+     */
+    @Test
+    public void loadNestedYaml() throws Exception {
+        final String content = """
+                # comment
+                jobmanager.rpc.address: localhost
+                taskmanager:
+                  memory:
+                    process.size: 1728m   # comment
+                  numberOfTaskSlots: 4
+                application:
+                  ports:
+                    - 8000
+                    - '8001'
+                  tags: [a, "b, c"]
+                  name: "fusion # server"
+                  url: http://localhost:8080
+                avro: {schema: 1, other-prop: 2}
+                parallelism.default: 1
+                """;
+        final Configuration config = new Configuration();
+        ConfigurationLoader.loadYaml(new StringReader(content), config);
+
+        assert config.getString("jobmanager.rpc.address", null).equals("localhost");
+        assert config.getString("taskmanager.memory.process.size", null).equals("1728m");
+        assert config.getString("taskmanager.numberOfTaskSlots", null).equals("4");
+        assert config.getString("application.ports", null).equals("8000;8001");
+        assert config.getString("application.tags", null).equals("a;b, c");
+        assert config.getString("application.name", null).equals("fusion # server");
+        assert config.getString("application.url", null).equals("http://localhost:8080");
+        assert config.getString("avro.schema", null).equals("1");
+        assert config.getString("avro.other-prop", null).equals("2");
+        assert config.getString("parallelism.default", null).equals("1");
+        assert config.getKeys().size() == 10;
+    }
+
+    /**
+     * 不支持的 YAML 语法抛出带行号的异常
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedYaml() throws Exception {
+        ConfigurationLoader.loadYaml(new StringReader("key: |\n  multi\n  line\n"), new Configuration());
+    }
+
+    /**
+     * 解析失败|循环引用时目标配置保持不变, 原始异常不会被掩盖
+     */
+    @Test
+    public void failedLoadKeepsTarget() throws Exception {
+        final Configuration config = new Configuration();
+        config.setString("net.hostname", "localhost");
+
+        try {
+            ConfigurationLoader.loadYaml(new StringReader("net.port: 8080\nkey: |\n  multi\n"), config);
+            assert false;
+        } catch (IllegalArgumentException expected) {
+            // 期望的异常
+        }
+        assert config.getKeys().equals(Set.of("net.hostname")) : config.getKeys();
+
+        // 解析到一半时失败, 即使已经写入的配置形成循环引用, 抛出的仍然是解析异常
+        try {
+            ConfigurationLoader.loadYaml(new StringReader("a: ${b}\nb: ${a}\nkey: |\n  multi\n"), config);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert !e.getMessage().contains("Cyclic") : e.getMessage();
+        }
+        assert config.getKeys().equals(Set.of("net.hostname")) : config.getKeys();
+    }
+}
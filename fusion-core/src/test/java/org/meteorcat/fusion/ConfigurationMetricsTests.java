@@ -0,0 +1,86 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.*;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * 配置访问统计的测试单元
+ */
+public class ConfigurationMetricsTests {
+
+    private static final ConfigOption<Integer> PORT = ConfigOptions.key("net.port")
+            .intType()
+            .defaultValue(8080)
+            .withDeprecatedKeys("port");
+
+    private static final ConfigOption<String> HOSTNAME = ConfigOptions.key("net.hostname")
+            .stringType()
+            .noDefaultValue()
+            .withFallbackKeys("hostname");
+
+    private static final ConfigOption<Map<String, String>> PROPERTIES = ConfigOptions.key("avro.properties")
+            .mapType()
+            .noDefaultValue();
+
+    /**
+     * 采样率为 1 时精确统计读取|未命中|fallback 命中|写入|前缀扫描
+     */
+    @Test
+    public void exactCounts() {
+        final Configuration config = new Configuration();
+        final ConfigurationMetrics metrics = config.enableMetrics(1);
+        assert config.enableMetrics() == metrics;
+
+        config.setString("port", "9000");
+        config.setString("hostname", "localhost");
+        config.setString("avro.properties.schema", "user");
+        assert metrics.getWriteCount() == 3;
+
+        for (int i = 0; i < 5; i++) {
+            assert config.getInt(PORT) == 9000;
+        }
+        assert config.get(HOSTNAME).equals("localhost");
+        assert config.get(PROPERTIES).equals(Map.of("schema", "user"));
+        assert config.getString("missing", null) == null;
+
+        assert metrics.getReadCount() == 8;
+        assert metrics.getMissCount() == 1;
+        assert metrics.getDeprecatedKeyHitCount() == 5;
+        assert metrics.getFallbackKeyHitCount() == 1;
+        assert metrics.getPrefixMapScanCount() == 1;
+        assert metrics.getKeyCount() == 3;
+        assert metrics.getHotKeys()[0].equals("net.port=5") : String.join(",", metrics.getHotKeys());
+
+        metrics.reset();
+        assert metrics.getReadCount() == 0 && metrics.getHotKeys().length == 0;
+
+        config.disableMetrics();
+        config.getInt(PORT);
+        assert config.metrics() == null && metrics.getReadCount() == 0;
+    }
+
+    /**
+     * 注册成 MXBean 之后可以通过平台 MBeanServer 读取
+     */
+    @Test
+    public void registerMXBean() throws Exception {
+        final Configuration config = new Configuration();
+        final ConfigurationMetrics metrics = config.enableMetrics();
+        final ObjectName name = metrics.register("metrics-test");
+        try {
+            config.setString("net.port", "9000");
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assert server.isRegistered(name);
+            assert (Long) server.getAttribute(name, "WriteCount") == 1L;
+            assert (Integer) server.getAttribute(name, "SampleRate") == ConfigurationMetrics.DEFAULT_SAMPLE_RATE;
+        } finally {
+            config.disableMetrics();
+        }
+        assert !ManagementFactory.getPlatformMBeanServer().isRegistered(name);
+    }
+}
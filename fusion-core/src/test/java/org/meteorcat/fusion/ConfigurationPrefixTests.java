@@ -0,0 +1,97 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.util.ConfigurationUtils;
+
+import java.util.*;
+
+/**
+ * 前缀配置(prefix map)的测试单元, 对比有序索引和原先遍历所有KEY的结果是否一致
+ */
+public class ConfigurationPrefixTests {
+
+    /**
+     * 容易出现边界问题的KEY, 包括和前缀字符相邻的 '-', '/' 以及末尾的最大字符
+     */
+    private static final String[] KEYS = {
+            "avro",
+            "avro.properties",
+            "avro.properties.schema",
+            "avro.properties.other-prop",
+            "avro.properties.nested.deep",
+            "avro.properties-other",
+            "avro.properties/slash",
+            "avro.propertiesx",
+            "avro.properties.￿",
+            "avro.propertie",
+            "b.properties.schema",
+    };
+
+    /**
+     * 读取前缀配置, 和 ConfigurationUtils.convertToPropertiesPrefixed 遍历的结果一致
+     */
+    @Test
+    public void readPrefixMap() {
+        final Configuration config = new Configuration();
+        final Map<String, Object> expected = new HashMap<>();
+        for (String key : KEYS) {
+            config.setString(key, key + "-value");
+            expected.put(key, key + "-value");
+        }
+
+        for (String key : KEYS) {
+            final Map<String, String> prefixed = ConfigurationUtils.convertToPropertiesPrefixed(expected, key);
+            final Map<String, String> actual = prefixMapOf(config, key);
+            assert actual.equals(prefixed) : key + ": " + actual + " != " + prefixed;
+        }
+    }
+
+    /**
+     * 写入 mapType 配置会删除原先的前缀配置, 和 ConfigurationUtils.removePrefixMap 的结果一致
+     */
+    @Test
+    public void overwritePrefixMap() {
+        final Random random = new Random(42);
+        for (int round = 0; round < 100; round++) {
+            final Configuration config = new Configuration();
+            final Map<String, Object> expected = new HashMap<>();
+            for (int i = 0; i < 50; i++) {
+                final String key = KEYS[random.nextInt(KEYS.length)] + (random.nextBoolean() ? "" : "." + i);
+                config.setString(key, "v" + i);
+                expected.put(key, "v" + i);
+            }
+
+            final String target = KEYS[random.nextInt(KEYS.length)];
+            final ConfigOption<Map<String, String>> option = ConfigOptions.key(target).mapType().noDefaultValue();
+            config.set(option, Collections.singletonMap("k", "v"));
+            ConfigurationUtils.removePrefixMap(expected, target);
+            expected.put(target, Collections.singletonMap("k", "v"));
+
+            assert config.getKeys().equals(expected.keySet()) : config.getKeys() + " != " + expected.keySet();
+            for (String key : expected.keySet()) {
+                assert config.getRawValue(key).orElseThrow().equals(expected.get(key));
+            }
+        }
+    }
+
+    /**
+     * 去掉精确KEY之后按照前缀读取, 否则精确KEY存在时会直接返回精确KEY的值
+     */
+    private static Map<String, String> prefixMapOf(Configuration config, String key) {
+        final Configuration copy = new Configuration();
+        for (String k : config.getKeys()) {
+            if (!k.equals(key)) {
+                copy.setString(k, (String) config.getRawValue(k).orElseThrow());
+            }
+        }
+        return copy.getRawValue(key, true)
+                .map(value -> {
+                    @SuppressWarnings("unchecked") final Map<String, String> map = (Map<String, String>) value;
+                    return map;
+                })
+                .orElse(Collections.emptyMap());
+    }
+}
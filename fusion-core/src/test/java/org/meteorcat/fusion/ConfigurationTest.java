@@ -1,7 +1,9 @@
 package org.meteorcat.fusion;
 
 import org.junit.Test;
+import org.meteorcat.fusion.configuration.CompiledOption;
 import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
 import org.meteorcat.fusion.configuration.Configuration;
 import org.meteorcat.fusion.util.ConfigurationUtils;
 
@@ -40,4 +42,79 @@ public class ConfigurationTest {
         System.out.println(configuration);
     }
 
+
+    /**
+     * 编译配置项访问器, 写入之后读取到最新的值
+     */
+    @Test
+    public void compileConfigOption() {
+        Configuration config = new Configuration();
+        ConfigOption<Integer> parallelism = ConfigOptions
+                .key("application.parallelism")
+                .intType()
+                .defaultValue(1)
+                .withDeprecatedKeys("parallelism");
+        CompiledOption<Integer> compiled = config.compile(parallelism);
+        assert compiled.get() == 1;
+        assert compiled.getOptional().isEmpty();
+
+        // 通过过时的KEY写入
+        config.setString("parallelism", "8");
+        assert compiled.get() == 8;
+
+        // 主KEY优先于过时的KEY
+        config.set(parallelism, 16);
+        assert compiled.get() == 16;
+        assert compiled.get() == 16;
+    }
+
+    /**
+     * 原生类型读写
+     */
+    @Test
+    public void primitiveGetters() {
+        Configuration config = new Configuration();
+        ConfigOption<Integer> port = ConfigOptions.key("net.port").intType().defaultValue(80);
+        ConfigOption<Long> timeout = ConfigOptions.key("net.timeout").longType().noDefaultValue();
+        ConfigOption<Boolean> enabled = ConfigOptions.key("net.enabled").booleanType().defaultValue(false);
+        assert config.getInt(port) == 80;
+        assert config.getLong(timeout, 30L) == 30L;
+
+        config.setInt(port, 8080);
+        config.setString("net.timeout", "60000");
+        config.setString("net.enabled", "TRUE");
+        assert config.getInt(port) == 8080;
+        assert config.getLong(timeout) == 60000L;
+        assert config.getBoolean(enabled);
+    }
+
+    /**
+     * 按照配置项读取, 过时的KEY被主KEY覆盖之后能够读取到最新的值
+     */
+    @Test
+    public void readConfigOption() {
+        Configuration config = new Configuration();
+        ConfigOption<Double> threshold = ConfigOptions
+                .key("cpu.utilization.threshold")
+                .doubleType()
+                .defaultValue(0.9)
+                .withFallbackKeys("cpu.utilization")
+                .withDeprecatedKeys("cpu.threshold");
+        assert config.get(threshold) == 0.9;
+        assert config.getOptional(threshold).isEmpty();
+
+        config.setString("cpu.threshold", "0.5");
+        assert config.get(threshold) == 0.5;
+
+        // 写入无关的KEY不影响解析结果
+        config.setString("cpu.cores", "4");
+        assert config.get(threshold) == 0.5;
+
+        // 优先级更高的 fallback key 和主KEY依次覆盖
+        config.setString("cpu.utilization", "0.6");
+        assert config.get(threshold) == 0.6;
+        config.set(threshold, 0.7);
+        assert config.getOptional(threshold).orElseThrow() == 0.7;
+    }
+
 }
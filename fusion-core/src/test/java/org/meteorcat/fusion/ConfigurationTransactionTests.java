@@ -0,0 +1,162 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.ConfigurationTransaction;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * 批量修改事务以及 addAll 的测试单元
+ */
+public class ConfigurationTransactionTests {
+
+    private static final ConfigOption<Integer> PORT = ConfigOptions.key("net.port")
+            .intType()
+            .defaultValue(80)
+            .withFallbackKeys("net.legacy-port");
+
+    private static final ConfigOption<Map<String, String>> AVRO = ConfigOptions.key("avro.properties")
+            .mapType()
+            .noDefaultValue();
+
+    /**
+     * 写入|删除|前缀删除一次性生效, 解析缓存跟着失效
+     */
+    @Test
+    public void applyBatch() {
+        final Configuration config = new Configuration();
+        config.setString("net.legacy-port", "8000");
+        config.setString("avro.properties.schema", "s");
+        config.setString("avro.properties.other", "o");
+        config.setString("tmp.dir", "/tmp");
+        assert config.get(PORT) == 8000;
+
+        config.edit(tx -> {
+            assert tx.remove(PORT);
+            assert !tx.containsKey("net.legacy-port");
+            tx.setString("net.hostname", "localhost")
+                    .set(AVRO, Collections.singletonMap("k", "v"));
+            assert !tx.remove("missing");
+            assert !tx.removePrefixMap("tmp.dir");
+        });
+
+        assert config.get(PORT) == 80;
+        assert config.getString("net.hostname", null).equals("localhost");
+        assert !config.containsKey("avro.properties.schema");
+        assert !config.containsKey("avro.properties.other");
+        assert config.get(AVRO).equals(Collections.singletonMap("k", "v"));
+        assert config.getKeys().size() == 3;
+
+        config.edit(tx -> tx.setString("net.port", "9000"));
+        assert config.get(PORT) == 9000;
+    }
+
+    /**
+     * 回调抛出异常时所有修改都会丢弃, 事务结束之后不能继续使用
+     */
+    @Test
+    public void rollbackOnFailure() {
+        final Configuration config = new Configuration();
+        config.setString("a", "1");
+        try {
+            config.edit(tx -> {
+                tx.setString("a", "2").setString("b", "2");
+                throw new IllegalStateException("abort");
+            });
+            assert false;
+        } catch (IllegalStateException e) {
+            assert e.getMessage().equals("abort");
+        }
+        assert config.getString("a", null).equals("1");
+        assert !config.containsKey("b");
+
+        final ConfigurationTransaction[] escaped = new ConfigurationTransaction[1];
+        config.edit(tx -> escaped[0] = tx);
+        try {
+            escaped[0].setString("c", "3");
+            assert false;
+        } catch (IllegalStateException expected) {
+            assert !config.containsKey("c");
+        }
+    }
+
+    /**
+     * 回调之内直接写入当前配置会抛出 IllegalStateException, 事务被丢弃, 写入其他配置不受影响
+     */
+    @Test
+    public void directWriteDuringEdit() {
+        final Configuration config = new Configuration();
+        config.setString("a", "1");
+        final Configuration other = new Configuration();
+        try {
+            config.edit(tx -> {
+                tx.setString("b", "2");
+                other.setString("c", "3");
+                config.setString("a", "direct");
+            });
+            assert false;
+        } catch (IllegalStateException e) {
+            assert e.getMessage().contains("ConfigurationTransaction") : e.getMessage();
+        }
+        assert config.getString("a", null).equals("1");
+        assert !config.containsKey("b");
+        assert other.getString("c", null).equals("3");
+
+        // 嵌套 edit 以及其他写入入口同样被拒绝
+        try {
+            config.edit(tx -> config.edit(nested -> nested.setString("x", "1")));
+            assert false;
+        } catch (IllegalStateException expected) {
+            assert !config.containsKey("x");
+        }
+        try {
+            config.edit(tx -> config.addAll(other));
+            assert false;
+        } catch (IllegalStateException expected) {
+            assert !config.containsKey("c");
+        }
+
+        // 回调结束之后恢复正常写入
+        config.setString("a", "after");
+        assert config.getString("a", null).equals("after");
+    }
+
+    /**
+     * 两个配置同时互相 addAll 不会死锁
+     */
+    @Test(timeout = 30_000)
+    public void concurrentAddAll() throws Exception {
+        final Configuration left = new Configuration();
+        final Configuration right = new Configuration();
+        left.setString("left", "1");
+        right.setString("right", "1");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final CyclicBarrier barrier = new CyclicBarrier(2);
+            final Future<?> a = executor.submit(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    left.addAll(right, "r.");
+                }
+                return barrier.await();
+            });
+            final Future<?> b = executor.submit(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    right.addAll(left);
+                }
+                return barrier.await();
+            });
+            a.get();
+            b.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assert left.containsKey("r.right");
+        assert right.containsKey("left");
+    }
+}
@@ -0,0 +1,104 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 配置整体检查的测试单元
+ */
+public class ConfigurationValidatorTests {
+
+    private static final ConfigOption<String> HOSTNAME = ConfigOptions.key("net.hostname")
+            .stringType()
+            .noDefaultValue();
+
+    private static final ConfigOption<Integer> PORT = ConfigOptions.key("net.port")
+            .intType()
+            .defaultValue(8080)
+            .withDeprecatedKeys("port");
+
+    private static final ConfigOption<List<Integer>> PORTS = ConfigOptions.key("net.ports")
+            .intType()
+            .asList()
+            .noDefaultValues();
+
+    private static final ConfigOption<Map<String, String>> AVRO_PROPERTIES = ConfigOptions.key("avro.properties")
+            .mapType()
+            .noDefaultValue();
+
+    private static ConfigurationValidator validator() {
+        return ConfigurationValidator.builder()
+                .required(HOSTNAME)
+                .range(PORT, 1, 65535)
+                .check(PORTS, ports -> !ports.isEmpty(), "At least one port is required.")
+                .option(AVRO_PROPERTIES)
+                .build();
+    }
+
+    /**
+     * 一次返回所有违规
+     */
+    @Test
+    public void reportsAllViolations() {
+        final Configuration config = new Configuration();
+        config.setString("port", "70000");
+        config.setString("net.ports", "80;abc");
+        config.setString("avro.properties.schema", "user");
+        config.setString("net.unknown", "x");
+
+        final List<ConfigurationValidator.Violation> violations = validator().validate(config);
+        final List<String> kinds = new ArrayList<>();
+        violations.forEach(violation -> kinds.add(violation.key() + ":" + violation.kind()));
+        assert kinds.equals(List.of(
+                "net.hostname:REQUIRED",
+                "net.ports:TYPE",
+                "net.unknown:UNKNOWN",
+                "port:DEPRECATED",
+                "port:RANGE")) : kinds;
+
+        try {
+            validator().validateOrThrow(config);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("5 violation(s)");
+        }
+
+        config.setString("net.hostname", "localhost");
+        config.setString("net.ports", "80;443");
+        config.edit(tx -> {
+            tx.remove("port");
+            tx.remove("net.unknown");
+        });
+        validator().validateOrThrow(config);
+    }
+
+    /**
+     * 配置数量较多时并行检查, 结果和顺序检查一致
+     */
+    @Test
+    public void parallelValidation() {
+        final Configuration config = new Configuration();
+        config.edit(tx -> {
+            tx.setString("net.hostname", "localhost");
+            for (int i = 0; i < 20_000; i++) {
+                tx.setString("avro.properties.key-" + i, "value-" + i);
+            }
+            tx.setString("net.port", "0");
+            tx.setString("zzz.unknown", "x");
+        });
+        final List<ConfigurationValidator.Violation> violations = validator().validate(config);
+        assert violations.size() == 2 : violations;
+        assert violations.get(0).key().equals("net.port");
+        assert violations.get(1).key().equals("zzz.unknown");
+        assert ConfigurationValidator.builder()
+                .allowUnknownKeys(true)
+                .range(PORT, 1, 65535)
+                .build()
+                .validate(config)
+                .size() == 1;
+    }
+}
@@ -0,0 +1,105 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.FrozenConfiguration;
+
+import java.io.*;
+import java.util.Map;
+
+/**
+ * 冻结配置的测试单元
+ */
+public class FrozenConfigurationTests {
+
+    /**
+     * 冻结之后所有KEY都能读取, 不存在的KEY返回空
+     */
+    @Test
+    public void lookupAllKeys() {
+        for (int size : new int[]{0, 1, 2, 3, 10, 1000, 50_000}) {
+            final Configuration config = new Configuration(size);
+            for (int i = 0; i < size; i++) {
+                config.setString("fusion.key-" + i, "value-" + i);
+            }
+            final FrozenConfiguration frozen = config.freeze();
+            assert frozen.size() == size;
+            for (int i = 0; i < size; i++) {
+                assert frozen.getString("fusion.key-" + i, null).equals("value-" + i);
+            }
+            assert !frozen.containsKey("fusion.key-" + size);
+            assert frozen.getRawValue("missing").isEmpty();
+        }
+    }
+
+    /**
+     * hashCode 相同的KEY("Aa" 和 "BB")也能区分
+     */
+    @Test
+    public void hashCollision() {
+        final Configuration config = new Configuration();
+        config.setString("Aa", "1");
+        config.setString("BB", "2");
+        config.setString("AaAa", "3");
+        config.setString("BBBB", "4");
+        config.setString("AaBB", "5");
+        final FrozenConfiguration frozen = config.freeze();
+        assert frozen.getString("Aa", null).equals("1");
+        assert frozen.getString("BB", null).equals("2");
+        assert frozen.getString("AaAa", null).equals("3");
+        assert frozen.getString("BBBB", null).equals("4");
+        assert frozen.getString("AaBB", null).equals("5");
+        assert !frozen.containsKey("BBAa");
+    }
+
+    /**
+     * 配置项读取, 包括 fallback key 和前缀配置
+     */
+    @Test
+    public void readConfigOption() {
+        final ConfigOption<Integer> port = ConfigOptions.key("net.port").intType().defaultValue(80)
+                .withDeprecatedKeys("port");
+        final ConfigOption<Map<String, String>> props = ConfigOptions.key("avro.properties").mapType()
+                .noDefaultValue();
+        final Configuration config = new Configuration();
+        config.setString("port", "8080");
+        config.setString("avro.properties.schema", "1");
+        config.setString("avro.properties.other-prop", "2");
+        config.setString("avro.propertiesx", "3");
+
+        final FrozenConfiguration frozen = config.freeze();
+        assert frozen.get(port) == 8080;
+        assert frozen.getInt(port) == 8080;
+        assert frozen.get(props).equals(Map.of("schema", "1", "other-prop", "2"));
+
+        // 冻结之后的写入不影响冻结的配置
+        config.setString("port", "9090");
+        assert frozen.getInt(port) == 8080;
+    }
+
+    /**
+     * 序列化之后仍然可以读取
+     */
+    @Test
+    public void serialize() throws Exception {
+        final Configuration config = new Configuration();
+        for (int i = 0; i < 100; i++) {
+            config.setString("fusion.key-" + i, "value-" + i);
+        }
+        final FrozenConfiguration frozen = config.freeze();
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(frozen);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            final FrozenConfiguration copy = (FrozenConfiguration) in.readObject();
+            for (int i = 0; i < 100; i++) {
+                assert copy.getString("fusion.key-" + i, null).equals("value-" + i);
+            }
+            assert copy.toConfiguration().getKeys().equals(config.getKeys());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.LayeredConfiguration;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 分层叠加配置的测试单元, 读取结果和依次 addAll 合并之后的配置一致
+ */
+public class LayeredConfigurationTests {
+
+    private static final ConfigOption<Integer> PARALLELISM = ConfigOptions.key("application.parallelism")
+            .intType()
+            .defaultValue(1)
+            .withFallbackKeys("parallelism");
+
+    private static final ConfigOption<Map<String, String>> AVRO = ConfigOptions.key("avro.properties")
+            .mapType()
+            .noDefaultValue();
+
+    /**
+     * 高优先级覆盖低优先级, 写入只影响最上层, 下层配置变化之后读取到新值
+     */
+    @Test
+    public void overlay() {
+        final Configuration defaults = new Configuration();
+        defaults.setString("application.parallelism", "1");
+        defaults.setString("tmp.dir", "/tmp");
+        final Configuration job = new Configuration();
+        job.setString("parallelism", "8");
+        job.setString("tmp.dir", "/data/tmp");
+
+        final LayeredConfiguration effective = LayeredConfiguration.of(defaults, job);
+        // 主KEY 优先于其他配置层的 fallback key
+        assert effective.getInt(PARALLELISM) == 1;
+        assert effective.getString("tmp.dir", null).equals("/data/tmp");
+
+        effective.set(PARALLELISM, 4);
+        assert effective.getInt(PARALLELISM) == 4;
+        assert !defaults.containsKey("parallelism") && defaults.getInt(PARALLELISM) == 1;
+
+        job.setString("tmp.dir", "/var/tmp");
+        assert effective.getString("tmp.dir", null).equals("/var/tmp");
+        defaults.setString("new.key", "v");
+        assert effective.containsKey("new.key");
+        assert effective.getKeys().size() == 4;
+    }
+
+    /**
+     * 随机写入各个配置层, 每次都和 addAll 合并的配置对比
+     */
+    @Test
+    public void matchesMergedConfiguration() {
+        final String[] keys = {"avro.properties", "avro.properties.schema", "avro.properties.other",
+                "application.parallelism", "parallelism", "tmp.dir"};
+        final Random random = new Random(3);
+        final Configuration[] lower = {new Configuration(), new Configuration(), new Configuration()};
+        final LayeredConfiguration effective = LayeredConfiguration.of(lower);
+        final Configuration[] all = effective.layers().toArray(new Configuration[0]);
+
+        for (int step = 0; step < 500; step++) {
+            final Configuration layer = all[random.nextInt(all.length)];
+            final String key = keys[random.nextInt(keys.length)];
+            if (key.equals("avro.properties")) {
+                layer.set(AVRO, Map.of("k", "v" + step));
+            } else {
+                layer.setString(key, String.valueOf(step));
+            }
+
+            final Configuration merged = effective.toConfiguration();
+            assert effective.getKeys().equals(merged.getKeys());
+            for (String candidate : keys) {
+                assert effective.getRawValue(candidate).equals(merged.getRawValue(candidate)) : candidate;
+            }
+            assert effective.getOptional(PARALLELISM).equals(merged.getOptional(PARALLELISM));
+            assert effective.getOptional(AVRO).equals(merged.getOptional(AVRO));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.ConfigOption;
+import org.meteorcat.fusion.configuration.ConfigOptions;
+import org.meteorcat.fusion.configuration.Configuration;
+import org.meteorcat.fusion.configuration.MemorySize;
+import org.meteorcat.fusion.configuration.SharedConfiguration;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内存映射共享配置的测试单元
+ */
+public class SharedConfigurationTests {
+
+    /**
+     * 发布之后映射读取, 包括基本类型、fallback key 和前缀配置
+     */
+    @Test
+    public void publishAndRead() throws Exception {
+        final ConfigOption<Integer> port = ConfigOptions.key("net.port").intType().defaultValue(80)
+                .withDeprecatedKeys("port");
+        final ConfigOption<Long> size = ConfigOptions.key("net.size").longType().defaultValue(0L);
+        final ConfigOption<Double> ratio = ConfigOptions.key("net.ratio").doubleType().defaultValue(0.0);
+        final ConfigOption<Boolean> enabled = ConfigOptions.key("net.enabled").booleanType().defaultValue(false);
+        final ConfigOption<Map<String, String>> props = ConfigOptions.key("avro.properties").mapType()
+                .noDefaultValue();
+        final Configuration config = new Configuration();
+        config.setString("port", "8080");
+        config.setLong(size, 1L << 40);
+        config.setDouble(ratio, 0.75);
+        config.setBoolean(enabled, true);
+        config.setString("net.name", "网络");
+        config.setString("avro.properties.schema", "1");
+        config.setString("avro.properties.other-prop", "2");
+        config.setString("avro.propertiesx", "3");
+
+        final Path file = Files.createTempFile("fusion-shared", ".conf");
+        try {
+            SharedConfiguration.publish(config, file);
+            try (SharedConfiguration shared = SharedConfiguration.open(file)) {
+                assert shared.size() == config.getKeys().size();
+                assert shared.getKeys().equals(config.getKeys());
+                assert shared.getInt(port) == 8080;
+                assert shared.get(port) == 8080;
+                assert shared.getLong(size) == 1L << 40;
+                assert shared.getDouble(ratio) == 0.75;
+                assert shared.getBoolean(enabled);
+                assert shared.getString("net.name", null).equals("网络");
+                assert shared.get(props).equals(Map.of("schema", "1", "other-prop", "2"));
+                assert !shared.containsKey("missing");
+                assert shared.toConfiguration().getKeys().equals(config.getKeys());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * 通过 set 写入的列表|Map|时间间隔|内存大小|枚举按照规范文本发布, 按照配置项读取的值一致
+     */
+    @Test
+    public void typedOptionValues() throws Exception {
+        final ConfigOption<List<Integer>> ports = ConfigOptions.key("net.ports").intType().asList().noDefaultValues();
+        final ConfigOption<Map<String, String>> tags = ConfigOptions.key("net.tags").mapType().noDefaultValue();
+        final ConfigOption<Duration> timeout = ConfigOptions.key("net.timeout").durationType().noDefaultValue();
+        final ConfigOption<MemorySize> buffer = ConfigOptions.key("net.buffer").memoryType().noDefaultValue();
+        final ConfigOption<TimeUnit> unit = ConfigOptions.key("net.unit").enumType(TimeUnit.class).noDefaultValue();
+        final Configuration config = new Configuration();
+        config.set(ports, List.of(1, 2));
+        config.set(tags, Map.of("zone", "a"));
+        config.set(timeout, Duration.ofSeconds(5));
+        config.set(buffer, MemorySize.ofBytes(64 * 1024));
+        config.set(unit, TimeUnit.SECONDS);
+
+        final Path file = Files.createTempFile("fusion-shared", ".conf");
+        try {
+            SharedConfiguration.publish(config, file);
+            try (SharedConfiguration shared = SharedConfiguration.open(file)) {
+                assert shared.get(ports).equals(List.of(1, 2));
+                assert shared.get(tags).equals(Map.of("zone", "a"));
+                assert shared.get(timeout).equals(Duration.ofSeconds(5));
+                assert shared.get(buffer).equals(MemorySize.ofBytes(64 * 1024));
+                assert shared.get(unit) == TimeUnit.SECONDS;
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * 重新发布之后版本号变大, 内容变大时读取方重新映射
+     */
+    @Test
+    public void republish() throws Exception {
+        final Configuration config = new Configuration();
+        config.setString("fusion.key", "before");
+        final Path file = Files.createTempFile("fusion-shared", ".conf");
+        try {
+            final long first = SharedConfiguration.publish(config, file);
+            try (SharedConfiguration shared = SharedConfiguration.open(file)) {
+                assert shared.generation() == first;
+                assert shared.getString("fusion.key", null).equals("before");
+
+                config.setString("fusion.key", "after");
+                for (int i = 0; i < 10_000; i++) {
+                    config.setString("fusion.key-" + i, "value-" + i);
+                }
+                final long second = SharedConfiguration.publish(config, file);
+                assert second > first;
+                assert shared.generation() == second;
+                assert shared.getString("fusion.key", null).equals("after");
+                assert shared.getString("fusion.key-9999", null).equals("value-9999");
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * 写入方在写入中途退出(版本号停留在奇数)时, 读取方抛出异常而不是一直等待
+     */
+    @Test
+    public void abandonedPublisher() throws Exception {
+        final Configuration config = new Configuration();
+        config.setString("fusion.key", "value");
+        final Path file = Files.createTempFile("fusion-shared", ".conf");
+        try {
+            final long generation = SharedConfiguration.publish(config, file);
+            try (SharedConfiguration shared = SharedConfiguration.open(file)) {
+                // 模拟写入方把版本号改成奇数之后退出
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, generation + 1), 8);
+                }
+                // toString 不等待写入完成也不抛出异常
+                assert shared.toString().contains("generation=" + (generation + 1) + " (publishing)") : shared;
+                try {
+                    shared.getString("fusion.key", null);
+                    assert false : "Reading a half written file should fail";
+                } catch (IllegalStateException e) {
+                    assert e.getMessage().contains("published again") : e.getMessage();
+                }
+            }
+            try {
+                SharedConfiguration.open(file).close();
+                assert false : "Opening a half written file should fail";
+            } catch (IllegalStateException e) {
+                assert e.getMessage().contains("published again") : e.getMessage();
+            }
+
+            // 重新发布之后恢复
+            SharedConfiguration.publish(config, file);
+            try (SharedConfiguration shared = SharedConfiguration.open(file)) {
+                assert shared.getString("fusion.key", null).equals("value");
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
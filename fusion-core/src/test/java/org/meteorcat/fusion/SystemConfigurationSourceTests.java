@@ -0,0 +1,78 @@
+package org.meteorcat.fusion;
+
+import org.junit.Test;
+import org.meteorcat.fusion.configuration.*;
+
+import java.util.List;
+
+/**
+ * 环境变量|系统属性配置来源的测试单元
+ */
+public class SystemConfigurationSourceTests {
+
+    private static final ConfigOption<Integer> TASK_SLOTS = ConfigOptions.key("task.slots")
+            .intType()
+            .defaultValue(1)
+            .withFallbackKeys("taskmanager.slots");
+
+    /**
+     * 配置KEY换算成环境变量名称
+     */
+    @Test
+    public void environmentName() {
+        assert SystemConfigurationSource.toEnvironmentName("FUSION_", "task.slots").equals("FUSION_TASK_SLOTS");
+        assert SystemConfigurationSource.toEnvironmentName("FUSION_", "state.backend-type")
+                .equals("FUSION_STATE_BACKEND_TYPE");
+        assert SystemConfigurationSource.toEnvironmentName("", "Path").equals("PATH");
+
+        // 没有前缀时可以读取到已有的环境变量
+        final String path = System.getenv("PATH");
+        assert path == null || SystemConfigurationSource.environment("").getString("path", null).equals(path);
+    }
+
+    /**
+     * 系统属性按需读取, 第一次读取之后缓存结果, 支持 fallback key
+     */
+    @Test
+    public void systemProperties() {
+        final String prefix = "fusion-test-" + System.nanoTime() + ".";
+        System.setProperty(prefix + "taskmanager.slots", "4");
+        try {
+            final SystemConfigurationSource source = SystemConfigurationSource.systemProperties(prefix);
+            assert source.get(TASK_SLOTS) == 4;
+            assert !source.containsKey("task.slots");
+
+            // 第一次读取之后缓存结果
+            System.setProperty(prefix + "task.slots", "8");
+            assert !source.containsKey("task.slots");
+            assert SystemConfigurationSource.systemProperties(prefix).get(TASK_SLOTS) == 8;
+        } finally {
+            System.clearProperty(prefix + "taskmanager.slots");
+            System.clearProperty(prefix + "task.slots");
+        }
+    }
+
+    /**
+     * 配置来源的优先级高于只读配置层, 低于可写入配置层
+     */
+    @Test
+    public void layeredSources() {
+        final String prefix = "fusion-test-" + System.nanoTime() + ".";
+        System.setProperty(prefix + "task.slots", "4");
+        try {
+            final Configuration defaults = new Configuration();
+            defaults.set(TASK_SLOTS, 2);
+            defaults.setString("tmp.dir", "/tmp");
+            final LayeredConfiguration effective = LayeredConfiguration.of(
+                    List.of(defaults),
+                    List.of(SystemConfigurationSource.systemProperties(prefix)));
+
+            assert effective.getInt(TASK_SLOTS) == 4;
+            assert effective.getString("tmp.dir", null).equals("/tmp");
+            effective.set(TASK_SLOTS, 16);
+            assert effective.getInt(TASK_SLOTS) == 16;
+        } finally {
+            System.clearProperty(prefix + "task.slots");
+        }
+    }
+}
@@ -0,0 +1,676 @@
+package org.meteorcat.fusion.processor;
+
+import com.sun.source.tree.*;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * 编译期扫描 ConfigOptions.key(...) 声明的静态配置项, 生成 ConfigOptionRegistry 实现类
+ * <pre>{@code
+ * public static final ConfigOption<Integer> PORT = ConfigOptions.key("net.port")
+ *         .intType()
+ *         .defaultValue(8080)
+ *         .withDeprecatedKeys("port");
+ * }</pre>
+ * 生成的类包含所有配置项的 KEY|类型|默认值|fallback keys, 以及 KEY -> 配置项的字符串 switch 索引,
+ * 并写入 META-INF/services 让 ServiceLoader 可以找到
+ * 注:
+ * 1. 只分析源代码之中的初始化表达式, 配置项需要是 static final 字段并且以 ConfigOptions.key(...) 开头
+ * 2. private 字段不会收录; 生成的类访问不到的字段会给出警告并跳过
+ * 3. 生成的类名可以通过 -Afusion.registry=com.example.MyRegistry 指定,
+ * 默认放在第一个声明配置项的包之中, 名称为 FusionConfigOptionRegistry
+ * 4. 收录的配置项同时写入 META-INF/fusion/config-options 索引, 增量编译只重新编译部分类时,
+ * 合并上一次索引之中没有重新编译、并且声明的字段仍然存在的配置项, 避免目录丢失配置项
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(ConfigOptionProcessor.REGISTRY_OPTION)
+public final class ConfigOptionProcessor extends AbstractProcessor {
+
+    /**
+     * 指定生成类名的处理器参数
+     */
+    static final String REGISTRY_OPTION = "fusion.registry";
+
+    /**
+     * 默认生成的类名
+     */
+    static final String DEFAULT_REGISTRY_NAME = "FusionConfigOptionRegistry";
+
+    private static final String CONFIG_OPTION = "org.meteorcat.fusion.configuration.ConfigOption";
+
+    private static final String REGISTRY_INTERFACE = "org.meteorcat.fusion.configuration.ConfigOptionRegistry";
+
+    private static final String DESCRIPTOR = "org.meteorcat.fusion.configuration.ConfigOptionDescriptor";
+
+    /**
+     * 配置项索引, 记录上一次编译收录的配置项, 用于增量编译时合并
+     */
+    static final String INDEX_RESOURCE = "META-INF/fusion/config-options";
+
+    /**
+     * javac 的语法树访问入口, 非 javac 编译器时为 null
+     */
+    private Trees trees;
+
+    /**
+     * 每次编译只生成一次
+     */
+    private boolean generated;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        try {
+            this.trees = Trees.instance(processingEnv);
+        } catch (IllegalArgumentException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "ConfigOption catalog requires javac, registry generation disabled.");
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated || trees == null || roundEnv.processingOver()) {
+            return false;
+        }
+        final TypeElement optionType = processingEnv.getElementUtils().getTypeElement(CONFIG_OPTION);
+        if (optionType == null) {
+            return false;
+        }
+        final TypeMirror optionErasure = processingEnv.getTypeUtils().erasure(optionType.asType());
+
+        final List<VariableElement> fields = new ArrayList<>();
+        final Set<String> compiledTypes = new HashSet<>();
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            collectFields(type, optionErasure, fields, compiledTypes);
+        }
+        final List<OptionModel> previous = readIndex();
+        if (fields.isEmpty() && previous.isEmpty()) {
+            return false;
+        }
+
+        // 上一次编译收录的配置项, 声明的类本次没有重新编译并且字段仍然存在时保留
+        final Map<VariableElement, OptionModel> retained = new LinkedHashMap<>();
+        for (OptionModel option : previous) {
+            if (!compiledTypes.contains(option.declaringClass)) {
+                final VariableElement field = resolveField(option);
+                if (field != null) {
+                    retained.put(field, option);
+                }
+            }
+        }
+
+        final List<VariableElement> allFields = new ArrayList<>(fields);
+        allFields.addAll(retained.keySet());
+        final String registryName = registryName(allFields);
+        final String registryPackage = packageOf(registryName);
+        final TreeMap<String, OptionModel> options = new TreeMap<>();
+        for (VariableElement field : allFields) {
+            final OptionModel option = retained.containsKey(field) ? retained.get(field) : parse(field);
+            if (option == null || !isAccessible(field, registryPackage)) {
+                continue;
+            }
+            final OptionModel existing = options.putIfAbsent(option.key, option);
+            if (existing != null) {
+                warn(field, "Duplicate ConfigOption key '" + option.key + "', already declared by "
+                        + existing.declaringClass + "." + existing.fieldName + ".");
+            }
+        }
+        // 上一次有索引时即使没有配置项也要重新生成, 覆盖掉已经删除的配置项
+        if (options.isEmpty() && previous.isEmpty()) {
+            return false;
+        }
+
+        generated = true;
+        final Element[] originating = fields.stream()
+                .map(Element::getEnclosingElement)
+                .distinct()
+                .toArray(Element[]::new);
+        try {
+            writeRegistry(registryName, options.values(), originating);
+            writeServiceFile(registryName);
+            writeIndex(options.values(), originating);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to generate ConfigOption registry: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 收集类型以及嵌套类型之中的 static final ConfigOption 字段, private 字段不收录
+     * 本次编译的类型名称记录到 compiledTypes
+     */
+    private void collectFields(TypeElement type, TypeMirror optionErasure, List<VariableElement> fields,
+                               Set<String> compiledTypes) {
+        compiledTypes.add(type.getQualifiedName().toString());
+        for (Element member : type.getEnclosedElements()) {
+            if (member instanceof TypeElement nested) {
+                collectFields(nested, optionErasure, fields, compiledTypes);
+            } else if (member.getKind() == ElementKind.FIELD
+                    && member.getModifiers().containsAll(Set.of(Modifier.STATIC, Modifier.FINAL))
+                    && !member.getModifiers().contains(Modifier.PRIVATE)
+                    && processingEnv.getTypeUtils().isSameType(
+                    processingEnv.getTypeUtils().erasure(member.asType()), optionErasure)) {
+                fields.add((VariableElement) member);
+            }
+        }
+    }
+
+    /**
+     * 生成的类名, 没有指定时放在第一个声明配置项的包之中
+     */
+    private String registryName(List<VariableElement> fields) {
+        final String configured = processingEnv.getOptions().get(REGISTRY_OPTION);
+        if (configured != null && !configured.isBlank()) {
+            return configured.trim();
+        }
+        String firstPackage = null;
+        for (VariableElement field : fields) {
+            final String name = processingEnv.getElementUtils().getPackageOf(field).getQualifiedName().toString();
+            if (firstPackage == null || name.compareTo(firstPackage) < 0) {
+                firstPackage = name;
+            }
+        }
+        return firstPackage == null || firstPackage.isEmpty()
+                ? DEFAULT_REGISTRY_NAME
+                : firstPackage + "." + DEFAULT_REGISTRY_NAME;
+    }
+
+    /**
+     * 判断生成的类能否直接访问字段: 字段和所有外部类都是 public, 或者同包并且都不是 private
+     */
+    private boolean isAccessible(VariableElement field, String registryPackage) {
+        final boolean samePackage = processingEnv.getElementUtils().getPackageOf(field)
+                .getQualifiedName().contentEquals(registryPackage);
+        Element current = field;
+        while (current != null && current.getKind() != ElementKind.PACKAGE) {
+            final Set<Modifier> modifiers = current.getModifiers();
+            final boolean visible = modifiers.contains(Modifier.PUBLIC)
+                    || (samePackage && !modifiers.contains(Modifier.PRIVATE));
+            if (!visible) {
+                warn(field, "ConfigOption field is not accessible from the generated registry, skipped.");
+                return false;
+            }
+            current = current.getEnclosingElement();
+        }
+        return true;
+    }
+
+
+    // 初始化表达式解析 --------------------------------------------------
+
+    /**
+     * 解析字段的初始化表达式, 不是 ConfigOptions.key(...) 开头的调用链返回 null
+     */
+    private OptionModel parse(VariableElement field) {
+        final TreePath fieldPath = trees.getPath(field);
+        if (fieldPath == null || !(fieldPath.getLeaf() instanceof VariableTree variable)
+                || variable.getInitializer() == null) {
+            return null;
+        }
+        final CompilationUnitTree unit = fieldPath.getCompilationUnit();
+
+        // 从外到内展开调用链, 得到 key(...) -> xxxType() -> defaultValue(...) -> withXxx(...) 的顺序
+        final Deque<MethodInvocationTree> calls = new ArrayDeque<>();
+        ExpressionTree current = variable.getInitializer();
+        while (current instanceof MethodInvocationTree invocation) {
+            calls.addFirst(invocation);
+            if (invocation.getMethodSelect() instanceof MemberSelectTree member) {
+                current = member.getExpression();
+            } else {
+                break;
+            }
+        }
+        if (calls.isEmpty() || !"key".equals(methodName(calls.getFirst()))) {
+            return null;
+        }
+
+        final OptionModel option = new OptionModel();
+        option.declaringClass = ((TypeElement) field.getEnclosingElement()).getQualifiedName().toString();
+        option.fieldName = field.getSimpleName().toString();
+        boolean isList = false;
+        for (MethodInvocationTree call : calls) {
+            final String name = methodName(call);
+            final List<? extends ExpressionTree> arguments = call.getArguments();
+            switch (name) {
+                case "key" -> option.key = stringConstant(unit, arguments.get(0));
+                case "asList" -> isList = true;
+                case "enumType" -> option.type = arguments.get(0).toString().replaceAll("\\.class$", "");
+                case "mapType" -> option.type = "Map<String, String>";
+                case "defaultValue", "defaultValues" -> option.defaultValue = sourceText(arguments);
+                case "withFallbackKeys" -> arguments.forEach(a -> option.fallbackKeys.add(stringConstant(unit, a)));
+                case "withDeprecatedKeys" -> arguments.forEach(a -> option.deprecatedKeys.add(stringConstant(unit, a)));
+                case "withDescription" -> option.description = arguments.size() == 1
+                        ? constant(unit, arguments.get(0)) instanceof String text ? text : null
+                        : null;
+                default -> {
+                    if (name.endsWith("Type")) {
+                        option.type = typeName(name);
+                    }
+                }
+            }
+        }
+        if (option.key == null) {
+            warn(field, "ConfigOption key is not a compile-time constant, skipped.");
+            return null;
+        }
+        if (option.fallbackKeys.contains(null) || option.deprecatedKeys.contains(null)) {
+            warn(field, "ConfigOption fallback key is not a compile-time constant, skipped.");
+            return null;
+        }
+        if (isList && option.type != null) {
+            option.type = "List<" + option.type + ">";
+        }
+        return option;
+    }
+
+    /**
+     * 调用的方法名称
+     */
+    private static String methodName(MethodInvocationTree invocation) {
+        final ExpressionTree select = invocation.getMethodSelect();
+        if (select instanceof MemberSelectTree member) {
+            return member.getIdentifier().toString();
+        } else if (select instanceof IdentifierTree identifier) {
+            return identifier.getName().toString();
+        }
+        return "";
+    }
+
+    /**
+     * xxxType() 对应的类型名称
+     */
+    private static String typeName(String builderMethod) {
+        return switch (builderMethod) {
+            case "intType" -> "Integer";
+            case "memoryType" -> "MemorySize";
+            default -> {
+                final String base = builderMethod.substring(0, builderMethod.length() - "Type".length());
+                yield Character.toUpperCase(base.charAt(0)) + base.substring(1);
+            }
+        };
+    }
+
+    /**
+     * 默认值的源代码文本, 多个默认值用 ", " 连接
+     */
+    private static String sourceText(List<? extends ExpressionTree> arguments) {
+        final StringJoiner joiner = new StringJoiner(", ");
+        arguments.forEach(argument -> joiner.add(argument.toString()));
+        return joiner.toString();
+    }
+
+    /**
+     * 字符串常量, 不是常量返回 null
+     */
+    private String stringConstant(CompilationUnitTree unit, ExpressionTree expression) {
+        return constant(unit, expression) instanceof String text ? text : null;
+    }
+
+    /**
+     * 计算编译期常量: 字面量或者引用的常量字段, 不是常量返回 null
+     */
+    private Object constant(CompilationUnitTree unit, ExpressionTree expression) {
+        if (expression instanceof LiteralTree literal) {
+            return literal.getValue();
+        }
+        final TreePath path = TreePath.getPath(unit, expression);
+        final Element element = path == null ? null : trees.getElement(path);
+        return element instanceof VariableElement variable ? variable.getConstantValue() : null;
+    }
+
+    // ----------------------------------------------------------------
+
+
+    // 代码生成 --------------------------------------------------------
+
+    /**
+     * 生成 ConfigOptionRegistry 实现类
+     */
+    private void writeRegistry(String registryName, Collection<OptionModel> options,
+                               Element[] originating) throws IOException {
+        final String registryPackage = packageOf(registryName);
+        final String simpleName = registryName.substring(registryName.lastIndexOf('.') + 1);
+        final JavaFileObject file = processingEnv.getFiler().createSourceFile(registryName, originating);
+
+        final StringBuilder out = new StringBuilder();
+        if (!registryPackage.isEmpty()) {
+            out.append("package ").append(registryPackage).append(";\n\n");
+        }
+        out.append("/**\n")
+                .append(" * 配置项目录, 由 ").append(ConfigOptionProcessor.class.getName()).append(" 生成, 不要手动修改\n")
+                .append(" */\n")
+                .append("@javax.annotation.processing.Generated(\"")
+                .append(ConfigOptionProcessor.class.getName()).append("\")\n")
+                .append("public final class ").append(simpleName)
+                .append(" implements ").append(REGISTRY_INTERFACE).append(" {\n\n")
+                .append("    private static final java.util.List<").append(DESCRIPTOR)
+                .append("> DESCRIPTORS = java.util.List.of(");
+        boolean first = true;
+        for (OptionModel option : options) {
+            out.append(first ? "\n" : ",\n");
+            first = false;
+            out.append("            new ").append(DESCRIPTOR).append("(")
+                    .append(literal(option.key)).append(", ")
+                    .append(literal(option.type)).append(", ")
+                    .append(literal(option.defaultValue)).append(", ")
+                    .append(listLiteral(option.fallbackKeys)).append(", ")
+                    .append(listLiteral(option.deprecatedKeys)).append(", ")
+                    .append(literal(option.description)).append(", ")
+                    .append(literal(option.declaringClass)).append(", ")
+                    .append(literal(option.fieldName)).append(")");
+        }
+        out.append(");\n\n")
+                .append("    @Override\n")
+                .append("    public java.util.List<").append(DESCRIPTOR).append("> descriptors() {\n")
+                .append("        return DESCRIPTORS;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public ").append(CONFIG_OPTION).append("<?> option(String key) {\n")
+                .append("        return switch (key) {\n");
+
+        // 主KEY和 fallback key 共用一个 case, 重复的KEY只保留第一个配置项
+        final Set<String> seen = new HashSet<>();
+        for (OptionModel option : options) {
+            final List<String> labels = new ArrayList<>();
+            for (String key : option.allKeys()) {
+                if (seen.add(key)) {
+                    labels.add(literal(key));
+                }
+            }
+            if (labels.isEmpty()) {
+                continue;
+            }
+            out.append("            case ").append(String.join(", ", labels)).append(" -> ")
+                    .append(option.declaringClass).append('.').append(option.fieldName).append(";\n");
+        }
+        out.append("            default -> null;\n")
+                .append("        };\n")
+                .append("    }\n")
+                .append("}\n");
+
+        try (Writer writer = file.openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    /**
+     * 写入 ServiceLoader 的注册文件
+     */
+    private void writeServiceFile(String registryName) throws IOException {
+        final FileObject file = processingEnv.getFiler().createResource(
+                StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + REGISTRY_INTERFACE);
+        try (Writer writer = file.openWriter()) {
+            writer.write(registryName);
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * 写入配置项索引, 每行一个配置项, 字段之间用制表符分隔
+     */
+    private void writeIndex(Collection<OptionModel> options, Element[] originating) throws IOException {
+        final FileObject file = processingEnv.getFiler().createResource(
+                StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE, originating);
+        try (Writer writer = file.openWriter()) {
+            for (OptionModel option : options) {
+                writer.write(option.toIndexLine());
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * 读取上一次编译写入的配置项索引, 不存在时返回空列表
+     */
+    private List<OptionModel> readIndex() {
+        final List<OptionModel> options = new ArrayList<>();
+        try {
+            final FileObject file = processingEnv.getFiler().getResource(
+                    StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+            try (Reader reader = file.openReader(true); BufferedReader lines = new BufferedReader(reader)) {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        options.add(OptionModel.fromIndexLine(line));
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // 没有索引或者索引损坏时按照全量编译处理
+            return List.of();
+        }
+        return options;
+    }
+
+    /**
+     * 按照索引之中的类名和字段名查找字段, 类或者字段已经不存在时返回 null
+     */
+    private VariableElement resolveField(OptionModel option) {
+        final TypeElement type = processingEnv.getElementUtils().getTypeElement(option.declaringClass);
+        if (type == null) {
+            return null;
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getSimpleName().contentEquals(option.fieldName)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 字符串字面量, null 输出 null
+     */
+    private static String literal(String value) {
+        if (value == null) {
+            return "null";
+        }
+        final StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char ch = value.charAt(i);
+            switch (ch) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (ch < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        builder.append(ch);
+                    }
+                }
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * 字符串列表字面量
+     */
+    private static String listLiteral(List<String> values) {
+        final StringJoiner joiner = new StringJoiner(", ", "java.util.List.of(", ")");
+        values.forEach(value -> joiner.add(literal(value)));
+        return joiner.toString();
+    }
+
+    /**
+     * 类名之中的包名
+     */
+    private static String packageOf(String className) {
+        final int dot = className.lastIndexOf('.');
+        return dot < 0 ? "" : className.substring(0, dot);
+    }
+
+    /**
+     * 输出警告
+     */
+    private void warn(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+
+    // ----------------------------------------------------------------
+
+    /**
+     * 解析出的配置项
+     */
+    private static final class OptionModel {
+
+        private String key;
+
+        private String type;
+
+        private String defaultValue;
+
+        private final List<String> fallbackKeys = new ArrayList<>();
+
+        private final List<String> deprecatedKeys = new ArrayList<>();
+
+        private String description;
+
+        private String declaringClass;
+
+        private String fieldName;
+
+        /**
+         * 索引之中的一行: key|type|defaultValue|fallbackKeys|deprecatedKeys|description|declaringClass|fieldName
+         * 字段用制表符分隔, 列表用逗号分隔, null 记为 \0
+         */
+        String toIndexLine() {
+            final StringJoiner joiner = new StringJoiner("\t");
+            joiner.add(escape(key)).add(escape(type)).add(escape(defaultValue))
+                    .add(escapeList(fallbackKeys)).add(escapeList(deprecatedKeys))
+                    .add(escape(description)).add(escape(declaringClass)).add(escape(fieldName));
+            return joiner.toString();
+        }
+
+        /**
+         * 解析索引之中的一行
+         */
+        static OptionModel fromIndexLine(String line) {
+            final List<String> fields = split(line, '\t');
+            if (fields.size() != 8) {
+                throw new IllegalArgumentException("Malformed ConfigOption index line: " + line);
+            }
+            final OptionModel option = new OptionModel();
+            option.key = unescape(fields.get(0));
+            option.type = unescape(fields.get(1));
+            option.defaultValue = unescape(fields.get(2));
+            option.fallbackKeys.addAll(unescapeList(fields.get(3)));
+            option.deprecatedKeys.addAll(unescapeList(fields.get(4)));
+            option.description = unescape(fields.get(5));
+            option.declaringClass = unescape(fields.get(6));
+            option.fieldName = unescape(fields.get(7));
+            return option;
+        }
+
+        private static String escapeList(List<String> values) {
+            final StringJoiner joiner = new StringJoiner(",");
+            values.forEach(value -> joiner.add(escape(value)));
+            return joiner.toString();
+        }
+
+        private static List<String> unescapeList(String text) {
+            if (text.isEmpty()) {
+                return List.of();
+            }
+            final List<String> values = new ArrayList<>();
+            split(text, ',').forEach(value -> values.add(unescape(value)));
+            return values;
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "\\0";
+            }
+            final StringBuilder builder = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                final char ch = value.charAt(i);
+                switch (ch) {
+                    case '\\' -> builder.append("\\\\");
+                    case '\t' -> builder.append("\\t");
+                    case '\n' -> builder.append("\\n");
+                    case '\r' -> builder.append("\\r");
+                    case ',' -> builder.append("\\,");
+                    default -> builder.append(ch);
+                }
+            }
+            return builder.toString();
+        }
+
+        private static String unescape(String text) {
+            if (text.equals("\\0")) {
+                return null;
+            }
+            final StringBuilder builder = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                final char ch = text.charAt(i);
+                if (ch != '\\' || i + 1 == text.length()) {
+                    builder.append(ch);
+                    continue;
+                }
+                final char next = text.charAt(++i);
+                builder.append(switch (next) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> next;
+                });
+            }
+            return builder.toString();
+        }
+
+        /**
+         * 按照没有转义的分隔符拆分, 保留转义字符由 unescape 处理
+         */
+        private static List<String> split(String text, char separator) {
+            final List<String> parts = new ArrayList<>();
+            int start = 0;
+            for (int i = 0; i < text.length(); i++) {
+                final char ch = text.charAt(i);
+                if (ch == '\\') {
+                    i++;
+                } else if (ch == separator) {
+                    parts.add(text.substring(start, i));
+                    start = i + 1;
+                }
+            }
+            parts.add(text.substring(start));
+            return parts;
+        }
+
+        /**
+         * 主KEY以及所有 fallback key
+         */
+        List<String> allKeys() {
+            final List<String> keys = new ArrayList<>(1 + fallbackKeys.size() + deprecatedKeys.size());
+            keys.add(key);
+            keys.addAll(fallbackKeys);
+            keys.addAll(deprecatedKeys);
+            return keys;
+        }
+    }
+}